@@ -0,0 +1,39 @@
+package de.exlll.databaselib.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies in nanoseconds and computes their percentiles.
+ */
+final class LatencyRecorder {
+    private long[] values = new long[1024];
+    private int size;
+
+    synchronized void record(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+    }
+
+    synchronized int getCount() {
+        return size;
+    }
+
+    /**
+     * Returns the given percentiles of the recorded latencies.
+     *
+     * @param percentiles percentiles between 0 and 100
+     * @return the latencies of the percentiles in nanoseconds
+     */
+    synchronized long[] getPercentiles(double... percentiles) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length && size > 0; i++) {
+            int index = (int) Math.ceil(percentiles[i] / 100 * size) - 1;
+            result[i] = sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+        return result;
+    }
+}
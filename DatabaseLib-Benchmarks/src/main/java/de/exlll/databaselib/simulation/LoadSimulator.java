@@ -0,0 +1,235 @@
+package de.exlll.databaselib.simulation;
+
+import de.exlll.databaselib.simulation.SimulationReport.Operation;
+import de.exlll.databaselib.sql.submit.SqlSubmitterConfig;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates the database load of a server on which players join, their data
+ * is saved periodically and leaderboards are read.
+ * <p>
+ * Tasks are submitted from a simulated server thread through an
+ * {@code AsyncSqlTaskSubmitter} to an embedded H2 database whose statements are
+ * delayed by a configurable latency. At the end, the throughput and the
+ * latency percentiles of the phases of the tasks are printed: the time tasks
+ * waited in the queue, the time they waited for a connection, the time they
+ * executed and the time it took to deliver their callbacks to the server thread.
+ * <p>
+ * Options (defaults in parentheses):
+ * <pre>
+ * --players=N               number of simulated players (200)
+ * --duration=D              duration of the simulation (60s)
+ * --ramp-up=D               time within which all players join (10s)
+ * --save-interval=D         time between two saves of a player (5s)
+ * --leaderboard-interval=D  time between two leaderboard reads of a player (15s)
+ * --tick-interval=D         time between two ticks of the server thread (50ms)
+ * --pool-size=N             number of connections (10)
+ * --async-threads=N         number of threads of the async executor (16)
+ * --maximum-concurrency=N   maximum concurrency of the submitter (0)
+ * --virtual-threads=B       whether tasks run in virtual threads (false)
+ * --latency=D               latency added to every statement (2ms)
+ * --latency-jitter=D        maximum random deviation from the latency (1ms)
+ * </pre>
+ */
+public final class LoadSimulator {
+    private static final String URL = "jdbc:h2:mem:simulation;DB_CLOSE_DELAY=-1";
+    private static final Duration completionTimeout = Duration.ofSeconds(30);
+    private final SimulationConfig config;
+    private final SimulationReport report = new SimulationReport();
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private SimulationSubmitter submitter;
+    private volatile boolean stopped;
+
+    private LoadSimulator(SimulationConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulationConfig config = SimulationConfig.parse(args);
+        new LoadSimulator(config).run(System.out);
+    }
+
+    private void run(PrintStream out) throws Exception {
+        createSchema();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService asyncExecutor = Executors.newFixedThreadPool(
+                config.asyncThreads,
+                runnable -> new Thread(runnable, "Async thread " + threadCount.incrementAndGet())
+        );
+        SqlSubmitterConfig submitterConfig = SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(config.maximumConcurrency)
+                .setUseVirtualThreads(config.virtualThreads)
+                .build();
+        try (SimulatedConnectionPool pool = new SimulatedConnectionPool(
+                URL, config.poolSize, config.latency, config.latencyJitter
+        ); ServerThread serverThread = new ServerThread(config.tickInterval, this::tick)) {
+            submitter = new SimulationSubmitter(
+                    pool, serverThread, asyncExecutor, submitterConfig, report
+            );
+            out.println("Simulating " + config);
+            long start = System.nanoTime();
+            createPlayers(start);
+            serverThread.start();
+            TimeUnit.NANOSECONDS.sleep(config.duration.toNanos());
+            stopped = true;
+            awaitCompletion(out);
+            report.print(out, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            asyncExecutor.shutdownNow();
+        }
+    }
+
+    private static void createSchema() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS players " +
+                    "(uuid VARCHAR(36) PRIMARY KEY, coins INT NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS players_coins ON players (coins)");
+        }
+    }
+
+    private void createPlayers(long start) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < config.players; i++) {
+            long joinAt = start + random.nextLong(config.rampUp.toNanos() + 1);
+            players.add(new SimulatedPlayer(UUID.randomUUID().toString(), joinAt));
+        }
+    }
+
+    private void awaitCompletion(PrintStream out) throws InterruptedException {
+        long deadline = System.nanoTime() + completionTimeout.toNanos();
+        while (submitter.getInFlightCount() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        int inFlightCount = submitter.getInFlightCount();
+        if (inFlightCount > 0) {
+            out.println(inFlightCount + " operations didn't complete within " +
+                    completionTimeout.toSeconds() + "s and are not included.");
+        }
+    }
+
+    private void tick() {
+        if (stopped) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (SimulatedPlayer player : players) {
+            player.tick(now);
+        }
+    }
+
+    /* Only accessed by the server thread. */
+    private final class SimulatedPlayer {
+        private final String uuid;
+        private final long joinAt;
+        private boolean joining;
+        private boolean joined;
+        private int coins;
+        private long nextSave;
+        private long nextLeaderboardRead;
+
+        private SimulatedPlayer(String uuid, long joinAt) {
+            this.uuid = uuid;
+            this.joinAt = joinAt;
+        }
+
+        private void tick(long now) {
+            if (!joining && now - joinAt >= 0) {
+                joining = true;
+                join(now);
+            }
+            if (!joined) {
+                return;
+            }
+            if (now - nextSave >= 0) {
+                nextSave += config.saveInterval.toNanos();
+                save();
+            }
+            if (now - nextLeaderboardRead >= 0) {
+                nextLeaderboardRead += config.leaderboardInterval.toNanos();
+                readLeaderboard();
+            }
+        }
+
+        private void join(long now) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            submitter.submit(Operation.JOIN_SELECT,
+                    "SELECT coins FROM players WHERE uuid = ?",
+                    statement -> {
+                        statement.setString(1, uuid);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            return resultSet.next() ? resultSet.getInt(1) : -1;
+                        }
+                    },
+                    storedCoins -> {
+                        if (storedCoins == -1) {
+                            insert();
+                        } else {
+                            coins = storedCoins;
+                        }
+                        joined = true;
+                        // spread the periodic operations of all players evenly
+                        nextSave = now + random.nextLong(config.saveInterval.toNanos() + 1);
+                        nextLeaderboardRead = now +
+                                random.nextLong(config.leaderboardInterval.toNanos() + 1);
+                    }
+            );
+        }
+
+        private void insert() {
+            submitter.submit(Operation.JOIN_INSERT,
+                    "INSERT INTO players (uuid, coins) VALUES (?, ?)",
+                    statement -> {
+                        statement.setString(1, uuid);
+                        statement.setInt(2, 0);
+                        return statement.executeUpdate();
+                    },
+                    count -> {}
+            );
+        }
+
+        private void save() {
+            coins += ThreadLocalRandom.current().nextInt(100);
+            int savedCoins = coins;
+            submitter.submit(Operation.SAVE,
+                    "UPDATE players SET coins = ? WHERE uuid = ?",
+                    statement -> {
+                        statement.setInt(1, savedCoins);
+                        statement.setString(2, uuid);
+                        return statement.executeUpdate();
+                    },
+                    count -> {}
+            );
+        }
+
+        private void readLeaderboard() {
+            submitter.submit(Operation.LEADERBOARD,
+                    "SELECT uuid, coins FROM players ORDER BY coins DESC LIMIT 10",
+                    statement -> {
+                        List<String> leaders = new ArrayList<>();
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                leaders.add(resultSet.getString(1));
+                            }
+                        }
+                        return leaders;
+                    },
+                    leaders -> {}
+            );
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.exlll.databaselib.simulation;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the main thread of a server: once per tick, the tick action is
+ * run, followed by all tasks that have been submitted before the tick started.
+ * Like tasks passed to {@code BukkitScheduler#runTask}, tasks submitted during
+ * a tick are run during the next tick.
+ */
+final class ServerThread implements Executor, AutoCloseable {
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService thread = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "Server thread")
+    );
+    private final long tickNanos;
+    private final Runnable tickAction;
+
+    ServerThread(Duration tickInterval, Runnable tickAction) {
+        this.tickNanos = tickInterval.toNanos();
+        this.tickAction = tickAction;
+    }
+
+    void start() {
+        thread.scheduleAtFixedRate(this::tick, 0, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+    }
+
+    private void tick() {
+        run(tickAction);
+        for (int i = tasks.size(); i > 0; i--) {
+            run(tasks.poll());
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        thread.shutdownNow();
+    }
+}
@@ -0,0 +1,146 @@
+package de.exlll.databaselib.simulation;
+
+import de.exlll.databaselib.sql.pool.SqlConnectionPool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A fixed size pool of connections to an embedded database whose statements
+ * wait for a configurable latency before they are executed, which simulates
+ * the round trip to a remote database server.
+ */
+final class SimulatedConnectionPool implements SqlConnectionPool {
+    private final List<Connection> connections = new ArrayList<>();
+    private final BlockingQueue<Connection> idleConnections;
+    private final long latencyNanos;
+    private final long latencyJitterNanos;
+
+    SimulatedConnectionPool(String url, int size, Duration latency, Duration latencyJitter)
+            throws SQLException {
+        this.idleConnections = new ArrayBlockingQueue<>(size);
+        this.latencyNanos = latency.toNanos();
+        this.latencyJitterNanos = latencyJitter.toNanos();
+        for (int i = 0; i < size; i++) {
+            Connection connection = DriverManager.getConnection(url);
+            connections.add(connection);
+            idleConnections.add(connection);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            Connection connection = idleConnections.take();
+            return proxy(Connection.class, new PooledConnection(connection));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void simulateLatency() {
+        long jitter = (latencyJitterNanos == 0)
+                ? 0
+                : ThreadLocalRandom.current().nextLong(-latencyJitterNanos, latencyJitterNanos + 1);
+        long deadline = System.nanoTime() + Math.max(0, latencyNanos + jitter);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                SimulatedConnectionPool.class.getClassLoader(), new Class<?>[]{type}, handler
+        ));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection connection;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        if (!connection.getAutoCommit()) {
+                            connection.rollback();
+                            connection.setAutoCommit(true);
+                        }
+                        idleConnections.add(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get();
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    Object statement = SimulatedConnectionPool.invoke(connection, method, args);
+                    return proxy(method.getReturnType(), new DelayedStatement(statement));
+                case "commit":
+                case "rollback":
+                    simulateLatency();
+                    return SimulatedConnectionPool.invoke(connection, method, args);
+                default:
+                    if (closed.get()) {
+                        throw new SQLException("The connection has been closed.");
+                    }
+                    return SimulatedConnectionPool.invoke(connection, method, args);
+            }
+        }
+    }
+
+    private final class DelayedStatement implements InvocationHandler {
+        private final Object statement;
+
+        private DelayedStatement(Object statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                simulateLatency();
+            }
+            return SimulatedConnectionPool.invoke(statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.exlll.databaselib.simulation;
+
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link LoadSimulator} run, parsed from command line
+ * arguments of the form {@code --name=value}.
+ */
+final class SimulationConfig {
+    int players = 200;
+    Duration duration = Duration.ofSeconds(60);
+    Duration rampUp = Duration.ofSeconds(10);
+    Duration saveInterval = Duration.ofSeconds(5);
+    Duration leaderboardInterval = Duration.ofSeconds(15);
+    Duration tickInterval = Duration.ofMillis(50);
+    int poolSize = 10;
+    int asyncThreads = 16;
+    int maximumConcurrency = 0;
+    boolean virtualThreads;
+    Duration latency = Duration.ofMillis(2);
+    Duration latencyJitter = Duration.ofMillis(1);
+
+    static SimulationConfig parse(String... args) {
+        SimulationConfig config = new SimulationConfig();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (!arg.startsWith("--") || index == -1) {
+                String msg = "Problem: The argument '" + arg + "' is invalid.\n" +
+                        "Solution: Pass arguments of the form '--name=value'.";
+                throw new IllegalArgumentException(msg);
+            }
+            config.set(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return config;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "players":
+                players = parsePositiveInt(name, value);
+                break;
+            case "duration":
+                duration = parseDuration(name, value);
+                break;
+            case "ramp-up":
+                rampUp = parseDuration(name, value);
+                break;
+            case "save-interval":
+                saveInterval = parseDuration(name, value);
+                break;
+            case "leaderboard-interval":
+                leaderboardInterval = parseDuration(name, value);
+                break;
+            case "tick-interval":
+                tickInterval = parseDuration(name, value);
+                break;
+            case "pool-size":
+                poolSize = parsePositiveInt(name, value);
+                break;
+            case "async-threads":
+                asyncThreads = parsePositiveInt(name, value);
+                break;
+            case "maximum-concurrency":
+                maximumConcurrency = Integer.parseInt(value);
+                break;
+            case "virtual-threads":
+                virtualThreads = Boolean.parseBoolean(value);
+                break;
+            case "latency":
+                latency = parseDuration(name, value);
+                break;
+            case "latency-jitter":
+                latencyJitter = parseDuration(name, value);
+                break;
+            default:
+                String msg = "Problem: The option '" + name + "' is unknown.\n" +
+                        "Solution: Pass one of the options listed in LoadSimulator.";
+                throw new IllegalArgumentException(msg);
+        }
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        int result = Integer.parseInt(value);
+        if (result < 1) {
+            String msg = "Problem: The value of '" + name + "' is " + result +
+                    " (less than 1).\nSolution: Pass a value greater than or equal to 1.";
+            throw new IllegalArgumentException(msg);
+        }
+        return result;
+    }
+
+    /* Parses durations like 250ms, 10s or 2m. */
+    private static Duration parseDuration(String name, String value) {
+        try {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            } else if (value.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+            } else if (value.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        String msg = "Problem: The value '" + value + "' of '" + name + "' is not a " +
+                "duration.\nSolution: Pass a duration like 250ms, 10s or 2m.";
+        throw new IllegalArgumentException(msg);
+    }
+
+    @Override
+    public String toString() {
+        return players + " players for " + duration.toSeconds() + "s, pool size " +
+                poolSize + ", " + (virtualThreads ? "virtual threads" : asyncThreads +
+                " async threads") + ", latency " + latency.toMillis() + "ms +- " +
+                latencyJitter.toMillis() + "ms";
+    }
+}
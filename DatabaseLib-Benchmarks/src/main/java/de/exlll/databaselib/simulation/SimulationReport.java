@@ -0,0 +1,127 @@
+package de.exlll.databaselib.simulation;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the latencies of the operations of a simulation and prints
+ * their throughput and percentiles.
+ */
+final class SimulationReport {
+    private static final double[] percentiles = {50, 99, 99.9};
+    private final Map<Phase, LatencyRecorder> phases = new EnumMap<>(Phase.class);
+    private final Map<Operation, LatencyRecorder> operations = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    SimulationReport() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyRecorder());
+        }
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new LatencyRecorder());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    enum Phase {
+        QUEUE_WAIT("queue wait"),
+        CONNECTION_WAIT("connection wait"),
+        EXECUTION("execution"),
+        CALLBACK_DELIVERY("callback delivery"),
+        TOTAL("total");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    enum Operation {
+        JOIN_SELECT("join (select)"),
+        JOIN_INSERT("join (insert)"),
+        SAVE("save"),
+        LEADERBOARD("leaderboard");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Records the latencies of a completed operation.
+     *
+     * @param operation  the operation
+     * @param submitted  time the task was submitted
+     * @param started    time the task requested a connection
+     * @param acquired   time the task got its connection
+     * @param executed   time the task finished its work
+     * @param delivered  time the callback was called
+     */
+    void record(
+            Operation operation,
+            long submitted,
+            long started,
+            long acquired,
+            long executed,
+            long delivered
+    ) {
+        phases.get(Phase.QUEUE_WAIT).record(started - submitted);
+        phases.get(Phase.CONNECTION_WAIT).record(acquired - started);
+        phases.get(Phase.EXECUTION).record(executed - acquired);
+        phases.get(Phase.CALLBACK_DELIVERY).record(delivered - executed);
+        phases.get(Phase.TOTAL).record(delivered - submitted);
+        operations.get(operation).record(delivered - submitted);
+    }
+
+    void recordFailure(Operation operation, Throwable throwable) {
+        failures.get(operation).increment();
+        firstFailure.compareAndSet(null, throwable);
+    }
+
+    void print(PrintStream out, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        int completed = phases.get(Phase.TOTAL).getCount();
+        long failed = failures.values().stream().mapToLong(LongAdder::sum).sum();
+        out.printf("Completed %d operations in %.1fs (%.1f ops/s), %d failed%n%n",
+                completed, seconds, completed / seconds, failed);
+
+        out.printf("%-20s %10s %10s %10s%n", "phase", "p50 (ms)", "p99 (ms)", "p999 (ms)");
+        for (Map.Entry<Phase, LatencyRecorder> entry : phases.entrySet()) {
+            printPercentiles(out, entry.getKey().name, entry.getValue());
+        }
+        out.println();
+
+        out.printf("%-20s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "ops/s", "p50 (ms)", "p99 (ms)", "p999 (ms)");
+        for (Map.Entry<Operation, LatencyRecorder> entry : operations.entrySet()) {
+            int count = entry.getValue().getCount();
+            out.printf("%-20s %10d %10.1f", entry.getKey().name, count, count / seconds);
+            printPercentiles(out, "", entry.getValue());
+        }
+
+        Throwable failure = firstFailure.get();
+        if (failure != null) {
+            out.println();
+            out.println("First failure:");
+            failure.printStackTrace(out);
+        }
+    }
+
+    private static void printPercentiles(PrintStream out, String name, LatencyRecorder recorder) {
+        if (!name.isEmpty()) {
+            out.printf("%-20s", name);
+        }
+        for (long nanos : recorder.getPercentiles(percentiles)) {
+            out.printf(" %10.3f", nanos / 1e6);
+        }
+        out.println();
+    }
+}
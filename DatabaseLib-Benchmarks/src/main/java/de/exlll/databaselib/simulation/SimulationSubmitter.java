@@ -0,0 +1,91 @@
+package de.exlll.databaselib.simulation;
+
+import de.exlll.databaselib.simulation.SimulationReport.Operation;
+import de.exlll.databaselib.sql.pool.SqlConnectionPool;
+import de.exlll.databaselib.sql.submit.AsyncSqlTaskSubmitter;
+import de.exlll.databaselib.sql.submit.CheckedSqlFunction;
+import de.exlll.databaselib.sql.submit.SqlSubmitterConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * An {@code AsyncSqlTaskSubmitter} set up like the {@code PluginSqlTaskSubmitter}
+ * of a Bukkit plugin that records the latencies of the tasks it submits.
+ * <p>
+ * A task requests its {@code Connection} right before it executes, so the
+ * time between submission and that request is the time the task waited in the
+ * task queue and for a thread. The pool records both times in a thread local
+ * that the task reads when it starts executing.
+ */
+final class SimulationSubmitter extends AsyncSqlTaskSubmitter {
+    private static final ThreadLocal<long[]> connectionTimes =
+            ThreadLocal.withInitial(() -> new long[2]);
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final SimulationReport report;
+
+    SimulationSubmitter(
+            SqlConnectionPool connectionPool,
+            Executor serverThread,
+            Executor asyncExecutor,
+            SqlSubmitterConfig config,
+            SimulationReport report
+    ) {
+        super(timed(connectionPool), serverThread, asyncExecutor, config);
+        this.report = report;
+    }
+
+    private static SqlConnectionPool timed(SqlConnectionPool connectionPool) {
+        return new SqlConnectionPool() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                long[] times = connectionTimes.get();
+                times[0] = System.nanoTime();
+                Connection connection = connectionPool.getConnection();
+                times[1] = System.nanoTime();
+                return connection;
+            }
+
+            @Override
+            public int getMaximumPoolSize() {
+                return connectionPool.getMaximumPoolSize();
+            }
+        };
+    }
+
+    int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    <R> void submit(
+            Operation operation,
+            String query,
+            CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
+            Consumer<? super R> resultConsumer
+    ) {
+        long submitted = System.nanoTime();
+        long[] times = new long[3];
+        inFlightCount.incrementAndGet();
+        submitSqlPreparedStatementTask(query, statement -> {
+            long[] connectionTimes = SimulationSubmitter.connectionTimes.get();
+            times[0] = connectionTimes[0];
+            times[1] = connectionTimes[1];
+            R result = function.apply(statement);
+            times[2] = System.nanoTime();
+            return result;
+        }, (result, throwable) -> {
+            long delivered = System.nanoTime();
+            inFlightCount.decrementAndGet();
+            if (throwable != null) {
+                report.recordFailure(operation, throwable);
+            } else {
+                report.record(operation, submitted, times[0], times[1], times[2], delivered);
+                resultConsumer.accept(result);
+            }
+        });
+    }
+}
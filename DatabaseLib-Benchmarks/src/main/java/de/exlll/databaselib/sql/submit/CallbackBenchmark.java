@@ -0,0 +1,45 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummySqlConnectionPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Measures the cost of wrapping a callback and delivering a result through
+ * the wrapper. The sync executor runs the delivery in the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CallbackBenchmark {
+    private AsyncSqlTaskSubmitter submitter;
+    private BiConsumer<Object, Throwable> callback;
+    private final Object result = new Object();
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        submitter = new AsyncSqlTaskSubmitter(
+                new DummySqlConnectionPool(), Runnable::run, Runnable::run
+        ) {};
+        callback = (result, throwable) -> blackhole.consume(result);
+    }
+
+    @Benchmark
+    public void wrapCallback() {
+        submitter.<Object>wrapCallback(callback).accept(result, null);
+    }
+
+    @Benchmark
+    public Object wrapCompletableFuture() {
+        CompletableFuture<Object> cf = new CompletableFuture<>();
+        submitter.wrapCompletableFuture(cf).accept(result, null);
+        return cf;
+    }
+}
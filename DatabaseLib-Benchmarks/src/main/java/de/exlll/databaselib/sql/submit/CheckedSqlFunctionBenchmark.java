@@ -0,0 +1,42 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a {@code CheckedSqlConsumer} wrapped by {@link CheckedSqlFunction#from}
+ * with a function that is implemented directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckedSqlFunctionBenchmark {
+    private final Object argument = new Object();
+    private CheckedSqlConsumer<Object> consumer;
+    private CheckedSqlFunction<Object, Void> function;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        consumer = blackhole::consume;
+        function = argument -> {
+            blackhole.consume(argument);
+            return null;
+        };
+    }
+
+    @Benchmark
+    public Object direct() throws SQLException {
+        return function.apply(argument);
+    }
+
+    @Benchmark
+    public Object wrapAndApply() throws SQLException {
+        return CheckedSqlFunction.from(consumer).apply(argument);
+    }
+}
@@ -0,0 +1,64 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummySqlConnectionPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Measures the overhead of submitting a task to an {@link AsyncSqlTaskSubmitter}.
+ * <p>
+ * Both executors run tasks in the calling thread and the connection pool
+ * returns a {@code DummyConnection}, so the results only contain the work done
+ * by the library: creating the task, dispatching it through the task queue,
+ * executing it and delivering its callback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubmitBenchmark {
+    private static final CheckedSqlFunction<Connection, Object> function = connection -> null;
+    private BenchmarkSubmitter submitter;
+    private BiConsumer<Object, Throwable> callback;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        submitter = new BenchmarkSubmitter();
+        callback = (result, throwable) -> blackhole.consume(result);
+    }
+
+    @Benchmark
+    public void submitTask() {
+        submitter.submit(new SqlConnectionTask<>(function, callback));
+    }
+
+    @Benchmark
+    public void submitSqlConnectionTask() {
+        submitter.submitConnectionTask(callback);
+    }
+
+    @Benchmark
+    public Object submitSqlConnectionTaskCompletionStage() {
+        return submitter.submitConnectionTask();
+    }
+
+    private static final class BenchmarkSubmitter extends AsyncSqlTaskSubmitter {
+        private BenchmarkSubmitter() {
+            super(new DummySqlConnectionPool(), Runnable::run, Runnable::run);
+        }
+
+        void submitConnectionTask(BiConsumer<Object, Throwable> callback) {
+            submitSqlConnectionTask(function, callback);
+        }
+
+        Object submitConnectionTask() {
+            return submitSqlConnectionTask(function);
+        }
+    }
+}
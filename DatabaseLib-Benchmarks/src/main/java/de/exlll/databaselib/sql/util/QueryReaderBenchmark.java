@@ -0,0 +1,75 @@
+package de.exlll.databaselib.sql.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link QueryReader} takes to split a script into its
+ * queries, once collecting them into a list and once consuming them one by one.
+ * The file benchmarks compare reading a script file through a {@code Reader}
+ * with reading it through a {@link MappedScriptSource}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryReaderBenchmark {
+    @Param({"100", "10000"})
+    private int queryCount;
+    private String script;
+    private Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        script = ScriptBenchmarks.createScript(queryCount);
+        path = Files.createTempFile("script", ".sql");
+        Files.write(path, script.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public List<String> readQueries() throws IOException {
+        return new QueryReader(new StringReader(script), ';').readQueries();
+    }
+
+    @Benchmark
+    public void nextQuery(Blackhole blackhole) throws IOException {
+        consume(new QueryReader(new StringReader(script), ';'), blackhole);
+    }
+
+    @Benchmark
+    public void readFile(Blackhole blackhole) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path)) {
+            consume(new QueryReader(reader, ';'), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void readMappedFile(Blackhole blackhole) throws IOException {
+        try (MappedScriptSource source = new MappedScriptSource(path, StandardCharsets.UTF_8)) {
+            consume(new QueryReader(source, ';'), blackhole);
+        }
+    }
+
+    private static void consume(QueryReader reader, Blackhole blackhole) throws IOException {
+        String query;
+        while ((query = reader.nextQuery()) != null) {
+            blackhole.consume(query);
+        }
+    }
+}
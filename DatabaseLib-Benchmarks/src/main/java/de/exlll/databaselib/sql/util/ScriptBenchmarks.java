@@ -0,0 +1,23 @@
+package de.exlll.databaselib.sql.util;
+
+final class ScriptBenchmarks {
+    private ScriptBenchmarks() {}
+
+    /**
+     * Returns a script of {@code queryCount} queries that contain quoted
+     * strings, line breaks and the given placeholders.
+     */
+    static String createScript(int queryCount, String... placeholders) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < queryCount; i++) {
+            String placeholder = (placeholders.length == 0)
+                    ? "players"
+                    : placeholders[i % placeholders.length];
+            builder.append("INSERT INTO ").append(placeholder)
+                    .append(" (id, name, motto)\n    VALUES (")
+                    .append(i).append(", \"player").append(i)
+                    .append("\", 'It''s a \\'quoted\\' motto; really');\n");
+        }
+        return builder.toString();
+    }
+}
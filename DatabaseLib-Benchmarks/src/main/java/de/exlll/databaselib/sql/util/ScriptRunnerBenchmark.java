@@ -0,0 +1,61 @@
+package de.exlll.databaselib.sql.util;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a {@link ScriptRunner} takes to run a script using a
+ * {@code DummyConnection}, which is dominated by reading the queries and
+ * applying the replacements, and how long it takes to run the same script
+ * after it has been parsed into a {@link ParsedScript}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptRunnerBenchmark {
+    @Param({"1000"})
+    private int queryCount;
+    @Param({"0", "1", "10", "100"})
+    private int replacementCount;
+    private final DummyConnection connection = new DummyConnection();
+    private final Map<String, Object> replacements = new HashMap<>();
+    private String script;
+    private ParsedScript parsedScript;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] placeholders = new String[replacementCount];
+        for (int i = 0; i < replacementCount; i++) {
+            placeholders[i] = "%TABLE_" + i + "%";
+            replacements.put(placeholders[i], "players_" + i);
+        }
+        script = ScriptBenchmarks.createScript(queryCount, placeholders);
+        parsedScript = ParsedScript.parse(new StringReader(script), replacements.keySet());
+    }
+
+    @Benchmark
+    public DummyConnection runScript() throws IOException, SQLException {
+        new ScriptRunner(new StringReader(script), connection)
+                .setReplacements(replacements)
+                .runScript();
+        return connection;
+    }
+
+    @Benchmark
+    public DummyConnection runParsedScript() throws IOException, SQLException {
+        new ScriptRunner(parsedScript, connection)
+                .setReplacements(replacements)
+                .runScript();
+        return connection;
+    }
+}
@@ -13,10 +13,19 @@ public abstract class PluginSqlTaskSubmitter extends AsyncSqlTaskSubmitter {
     }
 
     public PluginSqlTaskSubmitter(JavaPlugin plugin, SqlConnectionPool connectionPool) {
+        this(plugin, connectionPool, SqlSubmitterConfig.DEFAULT);
+    }
+
+    public PluginSqlTaskSubmitter(
+            JavaPlugin plugin,
+            SqlConnectionPool connectionPool,
+            SqlSubmitterConfig config
+    ) {
         super(
                 connectionPool,
                 task -> Bukkit.getScheduler().runTask(plugin, task),
-                task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task)
+                task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task),
+                config
         );
         this.plugin = plugin;
     }
@@ -19,10 +19,19 @@ public abstract class PluginSqlTaskSubmitter extends AsyncSqlTaskSubmitter {
     }
 
     public PluginSqlTaskSubmitter(Plugin plugin, SqlConnectionPool connectionPool) {
+        this(plugin, connectionPool, SqlSubmitterConfig.DEFAULT);
+    }
+
+    public PluginSqlTaskSubmitter(
+            Plugin plugin,
+            SqlConnectionPool connectionPool,
+            SqlSubmitterConfig config
+    ) {
         super(
                 connectionPool,
                 task -> taskExecutor.accept(plugin, task),
-                task -> taskExecutor.accept(plugin, task)
+                task -> taskExecutor.accept(plugin, task),
+                config
         );
         this.plugin = plugin;
     }
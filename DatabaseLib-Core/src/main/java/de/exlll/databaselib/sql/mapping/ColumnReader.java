@@ -0,0 +1,12 @@
+package de.exlll.databaselib.sql.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the value of a column of the current row of a {@code ResultSet}.
+ */
+@FunctionalInterface
+interface ColumnReader {
+    Object read(ResultSet resultSet, int column) throws SQLException;
+}
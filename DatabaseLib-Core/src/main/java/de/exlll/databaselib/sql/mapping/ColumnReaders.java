@@ -0,0 +1,103 @@
+package de.exlll.databaselib.sql.mapping;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Creates {@link ColumnReader ColumnReaders} that use the getter of
+ * {@code ResultSet} that matches the type of a value, so that values
+ * don't have to be converted by the mapper.
+ */
+final class ColumnReaders {
+    private static final Map<Class<?>, ColumnReader> readers = createReaders();
+
+    private ColumnReaders() {}
+
+    /**
+     * Returns a reader for values of the given type. Primitive types are read
+     * as their default value if the column is SQL {@code NULL}, their wrapper
+     * types are read as null.
+     *
+     * @param type type of the value
+     * @return reader for values of the given type
+     */
+    static ColumnReader of(Class<?> type) {
+        ColumnReader reader = readers.get(type);
+        if (reader != null) {
+            return reader;
+        }
+        if (type.isEnum()) {
+            return enumReader(type);
+        }
+        return (resultSet, column) -> resultSet.getObject(column, type);
+    }
+
+    private static Map<Class<?>, ColumnReader> createReaders() {
+        Map<Class<?>, ColumnReader> readers = new HashMap<>();
+        readers.put(String.class, ResultSet::getString);
+        readers.put(boolean.class, ResultSet::getBoolean);
+        readers.put(byte.class, ResultSet::getByte);
+        readers.put(short.class, ResultSet::getShort);
+        readers.put(int.class, ResultSet::getInt);
+        readers.put(long.class, ResultSet::getLong);
+        readers.put(float.class, ResultSet::getFloat);
+        readers.put(double.class, ResultSet::getDouble);
+        readers.put(Boolean.class, nullable(ResultSet::getBoolean));
+        readers.put(Byte.class, nullable(ResultSet::getByte));
+        readers.put(Short.class, nullable(ResultSet::getShort));
+        readers.put(Integer.class, nullable(ResultSet::getInt));
+        readers.put(Long.class, nullable(ResultSet::getLong));
+        readers.put(Float.class, nullable(ResultSet::getFloat));
+        readers.put(Double.class, nullable(ResultSet::getDouble));
+        readers.put(BigDecimal.class, ResultSet::getBigDecimal);
+        readers.put(byte[].class, ResultSet::getBytes);
+        // not every driver supports getObject(column, UUID.class)
+        readers.put(UUID.class, ColumnReaders::readUuid);
+        return readers;
+    }
+
+    private static ColumnReader nullable(ColumnReader reader) {
+        return (resultSet, column) -> {
+            Object value = reader.read(resultSet, column);
+            return resultSet.wasNull() ? null : value;
+        };
+    }
+
+    private static Object readUuid(ResultSet resultSet, int column) throws SQLException {
+        String value = resultSet.getString(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            String msg = "The value '" + value + "' of column " + column +
+                    " is not a UUID.";
+            throw new SQLException(msg, e);
+        }
+    }
+
+    private static ColumnReader enumReader(Class<?> type) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name(), constant);
+        }
+        return (resultSet, column) -> {
+            String name = resultSet.getString(column);
+            if (name == null) {
+                return null;
+            }
+            Object constant = constants.get(name);
+            if (constant == null) {
+                String msg = "The value '" + name + "' of column " + column +
+                        " is not a constant of " + type.getName() + ".";
+                throw new SQLException(msg);
+            }
+            return constant;
+        };
+    }
+}
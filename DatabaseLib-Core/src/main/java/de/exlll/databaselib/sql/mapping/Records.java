@@ -0,0 +1,81 @@
+package de.exlll.databaselib.sql.mapping;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Gives access to the components of records if the runtime supports them.
+ * <p>
+ * The library is compiled for Java 11, so {@code Class.isRecord()} and
+ * {@code Class.getRecordComponents()} are looked up at runtime. On runtimes
+ * without records, no class is a record.
+ */
+final class Records {
+    private static final Method isRecord = lookup(Class.class, "isRecord");
+    private static final Method getRecordComponents = lookup(Class.class, "getRecordComponents");
+    private static final Method getName = lookup("java.lang.reflect.RecordComponent", "getName");
+    private static final Method getType = lookup("java.lang.reflect.RecordComponent", "getType");
+
+    private Records() {}
+
+    private static Method lookup(String className, String methodName) {
+        try {
+            return lookup(Class.forName(className), methodName);
+        } catch (ClassNotFoundException e) {
+            // not available (Java < 16)
+            return null;
+        }
+    }
+
+    private static Method lookup(Class<?> type, String methodName) {
+        try {
+            return type.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            // not available (Java < 16)
+            return null;
+        }
+    }
+
+    static boolean isRecord(Class<?> type) {
+        return (isRecord != null) && (boolean) invoke(isRecord, type);
+    }
+
+    /**
+     * Returns the names of the components of the record in declaration order.
+     *
+     * @param type record class
+     * @return names of the components
+     */
+    static String[] getComponentNames(Class<?> type) {
+        Object components = invoke(getRecordComponents, type);
+        String[] names = new String[Array.getLength(components)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (String) invoke(getName, Array.get(components, i));
+        }
+        return names;
+    }
+
+    /**
+     * Returns the types of the components of the record in declaration order.
+     * These are the parameter types of the canonical constructor.
+     *
+     * @param type record class
+     * @return types of the components
+     */
+    static Class<?>[] getComponentTypes(Class<?> type) {
+        Object components = invoke(getRecordComponents, type);
+        Class<?>[] types = new Class<?>[Array.getLength(components)];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = (Class<?>) invoke(getType, Array.get(components, i));
+        }
+        return types;
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
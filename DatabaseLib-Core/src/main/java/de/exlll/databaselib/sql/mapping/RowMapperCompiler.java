@@ -0,0 +1,283 @@
+package de.exlll.databaselib.sql.mapping;
+
+import de.exlll.databaselib.sql.submit.CheckedSqlFunction;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compiles the mapping of the columns of a query to a record or POJO class.
+ * <p>
+ * Column indices are resolved once from the {@code ResultSetMetaData}.
+ * The no-argument constructor and the setters of a POJO are turned into lambdas
+ * by {@code LambdaMetafactory}; if that is not possible, e.g. because the class
+ * is defined by a class loader that the lookup cannot access, and for fields,
+ * plain {@code MethodHandle}s are used instead. The canonical constructor of a
+ * record is invoked through a {@code MethodHandle} that spreads an argument
+ * array. Column values are read as objects, so values of primitive components
+ * and properties are boxed, and each record row allocates its argument array.
+ */
+final class RowMapperCompiler {
+    private RowMapperCompiler() {}
+
+    static <T> CheckedSqlFunction<ResultSet, T> compile(
+            Class<T> type,
+            ResultSetMetaData metaData
+    ) throws SQLException {
+        Map<String, Integer> columns = getColumnIndices(metaData);
+        return Records.isRecord(type)
+                ? compileRecord(type, columns)
+                : compilePojo(type, columns);
+    }
+
+    /**
+     * Column labels and the names of components and properties are compared
+     * case-insensitively and without underscores, so that {@code user_id}
+     * matches {@code userId}.
+     *
+     * @param name column label or name of a component or property
+     * @return normalized name
+     */
+    static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, Integer> getColumnIndices(ResultSetMetaData metaData)
+            throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 1, count = metaData.getColumnCount(); i <= count; i++) {
+            columns.putIfAbsent(normalize(metaData.getColumnLabel(i)), i);
+        }
+        return columns;
+    }
+
+    private static <T> CheckedSqlFunction<ResultSet, T> compileRecord(
+            Class<T> type,
+            Map<String, Integer> columns
+    ) {
+        String[] names = Records.getComponentNames(type);
+        Class<?>[] types = Records.getComponentTypes(type);
+        int[] indices = new int[names.length];
+        ColumnReader[] readers = new ColumnReader[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Integer column = columns.get(normalize(names[i]));
+            if (column == null) {
+                String msg = "Problem: The query has no column for component '" +
+                        names[i] + "' of record " + type.getName() + ".\n" +
+                        "Solution: Select a column with that name or alias a " +
+                        "column using 'AS " + names[i] + "'.";
+                throw new IllegalArgumentException(msg);
+            }
+            indices[i] = column;
+            readers[i] = ColumnReaders.of(types[i]);
+        }
+        MethodHandle constructor;
+        try {
+            Constructor<T> canonical = type.getDeclaredConstructor(types);
+            canonical.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, types.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException(
+                    "The canonical constructor of record " + type.getName() +
+                    " is not accessible.", e
+            );
+        }
+        return resultSet -> {
+            Object[] arguments = new Object[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                arguments[i] = readers[i].read(resultSet, indices[i]);
+            }
+            try {
+                return type.cast((Object) constructor.invokeExact(arguments));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new SQLException("The record could not be created.", throwable);
+            }
+        };
+    }
+
+    private static <T> CheckedSqlFunction<ResultSet, T> compilePojo(
+            Class<T> type,
+            Map<String, Integer> columns
+    ) {
+        Supplier<Object> constructor = compileConstructor(type);
+        Map<String, Member> properties = getProperties(type);
+        List<ColumnMapping> mappings = new ArrayList<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            Member property = properties.get(column.getKey());
+            if (property == null) {
+                continue;
+            }
+            if (property instanceof Method) {
+                Method setter = (Method) property;
+                mappings.add(new ColumnMapping(
+                        column.getValue(),
+                        ColumnReaders.of(setter.getParameterTypes()[0]),
+                        compileSetter(type, setter)
+                ));
+            } else {
+                Field field = (Field) property;
+                mappings.add(new ColumnMapping(
+                        column.getValue(),
+                        ColumnReaders.of(field.getType()),
+                        compileFieldWriter(field)
+                ));
+            }
+        }
+        ColumnMapping[] columnMappings = mappings.toArray(new ColumnMapping[0]);
+        return resultSet -> {
+            Object instance = constructor.get();
+            for (ColumnMapping mapping : columnMappings) {
+                Object value = mapping.reader.read(resultSet, mapping.index);
+                mapping.writer.accept(instance, value);
+            }
+            return type.cast(instance);
+        };
+    }
+
+    /*
+     * Setters take precedence over fields of the same name. Fields of
+     * superclasses are included, static and final fields are not.
+     */
+    private static Map<String, Member> getProperties(Class<?> type) {
+        Map<String, Member> properties = new HashMap<>();
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                    properties.putIfAbsent(normalize(field.getName()), field);
+                }
+            }
+        }
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (name.length() > 3 && name.startsWith("set") &&
+                    method.getParameterCount() == 1 &&
+                    !Modifier.isStatic(method.getModifiers())) {
+                properties.put(normalize(name.substring(3)), method);
+            }
+        }
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> compileConstructor(Class<?> type) {
+        MethodHandle constructor;
+        try {
+            Constructor<?> noArgs = type.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(noArgs);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            String msg = "Problem: Class " + type.getName() + " is neither a record nor " +
+                    "has an accessible no-argument constructor.\nSolution: Add a " +
+                    "no-argument constructor to the class.";
+            throw new IllegalArgumentException(msg, e);
+        }
+        try {
+            MethodHandles.Lookup lookup =
+                    MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    lookup.unreflectConstructor(type.getDeclaredConstructor()),
+                    MethodType.methodType(type)
+            );
+            return (Supplier<Object>) site.getTarget().invoke();
+        } catch (Throwable throwable) {
+            MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+            return () -> invoke(() -> generic.invokeExact());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> compileSetter(Class<?> type, Method setter) {
+        Class<?> parameterType = setter.getParameterTypes()[0];
+        try {
+            MethodHandles.Lookup lookup =
+                    MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    lookup.unreflect(setter),
+                    MethodType.methodType(void.class, type, wrap(parameterType))
+            );
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable throwable) {
+            try {
+                setter.setAccessible(true);
+                return writer(MethodHandles.lookup().unreflect(setter));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new IllegalArgumentException(
+                        "The setter " + setter + " is not accessible.", e
+                );
+            }
+        }
+    }
+
+    private static BiConsumer<Object, Object> compileFieldWriter(Field field) {
+        try {
+            field.setAccessible(true);
+            return writer(MethodHandles.lookup().unreflectSetter(field));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException(
+                    "The field " + field + " is not accessible.", e
+            );
+        }
+    }
+
+    private static BiConsumer<Object, Object> writer(MethodHandle handle) {
+        MethodHandle generic = handle.asType(
+                MethodType.methodType(void.class, Object.class, Object.class)
+        );
+        return (instance, value) -> invoke(() -> {
+            generic.invokeExact(instance, value);
+            return null;
+        });
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive()
+                ? MethodType.methodType(type).wrap().returnType()
+                : type;
+    }
+
+    /* A column of the query and the property of a POJO it is written to. */
+    private static final class ColumnMapping {
+        private final int index;
+        private final ColumnReader reader;
+        private final BiConsumer<Object, Object> writer;
+
+        private ColumnMapping(
+                int index,
+                ColumnReader reader,
+                BiConsumer<Object, Object> writer
+        ) {
+            this.index = index;
+            this.reader = reader;
+            this.writer = writer;
+        }
+    }
+
+    private interface ThrowingSupplier {
+        Object get() throws Throwable;
+    }
+
+    private static Object invoke(ThrowingSupplier supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new UndeclaredThrowableException(throwable);
+        }
+    }
+}
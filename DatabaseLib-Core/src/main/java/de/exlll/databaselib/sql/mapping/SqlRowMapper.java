@@ -0,0 +1,111 @@
+package de.exlll.databaselib.sql.mapping;
+
+import de.exlll.databaselib.sql.submit.CheckedSqlFunction;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maps rows of a {@code ResultSet} to instances of a record or POJO class.
+ * <p>
+ * The mapping is compiled when the mapper is applied to its first row: the
+ * columns of the query are matched with the components of the record or the
+ * properties of the POJO once, and the constructor and setters of a POJO are
+ * turned into lambdas. Mapping a row afterwards only calls the typed getter of
+ * each column and the accessor it was matched with. Unlike a hand-written
+ * mapping function, it boxes the values of primitive columns, and it allocates
+ * an argument array for each record.
+ * <p>
+ * Column labels are matched case-insensitively and ignoring underscores, so
+ * the column {@code user_id} is mapped to a component or property {@code userId}.
+ * A record is created by its canonical constructor, and every component needs a
+ * column. A POJO is created by its no-argument constructor and its properties are
+ * written by setters or, if there is no setter, by non-final fields. Columns that
+ * don't match a property are ignored.
+ * <p>
+ * Because the column indices are resolved only once, a mapper must only be used
+ * for the query it was created for. Mappers are cached per class and query; of
+ * each class, the mappers of the 64 most recently used queries are kept. A mapper
+ * that has been dropped from the cache keeps working, but the next call of
+ * {@link #of} for its query returns a new mapper.
+ *
+ * <pre>{@code
+ * record Score(UUID uuid, int points) {}
+ *
+ * submitSqlStreamingTask(
+ *         "SELECT uuid, points FROM scores", stmt -> {},
+ *         SqlRowMapper.of(Score.class, "SELECT uuid, points FROM scores"),
+ *         chunk -> ...
+ * );
+ * }</pre>
+ *
+ * @param <T> the row type
+ */
+public final class SqlRowMapper<T> implements CheckedSqlFunction<ResultSet, T> {
+    static final int MAXIMUM_CACHED_QUERIES = 64;
+    /* the map of each class is guarded by itself */
+    private static final ClassValue<Map<String, SqlRowMapper<?>>> mappers =
+            new ClassValue<>() {
+                @Override
+                protected Map<String, SqlRowMapper<?>> computeValue(Class<?> type) {
+                    return new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(
+                                Map.Entry<String, SqlRowMapper<?>> eldest
+                        ) {
+                            return size() > MAXIMUM_CACHED_QUERIES;
+                        }
+                    };
+                }
+            };
+    private final Class<T> type;
+    private volatile CheckedSqlFunction<ResultSet, T> compiled;
+
+    private SqlRowMapper(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the mapper of rows of the given query to instances of the given class.
+     *
+     * @param type  record or POJO class
+     * @param query the query whose rows are mapped
+     * @param <T>   the row type
+     * @return mapper of rows of the query
+     * @throws NullPointerException if any argument is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SqlRowMapper<T> of(Class<T> type, String query) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(query);
+        Map<String, SqlRowMapper<?>> cached = mappers.get(type);
+        synchronized (cached) {
+            return (SqlRowMapper<T>) cached.computeIfAbsent(
+                    query, q -> new SqlRowMapper<>(type)
+            );
+        }
+    }
+
+    /**
+     * Maps the current row of the {@code ResultSet}. The first call compiles the
+     * mapping using the {@code ResultSetMetaData} of the given {@code ResultSet}.
+     *
+     * @param resultSet the {@code ResultSet}
+     * @return the mapped row
+     * @throws SQLException             if a database access error occurs
+     * @throws IllegalArgumentException if the class cannot be instantiated or
+     *                                  a component of a record has no column
+     */
+    @Override
+    public T apply(ResultSet resultSet) throws SQLException {
+        CheckedSqlFunction<ResultSet, T> mapper = compiled;
+        if (mapper == null) {
+            mapper = RowMapperCompiler.compile(type, resultSet.getMetaData());
+            compiled = mapper;
+        }
+        return mapper.apply(resultSet);
+    }
+}
@@ -44,4 +44,9 @@ public final class HikariConnectionPool implements SqlConnectionPool {
     public Connection getConnection() throws SQLException {
         return dataSource.getConnection();
     }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return dataSource.getMaximumPoolSize();
+    }
 }
@@ -16,6 +16,19 @@ public interface SqlConnectionPool extends AutoCloseable {
      */
     Connection getConnection() throws SQLException;
 
+    /**
+     * Returns the maximum number of {@code Connection}s this pool hands out
+     * at the same time.
+     * <p>
+     * The default implementation returns {@code Integer.MAX_VALUE} which
+     * means that the size of the pool is unknown.
+     *
+     * @return maximum number of {@code Connection}s
+     */
+    default int getMaximumPoolSize() {
+        return Integer.MAX_VALUE;
+    }
+
     @Override
     default void close() throws Exception {}
 
@@ -16,10 +16,16 @@ abstract class AbstractSqlStatementTask<T extends Statement, R>
     @Override
     final void execute(Connection connection) {
         try (T statement = statementFactory().apply(connection)) {
-            R result = function.apply(statement);
+            R result;
+            startStatement(statement);
+            try {
+                result = function.apply(statement);
+            } finally {
+                finishStatement();
+            }
             callback.accept(result, null);
         } catch (Throwable e) {
-            callback.accept(null, e);
+            callback.accept(null, toFailure(e));
         }
     }
 
@@ -10,17 +10,50 @@ import java.util.function.BiConsumer;
 
 public abstract class AsyncSqlTaskSubmitter extends SqlTaskSubmitter {
     private final SqlConnectionPool connectionPool;
-    private final Executor syncExecutor;
-    private final Executor asyncExecutor;
+    private final SqlCallbackDeliverer callbackDeliverer;
+    private final SqlTaskDispatcher dispatcher;
+    private final SqlBatchCoalescer batchCoalescer;
+    private final SqlLatencyRecorder latencyRecorder;
 
     protected AsyncSqlTaskSubmitter(
             SqlConnectionPool connectionPool,
             Executor syncExecutor,
             Executor asyncExecutor
     ) {
+        this(connectionPool, syncExecutor, asyncExecutor, SqlSubmitterConfig.DEFAULT);
+    }
+
+    protected AsyncSqlTaskSubmitter(
+            SqlConnectionPool connectionPool,
+            Executor syncExecutor,
+            Executor asyncExecutor,
+            SqlSubmitterConfig config
+    ) {
+        Objects.requireNonNull(config);
         this.connectionPool = connectionPool;
-        this.syncExecutor = syncExecutor;
-        this.asyncExecutor = asyncExecutor;
+        this.callbackDeliverer = new SqlCallbackDeliverer(
+                syncExecutor, config.getCallbackTimeBudget().toNanos()
+        );
+        Executor taskExecutor = config.isUseVirtualThreads()
+                ? VirtualThreads.executorOr(asyncExecutor)
+                : asyncExecutor;
+        this.latencyRecorder = new SqlLatencyRecorder(
+                getClass().getName(),
+                config.getMaximumTrackedQueries(),
+                config.getLatencyStatisticsInterval().toNanos()
+        );
+        this.dispatcher = new SqlTaskDispatcher(
+                connectionPool,
+                taskExecutor,
+                config,
+                config.isLatencyStatisticsEnabled() ? latencyRecorder : null,
+                new SqlSlowTaskLog(getClass().getName(), config)
+        );
+        this.batchCoalescer = new SqlBatchCoalescer(
+                dispatcher::dispatch,
+                config.getMaximumBatchSize(),
+                config.getBatchDelay().toNanos()
+        );
     }
 
     @Override
@@ -28,15 +61,74 @@ public abstract class AsyncSqlTaskSubmitter extends SqlTaskSubmitter {
         return connectionPool.getConnection();
     }
 
+    /**
+     * Returns the number of submitted tasks that wait for execution.
+     *
+     * @return number of queued tasks
+     */
+    public final int getQueuedTaskCount() {
+        return dispatcher.getQueuedTaskCount();
+    }
+
+    /**
+     * Returns the number of submitted tasks that are currently executing.
+     *
+     * @return number of executing tasks
+     */
+    public final int getRunningTaskCount() {
+        return dispatcher.getRunningTaskCount();
+    }
+
+    /**
+     * Returns a snapshot of the queue statistics of tasks with the given priority.
+     *
+     * @param priority the priority of the tasks
+     * @return queue statistics of tasks with the given priority
+     * @throws NullPointerException if {@code priority} is null
+     */
+    public final SqlTaskQueueStatistics getQueueStatistics(SqlTaskPriority priority) {
+        return dispatcher.getQueueStatistics(priority);
+    }
+
+    /**
+     * Returns a snapshot of the latencies of the tasks that have been executed
+     * since this submitter was created or its latency statistics were reset.
+     * If a latency statistics interval is configured, the latencies of the last
+     * completed interval are returned instead.
+     *
+     * @return latency statistics of executed tasks
+     * @see SqlSubmitterConfig.Builder#setLatencyStatisticsEnabled(boolean)
+     */
+    public final SqlLatencyStatistics getLatencyStatistics() {
+        return latencyRecorder.getStatistics();
+    }
+
+    /**
+     * Resets the latency statistics and returns a snapshot of the latencies
+     * that have been recorded before the reset.
+     *
+     * @return latency statistics of the tasks executed before the reset
+     */
+    public final SqlLatencyStatistics resetLatencyStatistics() {
+        return latencyRecorder.reset();
+    }
+
+    /**
+     * Submits all batches that wait for more parameter bindings for
+     * execution without further delay.
+     */
+    public final void flushSqlBatchTasks() {
+        batchCoalescer.flushAll();
+    }
+
     @Override
     final void submit(SqlTask<?, ?> task) {
-        asyncExecutor.execute(() -> {
-            try (Connection connection = connectionPool.getConnection()) {
-                task.execute(connection);
-            } catch (Throwable throwable) {
-                task.callback.accept(null, throwable);
-            }
-        });
+        dispatcher.dispatch(task);
+    }
+
+    @Override
+    final void submitBatchEntry(String query, SqlBatch.Entry entry) {
+        batchCoalescer.add(query, entry);
     }
 
     @Override
@@ -44,6 +136,14 @@ public abstract class AsyncSqlTaskSubmitter extends SqlTaskSubmitter {
             BiConsumer<? super R, ? super Throwable> callback
     ) {
         Objects.requireNonNull(callback);
-        return (r, t) -> syncExecutor.execute(() -> callback.accept(r, t));
+        return (r, t) -> {
+            SqlLatencyRecorder.Execution execution = SqlLatencyRecorder.completeExecution();
+            callbackDeliverer.deliver(() -> {
+                if (execution != null) {
+                    execution.delivered();
+                }
+                callback.accept(r, t);
+            });
+        };
     }
 }
@@ -0,0 +1,24 @@
+package de.exlll.databaselib.sql.submit;
+
+/**
+ * Defines what happens to a task that is submitted while the task queue
+ * of an {@link AsyncSqlTaskSubmitter} is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The submitted task is rejected. Its callback is called with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    REJECT,
+    /**
+     * The oldest queued task of the lowest {@link SqlTaskPriority} is removed
+     * from the queue to make room for the submitted task. The callback of the
+     * removed task is called with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     * <p>
+     * Only tasks whose priority is lower than or equal to the priority of the
+     * submitted task are removed. If all queued tasks have a higher priority,
+     * the submitted task is rejected instead.
+     */
+    DISCARD_OLDEST
+}
@@ -0,0 +1,135 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A group of parameter bindings for the same query that are executed
+ * together using {@link PreparedStatement#addBatch()}.
+ * <p>
+ * Every binding has its own callback which receives the update count of
+ * that binding.
+ */
+final class SqlBatch {
+    private final String query;
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean closed;
+
+    SqlBatch(String query) {
+        this.query = Objects.requireNonNull(query);
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    /**
+     * Adds an entry to this batch.
+     *
+     * @param entry entry that is added
+     * @return the number of entries in this batch or -1 if this batch has
+     * already been closed and the entry has not been added
+     */
+    synchronized int add(Entry entry) {
+        if (closed) {
+            return -1;
+        }
+        entries.add(entry);
+        return entries.size();
+    }
+
+    /**
+     * Closes this batch so that no more entries can be added.
+     *
+     * @return true if this call closed the batch, false if it already was closed
+     */
+    synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    /**
+     * Returns a new {@code SqlTask} that executes this batch. Must only be
+     * called after the batch has been closed.
+     *
+     * @return task that executes this batch
+     */
+    SqlTask<?, ?> toTask() {
+        return new SqlPreparedStatementTask<>(query, this::execute, this::complete);
+    }
+
+    private Void execute(PreparedStatement statement) throws SQLException {
+        List<Entry> added = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            try {
+                entry.action.accept(statement);
+                statement.addBatch();
+                added.add(entry);
+            } catch (Throwable throwable) {
+                statement.clearParameters();
+                entry.complete(null, throwable);
+            }
+        }
+        if (added.isEmpty()) {
+            return null;
+        }
+        try {
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < added.size(); i++) {
+                Integer count = (i < counts.length) ? counts[i] : null;
+                added.get(i).complete(count, null);
+            }
+        } catch (BatchUpdateException exception) {
+            int[] counts = exception.getUpdateCounts();
+            for (int i = 0; i < added.size(); i++) {
+                boolean succeeded = (counts != null) && (i < counts.length) &&
+                        (counts[i] != Statement.EXECUTE_FAILED);
+                if (succeeded) {
+                    added.get(i).complete(counts[i], null);
+                } else {
+                    added.get(i).complete(null, exception);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void complete(Void result, Throwable throwable) {
+        if (throwable == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            entry.complete(null, throwable);
+        }
+    }
+
+    static final class Entry {
+        private final CheckedSqlConsumer<? super PreparedStatement> action;
+        private final BiConsumer<? super Integer, ? super Throwable> callback;
+        private boolean completed;
+
+        Entry(
+                CheckedSqlConsumer<? super PreparedStatement> action,
+                BiConsumer<? super Integer, ? super Throwable> callback
+        ) {
+            this.action = Objects.requireNonNull(action);
+            this.callback = Objects.requireNonNull(callback);
+        }
+
+        private void complete(Integer updateCount, Throwable throwable) {
+            if (!completed) {
+                completed = true;
+                callback.accept(updateCount, throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects {@link SqlBatch.Entry entries} per query and submits them as one
+ * {@link SqlBatch} after either the maximum batch size is reached or the
+ * batch delay has passed, whichever happens first.
+ */
+final class SqlBatchCoalescer {
+    private final Map<String, SqlBatch> openBatches = new ConcurrentHashMap<>();
+    private final Consumer<SqlTask<?, ?>> taskSubmitter;
+    private final int maximumBatchSize;
+    private final long batchDelayNanos;
+
+    SqlBatchCoalescer(
+            Consumer<SqlTask<?, ?>> taskSubmitter,
+            int maximumBatchSize,
+            long batchDelayNanos
+    ) {
+        this.taskSubmitter = taskSubmitter;
+        this.maximumBatchSize = maximumBatchSize;
+        this.batchDelayNanos = batchDelayNanos;
+    }
+
+    void add(String query, SqlBatch.Entry entry) {
+        while (true) {
+            SqlBatch batch = openBatches.computeIfAbsent(query, this::openBatch);
+            int size = batch.add(entry);
+            if (size >= maximumBatchSize) {
+                flush(batch);
+            }
+            if (size != -1) {
+                return;
+            }
+            // the batch was flushed before the entry could be added
+            openBatches.remove(query, batch);
+        }
+    }
+
+    private SqlBatch openBatch(String query) {
+        SqlBatch batch = new SqlBatch(query);
+        TaskTimer.schedule(() -> flush(batch), batchDelayNanos, TimeUnit.NANOSECONDS);
+        return batch;
+    }
+
+    private void flush(SqlBatch batch) {
+        if (batch.close()) {
+            openBatches.remove(batch.getQuery(), batch);
+            taskSubmitter.accept(batch.toTask());
+        }
+    }
+
+    void flushAll() {
+        openBatches.values().forEach(this::flush);
+    }
+}
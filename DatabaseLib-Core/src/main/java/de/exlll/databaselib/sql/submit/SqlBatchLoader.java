@@ -0,0 +1,241 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects point lookups and loads them together using {@code IN} queries.
+ * <p>
+ * The query of a loader selects rows by a single {@code IN (?)} parameter, e.g.
+ * <pre>{@code SELECT uuid, coins FROM players WHERE uuid IN (?)}</pre>
+ * Keys that are requested within the window of the loader are collected into a
+ * batch. When the window passes, when the batch reaches its maximum size, or when
+ * {@link #flush()} is called, the batch is loaded by a single task: the {@code ?}
+ * is expanded to one parameter per key and a query is executed for every
+ * {@link SqlBatchLoaderOptions#getMaximumKeysPerQuery() maximumKeysPerQuery} keys,
+ * all using the same {@code Connection}.
+ * <p>
+ * The rows are matched to the requested keys using the key reader, so the keys
+ * it returns must be equal to the requested keys. Every requester receives the
+ * value of its key, or an empty {@code Optional} if no row has been found.
+ * If a key is requested more than once per batch, it is loaded once and all of
+ * its requesters receive the same value. If any query of a batch fails, all
+ * requesters of the batch receive the exception.
+ * <p>
+ * Keys are set using {@link PreparedStatement#setObject(int, Object)}, so keys
+ * that the driver doesn't support must be converted, e.g. by using
+ * {@code uuid.toString()}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class SqlBatchLoader<K, V> {
+    private final SqlTaskSubmitter submitter;
+    private final String queryPrefix;
+    private final String querySuffix;
+    private final CheckedSqlFunction<? super ResultSet, ? extends K> keyReader;
+    private final CheckedSqlFunction<? super ResultSet, ? extends V> rowMapper;
+    private final long windowNanos;
+    private final int maximumBatchSize;
+    private final int maximumKeysPerQuery;
+    private final SqlTaskOptions taskOptions;
+    private Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> pending =
+            new LinkedHashMap<>();
+    private ScheduledFuture<?> windowTimer;
+
+    SqlBatchLoader(
+            SqlTaskSubmitter submitter,
+            String query,
+            CheckedSqlFunction<? super ResultSet, ? extends K> keyReader,
+            CheckedSqlFunction<? super ResultSet, ? extends V> rowMapper,
+            SqlBatchLoaderOptions options
+    ) {
+        int index = query.indexOf('?');
+        if (index == -1 || query.indexOf('?', index + 1) != -1) {
+            String msg = "Problem: The query '" + query + "' doesn't contain exactly " +
+                    "one parameter.\nSolution: Pass a query that selects rows using a " +
+                    "single 'IN (?)' parameter.";
+            throw new IllegalArgumentException(msg);
+        }
+        this.submitter = submitter;
+        this.queryPrefix = query.substring(0, index);
+        this.querySuffix = query.substring(index + 1);
+        this.keyReader = Objects.requireNonNull(keyReader);
+        this.rowMapper = Objects.requireNonNull(rowMapper);
+        this.windowNanos = options.getWindow().toNanos();
+        this.maximumBatchSize = options.getMaximumBatchSize();
+        this.maximumKeysPerQuery = options.getMaximumKeysPerQuery();
+        this.taskOptions = options.getTaskOptions();
+    }
+
+    /**
+     * Requests the value of the given key. The callback is called after the
+     * batch that contains the key has been loaded.
+     *
+     * @param key      the key whose value is loaded
+     * @param callback callback that receives the value of the key or an
+     *                 empty {@code Optional} if the key has no row
+     * @throws NullPointerException if any argument is null
+     */
+    public void load(K key, BiConsumer<? super Optional<V>, ? super Throwable> callback) {
+        Objects.requireNonNull(key);
+        add(key, submitter.wrapCallback(callback));
+    }
+
+    /**
+     * Requests the value of the given key.
+     *
+     * @param key the key whose value is loaded
+     * @return {@code CompletionStage} that completes with the value of the key
+     * or an empty {@code Optional} if the key has no row
+     * @throws NullPointerException if {@code key} is null
+     */
+    public CompletionStage<Optional<V>> load(K key) {
+        Objects.requireNonNull(key);
+        CompletableFuture<Optional<V>> cf = new CompletableFuture<>();
+        add(key, submitter.wrapCompletableFuture(cf));
+        return cf;
+    }
+
+    /**
+     * Loads the keys that have been requested so far without waiting for
+     * the window to pass.
+     */
+    public void flush() {
+        Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        submitBatch(batch);
+    }
+
+    /**
+     * Returns the number of distinct keys that wait to be loaded.
+     *
+     * @return number of pending keys
+     */
+    public synchronized int getPendingKeyCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the query that loads the given number of keys.
+     *
+     * @param keyCount number of keys
+     * @return query with one parameter per key
+     */
+    String getQuery(int keyCount) {
+        StringBuilder builder = new StringBuilder(
+                queryPrefix.length() + querySuffix.length() + 3 * keyCount
+        );
+        builder.append(queryPrefix);
+        for (int i = 0; i < keyCount; i++) {
+            builder.append((i == 0) ? "?" : ", ?");
+        }
+        return builder.append(querySuffix).toString();
+    }
+
+    private void add(K key, BiConsumer<? super Optional<V>, ? super Throwable> callback) {
+        Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> batch = null;
+        synchronized (this) {
+            pending.computeIfAbsent(key, k -> new ArrayList<>(1)).add(callback);
+            if (pending.size() >= maximumBatchSize) {
+                batch = takePending();
+            } else if (windowTimer == null) {
+                windowTimer = TaskTimer.schedule(
+                        this::flush, windowNanos, TimeUnit.NANOSECONDS
+                );
+            }
+        }
+        if (batch != null) {
+            submitBatch(batch);
+        }
+    }
+
+    private Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> takePending() {
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+        Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void submitBatch(
+            Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> batch
+    ) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(batch.keySet());
+        submitter.submit(new SqlConnectionTask<>(
+                connection -> read(connection, keys),
+                (values, throwable) -> complete(batch, values, throwable)
+        ).withOptions(taskOptions));
+    }
+
+    private Map<K, V> read(Connection connection, List<K> keys) throws SQLException {
+        Map<K, V> values = new HashMap<>();
+        int fullChunks = keys.size() / maximumKeysPerQuery;
+        if (fullChunks > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    getQuery(maximumKeysPerQuery)
+            )) {
+                for (int i = 0; i < fullChunks; i++) {
+                    int from = i * maximumKeysPerQuery;
+                    read(statement, keys.subList(from, from + maximumKeysPerQuery), values);
+                }
+            }
+        }
+        int from = fullChunks * maximumKeysPerQuery;
+        if (from < keys.size()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    getQuery(keys.size() - from)
+            )) {
+                read(statement, keys.subList(from, keys.size()), values);
+            }
+        }
+        return values;
+    }
+
+    private void read(PreparedStatement statement, List<K> keys, Map<K, V> values)
+            throws SQLException {
+        for (int i = 0; i < keys.size(); i++) {
+            statement.setObject(i + 1, keys.get(i));
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                K key = keyReader.apply(resultSet);
+                if (key != null && !values.containsKey(key)) {
+                    values.put(key, rowMapper.apply(resultSet));
+                }
+            }
+        }
+    }
+
+    private void complete(
+            Map<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> batch,
+            Map<K, V> values,
+            Throwable throwable
+    ) {
+        for (Map.Entry<K, List<BiConsumer<? super Optional<V>, ? super Throwable>>> entry :
+                batch.entrySet()) {
+            Optional<V> value = (throwable == null)
+                    ? Optional.ofNullable(values.get(entry.getKey()))
+                    : null;
+            for (BiConsumer<? super Optional<V>, ? super Throwable> callback :
+                    entry.getValue()) {
+                callback.accept(value, throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Options that control when the keys collected by an {@link SqlBatchLoader}
+ * are loaded and how many keys are loaded per query.
+ */
+public final class SqlBatchLoaderOptions {
+    public static final SqlBatchLoaderOptions DEFAULT = new Builder().build();
+    private final Duration window;
+    private final int maximumBatchSize;
+    private final int maximumKeysPerQuery;
+    private final SqlTaskOptions taskOptions;
+
+    private SqlBatchLoaderOptions(Builder builder) {
+        this.window = builder.window;
+        this.maximumBatchSize = builder.maximumBatchSize;
+        this.maximumKeysPerQuery = builder.maximumKeysPerQuery;
+        this.taskOptions = builder.taskOptions;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    public int getMaximumKeysPerQuery() {
+        return maximumKeysPerQuery;
+    }
+
+    public SqlTaskOptions getTaskOptions() {
+        return taskOptions;
+    }
+
+    public static final class Builder {
+        private Duration window = Duration.ofMillis(10);
+        private int maximumBatchSize = 500;
+        private int maximumKeysPerQuery = 100;
+        private SqlTaskOptions taskOptions = SqlTaskOptions.DEFAULT;
+
+        /**
+         * Sets the time the loader collects keys after the first key of a batch
+         * has been requested. Defaults to 10 milliseconds.
+         * <p>
+         * To collect the keys that are requested during the same server tick,
+         * set a window of 50 milliseconds or call {@link SqlBatchLoader#flush()}
+         * at the end of the tick.
+         *
+         * @param window time the loader collects keys
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code window} is null
+         * @throws IllegalArgumentException if {@code window} is negative
+         */
+        public Builder setWindow(Duration window) {
+            if (window.isNegative()) {
+                String msg = "Problem: The window " + window + " is negative.\n" +
+                        "Solution: Pass a window that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the number of distinct keys after which a batch is loaded
+         * without waiting for the window to pass. Defaults to 500.
+         *
+         * @param maximumBatchSize maximum number of keys per batch
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumBatchSize} is less than 1
+         */
+        public Builder setMaximumBatchSize(int maximumBatchSize) {
+            if (maximumBatchSize < 1) {
+                String msg = "Problem: The maximum batch size is " + maximumBatchSize +
+                        " (less than 1).\nSolution: Pass a maximum batch size" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumBatchSize = maximumBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of keys in the {@code IN} list of a query.
+         * Batches with more keys are loaded by several queries that are executed
+         * one after another using the same {@code Connection}. Defaults to 100.
+         *
+         * @param maximumKeysPerQuery maximum number of keys per query
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumKeysPerQuery} is less than 1
+         */
+        public Builder setMaximumKeysPerQuery(int maximumKeysPerQuery) {
+            if (maximumKeysPerQuery < 1) {
+                String msg = "Problem: The maximum number of keys per query is " +
+                        maximumKeysPerQuery + " (less than 1).\nSolution: Pass a " +
+                        "number greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumKeysPerQuery = maximumKeysPerQuery;
+            return this;
+        }
+
+        /**
+         * Sets the options of the tasks that load the batches.
+         * Defaults to {@link SqlTaskOptions#DEFAULT}.
+         *
+         * @param taskOptions options of the tasks
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code taskOptions} is null
+         */
+        public Builder setTaskOptions(SqlTaskOptions taskOptions) {
+            this.taskOptions = Objects.requireNonNull(taskOptions);
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlBatchLoaderOptions}
+         */
+        public SqlBatchLoaderOptions build() {
+            return new SqlBatchLoaderOptions(this);
+        }
+    }
+}
@@ -17,6 +17,11 @@ final class SqlCallableStatementTask<R>
         this.query = query;
     }
 
+    @Override
+    String getQuery() {
+        return query;
+    }
+
     @Override
     CheckedSqlFunction<? super Connection, ? extends CallableStatement> statementFactory() {
         return connection -> connection.prepareCall(query);
@@ -0,0 +1,71 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers completed callbacks to the sync {@code Executor} in batches.
+ * <p>
+ * Callbacks are collected in a queue. Only one drain task is scheduled on the
+ * sync executor at any time, no matter how many callbacks complete until it runs.
+ * If a time budget is set, a drain task stops running callbacks once the budget
+ * is used up and schedules the remaining callbacks for the next drain.
+ */
+final class SqlCallbackDeliverer {
+    private static final Logger logger = Logger.getLogger(
+            SqlCallbackDeliverer.class.getName()
+    );
+    private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Executor syncExecutor;
+    private final long timeBudgetNanos;
+
+    SqlCallbackDeliverer(Executor syncExecutor, long timeBudgetNanos) {
+        this.syncExecutor = syncExecutor;
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    void deliver(Runnable callback) {
+        callbacks.add(callback);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                syncExecutor.execute(this::drain);
+            } catch (RuntimeException exception) {
+                drainScheduled.set(false);
+                throw exception;
+            }
+        }
+    }
+
+    private void drain() {
+        // reset first so that callbacks added from now on schedule a new drain
+        drainScheduled.set(false);
+        long start = System.nanoTime();
+        Runnable callback;
+        while ((callback = callbacks.poll()) != null) {
+            try {
+                callback.run();
+            } catch (Throwable throwable) {
+                logger.log(Level.SEVERE, "A callback threw an exception.", throwable);
+            }
+            if ((timeBudgetNanos > 0) && (System.nanoTime() - start >= timeBudgetNanos)) {
+                break;
+            }
+        }
+        if (!callbacks.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    int getPendingCallbackCount() {
+        return callbacks.size();
+    }
+}
@@ -0,0 +1,19 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.List;
+
+/**
+ * Consumes the rows of a streamed query in chunks.
+ *
+ * @param <T> the row type
+ */
+@FunctionalInterface
+public interface SqlChunkConsumer<T> {
+    /**
+     * Consumes the next chunk of rows.
+     *
+     * @param chunk the next rows of the result
+     * @return true if more rows should be read, false to stop the query
+     */
+    boolean accept(List<? extends T> chunk);
+}
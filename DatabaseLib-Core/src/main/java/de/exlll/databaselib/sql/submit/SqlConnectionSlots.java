@@ -0,0 +1,109 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.pool.SqlConnectionPool;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The execution slots of a {@code SqlConnectionPool} that are shared by all
+ * {@link SqlTaskDispatcher}s using that pool.
+ * <p>
+ * The plugins of a server usually share one pool, and each of them has its own
+ * submitter. If every dispatcher allowed as many running tasks as the pool has
+ * connections, the threads of all but one of them could still be blocked
+ * waiting for a {@code Connection}. Instead, every dispatcher acquires a slot
+ * of its pool before a task leaves its queue, so that at most as many tasks
+ * are executed at the same time as the pool has connections.
+ * <p>
+ * When a slot is released, all dispatchers of the pool are asked to drain
+ * their queues, starting with a different dispatcher each time, so that a
+ * dispatcher whose task didn't get a slot is never left behind.
+ */
+final class SqlConnectionSlots {
+    /* guarded by itself */
+    private static final Map<SqlConnectionPool, SqlConnectionSlots> slotsByPool =
+            new WeakHashMap<>();
+    /* weak, so that the slots don't keep the pools of their dispatchers alive */
+    private final List<WeakReference<SqlTaskDispatcher>> dispatchers =
+            new CopyOnWriteArrayList<>();
+    private final AtomicInteger usedCount = new AtomicInteger();
+    private final AtomicInteger wakeups = new AtomicInteger();
+    private final AtomicInteger nextDispatcher = new AtomicInteger();
+    private final int capacity;
+
+    private SqlConnectionSlots(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the slots of the given pool. The number of slots is the maximum
+     * size of the pool.
+     *
+     * @param pool the connection pool
+     * @return slots of the pool
+     */
+    static SqlConnectionSlots of(SqlConnectionPool pool) {
+        synchronized (slotsByPool) {
+            return slotsByPool.computeIfAbsent(
+                    pool, p -> new SqlConnectionSlots(Math.max(1, p.getMaximumPoolSize()))
+            );
+        }
+    }
+
+    void register(SqlTaskDispatcher dispatcher) {
+        dispatchers.add(new WeakReference<>(dispatcher));
+    }
+
+    boolean tryAcquire() {
+        int used;
+        do {
+            used = usedCount.get();
+            if (used >= capacity) {
+                return false;
+            }
+        } while (!usedCount.compareAndSet(used, used + 1));
+        return true;
+    }
+
+    /**
+     * Releases a slot and lets the dispatchers of the pool drain their queues.
+     * If another thread is already draining them, it drains them once more
+     * instead, so that draining never recurses.
+     */
+    void release() {
+        usedCount.decrementAndGet();
+        if (wakeups.getAndIncrement() > 0) {
+            return;
+        }
+        do {
+            wakeups.set(1);
+            drainDispatchers();
+        } while (!wakeups.compareAndSet(1, 0));
+    }
+
+    private void drainDispatchers() {
+        WeakReference<?>[] references = dispatchers.toArray(new WeakReference<?>[0]);
+        if (references.length == 0) {
+            return;
+        }
+        int start = Math.floorMod(nextDispatcher.getAndIncrement(), references.length);
+        for (int i = 0; i < references.length; i++) {
+            WeakReference<?> reference = references[(start + i) % references.length];
+            SqlTaskDispatcher dispatcher = (SqlTaskDispatcher) reference.get();
+            if (dispatcher == null) {
+                dispatchers.remove(reference);
+            } else {
+                dispatcher.drain();
+            }
+        }
+    }
+
+    int getUsedCount() {
+        return usedCount.get();
+    }
+}
@@ -0,0 +1,62 @@
+package de.exlll.databaselib.sql.submit;
+
+/**
+ * A snapshot of the statistics of a {@link SqlCounterTable}.
+ */
+public final class SqlCounterStatistics {
+    private final long flushedRowCount;
+    private final long flushedIncrementCount;
+    private final int pendingRowCount;
+
+    SqlCounterStatistics(long flushedRowCount, long flushedIncrementCount, int pendingRowCount) {
+        this.flushedRowCount = flushedRowCount;
+        this.flushedIncrementCount = flushedIncrementCount;
+        this.pendingRowCount = pendingRowCount;
+    }
+
+    /**
+     * Returns the number of row updates that have been written.
+     *
+     * @return number of written row updates
+     */
+    public long getFlushedRowCount() {
+        return flushedRowCount;
+    }
+
+    /**
+     * Returns the number of increments that have been written.
+     *
+     * @return number of written increments
+     */
+    public long getFlushedIncrementCount() {
+        return flushedIncrementCount;
+    }
+
+    /**
+     * Returns the number of increments that didn't need a row update of their
+     * own because they were combined with other increments of the same row.
+     *
+     * @return number of collapsed increments
+     */
+    public long getCollapsedIncrementCount() {
+        return flushedIncrementCount - flushedRowCount;
+    }
+
+    /**
+     * Returns the number of rows with increments that have not been written yet.
+     *
+     * @return number of pending rows
+     */
+    public int getPendingRowCount() {
+        return pendingRowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlCounterStatistics{" +
+                "flushedRowCount=" + flushedRowCount +
+                ", flushedIncrementCount=" + flushedIncrementCount +
+                ", pendingRowCount=" + pendingRowCount +
+                '}';
+    }
+}
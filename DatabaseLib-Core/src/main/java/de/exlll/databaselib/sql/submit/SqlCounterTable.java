@@ -0,0 +1,515 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Accumulates increments of the counter columns of a table in memory and
+ * writes them as one update per row.
+ * <p>
+ * Every row has a {@code LongAdder} per counter column, so that threads that
+ * increment the same counter don't contend with each other. When the flush
+ * interval passes, when the number of rows with increments reaches its maximum,
+ * or when {@link #flush()} is called, the accumulated increments are written by
+ * batches of the statement
+ * <pre>{@code UPDATE table SET c1 = c1 + ?, c2 = c2 + ? WHERE key = ?}</pre>
+ * Thousands of increments of the same row therefore cost a single row update.
+ * <p>
+ * Each batch is executed in its own transaction, so a batch is either written
+ * completely or not at all. Increments whose batch fails are added back and
+ * written by the next flush. Increments are written at least once: if the
+ * connection is lost while a batch is being committed, the batch may have been
+ * written although the commit failed, and its increments are written again.
+ * <p>
+ * Rows must exist before their counters are flushed. Keys are set using
+ * {@link PreparedStatement#setObject(int, Object)}, so keys that the driver
+ * doesn't support must be converted, e.g. by using {@code uuid.toString()}.
+ * <p>
+ * A counter table must be {@link #drain(Duration) drained} when it is no longer
+ * used, e.g. in the {@code onDisable} method of a plugin.
+ *
+ * @param <K> the key type
+ */
+public final class SqlCounterTable<K> {
+    private static final Logger logger = Logger.getLogger(
+            SqlCounterTable.class.getName()
+    );
+    private static final Pattern identifier = Pattern.compile(
+            "[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?"
+    );
+    private final Map<K, Row> rows = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Integer>> writes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingRowCount = new AtomicInteger();
+    private final LongAdder flushedRowCount = new LongAdder();
+    private final LongAdder flushedIncrementCount = new LongAdder();
+    private final SqlTaskSubmitter submitter;
+    private final Map<String, Integer> columnIndices;
+    private final String query;
+    private final int maximumPendingRows;
+    private final int maximumBatchSize;
+    private final SqlTaskOptions taskOptions;
+    private final ScheduledFuture<?> flushTimer;
+    /*
+     * Increments and writes hold the read lock while they check 'closed', so
+     * that once drain() has set it, no increment is being added and no write
+     * is being submitted anymore.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    /* guarded by closeLock */
+    private boolean closed;
+
+    SqlCounterTable(
+            SqlTaskSubmitter submitter,
+            String table,
+            String keyColumn,
+            List<String> counterColumns,
+            SqlWriteBehindOptions options
+    ) {
+        requireIdentifier(table);
+        requireIdentifier(keyColumn);
+        if (counterColumns.isEmpty()) {
+            String msg = "Problem: No counter columns were passed.\n" +
+                    "Solution: Pass at least one counter column.";
+            throw new IllegalArgumentException(msg);
+        }
+        Map<String, Integer> columnIndices = new HashMap<>();
+        StringJoiner assignments = new StringJoiner(", ");
+        for (String column : counterColumns) {
+            requireIdentifier(column);
+            if (columnIndices.putIfAbsent(column, columnIndices.size()) != null) {
+                String msg = "Problem: The counter column '" + column + "' was passed " +
+                        "more than once.\nSolution: Pass every counter column once.";
+                throw new IllegalArgumentException(msg);
+            }
+            assignments.add(column + " = " + column + " + ?");
+        }
+        this.submitter = submitter;
+        this.columnIndices = columnIndices;
+        this.query = "UPDATE " + table + " SET " + assignments +
+                " WHERE " + keyColumn + " = ?";
+        this.maximumPendingRows = options.getMaximumPendingEntries();
+        this.maximumBatchSize = options.getMaximumBatchSize();
+        this.taskOptions = SqlTaskOptions.builder()
+                .setPriority(options.getPriority())
+                .build();
+        long intervalNanos = options.getFlushInterval().toNanos();
+        this.flushTimer = TaskTimer.scheduleWithFixedDelay(
+                this::flushPeriodically, intervalNanos, TimeUnit.NANOSECONDS
+        );
+    }
+
+    private static void requireIdentifier(String name) {
+        if (!identifier.matcher(name).matches()) {
+            String msg = "Problem: '" + name + "' is not a valid table or column name.\n" +
+                    "Solution: Pass a name that only consists of letters, digits and " +
+                    "underscores.";
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    /**
+     * Returns the query that writes the increments of a row.
+     *
+     * @return the update query
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Increments the given counter of the row with the given key by one.
+     *
+     * @param key    the key of the row
+     * @param column the counter column
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if {@code column} is not a counter column
+     * @throws IllegalStateException    if this table has been drained
+     */
+    public void increment(K key, String column) {
+        add(key, column, 1);
+    }
+
+    /**
+     * Adds the delta to the given counter of the row with the given key.
+     *
+     * @param key    the key of the row
+     * @param column the counter column
+     * @param delta  the value that is added to the counter
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if {@code column} is not a counter column
+     * @throws IllegalStateException    if this table has been drained
+     */
+    public void add(K key, String column, long delta) {
+        Objects.requireNonNull(key);
+        Integer index = columnIndices.get(Objects.requireNonNull(column));
+        if (index == null) {
+            String msg = "Problem: '" + column + "' is not a counter column.\n" +
+                    "Solution: Pass one of the counter columns " +
+                    columnIndices.keySet() + ".";
+            throw new IllegalArgumentException(msg);
+        }
+        long[] deltas = new long[columnIndices.size()];
+        deltas[index] = delta;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                String msg = "Problem: The counter table has been drained.\n" +
+                        "Solution: Don't increment counters after draining the table.";
+                throw new IllegalStateException(msg);
+            }
+            add(key, deltas, 1);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /* must be called while holding the read lock of closeLock */
+    private void add(K key, long[] deltas, long incrementCount) {
+        Row row = rows.computeIfAbsent(key, k -> new Row(deltas.length));
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] != 0) {
+                row.counters[i].add(deltas[i]);
+            }
+        }
+        row.incrementCount.add(incrementCount);
+        if (row.markDirty()) {
+            // after draining, the remaining increments are only written by drain()
+            if (pendingRowCount.incrementAndGet() >= maximumPendingRows && !closed) {
+                write(takePending());
+            }
+        } else if (row.evicted) {
+            // The row has been removed by a flush that may have missed these
+            // increments. Whatever is left in the row is moved to a new one.
+            Increments leftover = row.takeIncrements();
+            if (leftover != null) {
+                add(key, leftover.deltas, leftover.incrementCount);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this table.
+     *
+     * @return statistics of this table
+     */
+    public SqlCounterStatistics getStatistics() {
+        return new SqlCounterStatistics(
+                flushedRowCount.sum(),
+                flushedIncrementCount.sum(),
+                pendingRowCount.get()
+        );
+    }
+
+    /**
+     * Submits all accumulated increments for writing without waiting for the
+     * flush interval to pass. The returned {@code CompletionStage} is completed
+     * with the number of updated rows.
+     *
+     * @return the new {@code CompletionStage}
+     * @throws IllegalStateException if this table has been drained
+     */
+    public CompletionStage<Integer> flush() {
+        CompletableFuture<Integer> write;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                String msg = "Problem: The counter table has been drained.\n" +
+                        "Solution: Don't flush a counter table after draining it.";
+                throw new IllegalStateException(msg);
+            }
+            write = write(takePending());
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        BiConsumer<? super Integer, ? super Throwable> callback =
+                submitter.wrapCompletableFuture(result);
+        write.whenComplete((count, throwable) -> callback.accept(count, throwable));
+        return result;
+    }
+
+    private void flushPeriodically() {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                write(takePending());
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic flush
+            logger.log(Level.SEVERE, "Counter increments could not be submitted.", e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the periodic flush, waits for submitted writes to complete and then
+     * writes the remaining increments in the calling thread.
+     * <p>
+     * The remaining increments are written using a {@code Connection} that is
+     * acquired directly from the submitter, so this method doesn't depend on
+     * executors that may no longer accept tasks while a plugin is disabled.
+     * After this method has been called, no more increments can be added.
+     * <p>
+     * Increments of submitted writes that fail are added back before these
+     * writes complete and are written together with the remaining increments.
+     * If writing the remaining increments fails, they are kept in this table,
+     * and calling this method again is the only way to retry writing them.
+     *
+     * @param timeout maximum time to wait for submitted writes
+     * @return false if the submitted writes didn't complete in time, in which
+     * case the remaining increments have not been written
+     * @throws NullPointerException if {@code timeout} is null
+     * @throws RuntimeException     if a database access occurs while writing
+     *                              the remaining increments
+     */
+    public boolean drain(Duration timeout) {
+        long timeoutNanos = timeout.toNanos();
+        CompletableFuture<?>[] submitted;
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+            submitted = writes.toArray(new CompletableFuture<?>[0]);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        flushTimer.cancel(false);
+        try {
+            CompletableFuture.allOf(submitted).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ignored) {
+            // the failed increments have been added back and are written below
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        List<Map.Entry<K, Increments>> pending = takePending();
+        if (pending.isEmpty()) {
+            return true;
+        }
+        int[] written = {0};
+        try (Connection connection = submitter.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            writeBatches(statement, pending, written);
+            flushed(pending, written[0]);
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            flushed(pending, written[0]);
+            addBack(pending, written[0]);
+            throw (e instanceof RuntimeException)
+                    ? (RuntimeException) e
+                    : new RuntimeException(e);
+        }
+    }
+
+    /*
+     * Rows without increments since the last flush are evicted, so that
+     * the rows of keys that are no longer used don't pile up.
+     */
+    private List<Map.Entry<K, Increments>> takePending() {
+        List<Map.Entry<K, Increments>> pending = new ArrayList<>();
+        for (Map.Entry<K, Row> entry : rows.entrySet()) {
+            K key = entry.getKey();
+            Row row = entry.getValue();
+            boolean removed = !row.dirty && rows.remove(key, row);
+            if (row.markClean(removed)) {
+                pendingRowCount.decrementAndGet();
+            }
+            Increments increments = row.takeIncrements();
+            if (increments != null) {
+                pending.add(Map.entry(key, increments));
+            }
+        }
+        return pending;
+    }
+
+    private CompletableFuture<Integer> write(List<Map.Entry<K, Increments>> pending) {
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> write = new CompletableFuture<>();
+        writes.add(write);
+        int[] written = {0};
+        // the callback is not wrapped, so that drain() can wait for it in the sync thread
+        submitter.submit(new SqlPreparedStatementTask<>(
+                query,
+                statement -> writeBatches(statement, pending, written),
+                (count, throwable) -> {
+                    flushed(pending, written[0]);
+                    if (throwable != null) {
+                        addBack(pending, written[0]);
+                        logger.log(Level.WARNING, "The increments of " +
+                                (pending.size() - written[0]) + " rows could not be " +
+                                "written and are retried by the next flush.", throwable);
+                        write.completeExceptionally(throwable);
+                    } else {
+                        write.complete(count);
+                    }
+                    writes.remove(write);
+                }
+        ).withOptions(taskOptions));
+        return write;
+    }
+
+    private int writeBatches(
+            PreparedStatement statement,
+            List<Map.Entry<K, Increments>> pending,
+            int[] written
+    ) throws SQLException {
+        Connection connection = statement.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            int batchSize = 0;
+            for (Map.Entry<K, Increments> entry : pending) {
+                long[] deltas = entry.getValue().deltas;
+                for (int i = 0; i < deltas.length; i++) {
+                    statement.setLong(i + 1, deltas[i]);
+                }
+                statement.setObject(deltas.length + 1, entry.getKey());
+                statement.addBatch();
+                if (++batchSize == maximumBatchSize) {
+                    executeBatch(connection, statement);
+                    written[0] += batchSize;
+                    batchSize = 0;
+                }
+            }
+            if (batchSize > 0) {
+                executeBatch(connection, statement);
+                written[0] += batchSize;
+            }
+            return written[0];
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /*
+     * Without a transaction, a driver may commit some statements of a failed
+     * batch, whose increments would then be added back and written twice.
+     */
+    private static void executeBatch(Connection connection, PreparedStatement statement)
+            throws SQLException {
+        try {
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private void flushed(List<Map.Entry<K, Increments>> pending, int written) {
+        for (int i = 0; i < written; i++) {
+            flushedIncrementCount.add(pending.get(i).getValue().incrementCount);
+        }
+        flushedRowCount.add(written);
+    }
+
+    private void addBack(List<Map.Entry<K, Increments>> pending, int from) {
+        closeLock.readLock().lock();
+        try {
+            for (int i = from; i < pending.size(); i++) {
+                Map.Entry<K, Increments> entry = pending.get(i);
+                Increments increments = entry.getValue();
+                add(entry.getKey(), increments.deltas, increments.incrementCount);
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private static final class Increments {
+        private final long[] deltas;
+        private final long incrementCount;
+
+        private Increments(long[] deltas, long incrementCount) {
+            this.deltas = deltas;
+            this.incrementCount = incrementCount;
+        }
+    }
+
+    /*
+     * A row that has been evicted may still receive increments from threads
+     * that looked it up before it was removed. Because 'evicted' is set before
+     * the flush takes the remaining increments, every thread whose increments
+     * are missed by the flush can no longer mark the row as dirty afterwards and
+     * moves the increments of the row to a new row itself. Taking increments is
+     * atomic per cell, so each increment is taken exactly once.
+     */
+    private static final class Row {
+        private final LongAdder[] counters;
+        private final LongAdder incrementCount = new LongAdder();
+        private volatile boolean dirty;
+        private volatile boolean evicted;
+
+        private Row(int columnCount) {
+            this.counters = new LongAdder[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @return true if this call marked the row as dirty, false if it
+         * already was dirty or has been evicted
+         */
+        private boolean markDirty() {
+            if (dirty) {
+                return false;
+            }
+            synchronized (this) {
+                if (dirty || evicted) {
+                    return false;
+                }
+                dirty = true;
+                return true;
+            }
+        }
+
+        /**
+         * @param evict true if the row has been removed and must be evicted
+         * @return true if the row was dirty
+         */
+        private synchronized boolean markClean(boolean evict) {
+            boolean wasDirty = dirty;
+            dirty = false;
+            if (evict) {
+                evicted = true;
+            }
+            return wasDirty;
+        }
+
+        private Increments takeIncrements() {
+            long count = incrementCount.sumThenReset();
+            long[] deltas = new long[counters.length];
+            boolean empty = (count == 0);
+            for (int i = 0; i < counters.length; i++) {
+                deltas[i] = counters[i].sumThenReset();
+                empty &= (deltas[i] == 0);
+            }
+            return empty ? null : new Increments(deltas, count);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * A snapshot of a histogram of latencies.
+ * <p>
+ * Latencies are counted in a fixed number of buckets whose width grows with
+ * the latency, so a histogram needs the same small amount of memory no matter
+ * how many latencies it counts. Latencies are recorded in microseconds; the
+ * percentiles computed from the buckets deviate by at most 6.25% from the
+ * recorded latencies. Latencies longer than about 71 minutes are counted
+ * as 71 minutes.
+ */
+public final class SqlLatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAXIMUM_MICROS = (1L << 32) - 1;
+    static final int BUCKET_COUNT = bucketOf(MAXIMUM_MICROS) + 1;
+    static final SqlLatencyHistogram EMPTY = new SqlLatencyHistogram(new long[BUCKET_COUNT], 0, 0);
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maximumNanos;
+
+    SqlLatencyHistogram(long[] counts, long totalNanos, long maximumNanos) {
+        this.counts = counts;
+        this.count = Arrays.stream(counts).sum();
+        this.totalNanos = totalNanos;
+        this.maximumNanos = maximumNanos;
+    }
+
+    /*
+     * Latencies below 8 microseconds have a bucket of their own. Above that,
+     * every power of two is split into 8 buckets of equal width.
+     */
+    static int bucketOf(long micros) {
+        micros = Math.max(0, Math.min(micros, MAXIMUM_MICROS));
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /* Returns the middle of the range of latencies counted by the bucket. */
+    static long microsOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKET_COUNT;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKET_COUNT + subBucket) * width + width / 2;
+    }
+
+    SqlLatencyHistogram merge(SqlLatencyHistogram other) {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            merged[i] = counts[i] + other.counts[i];
+        }
+        return new SqlLatencyHistogram(
+                merged,
+                totalNanos + other.totalNanos,
+                Math.max(maximumNanos, other.maximumNanos)
+        );
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return number of recorded latencies
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the average of the recorded latencies or zero if no
+     * latency has been recorded.
+     *
+     * @return average latency
+     */
+    public Duration getAverage() {
+        return (count == 0) ? Duration.ZERO : Duration.ofNanos(totalNanos / count);
+    }
+
+    /**
+     * Returns the longest recorded latency.
+     *
+     * @return maximum latency
+     */
+    public Duration getMaximum() {
+        return Duration.ofNanos(maximumNanos);
+    }
+
+    /**
+     * Returns the latency that is longer than or equal to the given percentage
+     * of the recorded latencies, or zero if no latency has been recorded.
+     *
+     * @param percentile percentile between 0 and 100, e.g. 99.9
+     * @return latency of the percentile
+     * @throws IllegalArgumentException if {@code percentile} is not between 0 and 100
+     */
+    public Duration getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            String msg = "Problem: The percentile " + percentile + " is not between " +
+                    "0 and 100.\nSolution: Pass a percentile between 0 and 100.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long nanos = Math.min(microsOf(i) * 1000, maximumNanos);
+                return Duration.ofNanos(nanos);
+            }
+        }
+        return getMaximum();
+    }
+
+    @Override
+    public String toString() {
+        return "SqlLatencyHistogram{" +
+                "count=" + count +
+                ", average=" + getAverage() +
+                ", p50=" + getPercentile(50) +
+                ", p99=" + getPercentile(99) +
+                ", p999=" + getPercentile(99.9) +
+                ", maximum=" + getMaximum() +
+                '}';
+    }
+}
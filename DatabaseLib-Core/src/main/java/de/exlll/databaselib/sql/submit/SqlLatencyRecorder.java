@@ -0,0 +1,241 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latencies of the phases of executed tasks into histograms
+ * per normalized query.
+ * <p>
+ * The dispatcher calls {@link #started} once a task has got its {@code Connection}.
+ * The execution is then bound to the executing thread, so that the wrapped callback
+ * of the task can {@link #completeExecution() complete} it when the result is
+ * passed to it and record the delivery once it runs in the sync thread.
+ * Callbacks that are not wrapped don't record a delivery; the execution of their
+ * tasks is completed by {@link #finished()}.
+ * <p>
+ * If an interval is set, the histograms are replaced with empty ones whenever
+ * the interval passes and the statistics of the last completed interval are kept.
+ */
+final class SqlLatencyRecorder {
+    static final String OTHER_QUERIES = "<other>";
+    private static final SqlTaskPhase[] phases = SqlTaskPhase.values();
+    private static final ThreadLocal<Execution> currentExecution = new ThreadLocal<>();
+    private final Map<String, String> normalizedQueries = new ConcurrentHashMap<>();
+    private final String submitterName;
+    private final int maximumTrackedQueries;
+    private volatile Interval currentInterval = new Interval();
+    private volatile SqlLatencyStatistics lastInterval;
+
+    SqlLatencyRecorder(String submitterName, int maximumTrackedQueries, long intervalNanos) {
+        this.submitterName = submitterName;
+        this.maximumTrackedQueries = maximumTrackedQueries;
+        if (intervalNanos > 0) {
+            this.lastInterval = snapshot(new Interval());
+            scheduleIntervals(this, intervalNanos);
+        }
+    }
+
+    /*
+     * The timer only holds a weak reference to the recorder, so that the
+     * recorder of a submitter that is no longer used can be collected.
+     */
+    private static void scheduleIntervals(SqlLatencyRecorder recorder, long intervalNanos) {
+        WeakReference<SqlLatencyRecorder> reference = new WeakReference<>(recorder);
+        AtomicReference<ScheduledFuture<?>> timer = new AtomicReference<>();
+        timer.set(TaskTimer.scheduleWithFixedDelay(() -> {
+            SqlLatencyRecorder current = reference.get();
+            if (current != null) {
+                current.lastInterval = current.reset();
+            } else {
+                timer.get().cancel(false);
+            }
+        }, intervalNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Records the queue and connection wait of the given task and binds its
+     * execution to the current thread.
+     *
+     * @param task         the task that is about to be executed
+     * @param startedNanos   time at which the task requested its {@code Connection}
+     * @param connectedNanos time at which the task got its {@code Connection}
+     */
+    void started(SqlTask<?, ?> task, long startedNanos, long connectedNanos) {
+        Histograms histograms = currentInterval.histogramsOf(tagOf(task));
+        histograms.record(SqlTaskPhase.QUEUE_WAIT, startedNanos - task.getSubmittedNanos());
+        histograms.record(SqlTaskPhase.CONNECTION_WAIT, connectedNanos - startedNanos);
+        currentExecution.set(new Execution(histograms, connectedNanos));
+    }
+
+    /**
+     * Records the execution of the task that is executed by the current thread.
+     *
+     * @return the completed execution or null if no execution is bound to the
+     * current thread or if it has already been completed
+     */
+    static Execution completeExecution() {
+        Execution execution = currentExecution.get();
+        return ((execution == null) || !execution.complete()) ? null : execution;
+    }
+
+    /**
+     * Completes the execution bound to the current thread, if any, and unbinds it.
+     */
+    static void finished() {
+        Execution execution = currentExecution.get();
+        if (execution != null) {
+            currentExecution.remove();
+            execution.complete();
+        }
+    }
+
+    private String tagOf(SqlTask<?, ?> task) {
+        String query = task.getQuery();
+        if (query == null) {
+            return kindOf(task);
+        }
+        String normalized = normalizedQueries.get(query);
+        if (normalized == null) {
+            normalized = SqlQueryNormalizer.normalize(query);
+            // queries that are built dynamically must not fill up the memory
+            if (normalizedQueries.size() < 4 * maximumTrackedQueries) {
+                normalizedQueries.put(query, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Returns the tag of tasks whose query is not known before they are executed.
+     *
+     * @param task the task
+     * @return one of {@code <transaction>}, {@code <statement>} and {@code <connection>}
+     */
+    static String kindOf(SqlTask<?, ?> task) {
+        if (task instanceof SqlTransactionTask) {
+            return "<transaction>";
+        }
+        return (task instanceof SqlStatementTask) ? "<statement>" : "<connection>";
+    }
+
+    SqlLatencyStatistics getStatistics() {
+        SqlLatencyStatistics statistics = lastInterval;
+        return (statistics != null) ? statistics : snapshot(currentInterval);
+    }
+
+    SqlLatencyStatistics reset() {
+        Interval interval = currentInterval;
+        currentInterval = new Interval();
+        return snapshot(interval);
+    }
+
+    private SqlLatencyStatistics snapshot(Interval interval) {
+        Map<String, Map<SqlTaskPhase, SqlLatencyHistogram>> histograms = new HashMap<>();
+        interval.histograms.forEach((query, phaseHistograms) ->
+                histograms.put(query, phaseHistograms.snapshot())
+        );
+        return new SqlLatencyStatistics(submitterName, interval.start, Instant.now(), histograms);
+    }
+
+    private final class Interval {
+        private final Instant start = Instant.now();
+        private final Map<String, Histograms> histograms = new ConcurrentHashMap<>();
+
+        Histograms histogramsOf(String query) {
+            Histograms result = histograms.get(query);
+            if (result != null) {
+                return result;
+            }
+            if (histograms.size() >= maximumTrackedQueries) {
+                query = OTHER_QUERIES;
+            }
+            return histograms.computeIfAbsent(query, q -> new Histograms());
+        }
+    }
+
+    static final class Execution {
+        private final Histograms histograms;
+        private final long connectedNanos;
+        private long executedNanos;
+        private boolean completed;
+
+        private Execution(Histograms histograms, long connectedNanos) {
+            this.histograms = histograms;
+            this.connectedNanos = connectedNanos;
+        }
+
+        private boolean complete() {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            executedNanos = System.nanoTime();
+            histograms.record(SqlTaskPhase.EXECUTION, executedNanos - connectedNanos);
+            return true;
+        }
+
+        /**
+         * Records the delivery of the result. Must be called in the thread
+         * in which the callback runs.
+         */
+        void delivered() {
+            histograms.record(SqlTaskPhase.CALLBACK_DELIVERY, System.nanoTime() - executedNanos);
+        }
+    }
+
+    private static final class Histograms {
+        private final Histogram[] histograms = new Histogram[phases.length];
+
+        private Histograms() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new Histogram();
+            }
+        }
+
+        void record(SqlTaskPhase phase, long nanos) {
+            histograms[phase.ordinal()].record(nanos);
+        }
+
+        Map<SqlTaskPhase, SqlLatencyHistogram> snapshot() {
+            Map<SqlTaskPhase, SqlLatencyHistogram> snapshot = new EnumMap<>(SqlTaskPhase.class);
+            for (SqlTaskPhase phase : phases) {
+                snapshot.put(phase, histograms[phase.ordinal()].snapshot());
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(SqlLatencyHistogram.BUCKET_COUNT);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maximumNanos = new AtomicLong();
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            counts.incrementAndGet(SqlLatencyHistogram.bucketOf(nanos / 1000));
+            totalNanos.add(nanos);
+            if (nanos > maximumNanos.get()) {
+                maximumNanos.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        SqlLatencyHistogram snapshot() {
+            long[] snapshot = new long[SqlLatencyHistogram.BUCKET_COUNT];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = counts.get(i);
+            }
+            return new SqlLatencyHistogram(snapshot, totalNanos.sum(), maximumNanos.get());
+        }
+    }
+}
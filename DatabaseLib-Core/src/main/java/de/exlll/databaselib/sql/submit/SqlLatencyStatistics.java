@@ -0,0 +1,120 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A snapshot of the latencies of the tasks that have been executed by an
+ * {@link AsyncSqlTaskSubmitter} during an interval, recorded per
+ * {@link SqlTaskPhase} and per query.
+ * <p>
+ * Queries are recorded in their normalized form in which literals are replaced
+ * with {@code ?} and parameter lists like {@code (?, ?, ?)} with {@code (?)}.
+ * Tasks that don't have a query are recorded as {@code <connection>},
+ * {@code <statement>} or {@code <transaction>}. Once the maximum number of
+ * tracked queries has been reached, the tasks of new queries are recorded as
+ * {@code <other>}.
+ */
+public final class SqlLatencyStatistics {
+    private final String submitterName;
+    private final Instant start;
+    private final Instant end;
+    private final Map<String, Map<SqlTaskPhase, SqlLatencyHistogram>> histograms;
+
+    SqlLatencyStatistics(
+            String submitterName,
+            Instant start,
+            Instant end,
+            Map<String, Map<SqlTaskPhase, SqlLatencyHistogram>> histograms
+    ) {
+        this.submitterName = submitterName;
+        this.start = start;
+        this.end = end;
+        this.histograms = Map.copyOf(histograms);
+    }
+
+    /**
+     * Returns the name of the submitter, which is the name of its class.
+     *
+     * @return name of the submitter
+     */
+    public String getSubmitterName() {
+        return submitterName;
+    }
+
+    /**
+     * Returns the time at which the interval of these statistics started.
+     *
+     * @return start of the interval
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the time at which the snapshot was taken.
+     *
+     * @return end of the interval
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    public Duration getInterval() {
+        return Duration.between(start, end);
+    }
+
+    /**
+     * Returns the normalized queries for which latencies have been recorded.
+     *
+     * @return recorded queries
+     */
+    public Set<String> getQueries() {
+        return histograms.keySet();
+    }
+
+    /**
+     * Returns the histogram of the given phase of the tasks of the given query.
+     *
+     * @param query normalized query
+     * @param phase phase of the tasks
+     * @return histogram of the phase or an empty histogram if no task
+     * of the query has been recorded
+     * @throws NullPointerException if any argument is null
+     */
+    public SqlLatencyHistogram getHistogram(String query, SqlTaskPhase phase) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(phase);
+        Map<SqlTaskPhase, SqlLatencyHistogram> phases = histograms.get(query);
+        return (phases == null) ? SqlLatencyHistogram.EMPTY : phases.get(phase);
+    }
+
+    /**
+     * Returns the histogram of the given phase of all tasks.
+     *
+     * @param phase phase of the tasks
+     * @return histogram of the phase
+     * @throws NullPointerException if {@code phase} is null
+     */
+    public SqlLatencyHistogram getHistogram(SqlTaskPhase phase) {
+        Objects.requireNonNull(phase);
+        SqlLatencyHistogram result = SqlLatencyHistogram.EMPTY;
+        for (Map<SqlTaskPhase, SqlLatencyHistogram> phases : histograms.values()) {
+            result = result.merge(phases.get(phase));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlLatencyStatistics{" +
+                "submitterName=" + submitterName +
+                ", start=" + start +
+                ", end=" + end +
+                ", queries=" + histograms.size() +
+                '}';
+    }
+}
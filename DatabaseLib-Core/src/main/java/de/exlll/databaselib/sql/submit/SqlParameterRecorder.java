@@ -0,0 +1,94 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the parameters a binder sets on a {@code PreparedStatement}
+ * without a database being involved.
+ */
+final class SqlParameterRecorder {
+    private SqlParameterRecorder() {}
+
+    /**
+     * Applies the binder to a {@code PreparedStatement} that only records the
+     * parameters that are set and returns them ordered by their index.
+     * <p>
+     * Each parameter is represented by a list that contains the name of the setter
+     * and its arguments, so that e.g. {@code setInt(1, 1)} and {@code setLong(1, 1)}
+     * produce different values. Byte arrays are copied and compared by content.
+     *
+     * @param binder action that sets the parameters of a {@code PreparedStatement}
+     * @return the recorded parameters
+     * @throws SQLException                  if the binder throws an {@code SQLException}
+     * @throws UnsupportedOperationException if the binder calls a method other than
+     *                                       a setter or {@code clearParameters}
+     */
+    static List<Object> record(CheckedSqlConsumer<? super PreparedStatement> binder)
+            throws SQLException {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> invoke(parameters, proxy, method, args)
+        );
+        binder.accept(recorder);
+        return new ArrayList<>(parameters.values());
+    }
+
+    private static Object invoke(
+            Map<Integer, Object> parameters,
+            Object proxy,
+            Method method,
+            Object[] args
+    ) {
+        String name = method.getName();
+        if (isSetter(method, args)) {
+            parameters.put((Integer) args[0], toParameter(name, args));
+            return null;
+        }
+        switch (name) {
+            case "clearParameters":
+                parameters.clear();
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SqlParameterRecorder" + parameters.values();
+            default:
+                String msg = "The binder must only set parameters but it called '" +
+                        name + "'.";
+                throw new UnsupportedOperationException(msg);
+        }
+    }
+
+    static boolean isSetter(Method method, Object[] args) {
+        return method.getName().startsWith("set") &&
+                (args != null) && (args.length >= 2) &&
+                (method.getParameterTypes()[0] == int.class);
+    }
+
+    static List<Object> toParameter(String setterName, Object[] args) {
+        List<Object> parameter = new ArrayList<>(args.length);
+        parameter.add(setterName);
+        for (int i = 1; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg instanceof byte[]) {
+                byte[] bytes = (byte[]) arg;
+                arg = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length));
+            }
+            parameter.add(arg);
+        }
+        return parameter;
+    }
+}
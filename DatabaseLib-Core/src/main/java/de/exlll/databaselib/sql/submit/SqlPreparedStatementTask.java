@@ -17,6 +17,11 @@ final class SqlPreparedStatementTask<R>
         this.query = query;
     }
 
+    @Override
+    String getQuery() {
+        return query;
+    }
+
     @Override
     CheckedSqlFunction<? super Connection, ? extends PreparedStatement> statementFactory() {
         return connection -> connection.prepareStatement(query);
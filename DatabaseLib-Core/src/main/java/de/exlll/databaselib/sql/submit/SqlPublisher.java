@@ -0,0 +1,214 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the rows of a query to subscribers.
+ * <p>
+ * Every subscription executes the query in its own task. The task is submitted
+ * when the subscriber requests the first row and reads a row from the
+ * {@code ResultSet} only if the subscriber has requested it. While there is no
+ * demand, the task waits, so that a slow subscriber never causes rows to be
+ * buffered. The {@code Connection} of the task is released as soon as all rows
+ * have been published, the subscription is cancelled, or an error occurs. If
+ * the task has a deadline, waiting for demand ends when the deadline passes,
+ * and the subscriber is signalled a {@code SQLTimeoutException}.
+ * <p>
+ * Subscribers are signalled in the thread that reads the rows.
+ *
+ * @param <T> the row type
+ */
+final class SqlPublisher<T> implements Flow.Publisher<T> {
+    private static final int ROWS_PER_READ = 500;
+    private final CheckedSqlConsumer<? super PreparedStatement> binder;
+    private final CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper;
+    private final Consumer<? super RowSubscription> execution;
+
+    /**
+     * @param binder    action that sets the parameters of the statement
+     * @param rowMapper function that maps the current row of a {@code ResultSet}
+     * @param execution submits a task that calls {@link RowSubscription#read}
+     *                  and completes {@link RowSubscription#completed}. The
+     *                  task should be passed to {@link RowSubscription#setTask}
+     *                  before it is submitted.
+     */
+    SqlPublisher(
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            Consumer<? super RowSubscription> execution
+    ) {
+        this.binder = binder;
+        this.rowMapper = rowMapper;
+        this.execution = execution;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new RowSubscription(subscriber));
+    }
+
+    final class RowSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demandChanged = lock.newCondition();
+        private volatile boolean cancelled;
+        private volatile SqlTask<?, ?> task;
+        /* set before cancelling, signalled by the thread that reads the rows */
+        private volatile Throwable requestError;
+
+        private RowSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (requestError == null) {
+                    requestError = new IllegalArgumentException(
+                            "The number of requested rows is " + n + " (less than 1)."
+                    );
+                }
+                cancel();
+                // without a task, no other thread can signal the subscriber
+                if (started.compareAndSet(false, true)) {
+                    signalError(requestError);
+                }
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> {
+                long sum = current + added;
+                return (sum < 0) ? Long.MAX_VALUE : sum;
+            });
+            if (started.compareAndSet(false, true)) {
+                try {
+                    execution.accept(this);
+                } catch (RuntimeException e) {
+                    completed(null, e);
+                }
+            } else {
+                signalDemandChanged();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signalDemandChanged();
+        }
+
+        private void signalDemandChanged() {
+            lock.lock();
+            try {
+                demandChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sets the task that executes the query of this subscription. If the
+         * task has a deadline, waiting for demand ends when it passes.
+         *
+         * @param task the task that calls {@link #read}
+         */
+        void setTask(SqlTask<?, ?> task) {
+            this.task = task;
+        }
+
+        /**
+         * Executes the query of the statement and publishes its rows as
+         * they are requested.
+         *
+         * @param statement the statement that is executed
+         * @return null
+         * @throws SQLException if a database access error occurs
+         */
+        Void read(PreparedStatement statement) throws SQLException {
+            return SqlStream.executeQuery(
+                    statement, binder, 0, ROWS_PER_READ,
+                    this::publishRows, () -> cancelled
+            );
+        }
+
+        private Void publishRows(ResultSet resultSet) throws SQLException {
+            while (awaitDemand() && resultSet.next()) {
+                T row = rowMapper.apply(resultSet);
+                demand.decrementAndGet();
+                subscriber.onNext(row);
+            }
+            return null;
+        }
+
+        private boolean awaitDemand() throws SQLException {
+            if (demand.get() > 0 || cancelled) {
+                return !cancelled;
+            }
+            SqlTask<?, ?> task = this.task;
+            boolean timed = (task != null) && task.hasDeadline();
+            lock.lock();
+            try {
+                while (demand.get() == 0 && !cancelled) {
+                    if (!timed) {
+                        demandChanged.await();
+                    } else if (task.isTimedOut()) {
+                        throw task.newTimeoutException(
+                                "while waiting for rows to be requested", null
+                        );
+                    } else {
+                        demandChanged.awaitNanos(task.getRemainingNanos());
+                    }
+                }
+                return !cancelled;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                throw new SQLException("Interrupted while waiting for rows to be requested.", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Signals the subscriber that all rows have been published or that an
+         * error occurred, unless the subscription has been cancelled. If it has
+         * been cancelled because of an invalid request, that error is signalled
+         * instead, so that it is never signalled concurrently with a row.
+         *
+         * @param result    ignored
+         * @param throwable the error or null
+         */
+        void completed(Object result, Throwable throwable) {
+            if (cancelled) {
+                Throwable requestError = this.requestError;
+                if (requestError != null) {
+                    signalError(requestError);
+                }
+                return;
+            }
+            if (throwable != null) {
+                signalError(throwable);
+            } else if (terminated.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void signalError(Throwable throwable) {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onError(throwable);
+            }
+        }
+    }
+}
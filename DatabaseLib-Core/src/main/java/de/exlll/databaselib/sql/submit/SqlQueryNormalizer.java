@@ -0,0 +1,99 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes queries so that queries that only differ in their literals,
+ * their whitespace or the length of their parameter lists are recorded
+ * under the same name.
+ */
+final class SqlQueryNormalizer {
+    static final int MAXIMUM_LENGTH = 256;
+    private static final Pattern parameterList = Pattern.compile(
+            "\\( ?\\?(?: ?, ?\\?)+ ?\\)"
+    );
+
+    private SqlQueryNormalizer() {}
+
+    /**
+     * Returns the normalized form of the given query: whitespace is collapsed to
+     * single spaces, string and number literals are replaced with {@code ?}, lists
+     * of parameters like {@code (?, ?, ?)} are replaced with {@code (?)} and the
+     * result is cut off after {@value #MAXIMUM_LENGTH} characters.
+     *
+     * @param query the query
+     * @return the normalized query
+     */
+    static String normalize(String query) {
+        StringBuilder builder = new StringBuilder(Math.min(query.length(), 2 * MAXIMUM_LENGTH));
+        boolean whitespace = false;
+        int i = 0;
+        while (i < query.length() && builder.length() < 2 * MAXIMUM_LENGTH) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = builder.length() > 0;
+                i++;
+                continue;
+            }
+            if (whitespace) {
+                builder.append(' ');
+                whitespace = false;
+            }
+            if (c == '\'') {
+                i = skipString(query, i + 1);
+                builder.append('?');
+            } else if (isDigit(c) && !endsWithIdentifier(builder)) {
+                i = skipNumber(query, i + 1);
+                builder.append('?');
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+        String normalized = parameterList.matcher(builder).replaceAll("(?)");
+        return (normalized.length() > MAXIMUM_LENGTH)
+                ? normalized.substring(0, MAXIMUM_LENGTH)
+                : normalized;
+    }
+
+    /* Returns the index after the closing quote of the string starting at index. */
+    private static int skipString(String query, int index) {
+        while (index < query.length()) {
+            char c = query.charAt(index);
+            if (c == '\\') {
+                index += 2;
+            } else if (c != '\'') {
+                index++;
+            } else if (index + 1 < query.length() && query.charAt(index + 1) == '\'') {
+                index += 2;
+            } else {
+                return index + 1;
+            }
+        }
+        return query.length();
+    }
+
+    /* Also skips decimal points, exponents and hexadecimal digits. */
+    private static int skipNumber(String query, int index) {
+        while (index < query.length()) {
+            char c = query.charAt(index);
+            if (!Character.isLetterOrDigit(c) && c != '.') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+}
@@ -0,0 +1,330 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A read-through cache for the results of queries.
+ * <p>
+ * Results are cached by the submit methods of {@link SqlTaskSubmitter} whose names
+ * start with {@code submitCached}. Results of {@code PreparedStatement} queries are
+ * cached by their query string and the parameters set by their binder, results of
+ * other tasks by a key chosen by the caller. Entries can be tagged, e.g. with the
+ * names of the tables that have been read, so that write tasks can invalidate all
+ * entries that depend on a table.
+ * <p>
+ * Entries expire after the time to live has passed. If the cache is full, the least
+ * recently used entry is evicted. A cache can be shared by multiple submitters.
+ * <p>
+ * Results that are being loaded are registered until they have been loaded, and
+ * callers that miss the same key in the meantime share the running load instead of
+ * starting their own. An invalidation marks the loads whose key or tags it matches.
+ * Marked results are not cached because they might be outdated, and callers that
+ * arrive after the invalidation start a new load. Loads of other keys are not
+ * affected.
+ */
+public final class SqlResultCache {
+    private final long timeToLiveNanos;
+    private final int maximumSize;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    /* guarded by this */
+    private final Map<Object, CacheEntry> entries;
+    /* guarded by this, the load of each key that new callers join */
+    private final Map<Object, Load> loads = new HashMap<>();
+
+    private SqlResultCache(Builder builder) {
+        this.timeToLiveNanos = builder.timeToLive.toNanos();
+        this.maximumSize = builder.maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+                if (size() > maximumSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Removes the entry that has been cached under the given key.
+     *
+     * @param key key chosen by the caller of a {@code submitCached} method
+     */
+    public synchronized void invalidate(Object key) {
+        invalidateLoads(load -> load.key.equals(key));
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries of the given {@code PreparedStatement} query,
+     * irrespective of their parameters.
+     *
+     * @param query query whose results are removed
+     */
+    public synchronized void invalidateQuery(String query) {
+        Predicate<Object> isQueryKey = key ->
+                (key instanceof QueryKey) && ((QueryKey) key).query.equals(query);
+        invalidateLoads(load -> isQueryKey.test(load.key));
+        entries.keySet().removeIf(isQueryKey);
+    }
+
+    /**
+     * Removes all entries that have been tagged with the given tag.
+     *
+     * @param tag tag whose entries are removed
+     */
+    public synchronized void invalidateTag(String tag) {
+        invalidateLoads(load -> Arrays.asList(load.tags).contains(tag));
+        entries.values().removeIf(entry -> entry.tags.contains(tag));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void invalidateAll() {
+        invalidateLoads(load -> true);
+        entries.clear();
+    }
+
+    /* must be called while holding the lock of this cache */
+    private void invalidateLoads(Predicate<Load> predicate) {
+        Iterator<Load> iterator = loads.values().iterator();
+        while (iterator.hasNext()) {
+            Load load = iterator.next();
+            if (predicate.test(load)) {
+                load.invalidated = true;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     *
+     * @return statistics of this cache
+     */
+    public SqlResultCacheStatistics getStatistics() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new SqlResultCacheStatistics(
+                hitCount.sum(), missCount.sum(), evictionCount.sum(), size
+        );
+    }
+
+    static Object queryKey(String query, List<Object> parameters) {
+        return new QueryKey(query, parameters);
+    }
+
+    /**
+     * Completes the callback with the cached result of the given key or, if there is
+     * none, calls the loader with a callback that caches the result before passing
+     * it on. Results are not cached if their key or one of their tags has been
+     * invalidated while they were loaded because they might be outdated.
+     * <p>
+     * If the result of the key is already being loaded and that load hasn't been
+     * invalidated, the loader isn't called and the callback is completed with the
+     * result of the running load instead. Only the running load caches its result.
+     * If the loader throws an exception, the exception is passed to the callbacks
+     * that have joined the load and rethrown to the caller.
+     *
+     * @param key      key of the result
+     * @param tags     tags of the result
+     * @param loader   loads the result and completes the callback it is passed
+     * @param callback callback that accepts the result
+     * @param <R>      the result type
+     */
+    @SuppressWarnings("unchecked")
+    <R> void load(
+            Object key,
+            String[] tags,
+            Consumer<BiConsumer<R, Throwable>> loader,
+            BiConsumer<? super R, ? super Throwable> callback
+    ) {
+        CacheEntry entry;
+        Load load = null;
+        boolean joined = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if ((entry != null) && (System.nanoTime() - entry.expiresAt >= 0)) {
+                entries.remove(key);
+                evictionCount.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                load = loads.get(key);
+                joined = (load != null);
+                if (joined) {
+                    load.callbacks.add((BiConsumer<Object, Object>) callback);
+                } else {
+                    load = new Load(key, tags, (BiConsumer<Object, Object>) callback);
+                    loads.put(key, load);
+                }
+            }
+        }
+        if (entry != null) {
+            hitCount.increment();
+            callback.accept((R) entry.value, null);
+            return;
+        }
+        missCount.increment();
+        if (!joined) {
+            startLoad(load, loader);
+        }
+    }
+
+    private <R> void startLoad(Load load, Consumer<BiConsumer<R, Throwable>> loader) {
+        try {
+            loader.accept((result, throwable) -> {
+                for (BiConsumer<Object, Object> cb : finish(load, result, throwable)) {
+                    cb.accept(result, throwable);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            // the first callback belongs to the caller that receives the exception
+            List<BiConsumer<Object, Object>> callbacks = finish(load, null, e);
+            for (int i = 1; i < callbacks.size(); i++) {
+                callbacks.get(i).accept(null, e);
+            }
+            throw e;
+        }
+    }
+
+    /*
+     * Caches the result unless the load has been invalidated or failed and
+     * returns the callbacks of the load. Returns an empty list if the load
+     * has already finished.
+     */
+    private synchronized List<BiConsumer<Object, Object>> finish(
+            Load load,
+            Object value,
+            Throwable throwable
+    ) {
+        if (load.callbacks == null) {
+            return Collections.emptyList();
+        }
+        List<BiConsumer<Object, Object>> callbacks = load.callbacks;
+        load.callbacks = null;
+        loads.remove(load.key, load);
+        if (!load.invalidated && (throwable == null)) {
+            Set<String> tagSet = (load.tags.length == 0)
+                    ? Collections.emptySet()
+                    : new HashSet<>(Arrays.asList(load.tags));
+            entries.put(load.key, new CacheEntry(
+                    value, tagSet, System.nanoTime() + timeToLiveNanos
+            ));
+        }
+        return callbacks;
+    }
+
+    private static final class Load {
+        private final Object key;
+        private final String[] tags;
+        /* guarded by the cache */
+        private boolean invalidated;
+        /* guarded by the cache, null after the load has finished */
+        private List<BiConsumer<Object, Object>> callbacks = new ArrayList<>();
+
+        private Load(Object key, String[] tags, BiConsumer<Object, Object> callback) {
+            this.key = key;
+            this.tags = tags;
+            this.callbacks.add(callback);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final Object value;
+        private final Set<String> tags;
+        private final long expiresAt;
+
+        private CacheEntry(Object value, Set<String> tags, long expiresAt) {
+            this.value = value;
+            this.tags = tags;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class QueryKey {
+        private final String query;
+        private final List<Object> parameters;
+
+        private QueryKey(String query, List<Object> parameters) {
+            this.query = query;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QueryKey queryKey = (QueryKey) o;
+            return query.equals(queryKey.query) && parameters.equals(queryKey.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, parameters);
+        }
+    }
+
+    public static final class Builder {
+        private Duration timeToLive = Duration.ofMinutes(1);
+        private int maximumSize = 1000;
+
+        /**
+         * Sets the time after which a cached result expires. Defaults to 1 minute.
+         *
+         * @param timeToLive time after which a result expires
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code timeToLive} is null
+         * @throws IllegalArgumentException if {@code timeToLive} is not positive
+         */
+        public Builder setTimeToLive(Duration timeToLive) {
+            if (timeToLive.isNegative() || timeToLive.isZero()) {
+                String msg = "Problem: The time to live " + timeToLive + " is not positive.\n" +
+                        "Solution: Pass a time to live that is positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of cached results. Defaults to 1000.
+         *
+         * @param maximumSize maximum number of cached results
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumSize} is less than 1
+         */
+        public Builder setMaximumSize(int maximumSize) {
+            if (maximumSize < 1) {
+                String msg = "Problem: The maximum size is " + maximumSize +
+                        " (less than 1).\nSolution: Pass a maximum size" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlResultCache}
+         */
+        public SqlResultCache build() {
+            return new SqlResultCache(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.exlll.databaselib.sql.submit;
+
+/**
+ * A snapshot of the statistics of a {@link SqlResultCache}.
+ */
+public final class SqlResultCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    SqlResultCacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to requests or 0 if there have been no requests.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return (requestCount == 0) ? 0 : ((double) hitCount / requestCount);
+    }
+
+    /**
+     * Returns the number of entries that have been removed because they
+     * expired or because the cache was full. Invalidated entries are
+     * not counted.
+     *
+     * @return number of evicted entries
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of cached entries, including expired entries
+     * that haven't been removed yet.
+     *
+     * @return number of cached entries
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlResultCacheStatistics{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Shares the execution of a task among all callers that submit a task with
+ * the same key while the first one is still executing.
+ */
+final class SqlSingleFlight {
+    private final Map<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the callback to the flight of the given key. If there is no flight,
+     * a new one is started by passing a callback that completes all callbacks
+     * of the flight to the {@code execution}.
+     *
+     * @param key       key of the flight
+     * @param callback  callback that accepts the shared result
+     * @param execution starts the execution and completes the callback it is passed
+     * @param <R>       the result type
+     */
+    <R> void execute(
+            Object key,
+            BiConsumer<? super R, ? super Throwable> callback,
+            Consumer<BiConsumer<R, Throwable>> execution
+    ) {
+        for (; ; ) {
+            Flight flight = new Flight(callback);
+            Flight current = flights.putIfAbsent(key, flight);
+            if (current == null) {
+                start(key, flight, execution);
+                return;
+            }
+            if (current.join(callback)) {
+                return;
+            }
+            flights.remove(key, current);
+        }
+    }
+
+    private <R> void start(
+            Object key,
+            Flight flight,
+            Consumer<BiConsumer<R, Throwable>> execution
+    ) {
+        try {
+            execution.accept((result, throwable) -> complete(key, flight, result, throwable));
+        } catch (RuntimeException | Error e) {
+            // the first callback belongs to the caller that receives the exception
+            List<BiConsumer<Object, Object>> callbacks = land(key, flight);
+            for (int i = 1; i < callbacks.size(); i++) {
+                callbacks.get(i).accept(null, e);
+            }
+            throw e;
+        }
+    }
+
+    private void complete(Object key, Flight flight, Object result, Throwable throwable) {
+        for (BiConsumer<Object, Object> callback : land(key, flight)) {
+            callback.accept(result, throwable);
+        }
+    }
+
+    private List<BiConsumer<Object, Object>> land(Object key, Flight flight) {
+        flights.remove(key, flight);
+        return flight.close();
+    }
+
+    int getFlightCount() {
+        return flights.size();
+    }
+
+    private static final class Flight {
+        /* guarded by this, null after the flight has landed */
+        private List<BiConsumer<Object, Object>> callbacks = new ArrayList<>();
+
+        Flight(BiConsumer<?, ?> callback) {
+            join(callback);
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized boolean join(BiConsumer<?, ?> callback) {
+            if (callbacks == null) {
+                return false;
+            }
+            callbacks.add((BiConsumer<Object, Object>) callback);
+            return true;
+        }
+
+        synchronized List<BiConsumer<Object, Object>> close() {
+            List<BiConsumer<Object, Object>> result = callbacks;
+            callbacks = null;
+            return result;
+        }
+    }
+}
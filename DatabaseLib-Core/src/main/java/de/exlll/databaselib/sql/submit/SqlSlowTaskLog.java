@@ -0,0 +1,199 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs tasks whose time from submission to the end of their execution
+ * exceeds a threshold.
+ * <p>
+ * The dispatcher asks this log to {@link #watch} a task when it is submitted.
+ * A sampled task with a threshold gets a {@link Watch} that remembers the place
+ * in the code the task was submitted from. Once the task has been executed,
+ * the dispatcher passes it to {@link #finished}, which logs it if it was slow.
+ * <p>
+ * The number of logged tasks is limited by a token bucket that is refilled
+ * continuously. Slow tasks that can't be logged are counted, and the count is
+ * added to the next logged task.
+ */
+final class SqlSlowTaskLog {
+    private static final Logger defaultLogger = Logger.getLogger(SqlSlowTaskLog.class.getName());
+    private static final String PACKAGE_NAME = SqlSlowTaskLog.class.getPackage().getName();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private final Logger logger;
+    private final String submitterName;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maximumLogsPerMinute;
+    private final boolean parameterCapture;
+    private double permits;
+    private long refilledNanos;
+    private long suppressedCount;
+
+    SqlSlowTaskLog(String submitterName, SqlSubmitterConfig config) {
+        this(submitterName, config, defaultLogger);
+    }
+
+    SqlSlowTaskLog(String submitterName, SqlSubmitterConfig config, Logger logger) {
+        this.logger = logger;
+        this.submitterName = submitterName;
+        this.thresholdNanos = config.getSlowTaskThreshold().toNanos();
+        this.sampleRate = config.getSlowTaskSampleRate();
+        this.maximumLogsPerMinute = config.getMaximumSlowTaskLogsPerMinute();
+        this.parameterCapture = config.isSlowTaskParameterCapture();
+        this.permits = maximumLogsPerMinute;
+        this.refilledNanos = System.nanoTime();
+    }
+
+    /**
+     * Watches the given task if it has a threshold and is sampled. Must be
+     * called by the thread that submits the task.
+     *
+     * @param task the submitted task
+     */
+    void watch(SqlTask<?, ?> task) {
+        long threshold = task.getOptions().getSlowTaskThreshold()
+                .map(Duration::toNanos)
+                .orElse(thresholdNanos);
+        if (threshold <= 0) {
+            return;
+        }
+        if ((sampleRate < 1.0) && (ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        SqlStatementCapture capture = parameterCapture ? new SqlStatementCapture() : null;
+        task.setSlowTaskWatch(new Watch(threshold, callerFrame(), capture));
+    }
+
+    /*
+     * Returns the first frame outside of this package and the JDK, which is
+     * the method of the submitter subclass that submitted the task.
+     */
+    private static String callerFrame() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> !isLibraryOrJdkClass(frame.getClassName()))
+                .findFirst()
+                .map(StackWalker.StackFrame::toString)
+                .orElse("<unknown>"));
+    }
+
+    static boolean isLibraryOrJdkClass(String className) {
+        int index = className.lastIndexOf('.');
+        String packageName = (index < 0) ? "" : className.substring(0, index);
+        return packageName.equals(PACKAGE_NAME) ||
+                className.startsWith("java.") ||
+                className.startsWith("jdk.");
+    }
+
+    /**
+     * Returns the {@code Connection} the given task is executed with.
+     *
+     * @param task       the task that is about to be executed
+     * @param connection the connection of the task
+     * @return a connection that captures the executed statements or the
+     * given connection if the statements of the task are not captured
+     */
+    Connection connectionOf(SqlTask<?, ?> task, Connection connection) {
+        Watch watch = task.getSlowTaskWatch();
+        return ((watch == null) || (watch.capture == null))
+                ? connection
+                : watch.capture.wrap(connection);
+    }
+
+    /**
+     * Logs the given task if it is watched and has exceeded its threshold.
+     *
+     * @param task           the executed task
+     * @param startedNanos   time at which the task requested its {@code Connection}
+     * @param connectedNanos time at which the task got its {@code Connection}
+     */
+    void finished(SqlTask<?, ?> task, long startedNanos, long connectedNanos) {
+        Watch watch = task.getSlowTaskWatch();
+        if (watch == null) {
+            return;
+        }
+        long finishedNanos = System.nanoTime();
+        long totalNanos = finishedNanos - task.getSubmittedNanos();
+        if ((totalNanos < watch.thresholdNanos) || !logger.isLoggable(Level.WARNING)) {
+            return;
+        }
+        long suppressed = tryAcquirePermit(finishedNanos);
+        if (suppressed < 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append("Slow task of ").append(submitterName)
+                .append(" took ").append(millis(totalNanos))
+                .append(" (threshold: ").append(millis(watch.thresholdNanos)).append(")")
+                .append("\n  Submitted by: ").append(watch.callerFrame)
+                .append("\n  Waiting: ").append(millis(connectedNanos - task.getSubmittedNanos()))
+                .append(" (queue: ").append(millis(startedNanos - task.getSubmittedNanos()))
+                .append(", connection: ").append(millis(connectedNanos - startedNanos))
+                .append("), executing: ").append(millis(finishedNanos - connectedNanos))
+                .append("\n  Query: ").append(queryOf(task));
+        if (watch.capture != null) {
+            for (String statement : watch.capture.describe()) {
+                message.append("\n  Statement: ").append(statement);
+            }
+        }
+        if (suppressed > 0) {
+            message.append("\n  ").append(suppressed)
+                    .append(" slow tasks have not been logged since the last message.");
+        }
+        logger.warning(message.toString());
+    }
+
+    private static String queryOf(SqlTask<?, ?> task) {
+        String query = task.getQuery();
+        return (query == null)
+                ? SqlLatencyRecorder.kindOf(task)
+                : SqlStatementCapture.abbreviate(query);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Takes a permit from the token bucket.
+     *
+     * @param nowNanos current time
+     * @return the number of tasks that have not been logged since the
+     * last permit was taken or -1 if no permit is left
+     */
+    synchronized long tryAcquirePermit(long nowNanos) {
+        long elapsedNanos = nowNanos - refilledNanos;
+        // threads may pass their times in a different order than they were taken
+        if (elapsedNanos > 0) {
+            double refill = elapsedNanos * (double) maximumLogsPerMinute / MINUTE_NANOS;
+            permits = Math.min(maximumLogsPerMinute, permits + refill);
+            refilledNanos = nowNanos;
+        }
+        if (permits < 1) {
+            suppressedCount++;
+            return -1;
+        }
+        permits -= 1;
+        long suppressed = suppressedCount;
+        suppressedCount = 0;
+        return suppressed;
+    }
+
+    static final class Watch {
+        private final long thresholdNanos;
+        private final String callerFrame;
+        private final SqlStatementCapture capture;
+
+        private Watch(long thresholdNanos, String callerFrame, SqlStatementCapture capture) {
+            this.thresholdNanos = thresholdNanos;
+            this.callerFrame = callerFrame;
+            this.capture = capture;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Captures the statements a task executes and the parameters bound to them.
+ * <p>
+ * The {@code Connection} returned by {@link #wrap} forwards every call to the
+ * wrapped connection but wraps the statements it creates, so that the SQL
+ * of each statement, the parameters set on it and the number of batched
+ * parameter sets can be described when the task turns out to be slow.
+ * Only the last parameters bound to a statement are kept.
+ */
+final class SqlStatementCapture {
+    static final int MAXIMUM_STATEMENTS = 8;
+    static final int MAXIMUM_VALUE_LENGTH = 64;
+    static final int MAXIMUM_SQL_LENGTH = 512;
+    private final List<CapturedStatement> statements = new ArrayList<>();
+    private int omittedStatementCount;
+
+    Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return isStatementFactory(method)
+                            ? wrapStatement((Statement) result, method, args)
+                            : result;
+                }
+        );
+    }
+
+    private static boolean isStatementFactory(Method method) {
+        switch (method.getName()) {
+            case "createStatement":
+            case "prepareStatement":
+            case "prepareCall":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Object wrapStatement(Statement statement, Method factory, Object[] args) {
+        if (statements.size() == MAXIMUM_STATEMENTS) {
+            omittedStatementCount++;
+            return statement;
+        }
+        String sql = (args != null && args.length > 0 && args[0] instanceof String)
+                ? (String) args[0]
+                : null;
+        CapturedStatement captured = new CapturedStatement(sql);
+        statements.add(captured);
+        Class<?> type = factory.getReturnType();
+        return Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, methodArgs) -> {
+                    captured.record(method, methodArgs);
+                    return invoke(statement, method, methodArgs);
+                }
+        );
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns one line per captured statement that contains its SQL, its
+     * parameters and its batch size.
+     *
+     * @return description of the captured statements
+     */
+    List<String> describe() {
+        List<String> lines = new ArrayList<>(statements.size() + 1);
+        for (CapturedStatement statement : statements) {
+            lines.add(statement.toString());
+        }
+        if (omittedStatementCount > 0) {
+            lines.add(omittedStatementCount + " more statements");
+        }
+        return lines;
+    }
+
+    /**
+     * Collapses the whitespace of the given SQL to single spaces and cuts it
+     * off after {@value #MAXIMUM_SQL_LENGTH} characters.
+     *
+     * @param sql the SQL
+     * @return the abbreviated SQL
+     */
+    static String abbreviate(String sql) {
+        StringBuilder builder = new StringBuilder(Math.min(sql.length(), MAXIMUM_SQL_LENGTH));
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = true;
+                continue;
+            }
+            if (builder.length() >= MAXIMUM_SQL_LENGTH) {
+                return builder.append("...").toString();
+            }
+            if (whitespace && builder.length() > 0) {
+                builder.append(' ');
+            }
+            whitespace = false;
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    static String formatValue(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[]) {
+            return "byte[" + ((byte[]) value).length + "]";
+        }
+        if ((value instanceof InputStream) || (value instanceof Reader) ||
+                (value instanceof Blob) || (value instanceof Clob)) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String string = String.valueOf(value);
+        if (string.length() > MAXIMUM_VALUE_LENGTH) {
+            string = string.substring(0, MAXIMUM_VALUE_LENGTH) + "...";
+        }
+        return (value instanceof CharSequence) ? "'" + string + "'" : string;
+    }
+
+    private static final class CapturedStatement {
+        private final Map<Integer, String> parameters = new TreeMap<>();
+        private String sql;
+        private int batchSize;
+
+        private CapturedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        private void record(Method method, Object[] args) {
+            String name = method.getName();
+            if (SqlParameterRecorder.isSetter(method, args)) {
+                Object value = name.equals("setNull") ? null : args[1];
+                parameters.put((Integer) args[0], formatValue(value));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null && args.length > 0) {
+                    sql = (String) args[0];
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.startsWith("execute") &&
+                    (args != null) && (args.length > 0) && (args[0] instanceof String)) {
+                sql = (String) args[0];
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder()
+                    .append((sql == null) ? "<unknown>" : abbreviate(sql));
+            if (!parameters.isEmpty()) {
+                builder.append(" parameters: ").append(parameters);
+            }
+            if (batchSize > 0) {
+                builder.append(" batch size: ").append(batchSize);
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.util.SqlDialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reads the rows of a query and passes them to a {@link SqlChunkConsumer}
+ * in chunks, so that the result never has to be held in memory at once.
+ *
+ * @param <T> the row type
+ */
+final class SqlStream<T> {
+    private static final long PERMIT_POLL_MILLIS = 50;
+    private final CheckedSqlConsumer<? super PreparedStatement> binder;
+    private final CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper;
+    private final SqlChunkConsumer<? super T> chunkConsumer;
+    private final SqlStreamOptions options;
+    private final Semaphore pendingChunks;
+    private BiConsumer<? super List<T>, ? super Throwable> syncDelivery;
+    private volatile boolean cancelled;
+    private volatile RuntimeException consumerFailure;
+
+    SqlStream(
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlChunkConsumer<? super T> chunkConsumer,
+            SqlStreamOptions options
+    ) {
+        this.binder = binder;
+        this.rowMapper = rowMapper;
+        this.chunkConsumer = chunkConsumer;
+        this.options = options;
+        this.pendingChunks = new Semaphore(options.getMaximumPendingChunks());
+    }
+
+    /**
+     * Sets the callback that passes chunks to the sync executor. The callback
+     * must call {@link #consumePending(List)} with the chunk it is passed.
+     *
+     * @param syncDelivery callback that delivers chunks to the sync executor
+     */
+    void setSyncDelivery(BiConsumer<? super List<T>, ? super Throwable> syncDelivery) {
+        this.syncDelivery = syncDelivery;
+    }
+
+    /**
+     * Executes the statement and passes its rows to the chunk consumer.
+     *
+     * @param statement the statement that is executed
+     * @return the number of rows read
+     * @throws SQLException if a database access error occurs
+     */
+    long execute(PreparedStatement statement) throws SQLException {
+        return executeQuery(
+                statement, binder, options.getFetchSize(), options.getChunkSize(),
+                this::readRows, () -> cancelled
+        );
+    }
+
+    /**
+     * Executes the query of the statement so that the driver streams its rows
+     * instead of reading the whole result into memory, and applies the
+     * {@code reader} to the result.
+     *
+     * @param statement   the statement that is executed
+     * @param binder      action that sets the parameters of the statement
+     * @param fetchSize   fetch size of the statement or 0 to use the streaming
+     *                    fetch size of the dialect
+     * @param rowsPerRead number of rows the driver should read at a time
+     * @param reader      function that reads the result
+     * @param stopped     returns true if the reader stopped before reading all rows
+     * @param <R>         the result type
+     * @return the result of the reader
+     * @throws SQLException if a database access error occurs
+     */
+    static <R> R executeQuery(
+            PreparedStatement statement,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            int fetchSize,
+            int rowsPerRead,
+            CheckedSqlFunction<? super ResultSet, ? extends R> reader,
+            BooleanSupplier stopped
+    ) throws SQLException {
+        Connection connection = statement.getConnection();
+        SqlDialect dialect = SqlDialect.of(connection);
+        boolean disableAutoCommit = dialect.isStreamingTransactional() &&
+                connection.getAutoCommit();
+        if (disableAutoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            binder.accept(statement);
+            statement.setFetchSize((fetchSize == 0)
+                    ? dialect.getStreamingFetchSize(rowsPerRead)
+                    : fetchSize
+            );
+            try (ResultSet resultSet = statement.executeQuery()) {
+                R result = reader.apply(resultSet);
+                if (stopped.getAsBoolean() && isStreamingDialect(dialect)) {
+                    // MySQL drivers read all remaining rows when a streamed
+                    // result is closed unless the query is cancelled first
+                    cancel(statement);
+                }
+                return result;
+            }
+        } finally {
+            if (disableAutoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private long readRows(ResultSet resultSet) throws SQLException {
+        int chunkSize = options.getChunkSize();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        long rowCount = 0;
+        while (!cancelled && resultSet.next()) {
+            chunk.add(rowMapper.apply(resultSet));
+            rowCount++;
+            if (chunk.size() == chunkSize) {
+                deliver(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!cancelled && !chunk.isEmpty()) {
+            deliver(chunk);
+        }
+        awaitPendingChunks();
+        RuntimeException failure = consumerFailure;
+        if (failure != null) {
+            throw failure;
+        }
+        return rowCount;
+    }
+
+    private void deliver(List<T> chunk) throws SQLException {
+        if (!options.isSynchronousDelivery()) {
+            consume(chunk);
+            return;
+        }
+        if (acquirePermits(1)) {
+            syncDelivery.accept(chunk, null);
+        }
+    }
+
+    /**
+     * Consumes a chunk that has been passed to the sync executor.
+     *
+     * @param chunk the chunk
+     */
+    void consumePending(List<T> chunk) {
+        try {
+            if (!cancelled) {
+                consume(chunk);
+            }
+        } catch (RuntimeException e) {
+            consumerFailure = e;
+            cancelled = true;
+        } finally {
+            pendingChunks.release();
+        }
+    }
+
+    private void consume(List<T> chunk) {
+        if (!chunkConsumer.accept(chunk)) {
+            cancelled = true;
+        }
+    }
+
+    private void awaitPendingChunks() throws SQLException {
+        if (options.isSynchronousDelivery() &&
+                acquirePermits(options.getMaximumPendingChunks())) {
+            pendingChunks.release(options.getMaximumPendingChunks());
+        }
+    }
+
+    private boolean acquirePermits(int permits) throws SQLException {
+        try {
+            while (!pendingChunks.tryAcquire(permits, PERMIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+            throw new SQLException("Interrupted while waiting for chunks to be consumed.", e);
+        }
+    }
+
+    private static boolean isStreamingDialect(SqlDialect dialect) {
+        return (dialect == SqlDialect.MYSQL) || (dialect == SqlDialect.MARIADB);
+    }
+
+    private static void cancel(PreparedStatement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // closing the result reads the remaining rows instead
+        }
+    }
+}
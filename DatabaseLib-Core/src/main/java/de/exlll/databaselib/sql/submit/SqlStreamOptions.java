@@ -0,0 +1,161 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.Objects;
+
+/**
+ * Options that control how the rows of a streamed query are read and delivered.
+ */
+public final class SqlStreamOptions {
+    public static final SqlStreamOptions DEFAULT = new Builder().build();
+    private final int chunkSize;
+    private final int fetchSize;
+    private final boolean synchronousDelivery;
+    private final int maximumPendingChunks;
+    private final SqlTaskOptions taskOptions;
+
+    private SqlStreamOptions(Builder builder) {
+        this.chunkSize = builder.chunkSize;
+        this.fetchSize = builder.fetchSize;
+        this.synchronousDelivery = builder.synchronousDelivery;
+        this.maximumPendingChunks = builder.maximumPendingChunks;
+        this.taskOptions = builder.taskOptions;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the fetch size of the statement. A value of 0 means that a fetch
+     * size appropriate for the dialect of the database is used.
+     *
+     * @return fetch size of the statement
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public boolean isSynchronousDelivery() {
+        return synchronousDelivery;
+    }
+
+    public int getMaximumPendingChunks() {
+        return maximumPendingChunks;
+    }
+
+    public SqlTaskOptions getTaskOptions() {
+        return taskOptions;
+    }
+
+    public static final class Builder {
+        private int chunkSize = 500;
+        private int fetchSize = 0;
+        private boolean synchronousDelivery;
+        private int maximumPendingChunks = 4;
+        private SqlTaskOptions taskOptions = SqlTaskOptions.DEFAULT;
+
+        /**
+         * Sets the number of rows per chunk. Defaults to 500.
+         *
+         * @param chunkSize number of rows per chunk
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+         */
+        public Builder setChunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                String msg = "Problem: The chunk size is " + chunkSize +
+                        " (less than 1).\nSolution: Pass a chunk size" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets the fetch size of the statement. Defaults to 0 which means that
+         * a fetch size appropriate for the dialect of the database is used. For
+         * MySQL, this is {@code Integer.MIN_VALUE} which makes the driver stream
+         * rows one by one. For other databases, it is the chunk size.
+         *
+         * @param fetchSize fetch size of the statement or 0
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code fetchSize} is negative
+         */
+        public Builder setFetchSize(int fetchSize) {
+            if (fetchSize < 0) {
+                String msg = "Problem: The fetch size is " + fetchSize +
+                        " (less than 0).\nSolution: Pass a fetch size" +
+                        " greater than or equal to 0.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * Sets whether chunks are delivered to the sync executor. Default value
+         * is false which means that chunks are consumed in the thread that reads
+         * the rows.
+         * <p>
+         * If enabled, at most {@link #setMaximumPendingChunks(int) maximumPendingChunks}
+         * chunks wait for the sync executor at a time. Reading more rows is paused
+         * until the consumer has caught up.
+         *
+         * @param synchronousDelivery true if chunks should be consumed by the
+         *                            sync executor
+         * @return this {@code Builder}
+         */
+        public Builder setSynchronousDelivery(boolean synchronousDelivery) {
+            this.synchronousDelivery = synchronousDelivery;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of chunks that wait for the sync executor.
+         * Defaults to 4.
+         *
+         * @param maximumPendingChunks maximum number of pending chunks
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumPendingChunks} is less than 1
+         */
+        public Builder setMaximumPendingChunks(int maximumPendingChunks) {
+            if (maximumPendingChunks < 1) {
+                String msg = "Problem: The maximum number of pending chunks is " +
+                        maximumPendingChunks + " (less than 1).\nSolution: Pass a " +
+                        "number greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumPendingChunks = maximumPendingChunks;
+            return this;
+        }
+
+        /**
+         * Sets the options of the task that executes the query.
+         * Defaults to {@link SqlTaskOptions#DEFAULT}.
+         * <p>
+         * A single-flight key of the given options is ignored. Each streaming
+         * task passes its rows to its own chunk consumer, so two streams of the
+         * same query never share one execution.
+         *
+         * @param taskOptions options of the task
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code taskOptions} is null
+         */
+        public Builder setTaskOptions(SqlTaskOptions taskOptions) {
+            this.taskOptions = Objects.requireNonNull(taskOptions);
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlStreamOptions}
+         */
+        public SqlStreamOptions build() {
+            return new SqlStreamOptions(this);
+        }
+    }
+}
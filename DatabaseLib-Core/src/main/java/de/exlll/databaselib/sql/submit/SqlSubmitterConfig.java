@@ -0,0 +1,522 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration of an {@link AsyncSqlTaskSubmitter}.
+ * <p>
+ * Submitted tasks are kept in a task queue until a {@code Connection} is free to
+ * execute them. The tasks of all submitters that use the same connection pool
+ * together never exceed the maximum size of that pool, so no thread is parked
+ * waiting for a {@code Connection} of an exhausted pool.
+ */
+public final class SqlSubmitterConfig {
+    public static final SqlSubmitterConfig DEFAULT = new Builder().build();
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int maximumConcurrency;
+    private final int maximumBatchSize;
+    private final Duration batchDelay;
+    private final Duration callbackTimeBudget;
+    private final boolean useVirtualThreads;
+    private final Duration taskTimeout;
+    private final Duration starvationThreshold;
+    private final boolean latencyStatisticsEnabled;
+    private final int maximumTrackedQueries;
+    private final Duration latencyStatisticsInterval;
+    private final Duration slowTaskThreshold;
+    private final double slowTaskSampleRate;
+    private final int maximumSlowTaskLogsPerMinute;
+    private final boolean slowTaskParameterCapture;
+
+    private SqlSubmitterConfig(Builder builder) {
+        this.queueCapacity = builder.queueCapacity;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.maximumConcurrency = builder.maximumConcurrency;
+        this.maximumBatchSize = builder.maximumBatchSize;
+        this.batchDelay = builder.batchDelay;
+        this.callbackTimeBudget = builder.callbackTimeBudget;
+        this.useVirtualThreads = builder.useVirtualThreads;
+        this.taskTimeout = builder.taskTimeout;
+        this.starvationThreshold = builder.starvationThreshold;
+        this.latencyStatisticsEnabled = builder.latencyStatisticsEnabled;
+        this.maximumTrackedQueries = builder.maximumTrackedQueries;
+        this.latencyStatisticsInterval = builder.latencyStatisticsInterval;
+        this.slowTaskThreshold = builder.slowTaskThreshold;
+        this.slowTaskSampleRate = builder.slowTaskSampleRate;
+        this.maximumSlowTaskLogsPerMinute = builder.maximumSlowTaskLogsPerMinute;
+        this.slowTaskParameterCapture = builder.slowTaskParameterCapture;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the maximum number of tasks of one submitter that are executed
+     * at the same time. A value of 0 means that the tasks are only limited by
+     * the maximum size of the connection pool, which is shared by all
+     * submitters of the pool.
+     *
+     * @return maximum number of concurrently executed tasks
+     */
+    public int getMaximumConcurrency() {
+        return maximumConcurrency;
+    }
+
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    public Duration getBatchDelay() {
+        return batchDelay;
+    }
+
+    /**
+     * Returns the time that may be spent running callbacks per run of
+     * the sync {@code Executor}. A value of zero means that there is no limit.
+     *
+     * @return time budget for callbacks
+     */
+    public Duration getCallbackTimeBudget() {
+        return callbackTimeBudget;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * Returns the timeout of tasks that don't specify their own timeout.
+     * A value of zero means that these tasks don't time out.
+     *
+     * @return default timeout of tasks
+     */
+    public Duration getTaskTimeout() {
+        return taskTimeout;
+    }
+
+    /**
+     * Returns the time after which a queued task is executed before
+     * queued tasks of a higher {@link SqlTaskPriority}.
+     *
+     * @return starvation threshold
+     */
+    public Duration getStarvationThreshold() {
+        return starvationThreshold;
+    }
+
+    public boolean isLatencyStatisticsEnabled() {
+        return latencyStatisticsEnabled;
+    }
+
+    public int getMaximumTrackedQueries() {
+        return maximumTrackedQueries;
+    }
+
+    /**
+     * Returns the interval after which the latency statistics are reset.
+     * A value of zero means that they are only reset on request.
+     *
+     * @return latency statistics interval
+     */
+    public Duration getLatencyStatisticsInterval() {
+        return latencyStatisticsInterval;
+    }
+
+    /**
+     * Returns the time after which tasks that don't specify their own
+     * threshold are logged as slow tasks. Zero means that these tasks
+     * are not logged.
+     *
+     * @return slow task threshold
+     */
+    public Duration getSlowTaskThreshold() {
+        return slowTaskThreshold;
+    }
+
+    public double getSlowTaskSampleRate() {
+        return slowTaskSampleRate;
+    }
+
+    public int getMaximumSlowTaskLogsPerMinute() {
+        return maximumSlowTaskLogsPerMinute;
+    }
+
+    public boolean isSlowTaskParameterCapture() {
+        return slowTaskParameterCapture;
+    }
+
+    public static final class Builder {
+        private int queueCapacity = Integer.MAX_VALUE;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+        private int maximumConcurrency = 0;
+        private int maximumBatchSize = 100;
+        private Duration batchDelay = Duration.ofMillis(10);
+        private Duration callbackTimeBudget = Duration.ZERO;
+        private boolean useVirtualThreads;
+        private Duration taskTimeout = Duration.ZERO;
+        private Duration starvationThreshold = Duration.ofSeconds(1);
+        private boolean latencyStatisticsEnabled = true;
+        private int maximumTrackedQueries = 64;
+        private Duration latencyStatisticsInterval = Duration.ZERO;
+        private Duration slowTaskThreshold = Duration.ZERO;
+        private double slowTaskSampleRate = 1.0;
+        private int maximumSlowTaskLogsPerMinute = 10;
+        private boolean slowTaskParameterCapture;
+
+        /**
+         * Sets the maximum number of tasks that can wait in the task queue.
+         * Defaults to {@code Integer.MAX_VALUE}.
+         *
+         * @param queueCapacity maximum number of queued tasks
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code queueCapacity} is less than 1
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                String msg = "Problem: The queue capacity is " + queueCapacity +
+                        " (less than 1).\nSolution: Pass a queue capacity" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the policy that is applied when a task is submitted while the
+         * task queue is full. Defaults to {@link OverflowPolicy#REJECT}.
+         *
+         * @param overflowPolicy policy applied to tasks that don't fit into the queue
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code overflowPolicy} is null
+         */
+        public Builder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tasks of the submitter that are executed
+         * at the same time.
+         * <p>
+         * Independent of this value, all submitters that use the same connection
+         * pool together execute at most as many tasks as the pool has connections,
+         * so that every executing task gets a {@code Connection} without waiting.
+         * The default value 0 applies only that limit.
+         *
+         * @param maximumConcurrency maximum number of concurrently executed tasks
+         *                           or 0 to only limit them by the size of the pool
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumConcurrency} is negative
+         */
+        public Builder setMaximumConcurrency(int maximumConcurrency) {
+            if (maximumConcurrency < 0) {
+                String msg = "Problem: The maximum concurrency is " + maximumConcurrency +
+                        " (less than 0).\nSolution: Pass a maximum concurrency" +
+                        " greater than or equal to 0.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumConcurrency = maximumConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of parameter bindings that are collected
+         * into one batch before the batch is executed. Defaults to 100.
+         *
+         * @param maximumBatchSize maximum number of bindings per batch
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumBatchSize} is less than 1
+         */
+        public Builder setMaximumBatchSize(int maximumBatchSize) {
+            if (maximumBatchSize < 1) {
+                String msg = "Problem: The maximum batch size is " + maximumBatchSize +
+                        " (less than 1).\nSolution: Pass a maximum batch size" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumBatchSize = maximumBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the time a batch waits for more parameter bindings after its
+         * first binding has been submitted. Defaults to 10 milliseconds.
+         *
+         * @param batchDelay time a batch waits for more bindings
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code batchDelay} is null
+         * @throws IllegalArgumentException if {@code batchDelay} is negative
+         */
+        public Builder setBatchDelay(Duration batchDelay) {
+            if (batchDelay.isNegative()) {
+                String msg = "Problem: The batch delay " + batchDelay + " is negative.\n" +
+                        "Solution: Pass a batch delay that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.batchDelay = batchDelay;
+            return this;
+        }
+
+        /**
+         * Sets the time that may be spent running callbacks per run of the
+         * sync {@code Executor}. Defaults to zero which means that there is no limit.
+         * <p>
+         * Completed callbacks are collected and run together by a single task
+         * of the sync executor. If running them takes longer than the time budget,
+         * the remaining callbacks are run by the next task. For Bukkit plugins this
+         * limits the time callbacks take per server tick.
+         *
+         * @param callbackTimeBudget time budget for callbacks or zero for no limit
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code callbackTimeBudget} is null
+         * @throws IllegalArgumentException if {@code callbackTimeBudget} is negative
+         */
+        public Builder setCallbackTimeBudget(Duration callbackTimeBudget) {
+            if (callbackTimeBudget.isNegative()) {
+                String msg = "Problem: The callback time budget " + callbackTimeBudget +
+                        " is negative.\nSolution: Pass a time budget that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.callbackTimeBudget = callbackTimeBudget;
+            return this;
+        }
+
+        /**
+         * Enables or disables the execution of tasks in virtual threads.
+         * Default value is false.
+         * <p>
+         * If enabled and the runtime supports virtual threads (Java 21 or higher),
+         * each task is executed in its own virtual thread instead of a thread of the
+         * async executor, so waiting for the database doesn't block a platform thread.
+         * On older runtimes the async executor is used.
+         *
+         * @param useVirtualThreads true if tasks should be executed in virtual threads
+         * @return this {@code Builder}
+         */
+        public Builder setUseVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of tasks that don't specify their own timeout
+         * via {@link SqlTaskOptions}. Defaults to zero which means that these
+         * tasks don't time out.
+         * <p>
+         * The timeout starts when a task is submitted and covers the time the task
+         * waits in the task queue, the time it waits for a {@code Connection} and the
+         * time it executes. A task that times out completes with a
+         * {@link java.sql.SQLTimeoutException}.
+         *
+         * @param taskTimeout default timeout of tasks or zero for no timeout
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code taskTimeout} is null
+         * @throws IllegalArgumentException if {@code taskTimeout} is negative
+         */
+        public Builder setTaskTimeout(Duration taskTimeout) {
+            if (taskTimeout.isNegative()) {
+                String msg = "Problem: The task timeout " + taskTimeout + " is negative.\n" +
+                        "Solution: Pass a task timeout that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.taskTimeout = taskTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a queued task is executed before queued
+         * tasks of a higher {@link SqlTaskPriority}. Defaults to 1 second.
+         * <p>
+         * Without this threshold, tasks of a low priority would never be executed
+         * as long as tasks of a higher priority are submitted faster than they
+         * can be executed.
+         *
+         * @param starvationThreshold time after which a task is preferred over
+         *                            tasks of a higher priority
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code starvationThreshold} is null
+         * @throws IllegalArgumentException if {@code starvationThreshold} is negative
+         */
+        public Builder setStarvationThreshold(Duration starvationThreshold) {
+            if (starvationThreshold.isNegative()) {
+                String msg = "Problem: The starvation threshold " + starvationThreshold +
+                        " is negative.\nSolution: Pass a starvation threshold that is" +
+                        " zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.starvationThreshold = starvationThreshold;
+            return this;
+        }
+
+        /**
+         * Enables or disables the recording of the latencies of executed tasks.
+         * Default value is true.
+         * <p>
+         * If enabled, the time every task waits in the queue, waits for a
+         * {@code Connection}, executes and waits for its callback to be delivered
+         * is recorded per query. See {@link AsyncSqlTaskSubmitter#getLatencyStatistics()}.
+         *
+         * @param latencyStatisticsEnabled true if latencies should be recorded
+         * @return this {@code Builder}
+         */
+        public Builder setLatencyStatisticsEnabled(boolean latencyStatisticsEnabled) {
+            this.latencyStatisticsEnabled = latencyStatisticsEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of normalized queries whose latencies are
+         * recorded separately. The latencies of further queries are recorded
+         * together as {@code <other>}. Defaults to 64.
+         * <p>
+         * Each tracked query needs about 8 KB of memory.
+         *
+         * @param maximumTrackedQueries maximum number of tracked queries
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumTrackedQueries} is less than 1
+         */
+        public Builder setMaximumTrackedQueries(int maximumTrackedQueries) {
+            if (maximumTrackedQueries < 1) {
+                String msg = "Problem: The maximum number of tracked queries is " +
+                        maximumTrackedQueries + " (less than 1).\nSolution: Pass a " +
+                        "number greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumTrackedQueries = maximumTrackedQueries;
+            return this;
+        }
+
+        /**
+         * Sets the interval after which the latency statistics are reset.
+         * Defaults to zero which means that they are only reset by
+         * {@link AsyncSqlTaskSubmitter#resetLatencyStatistics()}.
+         * <p>
+         * If set, {@link AsyncSqlTaskSubmitter#getLatencyStatistics()} returns
+         * the statistics of the last completed interval.
+         *
+         * @param latencyStatisticsInterval interval or zero for no interval
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code latencyStatisticsInterval} is null
+         * @throws IllegalArgumentException if {@code latencyStatisticsInterval} is negative
+         */
+        public Builder setLatencyStatisticsInterval(Duration latencyStatisticsInterval) {
+            if (latencyStatisticsInterval.isNegative()) {
+                String msg = "Problem: The latency statistics interval " +
+                        latencyStatisticsInterval + " is negative.\nSolution: Pass an " +
+                        "interval that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.latencyStatisticsInterval = latencyStatisticsInterval;
+            return this;
+        }
+
+        /**
+         * Sets the time after which tasks that don't specify their own threshold
+         * via {@link SqlTaskOptions} are logged as slow tasks. Defaults to zero which
+         * means that these tasks are not logged.
+         * <p>
+         * The time covers the time a task waits in the task queue, the time it waits
+         * for a {@code Connection} and the time it executes. A slow task is logged
+         * with its query, the place in the code it was submitted from and the time
+         * it spent waiting and executing.
+         *
+         * @param slowTaskThreshold default slow task threshold or zero
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code slowTaskThreshold} is null
+         * @throws IllegalArgumentException if {@code slowTaskThreshold} is negative
+         */
+        public Builder setSlowTaskThreshold(Duration slowTaskThreshold) {
+            if (slowTaskThreshold.isNegative()) {
+                String msg = "Problem: The slow task threshold " + slowTaskThreshold +
+                        " is negative.\nSolution: Pass a threshold that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.slowTaskThreshold = slowTaskThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of tasks that are watched by the slow task log.
+         * Defaults to 1.0 which means that every task is watched.
+         * <p>
+         * Watching a task costs a stack walk when the task is submitted. Submitters
+         * that submit many tasks per second can lower the sample rate to keep
+         * this overhead small.
+         *
+         * @param slowTaskSampleRate fraction of watched tasks between 0.0 and 1.0
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code slowTaskSampleRate} is not
+         *                                  between 0.0 and 1.0
+         */
+        public Builder setSlowTaskSampleRate(double slowTaskSampleRate) {
+            if (!(slowTaskSampleRate >= 0.0 && slowTaskSampleRate <= 1.0)) {
+                String msg = "Problem: The slow task sample rate " + slowTaskSampleRate +
+                        " is not between 0.0 and 1.0.\nSolution: Pass a sample rate " +
+                        "between 0.0 and 1.0.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.slowTaskSampleRate = slowTaskSampleRate;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of slow tasks that are logged per minute.
+         * Defaults to 10.
+         * <p>
+         * Slow tasks that exceed this limit are counted and the count is added
+         * to the next logged slow task, so that a slow database doesn't flood
+         * the log.
+         *
+         * @param maximumSlowTaskLogsPerMinute maximum number of logs per minute
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumSlowTaskLogsPerMinute}
+         *                                  is less than 1
+         */
+        public Builder setMaximumSlowTaskLogsPerMinute(int maximumSlowTaskLogsPerMinute) {
+            if (maximumSlowTaskLogsPerMinute < 1) {
+                String msg = "Problem: The maximum number of slow task logs per minute is " +
+                        maximumSlowTaskLogsPerMinute + " (less than 1).\nSolution: Pass " +
+                        "a number greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumSlowTaskLogsPerMinute = maximumSlowTaskLogsPerMinute;
+            return this;
+        }
+
+        /**
+         * Enables or disables the capture of the statements executed by slow tasks
+         * and of the parameters bound to them. Default value is false.
+         * <p>
+         * If enabled, watched tasks get a {@code Connection} that wraps the statements
+         * it creates. A wrapped statement can't be cast to the statement class of the
+         * driver; {@code unwrap} must be used instead.
+         *
+         * @param slowTaskParameterCapture true if statements and parameters of
+         *                                 slow tasks should be logged
+         * @return this {@code Builder}
+         */
+        public Builder setSlowTaskParameterCapture(boolean slowTaskParameterCapture) {
+            this.slowTaskParameterCapture = slowTaskParameterCapture;
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlSubmitterConfig}
+         */
+        public SqlSubmitterConfig build() {
+            return new SqlSubmitterConfig(this);
+        }
+    }
+}
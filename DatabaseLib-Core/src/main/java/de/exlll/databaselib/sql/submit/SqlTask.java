@@ -1,13 +1,28 @@
 package de.exlll.databaselib.sql.submit;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
 import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 
 abstract class SqlTask<T, R> {
     final CheckedSqlFunction<? super T, ? extends R> function;
     final BiConsumer<? super R, ? super Throwable> callback;
+    private SqlTaskOptions options = SqlTaskOptions.DEFAULT;
+    private long timeoutNanos;
+    private long deadlineNanos;
+    private long submittedNanos;
+    private long enqueuedNanos;
+    private volatile ScheduledFuture<?> watchdog;
+    private volatile boolean timedOut;
+    private volatile Statement runningStatement;
+    private Runnable completionAction;
+    private SqlSlowTaskLog.Watch slowTaskWatch;
 
     SqlTask(
             CheckedSqlFunction<? super T, ? extends R> function,
@@ -18,4 +33,155 @@ abstract class SqlTask<T, R> {
     }
 
     abstract void execute(Connection connection);
+
+    final SqlTask<T, R> withOptions(SqlTaskOptions options) {
+        this.options = Objects.requireNonNull(options);
+        return this;
+    }
+
+    final SqlTaskOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the query this task executes or null if the query is
+     * not known before the task is executed.
+     *
+     * @return query of this task or null
+     */
+    String getQuery() {
+        return null;
+    }
+
+    final long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    final void setSubmittedNanos(long submittedNanos) {
+        this.submittedNanos = submittedNanos;
+    }
+
+    final SqlSlowTaskLog.Watch getSlowTaskWatch() {
+        return slowTaskWatch;
+    }
+
+    final void setSlowTaskWatch(SqlSlowTaskLog.Watch slowTaskWatch) {
+        this.slowTaskWatch = slowTaskWatch;
+    }
+
+    final long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    final void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+    }
+
+    final void setCompletionAction(Runnable completionAction) {
+        this.completionAction = completionAction;
+    }
+
+    /**
+     * Runs the completion action of this task, if any. Must be called exactly
+     * once after this task has been executed or failed.
+     */
+    final void completed() {
+        Runnable action = completionAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Starts the deadline of this task. A timeout of 0 means that this
+     * task has no deadline.
+     *
+     * @param timeoutNanos timeout in nanoseconds
+     */
+    final void startDeadline(long timeoutNanos) {
+        if (timeoutNanos > 0) {
+            this.timeoutNanos = timeoutNanos;
+            this.deadlineNanos = System.nanoTime() + timeoutNanos;
+        }
+    }
+
+    final boolean hasDeadline() {
+        return timeoutNanos > 0;
+    }
+
+    final long getRemainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    final boolean isTimedOut() {
+        return timedOut || (hasDeadline() && getRemainingNanos() <= 0);
+    }
+
+    final void setWatchdog(ScheduledFuture<?> watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    final void cancelWatchdog() {
+        ScheduledFuture<?> watchdog = this.watchdog;
+        if (watchdog != null) {
+            watchdog.cancel(false);
+        }
+    }
+
+    /**
+     * Marks this task as timed out.
+     *
+     * @return the {@code Statement} this task currently executes or null
+     */
+    final Statement timeOut() {
+        this.timedOut = true;
+        return runningStatement;
+    }
+
+    /**
+     * Registers the {@code Statement} this task is about to execute so that it
+     * can be cancelled when the deadline passes.
+     *
+     * @param statement statement that is executed
+     * @throws SQLTimeoutException if the deadline has already passed
+     * @throws SQLException        if setting the query timeout fails
+     */
+    final void startStatement(Statement statement) throws SQLException {
+        if (!hasDeadline()) {
+            return;
+        }
+        long remainingNanos = getRemainingNanos();
+        if (timedOut || remainingNanos <= 0) {
+            throw newTimeoutException("before its statement was executed", null);
+        }
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1
+        ));
+        statement.setQueryTimeout((int) Math.min(seconds, Integer.MAX_VALUE));
+        runningStatement = statement;
+    }
+
+    final void finishStatement() {
+        runningStatement = null;
+    }
+
+    /**
+     * Returns a {@code SQLTimeoutException} caused by the given {@code Throwable}
+     * if this task has timed out or the {@code Throwable} itself otherwise.
+     *
+     * @param throwable the cause of the failure
+     * @return the exception passed to the callback
+     */
+    final Throwable toFailure(Throwable throwable) {
+        if (!timedOut || (throwable instanceof SQLTimeoutException)) {
+            return throwable;
+        }
+        return newTimeoutException("during execution", throwable);
+    }
+
+    final SQLTimeoutException newTimeoutException(String phase, Throwable cause) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+        String msg = "The task timed out " + phase + " (timeout: " + millis + " ms).";
+        return new SQLTimeoutException(msg, cause);
+    }
 }
@@ -0,0 +1,382 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.pool.SqlConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues submitted tasks and hands them to an {@code Executor} only when
+ * one of a fixed number of execution slots is free.
+ * <p>
+ * The slots are the {@link SqlConnectionSlots} of the connection pool, which
+ * are shared by all dispatchers of the pool, so every task that leaves the
+ * queue gets a {@code Connection} without having to wait, even if the pool
+ * is used by the submitters of several plugins. A maximum concurrency that is
+ * configured explicitly additionally limits the tasks of this dispatcher.
+ * <p>
+ * Each {@link SqlTaskPriority} has its own queue (lane). Free slots are given to
+ * the highest priority lane unless the oldest task of a lower lane has waited
+ * longer than the starvation threshold. All lanes share the queue capacity.
+ * <p>
+ * Tasks with a partition key are passed through a {@link SqlTaskSequencer}
+ * first, so that only one task per key is queued or executing at a time.
+ * Tasks that wait in the sequencer for an earlier task of their key don't
+ * count against the queue capacity, and if their deadline passes there,
+ * they are failed only when the earlier task has completed.
+ * <p>
+ * Tasks with a deadline are watched by a {@link TaskTimer}. If the deadline
+ * passes while a task is queued, the task is removed from the queue. If it
+ * passes while the task executes a statement, the statement is cancelled.
+ * <p>
+ * If a {@link SqlLatencyRecorder} is passed, the latencies of executed
+ * tasks are recorded. If a {@link SqlSlowTaskLog} is passed, slow tasks are logged.
+ */
+final class SqlTaskDispatcher {
+    private static final SqlTaskPriority[] priorities = SqlTaskPriority.values();
+    private final Lane[] lanes = new Lane[priorities.length];
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final SqlTaskSequencer sequencer = new SqlTaskSequencer(this::enqueueAndDrain);
+    private final SqlConnectionPool connectionPool;
+    private final SqlConnectionSlots connectionSlots;
+    private final Executor executor;
+    private final SqlLatencyRecorder latencyRecorder;
+    private final SqlSlowTaskLog slowTaskLog;
+    private final int queueCapacity;
+    private final int maximumConcurrency;
+    private final OverflowPolicy overflowPolicy;
+    private final long taskTimeoutNanos;
+    private final long starvationThresholdNanos;
+
+    SqlTaskDispatcher(
+            SqlConnectionPool connectionPool,
+            Executor executor,
+            SqlSubmitterConfig config
+    ) {
+        this(connectionPool, executor, config, null, null);
+    }
+
+    SqlTaskDispatcher(
+            SqlConnectionPool connectionPool,
+            Executor executor,
+            SqlSubmitterConfig config,
+            SqlLatencyRecorder latencyRecorder,
+            SqlSlowTaskLog slowTaskLog
+    ) {
+        this.connectionPool = connectionPool;
+        this.executor = executor;
+        this.latencyRecorder = latencyRecorder;
+        this.slowTaskLog = slowTaskLog;
+        this.queueCapacity = config.getQueueCapacity();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.maximumConcurrency = (config.getMaximumConcurrency() == 0)
+                ? Integer.MAX_VALUE
+                : config.getMaximumConcurrency();
+        this.taskTimeoutNanos = config.getTaskTimeout().toNanos();
+        this.starvationThresholdNanos = config.getStarvationThreshold().toNanos();
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+        this.connectionSlots = SqlConnectionSlots.of(connectionPool);
+        connectionSlots.register(this);
+    }
+
+    void dispatch(SqlTask<?, ?> task) {
+        task.setSubmittedNanos(System.nanoTime());
+        if (slowTaskLog != null) {
+            slowTaskLog.watch(task);
+        }
+        startDeadline(task);
+        Object partitionKey = task.getOptions().getPartitionKey().orElse(null);
+        if (partitionKey != null) {
+            sequencer.submit(partitionKey, task);
+        } else {
+            enqueueAndDrain(task);
+        }
+    }
+
+    private void enqueueAndDrain(SqlTask<?, ?> task) {
+        if (task.isTimedOut()) {
+            fail(task, task.newTimeoutException("while waiting for its partition", null));
+        } else if (enqueue(task)) {
+            drain();
+        }
+    }
+
+    private void startDeadline(SqlTask<?, ?> task) {
+        long timeoutNanos = task.getOptions().getTimeout()
+                .map(Duration::toNanos)
+                .orElse(taskTimeoutNanos);
+        task.startDeadline(timeoutNanos);
+        if (task.hasDeadline()) {
+            task.setWatchdog(TaskTimer.schedule(
+                    () -> expire(task), timeoutNanos, TimeUnit.NANOSECONDS
+            ));
+        }
+    }
+
+    /*
+     * Runs in the timer thread. Cancelling a statement may block until the
+     * database has acknowledged the cancellation, so it is done by the executor.
+     */
+    private void expire(SqlTask<?, ?> task) {
+        if (laneOf(task).remove(task)) {
+            fail(task, task.newTimeoutException("while waiting in the task queue", null));
+            return;
+        }
+        Statement statement = task.timeOut();
+        if (statement != null) {
+            try {
+                executor.execute(() -> cancel(statement));
+            } catch (RuntimeException ignored) {
+                // the statement times out by its query timeout instead
+            }
+        }
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // the statement has already completed or been closed
+        }
+    }
+
+    private boolean enqueue(SqlTask<?, ?> task) {
+        if (queuedCount.incrementAndGet() > queueCapacity) {
+            if (overflowPolicy == OverflowPolicy.REJECT) {
+                queuedCount.decrementAndGet();
+                reject(task, "The task queue is full (capacity: " + queueCapacity + ").");
+                return false;
+            }
+            SqlTask<?, ?> oldest = pollLowestPriority(task.getOptions().getPriority());
+            if (oldest == null) {
+                queuedCount.decrementAndGet();
+                reject(task, "The task queue is full of tasks of a higher priority " +
+                        "(capacity: " + queueCapacity + ").");
+                return false;
+            }
+            reject(oldest, "The task was discarded to make room for a newer task.");
+        }
+        task.setEnqueuedNanos(System.nanoTime());
+        laneOf(task).add(task);
+        return true;
+    }
+
+    private Lane laneOf(SqlTask<?, ?> task) {
+        return lanes[task.getOptions().getPriority().ordinal()];
+    }
+
+    /*
+     * Only tasks whose priority is lower than or equal to the given priority
+     * are discarded, so a task never pushes out a more important one.
+     */
+    private SqlTask<?, ?> pollLowestPriority(SqlTaskPriority priority) {
+        for (int i = lanes.length - 1; i >= priority.ordinal(); i--) {
+            SqlTask<?, ?> task = lanes[i].poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private SqlTask<?, ?> poll() {
+        Lane starvingLane = null;
+        long oldestEnqueuedNanos = 0;
+        long now = System.nanoTime();
+        for (int i = 1; i < lanes.length; i++) {
+            SqlTask<?, ?> head = lanes[i].queue.peek();
+            if (head == null) {
+                continue;
+            }
+            long enqueuedNanos = head.getEnqueuedNanos();
+            boolean starving = now - enqueuedNanos >= starvationThresholdNanos;
+            if (starving && (starvingLane == null || enqueuedNanos - oldestEnqueuedNanos < 0)) {
+                starvingLane = lanes[i];
+                oldestEnqueuedNanos = enqueuedNanos;
+            }
+        }
+        if (starvingLane != null) {
+            SqlTask<?, ?> task = starvingLane.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        for (Lane lane : lanes) {
+            SqlTask<?, ?> task = lane.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasQueuedTasks() {
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void reject(SqlTask<?, ?> task, String message) {
+        fail(task, new RejectedExecutionException(message));
+    }
+
+    private static void fail(SqlTask<?, ?> task, Throwable throwable) {
+        task.cancelWatchdog();
+        try {
+            task.callback.accept(null, throwable);
+        } finally {
+            task.completed();
+        }
+    }
+
+    void drain() {
+        // A slot is released before the queue is checked and a task is queued
+        // before a slot is acquired, so no queued task is left behind.
+        while (hasQueuedTasks() && tryAcquireSlot()) {
+            SqlTask<?, ?> task = poll();
+            if (task == null) {
+                releaseSlot();
+                continue;
+            }
+            if (task.isTimedOut()) {
+                releaseSlot();
+                fail(task, task.newTimeoutException("while waiting in the task queue", null));
+                continue;
+            }
+            execute(task);
+        }
+    }
+
+    private void execute(SqlTask<?, ?> task) {
+        try {
+            executor.execute(() -> run(task));
+        } catch (Throwable throwable) {
+            releaseSlot();
+            fail(task, throwable);
+        }
+    }
+
+    private void run(SqlTask<?, ?> task) {
+        long startedNanos = System.nanoTime();
+        long connectedNanos = 0;
+        try (Connection connection = connectionPool.getConnection()) {
+            connectedNanos = System.nanoTime();
+            if (latencyRecorder != null) {
+                latencyRecorder.started(task, startedNanos, connectedNanos);
+            }
+            if (task.isTimedOut()) {
+                throw task.newTimeoutException("while waiting for a connection", null);
+            }
+            task.execute((slowTaskLog == null)
+                    ? connection
+                    : slowTaskLog.connectionOf(task, connection));
+        } catch (Throwable throwable) {
+            task.callback.accept(null, throwable);
+        } finally {
+            SqlLatencyRecorder.finished();
+            if ((slowTaskLog != null) && (connectedNanos != 0)) {
+                slowTaskLog.finished(task, startedNanos, connectedNanos);
+            }
+            task.cancelWatchdog();
+            releaseSlot();
+            task.completed();
+            drain();
+        }
+    }
+
+    private boolean tryAcquireSlot() {
+        int running;
+        do {
+            running = runningCount.get();
+            if (running >= maximumConcurrency) {
+                return false;
+            }
+        } while (!runningCount.compareAndSet(running, running + 1));
+        if (!connectionSlots.tryAcquire()) {
+            runningCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void releaseSlot() {
+        runningCount.decrementAndGet();
+        connectionSlots.release();
+    }
+
+    int getQueuedTaskCount() {
+        return queuedCount.get();
+    }
+
+    int getRunningTaskCount() {
+        return runningCount.get();
+    }
+
+    SqlTaskQueueStatistics getQueueStatistics(SqlTaskPriority priority) {
+        return lanes[priority.ordinal()].statistics(priority);
+    }
+
+    private final class Lane {
+        private final Queue<SqlTask<?, ?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final LongAdder dequeuedCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maximumWaitNanos = new AtomicLong();
+
+        void add(SqlTask<?, ?> task) {
+            size.incrementAndGet();
+            queue.add(task);
+        }
+
+        SqlTask<?, ?> poll() {
+            SqlTask<?, ?> task = queue.poll();
+            if (task != null) {
+                dequeued(task);
+            }
+            return task;
+        }
+
+        boolean remove(SqlTask<?, ?> task) {
+            if (queue.remove(task)) {
+                dequeued(task);
+                return true;
+            }
+            return false;
+        }
+
+        private void dequeued(SqlTask<?, ?> task) {
+            size.decrementAndGet();
+            queuedCount.decrementAndGet();
+            long waitNanos = System.nanoTime() - task.getEnqueuedNanos();
+            dequeuedCount.increment();
+            totalWaitNanos.add(waitNanos);
+            maximumWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        SqlTaskQueueStatistics statistics(SqlTaskPriority priority) {
+            return new SqlTaskQueueStatistics(
+                    priority,
+                    size.get(),
+                    dequeuedCount.sum(),
+                    totalWaitNanos.sum(),
+                    maximumWaitNanos.get()
+            );
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Options that control how a single submitted task is executed.
+ * <p>
+ * Options that are not set fall back to the {@link SqlSubmitterConfig} of
+ * the submitter the task is submitted to.
+ */
+public final class SqlTaskOptions {
+    public static final SqlTaskOptions DEFAULT = new Builder().build();
+    private final Duration timeout;
+    private final SqlTaskPriority priority;
+    private final Integer transactionIsolation;
+    private final int maximumTransactionRetries;
+    private final Object partitionKey;
+    private final Object singleFlightKey;
+    private final Duration slowTaskThreshold;
+
+    private SqlTaskOptions(Builder builder) {
+        this.timeout = builder.timeout;
+        this.priority = builder.priority;
+        this.transactionIsolation = builder.transactionIsolation;
+        this.maximumTransactionRetries = builder.maximumTransactionRetries;
+        this.partitionKey = builder.partitionKey;
+        this.singleFlightKey = builder.singleFlightKey;
+        this.slowTaskThreshold = builder.slowTaskThreshold;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns an {@link Optional} describing the timeout of the task or an empty
+     * {@code Optional} if the task uses the timeout of its submitter.
+     *
+     * @return {@code Optional} describing the timeout of the task
+     */
+    public Optional<Duration> getTimeout() {
+        return Optional.ofNullable(timeout);
+    }
+
+    public SqlTaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns an {@link OptionalInt} describing the transaction isolation level
+     * of transaction tasks or an empty {@code OptionalInt} if the isolation level
+     * of the {@code Connection} is used.
+     *
+     * @return {@code OptionalInt} describing the transaction isolation level
+     */
+    public OptionalInt getTransactionIsolation() {
+        return (transactionIsolation == null)
+                ? OptionalInt.empty()
+                : OptionalInt.of(transactionIsolation);
+    }
+
+    public int getMaximumTransactionRetries() {
+        return maximumTransactionRetries;
+    }
+
+    /**
+     * Returns an {@link Optional} describing the partition key of the task or
+     * an empty {@code Optional} if the task has no partition key.
+     *
+     * @return {@code Optional} describing the partition key
+     */
+    public Optional<Object> getPartitionKey() {
+        return Optional.ofNullable(partitionKey);
+    }
+
+    /**
+     * Returns an {@link Optional} describing the single-flight key of the task
+     * or an empty {@code Optional} if the task has no single-flight key.
+     *
+     * @return {@code Optional} describing the single-flight key
+     */
+    public Optional<Object> getSingleFlightKey() {
+        return Optional.ofNullable(singleFlightKey);
+    }
+
+    /**
+     * Returns an {@link Optional} describing the slow task threshold of the task
+     * or an empty {@code Optional} if the task uses the threshold of its submitter.
+     *
+     * @return {@code Optional} describing the slow task threshold of the task
+     */
+    public Optional<Duration> getSlowTaskThreshold() {
+        return Optional.ofNullable(slowTaskThreshold);
+    }
+
+    public static final class Builder {
+        private Duration timeout;
+        private SqlTaskPriority priority = SqlTaskPriority.INTERACTIVE;
+        private Integer transactionIsolation;
+        private int maximumTransactionRetries = 3;
+        private Object partitionKey;
+        private Object singleFlightKey;
+        private Duration slowTaskThreshold;
+
+        /**
+         * Sets the timeout of the task. The timeout covers the time the task waits in
+         * the task queue, the time it waits for a {@code Connection} and the time it
+         * executes. A timeout of zero disables the timeout for the task.
+         * <p>
+         * If the timeout passes while the task executes a library supplied
+         * {@code Statement}, the statement is cancelled and the task completes with
+         * a {@link java.sql.SQLTimeoutException}.
+         *
+         * @param timeout timeout of the task or zero for no timeout
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code timeout} is null
+         * @throws IllegalArgumentException if {@code timeout} is negative
+         */
+        public Builder setTimeout(Duration timeout) {
+            if (timeout.isNegative()) {
+                String msg = "Problem: The timeout " + timeout + " is negative.\n" +
+                        "Solution: Pass a timeout that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets the priority of the task. Defaults to {@link SqlTaskPriority#INTERACTIVE}.
+         *
+         * @param priority priority of the task
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code priority} is null
+         */
+        public Builder setPriority(SqlTaskPriority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
+        /**
+         * Sets the isolation level of transaction tasks. By default, the isolation
+         * level of the {@code Connection} is used.
+         *
+         * @param transactionIsolation one of {@link Connection#TRANSACTION_READ_UNCOMMITTED},
+         *                             {@link Connection#TRANSACTION_READ_COMMITTED},
+         *                             {@link Connection#TRANSACTION_REPEATABLE_READ} or
+         *                             {@link Connection#TRANSACTION_SERIALIZABLE}
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code transactionIsolation} is not
+         *                                  one of the constants above
+         */
+        public Builder setTransactionIsolation(int transactionIsolation) {
+            switch (transactionIsolation) {
+                case Connection.TRANSACTION_READ_UNCOMMITTED:
+                case Connection.TRANSACTION_READ_COMMITTED:
+                case Connection.TRANSACTION_REPEATABLE_READ:
+                case Connection.TRANSACTION_SERIALIZABLE:
+                    this.transactionIsolation = transactionIsolation;
+                    return this;
+                default:
+                    String msg = "Problem: " + transactionIsolation + " is not a valid " +
+                            "transaction isolation level.\nSolution: Pass one of the " +
+                            "TRANSACTION_* constants of java.sql.Connection.";
+                    throw new IllegalArgumentException(msg);
+            }
+        }
+
+        /**
+         * Sets how often a transaction task is retried if it fails because of a
+         * deadlock or a serialization failure. Defaults to 3.
+         * <p>
+         * Before each retry, the task sleeps for a random delay of up to 1 second
+         * that grows with every attempt. The task keeps its {@code Connection}
+         * and its execution slot while it sleeps, so many retrying tasks can
+         * delay all other tasks. Pass a small number of retries or a timeout if
+         * deadlocks are frequent.
+         *
+         * @param maximumTransactionRetries maximum number of retries
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumTransactionRetries} is negative
+         */
+        public Builder setMaximumTransactionRetries(int maximumTransactionRetries) {
+            if (maximumTransactionRetries < 0) {
+                String msg = "Problem: The maximum number of transaction retries is " +
+                        maximumTransactionRetries + " (less than 0).\nSolution: Pass a " +
+                        "number of retries greater than or equal to 0.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumTransactionRetries = maximumTransactionRetries;
+            return this;
+        }
+
+        /**
+         * Sets the partition key of the task, e.g. the {@code UUID} of a player.
+         * <p>
+         * Tasks with equal partition keys are executed one after another in the order
+         * in which they have been submitted, while tasks with different keys are executed
+         * concurrently. Keys are compared using {@code equals} and {@code hashCode}.
+         *
+         * @param partitionKey partition key of the task
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code partitionKey} is null
+         */
+        public Builder setPartitionKey(Object partitionKey) {
+            this.partitionKey = Objects.requireNonNull(partitionKey);
+            return this;
+        }
+
+        /**
+         * Sets the single-flight key of the task.
+         * <p>
+         * If a task is submitted while another task with an equal single-flight key
+         * is executing, the task isn't executed. Instead, its callback is completed
+         * with the result of the executing task. This should only be used for tasks
+         * that read data, e.g. by using the query and its parameters as the key.
+         * Keys are compared using {@code equals} and {@code hashCode}.
+         *
+         * @param singleFlightKey single-flight key of the task
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code singleFlightKey} is null
+         */
+        public Builder setSingleFlightKey(Object singleFlightKey) {
+            this.singleFlightKey = Objects.requireNonNull(singleFlightKey);
+            return this;
+        }
+
+        /**
+         * Sets the time after which the task is logged as slow task. The time covers
+         * the time the task waits in the task queue, the time it waits for a
+         * {@code Connection} and the time it executes. A threshold of zero disables
+         * the slow task log for the task.
+         *
+         * @param slowTaskThreshold slow task threshold of the task or zero
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code slowTaskThreshold} is null
+         * @throws IllegalArgumentException if {@code slowTaskThreshold} is negative
+         * @see SqlSubmitterConfig.Builder#setSlowTaskThreshold(Duration)
+         */
+        public Builder setSlowTaskThreshold(Duration slowTaskThreshold) {
+            if (slowTaskThreshold.isNegative()) {
+                String msg = "Problem: The slow task threshold " + slowTaskThreshold +
+                        " is negative.\nSolution: Pass a threshold that is zero or positive.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.slowTaskThreshold = slowTaskThreshold;
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlTaskOptions}
+         */
+        public SqlTaskOptions build() {
+            return new SqlTaskOptions(this);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package de.exlll.databaselib.sql.submit;
+
+/**
+ * The phases of the execution of a task whose durations are recorded
+ * by an {@link AsyncSqlTaskSubmitter}.
+ */
+public enum SqlTaskPhase {
+    /**
+     * From the submission of a task until a thread starts executing it. This
+     * includes the time the task waits for its partition and in the task queue.
+     */
+    QUEUE_WAIT,
+    /**
+     * The time it takes the connection pool to hand out a {@code Connection}.
+     */
+    CONNECTION_WAIT,
+    /**
+     * From the moment the task has got its {@code Connection} until its
+     * result is passed to its callback.
+     */
+    EXECUTION,
+    /**
+     * From the moment the result is passed to the callback until the callback
+     * runs in the thread of the sync {@code Executor}.
+     */
+    CALLBACK_DELIVERY
+}
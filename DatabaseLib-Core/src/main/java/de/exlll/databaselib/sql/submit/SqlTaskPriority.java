@@ -0,0 +1,27 @@
+package de.exlll.databaselib.sql.submit;
+
+/**
+ * The priority of a submitted task.
+ * <p>
+ * Queued tasks of a higher priority are executed before queued tasks of a
+ * lower priority. Tasks of the same priority are executed in the order in which
+ * they have been submitted. To prevent starvation, a task that has waited
+ * longer than the {@link SqlSubmitterConfig#getStarvationThreshold() starvation
+ * threshold} is executed before tasks of a higher priority.
+ */
+public enum SqlTaskPriority {
+    /**
+     * For tasks that must be executed as soon as possible.
+     */
+    CRITICAL,
+    /**
+     * For tasks whose results are waited for, e.g. by a player.
+     * This is the default priority.
+     */
+    INTERACTIVE,
+    /**
+     * For maintenance tasks like purges, exports or statistics whose
+     * execution can be delayed.
+     */
+    BACKGROUND
+}
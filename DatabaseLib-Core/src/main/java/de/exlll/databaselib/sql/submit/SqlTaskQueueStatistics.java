@@ -0,0 +1,92 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the statistics of the tasks of one {@link SqlTaskPriority}
+ * that have been queued by an {@link AsyncSqlTaskSubmitter}.
+ */
+public final class SqlTaskQueueStatistics {
+    private final SqlTaskPriority priority;
+    private final int queuedTaskCount;
+    private final long dequeuedTaskCount;
+    private final long totalWaitNanos;
+    private final long maximumWaitNanos;
+
+    SqlTaskQueueStatistics(
+            SqlTaskPriority priority,
+            int queuedTaskCount,
+            long dequeuedTaskCount,
+            long totalWaitNanos,
+            long maximumWaitNanos
+    ) {
+        this.priority = priority;
+        this.queuedTaskCount = queuedTaskCount;
+        this.dequeuedTaskCount = dequeuedTaskCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maximumWaitNanos = maximumWaitNanos;
+    }
+
+    public SqlTaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the number of tasks that currently wait in the queue.
+     *
+     * @return number of queued tasks
+     */
+    public int getQueuedTaskCount() {
+        return queuedTaskCount;
+    }
+
+    /**
+     * Returns the number of tasks that have left the queue.
+     *
+     * @return number of dequeued tasks
+     */
+    public long getDequeuedTaskCount() {
+        return dequeuedTaskCount;
+    }
+
+    /**
+     * Returns the sum of the times dequeued tasks have waited in the queue.
+     *
+     * @return total wait time
+     */
+    public Duration getTotalWaitTime() {
+        return Duration.ofNanos(totalWaitNanos);
+    }
+
+    /**
+     * Returns the average time dequeued tasks have waited in the queue or
+     * zero if no task has been dequeued.
+     *
+     * @return average wait time
+     */
+    public Duration getAverageWaitTime() {
+        return (dequeuedTaskCount == 0)
+                ? Duration.ZERO
+                : Duration.ofNanos(totalWaitNanos / dequeuedTaskCount);
+    }
+
+    /**
+     * Returns the longest time a dequeued task has waited in the queue.
+     *
+     * @return maximum wait time
+     */
+    public Duration getMaximumWaitTime() {
+        return Duration.ofNanos(maximumWaitNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "SqlTaskQueueStatistics{" +
+                "priority=" + priority +
+                ", queuedTaskCount=" + queuedTaskCount +
+                ", dequeuedTaskCount=" + dequeuedTaskCount +
+                ", averageWaitTime=" + getAverageWaitTime() +
+                ", maximumWaitTime=" + getMaximumWaitTime() +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Executes tasks with the same partition key one after another in the order in
+ * which they have been submitted. Tasks with different keys are independent.
+ * <p>
+ * Each key has its own queue and counter of queued and executing tasks. Only the
+ * submitter that increments the counter from 0 and the task that decrements it to
+ * a value greater than 0 hand a task to the dispatcher, so at most one task per key
+ * is dispatched at a time. Queues of idle keys are removed from the map.
+ * <p>
+ * If the dispatcher fails a task synchronously, e.g. because the task has timed
+ * out or the task queue is full, completing the task dispatches the next task of
+ * the key from within the dispatcher. Such nested hand-offs are counted and run
+ * in a loop by the outermost call, so a long backlog of failing tasks doesn't
+ * overflow the stack.
+ * <p>
+ * Tasks that wait here for their key are neither in the task queue of the
+ * dispatcher nor counted against its capacity. Their deadline is only checked
+ * when they are handed to the dispatcher, so a task that times out while an
+ * earlier task of its key executes is failed once that task has completed.
+ */
+final class SqlTaskSequencer {
+    private final Map<Object, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final Consumer<SqlTask<?, ?>> dispatcher;
+
+    SqlTaskSequencer(Consumer<SqlTask<?, ?>> dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    void submit(Object key, SqlTask<?, ?> task) {
+        for (; ; ) {
+            KeyQueue queue = queues.computeIfAbsent(key, KeyQueue::new);
+            if (queue.offer(task)) {
+                return;
+            }
+            queues.remove(key, queue);
+        }
+    }
+
+    int getPartitionCount() {
+        return queues.size();
+    }
+
+    private final class KeyQueue {
+        private static final int REMOVED = -1;
+        private final Object key;
+        private final Queue<SqlTask<?, ?>> tasks = new ConcurrentLinkedQueue<>();
+        /* number of queued and executing tasks or REMOVED */
+        private final AtomicInteger count = new AtomicInteger();
+        /* number of requested hand-offs that haven't been run yet */
+        private final AtomicInteger handoffs = new AtomicInteger();
+
+        KeyQueue(Object key) {
+            this.key = key;
+        }
+
+        boolean offer(SqlTask<?, ?> task) {
+            tasks.add(task);
+            int current;
+            do {
+                current = count.get();
+                if (current == REMOVED) {
+                    tasks.remove(task);
+                    return false;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+            if (current == 0) {
+                dispatchNext();
+            }
+            return true;
+        }
+
+        private void dispatchNext() {
+            if (handoffs.getAndIncrement() > 0) {
+                // the thread that runs the loop below dispatches the task
+                return;
+            }
+            do {
+                // every increment is preceded by an add, so the queue is never empty here
+                SqlTask<?, ?> task = tasks.poll();
+                task.setCompletionAction(this::completed);
+                dispatcher.accept(task);
+            } while (handoffs.decrementAndGet() > 0);
+        }
+
+        private void completed() {
+            if (count.decrementAndGet() > 0) {
+                dispatchNext();
+            } else if (count.compareAndSet(0, REMOVED)) {
+                queues.remove(key, this);
+            }
+        }
+    }
+}
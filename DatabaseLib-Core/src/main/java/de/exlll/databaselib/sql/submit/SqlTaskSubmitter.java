@@ -1,13 +1,19 @@
 package de.exlll.databaselib.sql.submit;
 
 import java.sql.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 abstract class SqlTaskSubmitter {
+    private final SqlSingleFlight singleFlight = new SqlSingleFlight();
+
     /**
      * Submits a {@code Connection} task that returns a result.
      *
@@ -23,7 +29,32 @@ abstract class SqlTaskSubmitter {
             CheckedSqlFunction<? super Connection, ? extends R> function,
             BiConsumer<? super R, ? super Throwable> callback
     ) {
-        submit(new SqlConnectionTask<>(function, wrapCallback(callback)));
+        submitSqlConnectionTask(function, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code Connection} task that returns a result and is executed
+     * according to the given options.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitSqlConnectionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        submit(
+                options,
+                cb -> new SqlConnectionTask<>(function, cb),
+                wrapCallback(callback)
+        );
     }
 
     /**
@@ -38,10 +69,31 @@ abstract class SqlTaskSubmitter {
             CheckedSqlConsumer<? super Connection> action,
             Consumer<? super Throwable> callback
     ) {
-        submit(new SqlConnectionTask<>(
-                CheckedSqlFunction.from(action),
+        submitSqlConnectionTask(action, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code Connection} task that doesn't return a result and is
+     * executed according to the given options.
+     *
+     * @param action   action that defines operations on a {@code Connection}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlConnectionTask(
+            CheckedSqlConsumer<? super Connection> action,
+            Consumer<? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        CheckedSqlFunction<? super Connection, Void> function =
+                CheckedSqlFunction.from(action);
+        submit(
+                options,
+                cb -> new SqlConnectionTask<>(function, cb),
                 wrapCallback(toBiConsumer(callback))
-        ));
+        );
     }
 
     /**
@@ -56,9 +108,28 @@ abstract class SqlTaskSubmitter {
      */
     protected final <R> CompletionStage<R> submitSqlConnectionTask(
             CheckedSqlFunction<? super Connection, ? extends R> function
+    ) {
+        return submitSqlConnectionTask(function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the given
+     * {@code function} completes. The function is executed according to the
+     * given options. The result of this {@code CompletionStage} is the same as
+     * that of the function.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     */
+    protected final <R> CompletionStage<R> submitSqlConnectionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            SqlTaskOptions options
     ) {
         CompletableFuture<R> cf = new CompletableFuture<>();
-        submitSqlConnectionTask(function, wrapCompletableFuture(cf));
+        submitSqlConnectionTask(function, wrapCompletableFuture(cf), options);
         return cf;
     }
 
@@ -77,7 +148,32 @@ abstract class SqlTaskSubmitter {
             CheckedSqlFunction<? super Statement, ? extends R> function,
             BiConsumer<? super R, ? super Throwable> callback
     ) {
-        submit(new SqlStatementTask<>(function, wrapCallback(callback)));
+        submitSqlStatementTask(function, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code Statement} task that returns a result and is executed
+     * according to the given options.
+     *
+     * @param function function that defines operations on a {@code Statement}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitSqlStatementTask(
+            CheckedSqlFunction<? super Statement, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        submit(
+                options,
+                cb -> new SqlStatementTask<>(function, cb),
+                wrapCallback(callback)
+        );
     }
 
     /**
@@ -92,10 +188,31 @@ abstract class SqlTaskSubmitter {
             CheckedSqlConsumer<? super Statement> action,
             Consumer<? super Throwable> callback
     ) {
-        submit(new SqlStatementTask<>(
-                CheckedSqlFunction.from(action),
+        submitSqlStatementTask(action, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code Statement} task that doesn't return a result and is
+     * executed according to the given options.
+     *
+     * @param action   action that defines operations on a {@code Statement}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlStatementTask(
+            CheckedSqlConsumer<? super Statement> action,
+            Consumer<? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        CheckedSqlFunction<? super Statement, Void> function =
+                CheckedSqlFunction.from(action);
+        submit(
+                options,
+                cb -> new SqlStatementTask<>(function, cb),
                 wrapCallback(toBiConsumer(callback))
-        ));
+        );
     }
 
     /**
@@ -110,9 +227,28 @@ abstract class SqlTaskSubmitter {
      */
     protected final <R> CompletionStage<R> submitSqlStatementTask(
             CheckedSqlFunction<? super Statement, ? extends R> function
+    ) {
+        return submitSqlStatementTask(function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the given
+     * {@code function} completes. The function is executed according to the
+     * given options. The result of this {@code CompletionStage} is the same as
+     * that of the function.
+     *
+     * @param function function that defines operations on a {@code Statement}
+     *                 and returns a result
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     */
+    protected final <R> CompletionStage<R> submitSqlStatementTask(
+            CheckedSqlFunction<? super Statement, ? extends R> function,
+            SqlTaskOptions options
     ) {
         CompletableFuture<R> cf = new CompletableFuture<>();
-        submitSqlStatementTask(function, wrapCompletableFuture(cf));
+        submitSqlStatementTask(function, wrapCompletableFuture(cf), options);
         return cf;
     }
 
@@ -133,7 +269,34 @@ abstract class SqlTaskSubmitter {
             CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
             BiConsumer<? super R, ? super Throwable> callback
     ) {
-        submit(new SqlPreparedStatementTask<>(query, function, wrapCallback(callback)));
+        submitSqlPreparedStatementTask(query, function, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code PreparedStatement} task that returns a result and is executed
+     * according to the given options.
+     *
+     * @param query    the query to be executed
+     * @param function function that defines operations on a {@code PreparedStatement}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitSqlPreparedStatementTask(
+            String query,
+            CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        submit(
+                options,
+                cb -> new SqlPreparedStatementTask<>(query, function, cb),
+                wrapCallback(callback)
+        );
     }
 
     /**
@@ -150,10 +313,33 @@ abstract class SqlTaskSubmitter {
             CheckedSqlConsumer<? super PreparedStatement> action,
             Consumer<? super Throwable> callback
     ) {
-        submit(new SqlPreparedStatementTask<>(query,
-                CheckedSqlFunction.from(action),
+        submitSqlPreparedStatementTask(query, action, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code PreparedStatement} task that doesn't return a result and is
+     * executed according to the given options.
+     *
+     * @param query    the query to be executed
+     * @param action   action that defines operations on a {@code PreparedStatement}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlPreparedStatementTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> action,
+            Consumer<? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        CheckedSqlFunction<? super PreparedStatement, Void> function =
+                CheckedSqlFunction.from(action);
+        submit(
+                options,
+                cb -> new SqlPreparedStatementTask<>(query, function, cb),
                 wrapCallback(toBiConsumer(callback))
-        ));
+        );
     }
 
     /**
@@ -170,9 +356,30 @@ abstract class SqlTaskSubmitter {
     protected final <R> CompletionStage<R> submitSqlPreparedStatementTask(
             String query,
             CheckedSqlFunction<? super PreparedStatement, ? extends R> function
+    ) {
+        return submitSqlPreparedStatementTask(query, function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the given
+     * {@code function} completes. The function is executed according to the
+     * given options. The result of this {@code CompletionStage} is the same as
+     * that of the function.
+     *
+     * @param query    the query to be executed
+     * @param function function that defines operations on a {@code PreparedStatement}
+     *                 and returns a result
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     */
+    protected final <R> CompletionStage<R> submitSqlPreparedStatementTask(
+            String query,
+            CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
+            SqlTaskOptions options
     ) {
         CompletableFuture<R> cf = new CompletableFuture<>();
-        submitSqlPreparedStatementTask(query, function, wrapCompletableFuture(cf));
+        submitSqlPreparedStatementTask(query, function, wrapCompletableFuture(cf), options);
         return cf;
     }
 
@@ -193,7 +400,34 @@ abstract class SqlTaskSubmitter {
             CheckedSqlFunction<? super CallableStatement, ? extends R> function,
             BiConsumer<? super R, ? super Throwable> callback
     ) {
-        submit(new SqlCallableStatementTask<>(query, function, wrapCallback(callback)));
+        submitSqlCallableStatementTask(query, function, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code CallableStatement} task that returns a result and is executed
+     * according to the given options.
+     *
+     * @param query    the query to be executed
+     * @param function function that defines operations on a {@code CallableStatement}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitSqlCallableStatementTask(
+            String query,
+            CheckedSqlFunction<? super CallableStatement, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        submit(
+                options,
+                cb -> new SqlCallableStatementTask<>(query, function, cb),
+                wrapCallback(callback)
+        );
     }
 
     /**
@@ -210,10 +444,33 @@ abstract class SqlTaskSubmitter {
             CheckedSqlConsumer<? super CallableStatement> action,
             Consumer<? super Throwable> callback
     ) {
-        submit(new SqlCallableStatementTask<>(query,
-                CheckedSqlFunction.from(action),
+        submitSqlCallableStatementTask(query, action, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a {@code CallableStatement} task that doesn't return a result and is
+     * executed according to the given options.
+     *
+     * @param query    the query to be executed
+     * @param action   action that defines operations on a {@code CallableStatement}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlCallableStatementTask(
+            String query,
+            CheckedSqlConsumer<? super CallableStatement> action,
+            Consumer<? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        CheckedSqlFunction<? super CallableStatement, Void> function =
+                CheckedSqlFunction.from(action);
+        submit(
+                options,
+                cb -> new SqlCallableStatementTask<>(query, function, cb),
                 wrapCallback(toBiConsumer(callback))
-        ));
+        );
     }
 
     /**
@@ -230,12 +487,736 @@ abstract class SqlTaskSubmitter {
     protected final <R> CompletionStage<R> submitSqlCallableStatementTask(
             String query,
             CheckedSqlFunction<? super CallableStatement, ? extends R> function
+    ) {
+        return submitSqlCallableStatementTask(query, function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the given
+     * {@code function} completes. The function is executed according to the
+     * given options. The result of this {@code CompletionStage} is the same as
+     * that of the function.
+     *
+     * @param query    the query to be executed
+     * @param function function that defines operations on a {@code CallableStatement}
+     *                 and returns a result
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     */
+    protected final <R> CompletionStage<R> submitSqlCallableStatementTask(
+            String query,
+            CheckedSqlFunction<? super CallableStatement, ? extends R> function,
+            SqlTaskOptions options
     ) {
         CompletableFuture<R> cf = new CompletableFuture<>();
-        submitSqlCallableStatementTask(query, function, wrapCompletableFuture(cf));
+        submitSqlCallableStatementTask(query, function, wrapCompletableFuture(cf), options);
         return cf;
     }
 
+    /**
+     * Submits a transaction task that returns a result.
+     * <p>
+     * The function is executed in a transaction with auto-commit disabled. The
+     * transaction is committed if the function completes normally and rolled back
+     * if it throws. Transactions that fail because of a deadlock or a serialization
+     * failure (SQLState {@code 40001} or {@code 40P01}) are rolled back and retried
+     * after a short randomized delay. The function must therefore not have side
+     * effects outside of the transaction.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitSqlTransactionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback
+    ) {
+        submitSqlTransactionTask(function, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a transaction task that returns a result and is executed
+     * according to the given options.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final <R> void submitSqlTransactionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        submit(
+                options,
+                cb -> new SqlTransactionTask<>(function, cb),
+                wrapCallback(callback)
+        );
+    }
+
+    /**
+     * Submits a transaction task that doesn't return a result.
+     *
+     * @param action   action that defines operations on a {@code Connection}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @throws NullPointerException if any argument is null
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final void submitSqlTransactionTask(
+            CheckedSqlConsumer<? super Connection> action,
+            Consumer<? super Throwable> callback
+    ) {
+        submitSqlTransactionTask(action, callback, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Submits a transaction task that doesn't return a result and is
+     * executed according to the given options.
+     *
+     * @param action   action that defines operations on a {@code Connection}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @param options  options that control the execution of the task
+     * @throws NullPointerException if any argument is null
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final void submitSqlTransactionTask(
+            CheckedSqlConsumer<? super Connection> action,
+            Consumer<? super Throwable> callback,
+            SqlTaskOptions options
+    ) {
+        CheckedSqlFunction<? super Connection, Void> function =
+                CheckedSqlFunction.from(action);
+        submit(
+                options,
+                cb -> new SqlTransactionTask<>(function, cb),
+                wrapCallback(toBiConsumer(callback))
+        );
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the
+     * transaction executing the given {@code function} completes. The result
+     * of this {@code CompletionStage} is the same as that of the function.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final <R> CompletionStage<R> submitSqlTransactionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function
+    ) {
+        return submitSqlTransactionTask(function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the
+     * transaction executing the given {@code function} completes. The
+     * transaction is executed according to the given options. The result
+     * of this {@code CompletionStage} is the same as that of the function.
+     *
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param options  options that control the execution of the task
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final <R> CompletionStage<R> submitSqlTransactionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            SqlTaskOptions options
+    ) {
+        CompletableFuture<R> cf = new CompletableFuture<>();
+        submitSqlTransactionTask(function, wrapCompletableFuture(cf), options);
+        return cf;
+    }
+
+    /**
+     * Submits a {@code PreparedStatement} task whose result is cached.
+     * <p>
+     * The result is cached by the query and the parameters set by the {@code binder}.
+     * If the cache contains a result for both, the callback is completed with that
+     * result without a {@code Connection} being used. Otherwise, the binder and the
+     * function are applied to a {@code PreparedStatement} and the result is cached.
+     * <p>
+     * To determine the cache key, the binder is first applied to a
+     * {@code PreparedStatement} that only records parameters. It must therefore
+     * only set parameters and must not have side effects.
+     *
+     * @param cache    cache that stores the result
+     * @param query    the query to be executed
+     * @param binder   action that sets the parameters of a {@code PreparedStatement}
+     * @param function function that executes the {@code PreparedStatement}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param tags     tags of the result that can be used to invalidate it
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitCachedSqlPreparedStatementTask(
+            SqlResultCache cache,
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            String... tags
+    ) {
+        Objects.requireNonNull(cache);
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(binder);
+        Objects.requireNonNull(function);
+        requireNonNullTags(tags);
+        BiConsumer<? super R, ? super Throwable> wrapped = wrapCallback(callback);
+        Object key;
+        try {
+            key = SqlResultCache.queryKey(query, SqlParameterRecorder.record(binder));
+        } catch (SQLException | RuntimeException e) {
+            wrapped.accept(null, e);
+            return;
+        }
+        CheckedSqlFunction<PreparedStatement, R> task = statement -> {
+            binder.accept(statement);
+            return function.apply(statement);
+        };
+        cache.<R>load(key, tags, loaded -> submit(
+                new SqlPreparedStatementTask<>(query, task, loaded)
+        ), wrapped);
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed with the cached
+     * result of the given query and parameters or, if there is none, with the
+     * result of the given {@code function}.
+     *
+     * @param cache    cache that stores the result
+     * @param query    the query to be executed
+     * @param binder   action that sets the parameters of a {@code PreparedStatement}
+     * @param function function that executes the {@code PreparedStatement}
+     *                 and returns a result
+     * @param tags     tags of the result that can be used to invalidate it
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     * @throws NullPointerException if any argument is null
+     * @see #submitCachedSqlPreparedStatementTask(SqlResultCache, String, CheckedSqlConsumer, CheckedSqlFunction, BiConsumer, String...)
+     */
+    protected final <R> CompletionStage<R> submitCachedSqlPreparedStatementTask(
+            SqlResultCache cache,
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super PreparedStatement, ? extends R> function,
+            String... tags
+    ) {
+        CompletableFuture<R> cf = new CompletableFuture<>();
+        submitCachedSqlPreparedStatementTask(
+                cache, query, binder, function, wrapCompletableFuture(cf), tags
+        );
+        return cf;
+    }
+
+    /**
+     * Submits a {@code Connection} task whose result is cached under the given key.
+     * <p>
+     * If the cache contains a result for the key, the callback is completed with
+     * that result without a {@code Connection} being used. Otherwise, the function
+     * is applied to a {@code Connection} and the result is cached.
+     *
+     * @param cache    cache that stores the result
+     * @param key      key of the result
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param callback callback that accepts the result and informs about
+     *                 exceptions. If no exception occurred, the accepted
+     *                 {@code Throwable} is null.
+     * @param tags     tags of the result that can be used to invalidate it
+     * @param <R>      the result type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <R> void submitCachedSqlConnectionTask(
+            SqlResultCache cache,
+            Object key,
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback,
+            String... tags
+    ) {
+        Objects.requireNonNull(cache);
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(function);
+        requireNonNullTags(tags);
+        cache.<R>load(key, tags, loaded -> submit(
+                new SqlConnectionTask<>(function, loaded)
+        ), wrapCallback(callback));
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed with the result
+     * cached under the given key or, if there is none, with the result of the
+     * given {@code function}.
+     *
+     * @param cache    cache that stores the result
+     * @param key      key of the result
+     * @param function function that defines operations on a {@code Connection}
+     *                 and returns a result
+     * @param tags     tags of the result that can be used to invalidate it
+     * @param <R>      the result type
+     * @return the new {@code CompletionStage}
+     * @throws NullPointerException if any argument is null
+     * @see #submitCachedSqlConnectionTask(SqlResultCache, Object, CheckedSqlFunction, BiConsumer, String...)
+     */
+    protected final <R> CompletionStage<R> submitCachedSqlConnectionTask(
+            SqlResultCache cache,
+            Object key,
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            String... tags
+    ) {
+        CompletableFuture<R> cf = new CompletableFuture<>();
+        submitCachedSqlConnectionTask(cache, key, function, wrapCompletableFuture(cf), tags);
+        return cf;
+    }
+
+    private static void requireNonNullTags(String[] tags) {
+        Objects.requireNonNull(tags);
+        for (String tag : tags) {
+            Objects.requireNonNull(tag);
+        }
+    }
+
+    /**
+     * Submits a parameter binding for the given query that is executed as part
+     * of a batch.
+     * <p>
+     * Bindings for the same query that are submitted within a short time are
+     * collected and executed together using {@link PreparedStatement#addBatch()}
+     * and {@link PreparedStatement#executeBatch()} on a single {@code Connection}.
+     * The action must only set the parameters of the {@code PreparedStatement}.
+     * It must neither execute the statement nor call {@code addBatch} itself.
+     *
+     * @param query    the query to be executed
+     * @param action   action that sets the parameters of a {@code PreparedStatement}
+     * @param callback callback that accepts the update count of the binding and
+     *                 informs about exceptions. If no exception occurred, the
+     *                 accepted {@code Throwable} is null.
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlBatchTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> action,
+            BiConsumer<? super Integer, ? super Throwable> callback
+    ) {
+        Objects.requireNonNull(query);
+        submitBatchEntry(query, new SqlBatch.Entry(action, wrapCallback(callback)));
+    }
+
+    /**
+     * Submits a parameter binding for the given query that is executed as part
+     * of a batch.
+     * <p>
+     * Bindings for the same query that are submitted within a short time are
+     * collected and executed together using {@link PreparedStatement#addBatch()}
+     * and {@link PreparedStatement#executeBatch()} on a single {@code Connection}.
+     * The action must only set the parameters of the {@code PreparedStatement}.
+     * It must neither execute the statement nor call {@code addBatch} itself.
+     *
+     * @param query    the query to be executed
+     * @param action   action that sets the parameters of a {@code PreparedStatement}
+     * @param callback callback that informs about exceptions. If no exception
+     *                 occurred, the accepted {@code Throwable} is null.
+     * @throws NullPointerException if any argument is null
+     */
+    protected final void submitSqlBatchTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> action,
+            Consumer<? super Throwable> callback
+    ) {
+        Objects.requireNonNull(callback);
+        submitSqlBatchTask(query, action, (count, throwable) -> callback.accept(throwable));
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when the batch
+     * that contains the given parameter binding has been executed. The result
+     * of this {@code CompletionStage} is the update count of the binding.
+     *
+     * @param query  the query to be executed
+     * @param action action that sets the parameters of a {@code PreparedStatement}
+     * @return the new {@code CompletionStage}
+     * @see #submitSqlBatchTask(String, CheckedSqlConsumer, BiConsumer)
+     */
+    protected final CompletionStage<Integer> submitSqlBatchTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> action
+    ) {
+        CompletableFuture<Integer> cf = new CompletableFuture<>();
+        submitSqlBatchTask(query, action, wrapCompletableFuture(cf));
+        return cf;
+    }
+
+    /**
+     * Submits a {@code PreparedStatement} task that reads the rows of the given
+     * query and passes them to the {@code chunkConsumer} in chunks.
+     * <p>
+     * Rows are mapped by the {@code rowMapper} while they are read, so that the
+     * result never has to be held in memory at once. Returning false from the
+     * chunk consumer stops the query and releases its {@code Connection}.
+     *
+     * @param query         the query to be executed
+     * @param binder        action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper     function that maps the current row of a {@code ResultSet}
+     * @param chunkConsumer consumer of the mapped rows
+     * @param callback      callback that accepts the number of rows read and informs
+     *                      about exceptions. If no exception occurred, the accepted
+     *                      {@code Throwable} is null.
+     * @param <T>           the row type
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <T> void submitSqlStreamingTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlChunkConsumer<? super T> chunkConsumer,
+            BiConsumer<? super Long, ? super Throwable> callback
+    ) {
+        submitSqlStreamingTask(
+                query, binder, rowMapper, chunkConsumer, callback, SqlStreamOptions.DEFAULT
+        );
+    }
+
+    /**
+     * Submits a {@code PreparedStatement} task that reads the rows of the given
+     * query and passes them to the {@code chunkConsumer} in chunks. The rows are
+     * read and delivered according to the given options. A single-flight key of
+     * the task options is ignored because the rows are only passed to the given
+     * {@code chunkConsumer}.
+     *
+     * @param query         the query to be executed
+     * @param binder        action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper     function that maps the current row of a {@code ResultSet}
+     * @param chunkConsumer consumer of the mapped rows
+     * @param callback      callback that accepts the number of rows read and informs
+     *                      about exceptions. If no exception occurred, the accepted
+     *                      {@code Throwable} is null.
+     * @param options       options that control how rows are read and delivered
+     * @param <T>           the row type
+     * @throws NullPointerException if any argument is null
+     * @see #submitSqlStreamingTask(String, CheckedSqlConsumer, CheckedSqlFunction, SqlChunkConsumer, BiConsumer)
+     */
+    protected final <T> void submitSqlStreamingTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlChunkConsumer<? super T> chunkConsumer,
+            BiConsumer<? super Long, ? super Throwable> callback,
+            SqlStreamOptions options
+    ) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(binder);
+        Objects.requireNonNull(rowMapper);
+        Objects.requireNonNull(chunkConsumer);
+        Objects.requireNonNull(options);
+        SqlStream<T> stream = new SqlStream<>(binder, rowMapper, chunkConsumer, options);
+        if (options.isSynchronousDelivery()) {
+            stream.setSyncDelivery(wrapCallback(
+                    (List<T> chunk, Throwable throwable) -> stream.consumePending(chunk)
+            ));
+        }
+        submit(new SqlPreparedStatementTask<>(
+                query, stream::execute, wrapCallback(callback)
+        ).withOptions(options.getTaskOptions()));
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when all rows of
+     * the given query have been passed to the {@code chunkConsumer}. The result
+     * of this {@code CompletionStage} is the number of rows read.
+     *
+     * @param query         the query to be executed
+     * @param binder        action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper     function that maps the current row of a {@code ResultSet}
+     * @param chunkConsumer consumer of the mapped rows
+     * @param <T>           the row type
+     * @return the new {@code CompletionStage}
+     * @see #submitSqlStreamingTask(String, CheckedSqlConsumer, CheckedSqlFunction, SqlChunkConsumer, BiConsumer)
+     */
+    protected final <T> CompletionStage<Long> submitSqlStreamingTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlChunkConsumer<? super T> chunkConsumer
+    ) {
+        return submitSqlStreamingTask(
+                query, binder, rowMapper, chunkConsumer, SqlStreamOptions.DEFAULT
+        );
+    }
+
+    /**
+     * Returns a new {@code CompletionStage} that is completed when all rows of
+     * the given query have been passed to the {@code chunkConsumer}. The rows are
+     * read and delivered according to the given options. The result of this
+     * {@code CompletionStage} is the number of rows read.
+     *
+     * @param query         the query to be executed
+     * @param binder        action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper     function that maps the current row of a {@code ResultSet}
+     * @param chunkConsumer consumer of the mapped rows
+     * @param options       options that control how rows are read and delivered
+     * @param <T>           the row type
+     * @return the new {@code CompletionStage}
+     * @see #submitSqlStreamingTask(String, CheckedSqlConsumer, CheckedSqlFunction, SqlChunkConsumer, BiConsumer)
+     */
+    protected final <T> CompletionStage<Long> submitSqlStreamingTask(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlChunkConsumer<? super T> chunkConsumer,
+            SqlStreamOptions options
+    ) {
+        CompletableFuture<Long> cf = new CompletableFuture<>();
+        submitSqlStreamingTask(
+                query, binder, rowMapper, chunkConsumer, wrapCompletableFuture(cf), options
+        );
+        return cf;
+    }
+
+    /**
+     * Returns a new {@code Flow.Publisher} that publishes the rows of the given query.
+     * <p>
+     * Each subscription submits its own {@code PreparedStatement} task when the
+     * first row is requested. Rows are only read from the {@code ResultSet} when
+     * the subscriber has requested them, so a slow subscriber doesn't cause rows
+     * to be buffered. The {@code Connection} of the task is released when all
+     * rows have been published, the subscription is cancelled or an error occurs.
+     * <p>
+     * Subscribers are signalled in the thread that executes the task.
+     *
+     * @param query     the query to be executed
+     * @param binder    action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper function that maps the current row of a {@code ResultSet}
+     * @param <T>       the row type
+     * @return the new {@code Flow.Publisher}
+     * @throws NullPointerException if any argument is null
+     */
+    protected final <T> Flow.Publisher<T> publishSqlQuery(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper
+    ) {
+        return publishSqlQuery(query, binder, rowMapper, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code Flow.Publisher} that publishes the rows of the given query.
+     * The tasks of its subscriptions are executed according to the given options.
+     * A single-flight key of the options is ignored because rows are only
+     * published to the subscriber that requested them.
+     *
+     * @param query     the query to be executed
+     * @param binder    action that sets the parameters of a {@code PreparedStatement}
+     * @param rowMapper function that maps the current row of a {@code ResultSet}
+     * @param options   options that control the execution of the tasks
+     * @param <T>       the row type
+     * @return the new {@code Flow.Publisher}
+     * @throws NullPointerException if any argument is null
+     * @see #publishSqlQuery(String, CheckedSqlConsumer, CheckedSqlFunction)
+     */
+    protected final <T> Flow.Publisher<T> publishSqlQuery(
+            String query,
+            CheckedSqlConsumer<? super PreparedStatement> binder,
+            CheckedSqlFunction<? super ResultSet, ? extends T> rowMapper,
+            SqlTaskOptions options
+    ) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(binder);
+        Objects.requireNonNull(rowMapper);
+        Objects.requireNonNull(options);
+        return new SqlPublisher<T>(binder, rowMapper, subscription -> {
+            SqlTask<?, ?> task = new SqlPreparedStatementTask<>(
+                    query, subscription::read, subscription::completed
+            ).withOptions(options);
+            subscription.setTask(task);
+            submit(task);
+        });
+    }
+
+    /**
+     * Returns a new {@code SqlWriteBehindBuffer} that writes the latest value
+     * of each key using the given query.
+     *
+     * @param query  the query that writes an entry
+     * @param binder binder that sets the parameters of the query for an entry
+     * @param <K>    the key type
+     * @param <V>    the value type
+     * @return the new {@code SqlWriteBehindBuffer}
+     * @throws NullPointerException if any argument is null
+     * @see SqlWriteBehindBuffer
+     */
+    protected final <K, V> SqlWriteBehindBuffer<K, V> createWriteBehindBuffer(
+            String query,
+            SqlWriteBinder<? super K, ? super V> binder
+    ) {
+        return createWriteBehindBuffer(query, binder, SqlWriteBehindOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code SqlWriteBehindBuffer} that writes the latest value
+     * of each key using the given query according to the given options.
+     *
+     * @param query   the query that writes an entry
+     * @param binder  binder that sets the parameters of the query for an entry
+     * @param options options that control when entries are written
+     * @param <K>     the key type
+     * @param <V>     the value type
+     * @return the new {@code SqlWriteBehindBuffer}
+     * @throws NullPointerException if any argument is null
+     * @see SqlWriteBehindBuffer
+     */
+    protected final <K, V> SqlWriteBehindBuffer<K, V> createWriteBehindBuffer(
+            String query,
+            SqlWriteBinder<? super K, ? super V> binder,
+            SqlWriteBehindOptions options
+    ) {
+        Objects.requireNonNull(options);
+        return new SqlWriteBehindBuffer<>(this, query, binder, options);
+    }
+
+    /**
+     * Returns a new {@code SqlCounterTable} that accumulates increments of the
+     * given counter columns and writes them to the given table.
+     *
+     * @param table          the table that contains the counters
+     * @param keyColumn      the column that identifies a row
+     * @param counterColumns the counter columns
+     * @param <K>            the key type
+     * @return the new {@code SqlCounterTable}
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if a name is not a valid table or column
+     *                                  name or if no counter column is passed
+     * @see SqlCounterTable
+     */
+    protected final <K> SqlCounterTable<K> createCounterTable(
+            String table,
+            String keyColumn,
+            String... counterColumns
+    ) {
+        return createCounterTable(
+                table, keyColumn, Arrays.asList(counterColumns), SqlWriteBehindOptions.DEFAULT
+        );
+    }
+
+    /**
+     * Returns a new {@code SqlCounterTable} that accumulates increments of the
+     * given counter columns and writes them to the given table according to the
+     * given options.
+     *
+     * @param table          the table that contains the counters
+     * @param keyColumn      the column that identifies a row
+     * @param counterColumns the counter columns
+     * @param options        options that control when increments are written
+     * @param <K>            the key type
+     * @return the new {@code SqlCounterTable}
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if a name is not a valid table or column
+     *                                  name or if no counter column is passed
+     * @see SqlCounterTable
+     */
+    protected final <K> SqlCounterTable<K> createCounterTable(
+            String table,
+            String keyColumn,
+            List<String> counterColumns,
+            SqlWriteBehindOptions options
+    ) {
+        Objects.requireNonNull(table);
+        Objects.requireNonNull(keyColumn);
+        Objects.requireNonNull(options);
+        return new SqlCounterTable<>(this, table, keyColumn, List.copyOf(counterColumns), options);
+    }
+
+    /**
+     * Returns a new {@code SqlBatchLoader} that loads the requested keys
+     * together using the given query.
+     *
+     * @param query     the query that selects rows using a single {@code IN (?)} parameter
+     * @param keyReader function that reads the key of the current row
+     * @param rowMapper function that reads the value of the current row
+     * @param <K>       the key type
+     * @param <V>       the value type
+     * @return the new {@code SqlBatchLoader}
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if the query doesn't contain exactly one parameter
+     * @see SqlBatchLoader
+     */
+    protected final <K, V> SqlBatchLoader<K, V> createBatchLoader(
+            String query,
+            CheckedSqlFunction<? super ResultSet, ? extends K> keyReader,
+            CheckedSqlFunction<? super ResultSet, ? extends V> rowMapper
+    ) {
+        return createBatchLoader(query, keyReader, rowMapper, SqlBatchLoaderOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a new {@code SqlBatchLoader} that loads the requested keys
+     * together using the given query according to the given options.
+     *
+     * @param query     the query that selects rows using a single {@code IN (?)} parameter
+     * @param keyReader function that reads the key of the current row
+     * @param rowMapper function that reads the value of the current row
+     * @param options   options that control when and how keys are loaded
+     * @param <K>       the key type
+     * @param <V>       the value type
+     * @return the new {@code SqlBatchLoader}
+     * @throws NullPointerException     if any argument is null
+     * @throws IllegalArgumentException if the query doesn't contain exactly one parameter
+     * @see SqlBatchLoader
+     */
+    protected final <K, V> SqlBatchLoader<K, V> createBatchLoader(
+            String query,
+            CheckedSqlFunction<? super ResultSet, ? extends K> keyReader,
+            CheckedSqlFunction<? super ResultSet, ? extends V> rowMapper,
+            SqlBatchLoaderOptions options
+    ) {
+        Objects.requireNonNull(options);
+        return new SqlBatchLoader<>(this, query, keyReader, rowMapper, options);
+    }
+
+    /**
+     * Submits the task created by the {@code taskFactory}. If the options contain a
+     * single-flight key and a task with the same key is already executing, no task
+     * is created and the callback is completed with the result of that task instead.
+     *
+     * @param options     options of the task
+     * @param taskFactory creates a task that completes the given callback
+     * @param callback    callback of the task
+     * @param <R>         the result type
+     */
+    private <R> void submit(
+            SqlTaskOptions options,
+            Function<BiConsumer<? super R, ? super Throwable>, SqlTask<?, R>> taskFactory,
+            BiConsumer<? super R, ? super Throwable> callback
+    ) {
+        Object key = options.getSingleFlightKey().orElse(null);
+        if (key == null) {
+            submit(taskFactory.apply(callback).withOptions(options));
+        } else {
+            singleFlight.<R>execute(key, callback, shared ->
+                    submit(taskFactory.apply(shared).withOptions(options))
+            );
+        }
+    }
+
     /**
      * Returns a {@code Connection} directly from the pool.
      * <p>
@@ -257,6 +1238,22 @@ abstract class SqlTaskSubmitter {
      */
     abstract void submit(SqlTask<?, ?> task);
 
+    /**
+     * Submits a parameter binding that is executed as part of a batch.
+     * <p>
+     * The default implementation immediately submits a batch that only
+     * contains the given entry.
+     *
+     * @param query the query to be executed
+     * @param entry the binding and its callback
+     */
+    void submitBatchEntry(String query, SqlBatch.Entry entry) {
+        SqlBatch batch = new SqlBatch(query);
+        batch.add(entry);
+        batch.close();
+        submit(batch.toTask());
+    }
+
     /**
      * Wraps the callback function and adds custom behavior to it.
      *
@@ -424,4 +1421,60 @@ abstract class SqlTaskSubmitter {
             throw new RuntimeException(exception);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Applies a {@code Connection} to the given function that is executed in
+     * a transaction. The functions is executed in the same thread as this method.
+     * Any {@code SQLException} that is thrown is caught and rethrown wrapped in
+     * a {@code RuntimeException}.
+     * <p>
+     * Because this method calls {@link #getConnection()} to acquire a
+     * {@code Connection}, this call might be blocking.
+     *
+     * @param function the function to call
+     * @param <T>      the type of the result of the function
+     * @return the function result
+     * @throws NullPointerException if {@code function} is null
+     * @throws RuntimeException     if a database access occurs or if the given
+     *                              function throws an {@code SQLException}
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final <T> T applyTransaction(
+            CheckedSqlFunction<? super Connection, ? extends T> function
+    ) {
+        return applyTransaction(function, SqlTaskOptions.DEFAULT);
+    }
+
+    /**
+     * Applies a {@code Connection} to the given function that is executed in
+     * a transaction according to the given options. The functions is executed
+     * in the same thread as this method. Any {@code SQLException} that is thrown
+     * is caught and rethrown wrapped in a {@code RuntimeException}.
+     * <p>
+     * Because this method calls {@link #getConnection()} to acquire a
+     * {@code Connection}, this call might be blocking.
+     *
+     * @param function the function to call
+     * @param options  options that control the execution of the transaction
+     * @param <T>      the type of the result of the function
+     * @return the function result
+     * @throws NullPointerException if any argument is null
+     * @throws RuntimeException     if a database access occurs or if the given
+     *                              function throws an {@code SQLException}
+     * @see #submitSqlTransactionTask(CheckedSqlFunction, BiConsumer)
+     */
+    protected final <T> T applyTransaction(
+            CheckedSqlFunction<? super Connection, ? extends T> function,
+            SqlTaskOptions options
+    ) {
+        Objects.requireNonNull(function, "The function must not be null.");
+        Objects.requireNonNull(options, "The options must not be null.");
+        try (Connection connection = getConnection()) {
+            return SqlTransactionTask.executeTransaction(
+                    connection, function, options, backoffNanos -> true
+            );
+        } catch (SQLException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+}
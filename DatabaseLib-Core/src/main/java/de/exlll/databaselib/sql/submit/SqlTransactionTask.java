@@ -0,0 +1,179 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Executes its function in a transaction that is committed if the function
+ * completes normally and rolled back otherwise.
+ * <p>
+ * Transactions that fail because of a deadlock or a serialization failure are
+ * retried after a randomized, exponentially growing delay. The task sleeps in
+ * the thread that executes it and keeps its connection while it waits.
+ */
+final class SqlTransactionTask<R> extends SqlTask<Connection, R> {
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAXIMUM_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    SqlTransactionTask(
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            BiConsumer<? super R, ? super Throwable> callback
+    ) {
+        super(function, callback);
+    }
+
+    @Override
+    void execute(Connection connection) {
+        try {
+            R result = executeTransaction(connection, function, getOptions(), this::canBackOff);
+            callback.accept(result, null);
+        } catch (Throwable e) {
+            callback.accept(null, e);
+        }
+    }
+
+    private boolean canBackOff(long backoffNanos) {
+        return !isTimedOut() && (!hasDeadline() || getRemainingNanos() > backoffNanos);
+    }
+
+    /**
+     * Executes the function in a transaction. The auto-commit mode and the
+     * transaction isolation level of the connection are restored afterwards.
+     *
+     * @param connection connection the transaction is executed on
+     * @param function   function executed in the transaction
+     * @param options    options that define the isolation level and the number of retries
+     * @param canBackOff tests whether the transaction may be retried after the given
+     *                   number of nanoseconds
+     * @param <R>        the result type
+     * @return the result of the function
+     * @throws SQLException if the function or the transaction management fails
+     */
+    static <R> R executeTransaction(
+            Connection connection,
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            SqlTaskOptions options,
+            LongPredicate canBackOff
+    ) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        int isolation = connection.getTransactionIsolation();
+        int requestedIsolation = options.getTransactionIsolation().orElse(isolation);
+        R result;
+        try {
+            if (requestedIsolation != isolation) {
+                connection.setTransactionIsolation(requestedIsolation);
+            }
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            result = executeWithRetries(
+                    connection, function, options.getMaximumTransactionRetries(), canBackOff
+            );
+        } catch (Throwable e) {
+            try {
+                restore(connection, autoCommit, isolation, requestedIsolation);
+            } catch (SQLException restoreException) {
+                e.addSuppressed(restoreException);
+            }
+            throw e;
+        }
+        restore(connection, autoCommit, isolation, requestedIsolation);
+        return result;
+    }
+
+    private static <R> R executeWithRetries(
+            Connection connection,
+            CheckedSqlFunction<? super Connection, ? extends R> function,
+            int maximumRetries,
+            LongPredicate canBackOff
+    ) throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                R result = function.apply(connection);
+                connection.commit();
+                return result;
+            } catch (Throwable e) {
+                boolean rolledBack = rollback(connection, e);
+                if (!rolledBack || (attempt >= maximumRetries) ||
+                        !isRetryable(e) || !backOff(attempt, canBackOff)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean rollback(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+            return true;
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+            return false;
+        }
+    }
+
+    private static void restore(
+            Connection connection,
+            boolean autoCommit,
+            int isolation,
+            int requestedIsolation
+    ) throws SQLException {
+        if (autoCommit) {
+            connection.setAutoCommit(true);
+        }
+        if (requestedIsolation != isolation) {
+            connection.setTransactionIsolation(isolation);
+        }
+    }
+
+    private static boolean backOff(int attempt, LongPredicate canBackOff) {
+        long maximumNanos = Math.min(
+                MAXIMUM_BACKOFF_NANOS,
+                INITIAL_BACKOFF_NANOS << Math.min(attempt, 20)
+        );
+        long halfNanos = maximumNanos / 2;
+        long backoffNanos = halfNanos + ThreadLocalRandom.current().nextLong(halfNanos + 1);
+        if (!canBackOff.test(backoffNanos)) {
+            return false;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoffNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the given {@code Throwable} or one of its causes is an
+     * {@code SQLException} that reports a deadlock or a serialization failure.
+     *
+     * @param throwable the failure of a transaction
+     * @return true if the transaction can be retried
+     */
+    static boolean isRetryable(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if ((t instanceof SQLException) && isRetryable((SQLException) t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRetryable(SQLException exception) {
+        for (SQLException e = exception; e != null; e = e.getNextException()) {
+            String sqlState = e.getSQLState();
+            if (SERIALIZATION_FAILURE.equals(sqlState) || DEADLOCK_DETECTED.equals(sqlState)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
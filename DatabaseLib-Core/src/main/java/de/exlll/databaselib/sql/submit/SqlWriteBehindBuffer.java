@@ -0,0 +1,312 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Buffers writes per key and writes only the latest value of each key.
+ * <p>
+ * Values that are {@link #put(Object, Object) put} into the buffer replace the
+ * pending value of their key. Pending entries are written in batches by a single
+ * query when the flush interval passes, when the number of pending entries
+ * reaches its maximum, or when {@link #flush()} is called. The number of writes
+ * therefore depends on the number of keys rather than on the number of changes.
+ * <p>
+ * Writes are executed by {@code PreparedStatement} tasks of the submitter that
+ * created the buffer. The tasks of one buffer are executed in the order they are
+ * submitted, so an older value never overwrites a newer one. Entries whose write
+ * fails are put back into the buffer and written by the next flush, unless a newer
+ * value of their key has been put or submitted for writing in the meantime.
+ * <p>
+ * A buffer must be {@link #drain(Duration) drained} when it is no longer used,
+ * e.g. in the {@code onDisable} method of a plugin.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class SqlWriteBehindBuffer<K, V> {
+    private static final Logger logger = Logger.getLogger(
+            SqlWriteBehindBuffer.class.getName()
+    );
+    /* guarded by this */
+    private final Map<K, V> pending = new HashMap<>();
+    /* guarded by this, the latest entry of each key that is being written */
+    private final Map<K, Map.Entry<K, V>> writing = new HashMap<>();
+    /* guarded by this, the results of the submitted writes */
+    private final Set<CompletableFuture<Integer>> writes = new HashSet<>();
+    private final SqlTaskSubmitter submitter;
+    private final String query;
+    private final SqlWriteBinder<? super K, ? super V> binder;
+    private final int maximumPendingEntries;
+    private final int maximumBatchSize;
+    private final SqlTaskOptions taskOptions;
+    private final ScheduledFuture<?> flushTimer;
+    /* guarded by this */
+    private boolean closed;
+
+    SqlWriteBehindBuffer(
+            SqlTaskSubmitter submitter,
+            String query,
+            SqlWriteBinder<? super K, ? super V> binder,
+            SqlWriteBehindOptions options
+    ) {
+        this.submitter = submitter;
+        this.query = Objects.requireNonNull(query);
+        this.binder = Objects.requireNonNull(binder);
+        this.maximumPendingEntries = options.getMaximumPendingEntries();
+        this.maximumBatchSize = options.getMaximumBatchSize();
+        this.taskOptions = SqlTaskOptions.builder()
+                .setPriority(options.getPriority())
+                .setPartitionKey(this)
+                .build();
+        long intervalNanos = options.getFlushInterval().toNanos();
+        this.flushTimer = TaskTimer.scheduleWithFixedDelay(
+                this::flushPeriodically, intervalNanos, TimeUnit.NANOSECONDS
+        );
+    }
+
+    /**
+     * Puts a value into this buffer. The value replaces the pending value
+     * of the same key.
+     *
+     * @param key   the key
+     * @param value the value
+     * @throws NullPointerException  if any argument is null
+     * @throws IllegalStateException if this buffer has been drained
+     */
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Write write;
+        synchronized (this) {
+            if (closed) {
+                String msg = "Problem: The write-behind buffer has been drained.\n" +
+                        "Solution: Don't put values into a buffer after draining it.";
+                throw new IllegalStateException(msg);
+            }
+            if (pending.put(key, value) != null ||
+                    pending.size() < maximumPendingEntries) {
+                return;
+            }
+            write = takeWrite();
+        }
+        submit(write);
+    }
+
+    /**
+     * Returns the number of entries that have not yet been submitted for writing.
+     *
+     * @return number of pending entries
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Submits all pending entries for writing without waiting for the flush
+     * interval to pass. The returned {@code CompletionStage} is completed with
+     * the number of written entries.
+     *
+     * @return the new {@code CompletionStage}
+     * @throws IllegalStateException if this buffer has been drained
+     */
+    public CompletionStage<Integer> flush() {
+        Write write = takeWrite();
+        if (write == null) {
+            String msg = "Problem: The write-behind buffer has been drained.\n" +
+                    "Solution: Don't flush a buffer after draining it.";
+            throw new IllegalStateException(msg);
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        BiConsumer<? super Integer, ? super Throwable> callback =
+                submitter.wrapCompletableFuture(result);
+        submit(write).whenComplete((count, throwable) -> callback.accept(count, throwable));
+        return result;
+    }
+
+    private void flushPeriodically() {
+        try {
+            Write write = takeWrite();
+            if (write != null) {
+                submit(write);
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic flush
+            logger.log(Level.SEVERE, "Pending entries could not be submitted.", e);
+        }
+    }
+
+    /**
+     * Stops the periodic flush, waits for submitted writes to complete and then
+     * writes the remaining entries in the calling thread.
+     * <p>
+     * The remaining entries are written using a {@code Connection} that is
+     * acquired directly from the submitter, so this method doesn't depend on
+     * executors that may no longer accept tasks while a plugin is disabled.
+     * After this method has been called, no more values can be put or flushed.
+     * <p>
+     * If writing the remaining entries fails, they are kept in this buffer, and
+     * calling this method again is the only way to retry writing them.
+     *
+     * @param timeout maximum time to wait for submitted writes
+     * @return false if the submitted writes didn't complete in time, in which
+     * case the remaining entries have not been written
+     * @throws NullPointerException if {@code timeout} is null
+     * @throws RuntimeException     if a database access occurs while writing
+     *                              the remaining entries
+     */
+    public boolean drain(Duration timeout) {
+        long timeoutNanos = timeout.toNanos();
+        CompletableFuture<?>[] submitted;
+        synchronized (this) {
+            // writes are only registered while the buffer is open, so this
+            // contains every write that can still put back entries
+            closed = true;
+            submitted = writes.toArray(new CompletableFuture<?>[0]);
+        }
+        flushTimer.cancel(false);
+        try {
+            CompletableFuture.allOf(submitted).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ignored) {
+            // the failed entries have been put back and are written below
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        List<Map.Entry<K, V>> entries = takePending();
+        if (entries.isEmpty()) {
+            return true;
+        }
+        int[] written = {0};
+        try (Connection connection = submitter.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            writeBatches(statement, entries, written);
+            finished(entries, entries.size());
+            return true;
+        } catch (SQLException e) {
+            finished(entries, written[0]);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized List<Map.Entry<K, V>> takePending() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(pending.size());
+        for (Map.Entry<K, V> pendingEntry : pending.entrySet()) {
+            K key = pendingEntry.getKey();
+            Map.Entry<K, V> entry = Map.entry(key, pendingEntry.getValue());
+            entries.add(entry);
+            writing.put(key, entry);
+        }
+        pending.clear();
+        return entries;
+    }
+
+    /*
+     * Takes the pending entries and registers their write atomically with the
+     * check whether this buffer has been drained. Returns null if it has been.
+     */
+    private synchronized Write takeWrite() {
+        if (closed) {
+            return null;
+        }
+        Write write = new Write(takePending());
+        if (!write.entries.isEmpty()) {
+            writes.add(write.result);
+        }
+        return write;
+    }
+
+    private CompletableFuture<Integer> submit(Write write) {
+        List<Map.Entry<K, V>> entries = write.entries;
+        CompletableFuture<Integer> result = write.result;
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        int[] written = {0};
+        // the callback is not wrapped, so that drain() can wait for it in the sync thread
+        submitter.submit(new SqlPreparedStatementTask<>(
+                query,
+                statement -> writeBatches(statement, entries, written),
+                (count, throwable) -> {
+                    if (throwable != null) {
+                        finished(entries, written[0]);
+                        logger.log(Level.WARNING, (entries.size() - written[0]) +
+                                " entries could not be written and are retried " +
+                                "by the next flush.", throwable);
+                        result.completeExceptionally(throwable);
+                    } else {
+                        finished(entries, entries.size());
+                        result.complete(count);
+                    }
+                    synchronized (this) {
+                        writes.remove(result);
+                    }
+                }
+        ).withOptions(taskOptions));
+        return result;
+    }
+
+    private int writeBatches(
+            PreparedStatement statement,
+            List<Map.Entry<K, V>> entries,
+            int[] written
+    ) throws SQLException {
+        int batchSize = 0;
+        for (Map.Entry<K, V> entry : entries) {
+            binder.bind(statement, entry.getKey(), entry.getValue());
+            statement.addBatch();
+            if (++batchSize == maximumBatchSize) {
+                statement.executeBatch();
+                written[0] += batchSize;
+                batchSize = 0;
+            }
+        }
+        if (batchSize > 0) {
+            statement.executeBatch();
+            written[0] += batchSize;
+        }
+        return written[0];
+    }
+
+    /*
+     * Entries from index 'written' on have not been written and are put back,
+     * unless a newer value of their key is pending or has been taken for writing.
+     */
+    private synchronized void finished(List<Map.Entry<K, V>> entries, int written) {
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<K, V> entry = entries.get(i);
+            K key = entry.getKey();
+            if (writing.get(key) != entry) {
+                continue;
+            }
+            writing.remove(key);
+            if (i >= written) {
+                pending.putIfAbsent(key, entry.getValue());
+            }
+        }
+    }
+
+    private final class Write {
+        private final List<Map.Entry<K, V>> entries;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private Write(List<Map.Entry<K, V>> entries) {
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Options that control when a {@link SqlWriteBehindBuffer} writes its entries
+ * and when a {@link SqlCounterTable} writes its increments. For counter tables,
+ * an entry is a row with increments that have not been written yet.
+ */
+public final class SqlWriteBehindOptions {
+    public static final SqlWriteBehindOptions DEFAULT = new Builder().build();
+    private final Duration flushInterval;
+    private final int maximumPendingEntries;
+    private final int maximumBatchSize;
+    private final SqlTaskPriority priority;
+
+    private SqlWriteBehindOptions(Builder builder) {
+        this.flushInterval = builder.flushInterval;
+        this.maximumPendingEntries = builder.maximumPendingEntries;
+        this.maximumBatchSize = builder.maximumBatchSize;
+        this.priority = builder.priority;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getMaximumPendingEntries() {
+        return maximumPendingEntries;
+    }
+
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    public SqlTaskPriority getPriority() {
+        return priority;
+    }
+
+    public static final class Builder {
+        private Duration flushInterval = Duration.ofSeconds(5);
+        private int maximumPendingEntries = 1000;
+        private int maximumBatchSize = 100;
+        private SqlTaskPriority priority = SqlTaskPriority.BACKGROUND;
+
+        /**
+         * Sets the interval in which pending entries are written.
+         * Defaults to 5 seconds.
+         *
+         * @param flushInterval interval in which pending entries are written
+         * @return this {@code Builder}
+         * @throws NullPointerException     if {@code flushInterval} is null
+         * @throws IllegalArgumentException if {@code flushInterval} is not positive
+         */
+        public Builder setFlushInterval(Duration flushInterval) {
+            if (flushInterval.isNegative() || flushInterval.isZero()) {
+                String msg = "Problem: The flush interval " + flushInterval +
+                        " is not positive.\nSolution: Pass a positive flush interval.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of pending entries at which the entries are written
+         * without waiting for the flush interval to pass. Defaults to 1000.
+         *
+         * @param maximumPendingEntries number of entries that causes a flush
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumPendingEntries} is less than 1
+         */
+        public Builder setMaximumPendingEntries(int maximumPendingEntries) {
+            if (maximumPendingEntries < 1) {
+                String msg = "Problem: The maximum number of pending entries is " +
+                        maximumPendingEntries + " (less than 1).\nSolution: Pass a " +
+                        "number greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumPendingEntries = maximumPendingEntries;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entries that are written by one call to
+         * {@link java.sql.PreparedStatement#executeBatch()}. Defaults to 100.
+         *
+         * @param maximumBatchSize maximum number of entries per batch
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if {@code maximumBatchSize} is less than 1
+         */
+        public Builder setMaximumBatchSize(int maximumBatchSize) {
+            if (maximumBatchSize < 1) {
+                String msg = "Problem: The maximum batch size is " + maximumBatchSize +
+                        " (less than 1).\nSolution: Pass a maximum batch size" +
+                        " greater than or equal to 1.";
+                throw new IllegalArgumentException(msg);
+            }
+            this.maximumBatchSize = maximumBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the priority of the tasks that write entries.
+         * Defaults to {@link SqlTaskPriority#BACKGROUND}.
+         *
+         * @param priority priority of the tasks
+         * @return this {@code Builder}
+         * @throws NullPointerException if {@code priority} is null
+         */
+        public Builder setPriority(SqlTaskPriority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
+        /**
+         * @return new {@code SqlWriteBehindOptions}
+         */
+        public SqlWriteBehindOptions build() {
+            return new SqlWriteBehindOptions(this);
+        }
+    }
+}
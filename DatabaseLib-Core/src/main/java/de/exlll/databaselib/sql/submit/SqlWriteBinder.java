@@ -0,0 +1,15 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a {@code PreparedStatement} that writes an entry.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@FunctionalInterface
+public interface SqlWriteBinder<K, V> {
+    void bind(PreparedStatement statement, K key, V value) throws SQLException;
+}
@@ -0,0 +1,35 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread used to delay actions of the library.
+ * <p>
+ * Scheduled actions must only hand work over to other executors and must
+ * never access the database themselves.
+ */
+final class TaskTimer {
+    private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+    private TaskTimer() {}
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "DatabaseLib-Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    static ScheduledFuture<?> schedule(Runnable action, long delay, TimeUnit unit) {
+        return timer.schedule(action, delay, unit);
+    }
+
+    static ScheduledFuture<?> scheduleWithFixedDelay(Runnable action, long delay, TimeUnit unit) {
+        return timer.scheduleWithFixedDelay(action, delay, delay, unit);
+    }
+}
@@ -0,0 +1,60 @@
+package de.exlll.databaselib.sql.submit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Gives access to virtual threads if the runtime supports them.
+ * <p>
+ * The library is compiled for Java 11, so {@code Thread.ofVirtual()} is looked
+ * up at runtime. On runtimes without (enabled) virtual threads, the lookup fails
+ * and the platform executor passed to {@link #executorOr(Executor)} is used.
+ */
+final class VirtualThreads {
+    private static final ThreadFactory factory = lookupFactory();
+
+    private VirtualThreads() {}
+
+    private static ThreadFactory lookupFactory() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle ofVirtual = lookup.findStatic(
+                    Thread.class, "ofVirtual", MethodType.methodType(builderClass)
+            );
+            MethodHandle name = lookup.findVirtual(
+                    builderClass, "name",
+                    MethodType.methodType(builderClass, String.class, long.class)
+            );
+            MethodHandle factory = lookup.findVirtual(
+                    builderClass, "factory", MethodType.methodType(ThreadFactory.class)
+            );
+            Object builder = name.invoke(ofVirtual.invoke(), "DatabaseLib-Worker-", 0L);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Throwable throwable) {
+            // not available (Java < 21) or a preview feature that is not enabled
+            return null;
+        }
+    }
+
+    static boolean isSupported() {
+        return factory != null;
+    }
+
+    /**
+     * Returns an {@code Executor} that runs each command in a new virtual thread
+     * or the given {@code Executor} if virtual threads are not supported.
+     *
+     * @param platformExecutor executor used if virtual threads are not supported
+     * @return executor that uses virtual threads or {@code platformExecutor}
+     */
+    static Executor executorOr(Executor platformExecutor) {
+        if (factory == null) {
+            return platformExecutor;
+        }
+        return command -> factory.newThread(command).start();
+    }
+}
@@ -0,0 +1,133 @@
+package de.exlll.databaselib.sql.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes the characters of a file that is mapped into memory.
+ * <p>
+ * The file is mapped in windows of a fixed size, so that files larger than
+ * 2 GB can be read. A window is mapped when the previous one has been decoded;
+ * bytes of a character that is split between two windows are mapped again as
+ * part of the next window. Malformed input is reported as
+ * {@link java.nio.charset.CharacterCodingException}.
+ */
+final class MappedScriptSource implements Readable, Closeable {
+    static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final long size;
+    private final long windowSize;
+    private MappedByteBuffer window;
+    private long windowOffset;
+    private boolean decoded;
+    private boolean flushed;
+
+    MappedScriptSource(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedScriptSource(Path path, Charset charset, long windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.decoder = charset.newDecoder();
+        this.windowSize = windowSize;
+        try {
+            this.size = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     *
+     * @return size of the file
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes that have been decoded.
+     *
+     * @return number of decoded bytes
+     */
+    long getPosition() {
+        return (window == null) ? 0 : windowOffset + window.position();
+    }
+
+    @Override
+    public int read(CharBuffer target) throws IOException {
+        int start = target.position();
+        while (target.hasRemaining() && !flushed) {
+            // overflow: the target is full or too small for a surrogate pair
+            if (!decoded) {
+                if (decode(target)) {
+                    break;
+                }
+            } else if (decoder.flush(target).isOverflow()) {
+                break;
+            } else {
+                flushed = true;
+            }
+        }
+        int count = target.position() - start;
+        return ((count == 0) && flushed) ? -1 : count;
+    }
+
+    /**
+     * Decodes the current window into the target and maps the next window
+     * if the current one has been decoded.
+     *
+     * @param target buffer the characters are decoded into
+     * @return true if the target has overflowed
+     * @throws IOException if an I/O error occurs or the input is malformed
+     */
+    private boolean decode(CharBuffer target) throws IOException {
+        if ((window == null) || (!window.hasRemaining() && !isLastWindow())) {
+            mapNextWindow();
+        }
+        boolean endOfInput = isLastWindow();
+        CoderResult result = decoder.decode(window, target, endOfInput);
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (result.isOverflow()) {
+            return true;
+        }
+        if (endOfInput) {
+            decoded = true;
+        } else if (window.hasRemaining()) {
+            // the bytes of a split character are mapped again
+            mapNextWindow();
+        }
+        return false;
+    }
+
+    private boolean isLastWindow() {
+        return windowOffset + window.limit() == size;
+    }
+
+    private void mapNextWindow() throws IOException {
+        long offset = getPosition();
+        // bytes that are mapped again don't count towards the window size
+        long carried = (window == null) ? 0 : window.remaining();
+        long length = Math.min(windowSize + carried, size - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowOffset = offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,250 @@
+package de.exlll.databaselib.sql.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An SQL script whose queries have been read and split once, so that it can be
+ * executed many times without reading the script again.
+ * <p>
+ * The placeholders of a script are declared when it is parsed. Their positions
+ * in each query are recorded at that time, so executing the script with a map
+ * of replacements only concatenates the parts of each query with the values
+ * of the placeholders, instead of searching every query again.
+ * <p>
+ * Instances of this class are immutable and can be shared between threads.
+ * A script that is bundled with a plugin can therefore be parsed once and
+ * kept in a field, and then be executed with a different {@code ScriptRunner},
+ * {@code Connection} and replacements for each world or tenant.
+ *
+ * <pre>{@code
+ * ParsedScript script = ParsedScript.parse(reader, List.of("%PREFIX%"));
+ * new ScriptRunner(script, connection)
+ *         .setReplacements(Map.of("%PREFIX%", "world1_"))
+ *         .runScript();
+ * }</pre>
+ *
+ * @see ScriptRunner#ScriptRunner(ParsedScript, Connection)
+ */
+public final class ParsedScript {
+    private final List<String> placeholders;
+    private final Query[] queries;
+
+    private ParsedScript(List<String> placeholders, Query[] queries) {
+        this.placeholders = placeholders;
+        this.queries = queries;
+    }
+
+    /**
+     * Parses the queries read from the given {@code Reader} and records the
+     * positions of the given placeholders in each of them. The {@code Reader}
+     * is not closed.
+     * <p>
+     * Placeholders are found the same way {@link ScriptRunner#setReplacements(Map)}
+     * finds the keys of its map: if two placeholders overlap, the one that starts
+     * first and, of placeholders that start at the same position, the longest one
+     * is recorded. Empty placeholders are ignored.
+     *
+     * @param reader       {@code Reader} queries are read from
+     * @param placeholders placeholders that can be replaced when the script is executed
+     * @return new {@code ParsedScript}
+     * @throws IOException          if an I/O error occurs
+     * @throws NullPointerException if any argument or any of the placeholders is null
+     */
+    public static ParsedScript parse(Reader reader, Collection<String> placeholders)
+            throws IOException {
+        Objects.requireNonNull(reader);
+        return parse(new QueryReader(reader, ';'), placeholders);
+    }
+
+    /**
+     * Parses the queries of the UTF-8 encoded file with the given {@code Path}
+     * and records the positions of the given placeholders in each of them.
+     *
+     * @param path         {@code Path} of the file queries are read from
+     * @param placeholders placeholders that can be replaced when the script is executed
+     * @return new {@code ParsedScript}
+     * @throws IOException          if an I/O error occurs
+     * @throws NullPointerException if any argument or any of the placeholders is null
+     * @see #parse(Reader, Collection)
+     */
+    public static ParsedScript parse(Path path, Collection<String> placeholders)
+            throws IOException {
+        return parse(path, StandardCharsets.UTF_8, placeholders);
+    }
+
+    /**
+     * Parses the queries of the file with the given {@code Path} and records
+     * the positions of the given placeholders in each of them.
+     *
+     * @param path         {@code Path} of the file queries are read from
+     * @param charset      {@code Charset} of the file
+     * @param placeholders placeholders that can be replaced when the script is executed
+     * @return new {@code ParsedScript}
+     * @throws IOException          if an I/O error occurs or the file contains
+     *                              malformed input
+     * @throws NullPointerException if any argument or any of the placeholders is null
+     * @see #parse(Reader, Collection)
+     */
+    public static ParsedScript parse(
+            Path path,
+            Charset charset,
+            Collection<String> placeholders
+    ) throws IOException {
+        try (MappedScriptSource source = new MappedScriptSource(
+                Objects.requireNonNull(path), Objects.requireNonNull(charset)
+        )) {
+            return parse(new QueryReader(source, ';'), placeholders);
+        }
+    }
+
+    private static ParsedScript parse(QueryReader queryReader, Collection<String> placeholders)
+            throws IOException {
+        Map<String, Integer> indices = new LinkedHashMap<>();
+        for (String placeholder : placeholders) {
+            Objects.requireNonNull(placeholder, "Placeholders must not contain null.");
+            if (!placeholder.isEmpty()) {
+                indices.putIfAbsent(placeholder, indices.size());
+            }
+        }
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String placeholder : indices.keySet()) {
+            keys.put(placeholder, placeholder);
+        }
+        ReplacementMatcher matcher = ReplacementMatcher.compile(keys);
+
+        List<Query> queries = new ArrayList<>();
+        List<String> parts = new ArrayList<>();
+        List<Integer> queryPlaceholders = new ArrayList<>();
+        int[] match = new int[3];
+        String query;
+        while ((query = queryReader.nextQuery()) != null) {
+            int copied = 0;
+            while (matcher.find(query, copied, match)) {
+                parts.add(query.substring(copied, match[0]));
+                queryPlaceholders.add(indices.get(matcher.getReplacement(match[2])));
+                copied = match[1];
+            }
+            parts.add(query.substring(copied));
+            queries.add(new Query(parts, queryPlaceholders));
+            parts.clear();
+            queryPlaceholders.clear();
+        }
+        return new ParsedScript(
+                List.copyOf(indices.keySet()), queries.toArray(new Query[0])
+        );
+    }
+
+    /**
+     * Returns the placeholders of this script in the order they were passed
+     * to {@code parse}, without duplicates and empty placeholders.
+     *
+     * @return unmodifiable list of placeholders
+     */
+    public List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Returns the number of queries of this script.
+     *
+     * @return number of queries
+     */
+    public int getQueryCount() {
+        return queries.length;
+    }
+
+    /**
+     * Returns the queries of this script with the placeholders replaced by
+     * the values they are mapped to. Placeholders that are not contained in
+     * the map are kept as they are and keys that are not placeholders of this
+     * script are ignored.
+     *
+     * @param replacements map of placeholders to their values
+     * @return unmodifiable list of queries
+     * @throws NullPointerException if {@code replacements} or any of its keys is null
+     */
+    public List<String> getQueries(Map<String, ?> replacements) {
+        String[] values = getValues(replacements);
+        StringBuilder buffer = new StringBuilder();
+        List<String> result = new ArrayList<>(queries.length);
+        for (int i = 0; i < queries.length; i++) {
+            result.add(getQuery(i, values, buffer));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the values the placeholders of this script are replaced with,
+     * in the order of {@link #getPlaceholders()}. Placeholders that are not
+     * contained in the map are kept as they are, null values are replaced with
+     * {@code "null"} and keys that are not placeholders of this script are
+     * ignored.
+     *
+     * @param replacements map of placeholders to their values
+     * @return values of the placeholders
+     * @throws NullPointerException if {@code replacements} or any of its keys is null
+     */
+    String[] getValues(Map<String, ?> replacements) {
+        for (String key : replacements.keySet()) {
+            Objects.requireNonNull(key, "Map must not contain null keys.");
+        }
+        String[] values = new String[placeholders.size()];
+        for (int i = 0; i < values.length; i++) {
+            String placeholder = placeholders.get(i);
+            values[i] = replacements.containsKey(placeholder)
+                    ? String.valueOf(replacements.get(placeholder))
+                    : placeholder;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the query with the given index with its placeholders replaced.
+     *
+     * @param index  index of the query
+     * @param values values of the placeholders as returned by {@link #getValues(Map)}
+     * @param buffer buffer that is cleared and used to build the query
+     * @return the query
+     */
+    String getQuery(int index, String[] values, StringBuilder buffer) {
+        Query query = queries[index];
+        String[] parts = query.parts;
+        int[] placeholders = query.placeholders;
+        if (placeholders.length == 0) {
+            return parts[0];
+        }
+        buffer.setLength(0);
+        for (int i = 0; i < placeholders.length; i++) {
+            buffer.append(parts[i]).append(values[placeholders[i]]);
+        }
+        return buffer.append(parts[placeholders.length]).toString();
+    }
+
+    /*
+     * A query that is split at its placeholders: the placeholder with index
+     * placeholders[i] lies between parts[i] and parts[i + 1].
+     */
+    private static final class Query {
+        private final String[] parts;
+        private final int[] placeholders;
+
+        private Query(List<String> parts, List<Integer> placeholders) {
+            this.parts = parts.toArray(new String[0]);
+            this.placeholders = new int[placeholders.size()];
+            for (int i = 0; i < this.placeholders.length; i++) {
+                this.placeholders[i] = placeholders.get(i);
+            }
+        }
+    }
+}
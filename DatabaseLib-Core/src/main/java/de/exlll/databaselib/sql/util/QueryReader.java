@@ -2,66 +2,148 @@ package de.exlll.databaselib.sql.util;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Splits the characters of a {@code Reader} or any other {@code Readable}
+ * into queries.
+ * <p>
+ * Characters are read in blocks into a buffer that is reused for the whole
+ * input, and queries are returned one at a time by {@link #nextQuery()}, so
+ * only the query that is currently read is kept in memory. A {@code Reader}
+ * reads into the array of the buffer directly; other sources, such as a
+ * {@link MappedScriptSource}, decode into a {@code CharBuffer} that wraps it.
+ */
 final class QueryReader {
-    private final Reader reader;
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+    private final Readable source;
     private final char delimiter;
+    private final char[] buffer;
+    private final CharBuffer charBuffer;
+    private final StringBuilder builder = new StringBuilder();
+    private int position;
+    private int limit;
 
-    QueryReader(Reader reader, char delimiter) {
-        this.reader = reader;
+    QueryReader(Readable source, char delimiter) {
+        this(source, delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    QueryReader(Readable source, char delimiter, int bufferSize) {
+        this.source = source;
         this.delimiter = delimiter;
+        this.buffer = new char[bufferSize];
+        this.charBuffer = CharBuffer.wrap(buffer);
     }
 
     public List<String> readQueries() throws IOException {
         List<String> queries = new ArrayList<>();
 
         String query;
-        while (!(query = readQuery()).isEmpty()) {
-            queries.add(query.trim());
+        while ((query = nextQuery()) != null) {
+            queries.add(query);
         }
 
         return queries;
     }
 
+    /**
+     * Reads the next query. Queries that only consist of whitespace
+     * are skipped.
+     *
+     * @return the next query without leading and trailing whitespace
+     * or null if the end of the input has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public String nextQuery() throws IOException {
+        String query;
+        while ((query = readQuery()) != null) {
+            query = query.trim();
+            if (!query.isEmpty()) {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Copies runs of ordinary characters from the buffer in one call and
+     * only looks at the characters that end a run.
+     */
     private String readQuery() throws IOException {
-        StringBuilder builder = new StringBuilder();
-
-        int value;
-        while ((value = reader.read()) != -1) {
-            char c = (char) value;
-
-            if (c == '"') {
-                readToClosingQuote(builder, '"');
-            } else if (c == '\'') {
-                readToClosingQuote(builder, '\'');
-            } else if (c == delimiter) {
-                return builder.toString();
-            } else {
-                builder.append((c == '\n') ? ' ' : c);
+        builder.setLength(0);
+        boolean read = false;
+
+        while (fill()) {
+            read = true;
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+
+                if (c == '"' || c == '\'') {
+                    builder.append(buffer, start, ++position - start);
+                    readToClosingQuote(c);
+                    start = position;
+                } else if (c == delimiter) {
+                    builder.append(buffer, start, position++ - start);
+                    return builder.toString();
+                } else if (c == '\n') {
+                    builder.append(buffer, start, position++ - start).append(' ');
+                    start = position;
+                } else {
+                    position++;
+                }
             }
+            builder.append(buffer, start, position - start);
         }
 
-        return builder.toString();
+        return read ? builder.toString() : null;
     }
 
-    private void readToClosingQuote(StringBuilder builder, char quoteChar)
-            throws IOException {
-        builder.append(quoteChar);
-
-        int value;
+    private void readToClosingQuote(char quoteChar) throws IOException {
         boolean escaped = false;
-        while ((value = reader.read()) != -1) {
-            char c = (char) value;
+        while (fill()) {
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position++];
 
-            if (c == quoteChar && !escaped) {
-                builder.append(quoteChar);
-                return;
+                if (c == quoteChar && !escaped) {
+                    builder.append(buffer, start, position - start);
+                    return;
+                }
+
+                escaped = (c == '\\' && !escaped);
             }
+            builder.append(buffer, start, position - start);
+        }
+    }
+
+    /**
+     * Reads the next block into the buffer if all characters of
+     * the buffer have been consumed.
+     *
+     * @return false if the end of the input has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int count;
+        do {
+            count = read();
+        } while (count == 0);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
 
-            escaped = (c == '\\' && !escaped);
-            builder.append(c);
+    private int read() throws IOException {
+        if (source instanceof Reader) {
+            return ((Reader) source).read(buffer, 0, buffer.length);
         }
+        charBuffer.clear();
+        return source.read(charBuffer);
     }
 }
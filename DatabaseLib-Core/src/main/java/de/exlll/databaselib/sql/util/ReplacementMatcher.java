@@ -0,0 +1,252 @@
+package de.exlll.databaselib.sql.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Replaces all occurrences of a set of keys in a single pass.
+ * <p>
+ * The keys are compiled into an Aho-Corasick automaton whose transitions are
+ * stored in a table, so that each character of a query costs one table lookup.
+ * Matches are chosen leftmost-longest: of all keys that occur in a query, the
+ * one that starts first is replaced, and of the keys that start at the same
+ * index the longest one. Replaced text is not searched again.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+final class ReplacementMatcher {
+    static final ReplacementMatcher EMPTY = compile(Map.of());
+    private final int[] symbols;
+    private final int[][] transitions;
+    private final int[] depths;
+    /* length of the longest key that is a suffix of the state or 0 */
+    private final int[] matchLengths;
+    private final int[] matchKeys;
+    private final String[] replacements;
+
+    private ReplacementMatcher(
+            int[] symbols,
+            int[][] transitions,
+            int[] depths,
+            int[] matchLengths,
+            int[] matchKeys,
+            String[] replacements
+    ) {
+        this.symbols = symbols;
+        this.transitions = transitions;
+        this.depths = depths;
+        this.matchLengths = matchLengths;
+        this.matchKeys = matchKeys;
+        this.replacements = replacements;
+    }
+
+    /**
+     * Compiles the keys of the given map into a matcher that replaces them
+     * with the string values of the map. Null values are replaced with
+     * {@code "null"} and empty keys are ignored.
+     *
+     * @param replacements map of keys to their replacements
+     * @return new matcher
+     * @throws NullPointerException if {@code replacements} or any of its keys is null
+     */
+    static ReplacementMatcher compile(Map<String, ?> replacements) {
+        List<String> keys = new ArrayList<>(replacements.size());
+        List<String> values = new ArrayList<>(replacements.size());
+        int maxChar = 0;
+        for (Map.Entry<String, ?> entry : replacements.entrySet()) {
+            String key = entry.getKey();
+            if (key.isEmpty()) {
+                continue;
+            }
+            keys.add(key);
+            values.add(String.valueOf(entry.getValue()));
+            for (int i = 0; i < key.length(); i++) {
+                maxChar = Math.max(maxChar, key.charAt(i));
+            }
+        }
+
+        // symbol 0 stands for all characters that don't occur in any key
+        int[] symbols = new int[maxChar + 1];
+        int symbolCount = 1;
+        for (String key : keys) {
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                if (symbols[c] == 0) {
+                    symbols[c] = symbolCount++;
+                }
+            }
+        }
+
+        List<int[]> transitions = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> keyIndices = new ArrayList<>();
+        transitions.add(new int[symbolCount]);
+        depths.add(0);
+        keyIndices.add(-1);
+        for (int k = 0; k < keys.size(); k++) {
+            String key = keys.get(k);
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int symbol = symbols[key.charAt(i)];
+                int next = transitions.get(state)[symbol];
+                if (next == 0) {
+                    next = transitions.size();
+                    transitions.add(new int[symbolCount]);
+                    depths.add(i + 1);
+                    keyIndices.add(-1);
+                    transitions.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            keyIndices.set(state, k);
+        }
+
+        int stateCount = transitions.size();
+        int[][] table = transitions.toArray(new int[0][]);
+        int[] depthTable = new int[stateCount];
+        int[] matchLengths = new int[stateCount];
+        int[] matchKeys = new int[stateCount];
+        Arrays.fill(matchKeys, -1);
+        for (int state = 0; state < stateCount; state++) {
+            depthTable[state] = depths.get(state);
+            int key = keyIndices.get(state);
+            if (key >= 0) {
+                matchKeys[state] = key;
+                matchLengths[state] = depthTable[state];
+            }
+        }
+        completeTransitions(table, matchLengths, matchKeys, symbolCount);
+        return new ReplacementMatcher(
+                symbols, table, depthTable,
+                matchLengths, matchKeys, values.toArray(new String[0])
+        );
+    }
+
+    /*
+     * Turns the trie into a DFA by replacing missing transitions with the
+     * transitions of the failure state, in breadth-first order. A state
+     * that isn't the end of a key inherits the match of its failure state,
+     * which is the longest key that is a suffix of the state.
+     */
+    private static void completeTransitions(
+            int[][] table,
+            int[] matchLengths,
+            int[] matchKeys,
+            int symbolCount
+    ) {
+        int[] failures = new int[table.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int next = table[0][symbol];
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            if (matchKeys[state] < 0) {
+                matchKeys[state] = matchKeys[failure];
+                matchLengths[state] = matchLengths[failure];
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[state][symbol];
+                if (next == 0) {
+                    table[state][symbol] = table[failure][symbol];
+                } else {
+                    failures[next] = table[failure][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if this matcher has no keys.
+     *
+     * @return true if this matcher never replaces anything
+     */
+    boolean isEmpty() {
+        return replacements.length == 0;
+    }
+
+    /**
+     * Returns the replacement of the key with the given index, as reported
+     * by {@link #find(String, int, int[])}.
+     *
+     * @param key index of the key
+     * @return replacement of the key
+     */
+    String getReplacement(int key) {
+        return replacements[key];
+    }
+
+    /**
+     * Replaces all keys that occur in the given string.
+     *
+     * @param string the string
+     * @param buffer buffer that is cleared and used to build the result
+     * @return the string with all keys replaced or the string itself if
+     * it doesn't contain any key
+     */
+    String replace(String string, StringBuilder buffer) {
+        if (isEmpty()) {
+            return string;
+        }
+        int[] match = new int[3];
+        if (!find(string, 0, match)) {
+            return string;
+        }
+        buffer.setLength(0);
+        int copied = 0;
+        do {
+            buffer.append(string, copied, match[0]).append(replacements[match[2]]);
+            copied = match[1];
+        } while (find(string, copied, match));
+        return buffer.append(string, copied, string.length()).toString();
+    }
+
+    /**
+     * Finds the leftmost-longest key that starts at or after the given index.
+     * If a key is found, its start index, its end index and the index of the
+     * key are stored in {@code match}.
+     *
+     * @param string the string
+     * @param from   index the search starts at
+     * @param match  array of at least three elements the match is stored in
+     * @return true if a key has been found
+     */
+    boolean find(String string, int from, int[] match) {
+        int state = 0;
+        int matchStart = -1;
+        int length = string.length();
+        for (int i = from; i < length; ) {
+            state = transitions[state][symbolOf(string.charAt(i++))];
+            int keyLength = matchLengths[state];
+            if (keyLength > 0) {
+                int start = i - keyLength;
+                if ((matchStart < 0) || (start < matchStart) ||
+                        ((start == matchStart) && (i > match[1]))) {
+                    matchStart = start;
+                    match[0] = start;
+                    match[1] = i;
+                    match[2] = matchKeys[state];
+                }
+            }
+            // the candidate is the leftmost-longest match if no match that is
+            // still in progress can start at or before it
+            if ((matchStart >= 0) && (i - depths[state] > matchStart)) {
+                return true;
+            }
+        }
+        return matchStart >= 0;
+    }
+
+    private int symbolOf(char c) {
+        return (c < symbols.length) ? symbols[c] : 0;
+    }
+}
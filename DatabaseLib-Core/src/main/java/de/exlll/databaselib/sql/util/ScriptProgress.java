@@ -0,0 +1,109 @@
+package de.exlll.databaselib.sql.util;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the progress of a {@link ScriptRunner}.
+ */
+public final class ScriptProgress {
+    private final long executedQueryCount;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long elapsedNanos;
+    private final boolean done;
+
+    ScriptProgress(
+            long executedQueryCount,
+            long bytesRead,
+            long totalBytes,
+            long elapsedNanos,
+            boolean done
+    ) {
+        this.executedQueryCount = executedQueryCount;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.elapsedNanos = elapsedNanos;
+        this.done = done;
+    }
+
+    /**
+     * Returns the number of queries that have been executed.
+     *
+     * @return number of executed queries
+     */
+    public long getExecutedQueryCount() {
+        return executedQueryCount;
+    }
+
+    /**
+     * Returns the number of bytes of the script that have been read or -1
+     * if the script is read from a {@code Reader}.
+     *
+     * @return number of read bytes or -1
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the size of the script in bytes or -1 if the script is read
+     * from a {@code Reader}.
+     *
+     * @return size of the script or -1
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the time that has passed since the script runner started.
+     *
+     * @return elapsed time
+     */
+    public Duration getElapsedTime() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of executed queries per second.
+     *
+     * @return query throughput
+     */
+    public double getQueriesPerSecond() {
+        return perSecond(executedQueryCount);
+    }
+
+    /**
+     * Returns the number of read bytes per second or -1 if the script is
+     * read from a {@code Reader}.
+     *
+     * @return byte throughput or -1
+     */
+    public double getBytesPerSecond() {
+        return (bytesRead < 0) ? -1 : perSecond(bytesRead);
+    }
+
+    private double perSecond(long count) {
+        return (elapsedNanos == 0) ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Returns true if all queries of the script have been executed.
+     *
+     * @return true if the script has been executed completely
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptProgress{" +
+                "executedQueryCount=" + executedQueryCount +
+                ", bytesRead=" + bytesRead +
+                ", totalBytes=" + totalBytes +
+                ", elapsedTime=" + getElapsedTime() +
+                ", done=" + done +
+                '}';
+    }
+}
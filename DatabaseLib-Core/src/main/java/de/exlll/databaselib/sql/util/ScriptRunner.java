@@ -2,13 +2,18 @@ package de.exlll.databaselib.sql.util;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 /**
@@ -16,17 +21,34 @@ import java.util.logging.Logger;
  * <p>
  * An SQL script is a file that contains SQL queries delimited by ';' (semicolon).
  * You can create a {@code ScriptRunner} by passing an instance of a {@link Reader}
- * and a {@link Connection} to its constructor. A {@code ScriptRunner} has the ability
- * to replace any part of a query prior to executing it.
+ * or the {@link Path} of a file and a {@link Connection} to its constructor.
+ * A {@code ScriptRunner} has the ability to replace any part of a query prior
+ * to executing it.
+ * <p>
+ * Scripts that are executed repeatedly can be parsed once into a {@link ParsedScript},
+ * which is then passed to a new {@code ScriptRunner} for each execution.
  */
 public final class ScriptRunner {
     private static final Logger queryLogger = Logger.getLogger(
             ScriptRunner.class.getName()
     );
-    private final QueryReader queryReader;
+    private static final long DEFAULT_PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String[] DML_KEYWORDS = {
+            "INSERT", "UPDATE", "DELETE", "REPLACE", "MERGE"
+    };
+    private final Reader reader;
+    private final Path path;
+    private final Charset charset;
+    private final ParsedScript script;
     private final Connection connection;
-    private Map<String, ?> replacements = Collections.emptyMap();
+    private ReplacementMatcher replacementMatcher = ReplacementMatcher.EMPTY;
+    private String[] placeholderValues;
     private boolean logQueries;
+    private Consumer<? super ScriptProgress> progressListener;
+    private long progressIntervalNanos = DEFAULT_PROGRESS_INTERVAL_NANOS;
+    private int batchSize = 1;
+    private int commitInterval;
+    private boolean relaxConstraintChecks;
 
     /**
      * Creates a new {@code ScriptRunner} that executes queries read from the
@@ -37,45 +59,268 @@ public final class ScriptRunner {
      * @throws NullPointerException if any argument is null
      */
     public ScriptRunner(Reader reader, Connection connection) {
-        this.queryReader = new QueryReader(
-                Objects.requireNonNull(reader), ';'
-        );
+        this.reader = Objects.requireNonNull(reader);
+        this.path = null;
+        this.charset = null;
+        this.script = null;
         this.connection = Objects.requireNonNull(connection);
     }
 
     /**
-     * Executes all queries from the given {@code Reader}.
+     * Creates a new {@code ScriptRunner} that executes queries read from the
+     * UTF-8 encoded file with the given {@code Path} using the given
+     * {@code Connection}.
+     *
+     * @param path       {@code Path} of the file queries are read from
+     * @param connection {@code Connection} used to execute queries
+     * @throws NullPointerException if any argument is null
+     * @see #ScriptRunner(Path, Charset, Connection)
+     */
+    public ScriptRunner(Path path, Connection connection) {
+        this(path, StandardCharsets.UTF_8, connection);
+    }
+
+    /**
+     * Creates a new {@code ScriptRunner} that executes queries read from the
+     * file with the given {@code Path} using the given {@code Connection}.
+     * <p>
+     * The file is mapped into memory and decoded directly into the buffer the
+     * queries are parsed from, which makes this constructor the fastest way to
+     * execute large scripts like database dumps. Unlike a {@code Reader}, the
+     * decoder doesn't replace malformed input but reports it as
+     * {@link java.nio.charset.CharacterCodingException}.
+     *
+     * @param path       {@code Path} of the file queries are read from
+     * @param charset    {@code Charset} of the file
+     * @param connection {@code Connection} used to execute queries
+     * @throws NullPointerException if any argument is null
+     */
+    public ScriptRunner(Path path, Charset charset, Connection connection) {
+        this.reader = null;
+        this.path = Objects.requireNonNull(path);
+        this.charset = Objects.requireNonNull(charset);
+        this.script = null;
+        this.connection = Objects.requireNonNull(connection);
+    }
+
+    /**
+     * Creates a new {@code ScriptRunner} that executes the queries of the given
+     * {@code ParsedScript} using the given {@code Connection}.
+     * <p>
+     * The script is neither read nor parsed again. The replacements of this
+     * {@code ScriptRunner} are inserted at the positions of the placeholders
+     * that were recorded when the script was parsed.
+     *
+     * @param script     {@code ParsedScript} whose queries are executed
+     * @param connection {@code Connection} used to execute queries
+     * @throws NullPointerException if any argument is null
+     */
+    public ScriptRunner(ParsedScript script, Connection connection) {
+        this.reader = null;
+        this.path = null;
+        this.charset = null;
+        this.script = Objects.requireNonNull(script);
+        this.connection = Objects.requireNonNull(connection);
+        this.placeholderValues = script.getValues(Map.of());
+    }
+
+    /**
+     * Executes all queries from the given {@code Reader}, file or {@code ParsedScript}.
+     * <p>
+     * Each query is executed as soon as it has been read, so a script that
+     * isn't a {@code ParsedScript} is never held in memory as a whole. If a
+     * query fails, the queries that precede it have already been executed.
      *
      * @throws IOException  if an I/O error occurs while reading from the {@code Reader}
+     *                      or the file
      * @throws SQLException if a database access error occurred or
      *                      if at least on of the queries failed to execute
      */
     public void runScript() throws IOException, SQLException {
-        List<String> queries = queryReader.readQueries();
+        if (script != null) {
+            runScript(null, run -> {
+                StringBuilder buffer = new StringBuilder();
+                for (int i = 0; i < script.getQueryCount(); i++) {
+                    run.execute(script.getQuery(i, placeholderValues, buffer));
+                }
+            });
+        } else if (path == null) {
+            runScript(new QueryReader(reader, ';'), null);
+        } else {
+            try (MappedScriptSource source = new MappedScriptSource(path, charset)) {
+                runScript(new QueryReader(source, ';'), source);
+            }
+        }
+    }
+
+    private void runScript(QueryReader queryReader, MappedScriptSource source)
+            throws IOException, SQLException {
+        runScript(source, run -> {
+            StringBuilder buffer = new StringBuilder();
+            String query;
+            while ((query = queryReader.nextQuery()) != null) {
+                run.execute(replacementMatcher.replace(query, buffer));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface QueryLoop {
+        void executeQueries(Run run) throws IOException, SQLException;
+    }
+
+    private void runScript(MappedScriptSource source, QueryLoop queryLoop)
+            throws IOException, SQLException {
+        SqlDialect dialect = relaxConstraintChecks ? SqlDialect.of(connection) : null;
+        boolean transactional = commitInterval > 0;
+        boolean autoCommit = connection.getAutoCommit();
         try (Statement stmt = connection.createStatement()) {
-            for (String query : queries) {
-                executeQuery(stmt, query);
+            if (transactional) {
+                connection.setAutoCommit(false);
             }
+            Run run = new Run(stmt, source);
+            try {
+                if (dialect != null) {
+                    executeAll(stmt, dialect.getDisableConstraintChecksQueries());
+                }
+                queryLoop.executeQueries(run);
+                run.finish();
+            } catch (Throwable e) {
+                if (transactional) {
+                    rollback(e);
+                }
+                throw e;
+            } finally {
+                try {
+                    if (dialect != null) {
+                        executeAll(stmt, dialect.getEnableConstraintChecksQueries());
+                    }
+                } finally {
+                    if (transactional) {
+                        connection.setAutoCommit(autoCommit);
+                    }
+                }
+            }
+        }
+    }
+
+    private void rollback(Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void executeAll(Statement stmt, List<String> queries) throws SQLException {
+        for (String query : queries) {
+            stmt.execute(query);
         }
     }
 
-    private void executeQuery(Statement stmt, String query) throws SQLException {
-        query = preProcess(query);
-        if (logQueries) {
-            queryLogger.info(query);
+    /*
+     * Executes the queries of one run of the script. Consecutive DML queries
+     * are collected into batches and transactions are committed once the
+     * commit interval has passed; both only happen at query boundaries, so
+     * a batch is never split between two transactions.
+     */
+    private final class Run {
+        private final Statement stmt;
+        private final MappedScriptSource source;
+        private final long startNanos = System.nanoTime();
+        private long reportedNanos = startNanos;
+        private long executedQueryCount;
+        private long uncommittedQueryCount;
+        private int batchedQueryCount;
+
+        private Run(Statement stmt, MappedScriptSource source) {
+            this.stmt = stmt;
+            this.source = source;
+        }
+
+        void execute(String query) throws SQLException {
+            if (logQueries) {
+                queryLogger.info(query);
+            }
+            if ((batchSize > 1) && isDml(query)) {
+                stmt.addBatch(query);
+                if (++batchedQueryCount == batchSize) {
+                    executeBatch();
+                }
+            } else {
+                executeBatch();
+                stmt.execute(query);
+                executed(1);
+            }
+        }
+
+        private void executeBatch() throws SQLException {
+            if (batchedQueryCount == 0) {
+                return;
+            }
+            stmt.executeBatch();
+            int count = batchedQueryCount;
+            batchedQueryCount = 0;
+            executed(count);
+        }
+
+        private void executed(int count) throws SQLException {
+            executedQueryCount += count;
+            uncommittedQueryCount += count;
+            if ((commitInterval > 0) && (uncommittedQueryCount >= commitInterval)) {
+                connection.commit();
+                uncommittedQueryCount = 0;
+            }
+            if (progressListener != null) {
+                long nowNanos = System.nanoTime();
+                if (nowNanos - reportedNanos >= progressIntervalNanos) {
+                    reportProgress(nowNanos, false);
+                    reportedNanos = nowNanos;
+                }
+            }
+        }
+
+        void finish() throws SQLException {
+            executeBatch();
+            if ((commitInterval > 0) && (uncommittedQueryCount > 0)) {
+                connection.commit();
+            }
+            if (progressListener != null) {
+                reportProgress(System.nanoTime(), true);
+            }
+        }
+
+        private void reportProgress(long nowNanos, boolean done) {
+            progressListener.accept(new ScriptProgress(
+                    executedQueryCount,
+                    (source == null) ? -1 : source.getPosition(),
+                    (source == null) ? -1 : source.getSize(),
+                    nowNanos - startNanos,
+                    done
+            ));
         }
-        stmt.execute(query);
     }
 
-    private String preProcess(String query) {
-        for (Map.Entry<String, ?> entry : replacements.entrySet()) {
-            String key = entry.getKey();
-            String replacement = (entry.getValue() == null)
-                    ? "null"
-                    : entry.getValue().toString();
-            query = query.replace(key, replacement);
+    /**
+     * Returns true if the given query starts with a keyword of a statement that
+     * changes rows and can therefore be executed as part of a batch.
+     *
+     * @param query the query without leading whitespace
+     * @return true if the query is an INSERT, UPDATE, DELETE, REPLACE or MERGE
+     */
+    static boolean isDml(String query) {
+        for (String keyword : DML_KEYWORDS) {
+            int length = keyword.length();
+            if (query.regionMatches(true, 0, keyword, 0, length) &&
+                    ((query.length() == length) || !isIdentifierPart(query.charAt(length)))) {
+                return true;
+            }
         }
-        return query;
+        return false;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || (c == '_') || (c == '$');
     }
 
     /**
@@ -84,16 +329,130 @@ public final class ScriptRunner {
      * Before a query is executed, all parts of the query that
      * match a key of the map are replaced with the value to
      * which the key is mapped.
+     * <p>
+     * The keys are compiled once when this method is called, so later changes
+     * to the map have no effect. Each query is then searched for all keys in a
+     * single pass. If keys overlap, the key that starts first and, of keys that
+     * start at the same position, the longest one is replaced. Replaced parts are
+     * not searched again, and empty keys are ignored.
+     * <p>
+     * If this {@code ScriptRunner} executes a {@link ParsedScript}, only the
+     * placeholders of that script are replaced and other keys are ignored.
      *
      * @param replacements the query replacements
      * @return this {@code ScriptRunner}
      * @throws NullPointerException if {@code replacements} or any of its keys is null
      */
     public ScriptRunner setReplacements(Map<String, ?> replacements) {
+        if (script != null) {
+            this.placeholderValues = script.getValues(replacements);
+            return this;
+        }
         for (String key : replacements.keySet()) {
             Objects.requireNonNull(key, "Map must not contain null keys.");
         }
-        this.replacements = replacements;
+        this.replacementMatcher = ReplacementMatcher.compile(replacements);
+        return this;
+    }
+
+    /**
+     * Sets the listener that is passed the progress of this {@code ScriptRunner}.
+     * The listener is called from the thread that runs the script, at most once
+     * per progress interval and once after the last query has been executed.
+     *
+     * @param progressListener listener that is passed the progress
+     * @return this {@code ScriptRunner}
+     * @throws NullPointerException if {@code progressListener} is null
+     * @see #setProgressInterval(Duration)
+     */
+    public ScriptRunner setProgressListener(Consumer<? super ScriptProgress> progressListener) {
+        this.progressListener = Objects.requireNonNull(progressListener);
+        return this;
+    }
+
+    /**
+     * Sets the minimum time between two progress reports. Defaults to 1 second.
+     *
+     * @param progressInterval minimum time between two progress reports
+     * @return this {@code ScriptRunner}
+     * @throws NullPointerException     if {@code progressInterval} is null
+     * @throws IllegalArgumentException if {@code progressInterval} is negative
+     */
+    public ScriptRunner setProgressInterval(Duration progressInterval) {
+        if (progressInterval.isNegative()) {
+            String msg = "Problem: The progress interval " + progressInterval +
+                    " is negative.\nSolution: Pass an interval that is zero or positive.";
+            throw new IllegalArgumentException(msg);
+        }
+        this.progressIntervalNanos = progressInterval.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of consecutive DML queries ({@code INSERT}, {@code UPDATE},
+     * {@code DELETE}, {@code REPLACE} and {@code MERGE}) that are sent to the database
+     * as one batch. Defaults to 1, which means that every query is executed on its own.
+     * <p>
+     * A batch is executed when it is full, when a query that isn't a DML query is
+     * read and when the end of the script is reached.
+     *
+     * @param batchSize maximum number of queries per batch
+     * @return this {@code ScriptRunner}
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     */
+    public ScriptRunner setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            String msg = "Problem: The batch size is " + batchSize + " (less than 1).\n" +
+                    "Solution: Pass a batch size greater than or equal to 1.";
+            throw new IllegalArgumentException(msg);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of queries after which the current transaction is committed.
+     * Defaults to 0, which means that the auto-commit mode of the {@code Connection}
+     * is left untouched.
+     * <p>
+     * If the interval is greater than 0, auto-commit is disabled while the script
+     * runs and a transaction is committed after the batch or query that reaches the
+     * interval and after the last query. If a query fails, the current transaction is
+     * rolled back, while the transactions committed before stay committed. The
+     * auto-commit mode is restored afterwards.
+     *
+     * @param commitInterval number of queries per transaction or 0
+     * @return this {@code ScriptRunner}
+     * @throws IllegalArgumentException if {@code commitInterval} is negative
+     */
+    public ScriptRunner setCommitInterval(int commitInterval) {
+        if (commitInterval < 0) {
+            String msg = "Problem: The commit interval is " + commitInterval +
+                    " (less than 0).\nSolution: Pass a commit interval greater " +
+                    "than or equal to 0.";
+            throw new IllegalArgumentException(msg);
+        }
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * Enables or disables the checking of constraints while the script runs.
+     * Default value is false.
+     * <p>
+     * If enabled, the constraint checks are disabled with the queries of the
+     * {@link SqlDialect} of the {@code Connection} before the first query is
+     * executed and enabled again after the script has run, even if it failed.
+     * Dialects that don't support this are left unchanged. This speeds up
+     * imports of dumps whose tables reference each other, but rows that violate
+     * constraints are not detected.
+     *
+     * @param relaxConstraintChecks true if constraint checks should be disabled
+     * @return this {@code ScriptRunner}
+     * @see SqlDialect#getDisableConstraintChecksQueries()
+     */
+    public ScriptRunner setRelaxConstraintChecks(boolean relaxConstraintChecks) {
+        this.relaxConstraintChecks = relaxConstraintChecks;
         return this;
     }
 
@@ -0,0 +1,144 @@
+package de.exlll.databaselib.sql.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The SQL dialects whose drivers need special treatment by this library.
+ */
+public enum SqlDialect {
+    MYSQL {
+        @Override
+        public List<String> getDisableConstraintChecksQueries() {
+            return MYSQL_DISABLE_CONSTRAINT_CHECKS;
+        }
+
+        @Override
+        public List<String> getEnableConstraintChecksQueries() {
+            return MYSQL_ENABLE_CONSTRAINT_CHECKS;
+        }
+
+        /**
+         * MySQL Connector/J only streams rows if the fetch size is
+         * {@code Integer.MIN_VALUE}. Any other fetch size is ignored and
+         * the whole result is read into memory.
+         */
+        @Override
+        public int getStreamingFetchSize(int rowCount) {
+            return Integer.MIN_VALUE;
+        }
+    },
+    MARIADB {
+        @Override
+        public List<String> getDisableConstraintChecksQueries() {
+            return MYSQL_DISABLE_CONSTRAINT_CHECKS;
+        }
+
+        @Override
+        public List<String> getEnableConstraintChecksQueries() {
+            return MYSQL_ENABLE_CONSTRAINT_CHECKS;
+        }
+    },
+    POSTGRESQL {
+        /**
+         * Foreign keys are checked by triggers, which are not fired while the
+         * session replication role is {@code replica}. Changing the role
+         * requires superuser privileges.
+         */
+        @Override
+        public List<String> getDisableConstraintChecksQueries() {
+            return List.of("SET session_replication_role = replica");
+        }
+
+        @Override
+        public List<String> getEnableConstraintChecksQueries() {
+            return List.of("SET session_replication_role = DEFAULT");
+        }
+
+        /**
+         * The PostgreSQL driver only uses a cursor, and therefore respects
+         * the fetch size, if auto-commit is disabled.
+         */
+        @Override
+        public boolean isStreamingTransactional() {
+            return true;
+        }
+    },
+    OTHER;
+
+    private static final List<String> MYSQL_DISABLE_CONSTRAINT_CHECKS = List.of(
+            "SET FOREIGN_KEY_CHECKS = 0", "SET UNIQUE_CHECKS = 0"
+    );
+    private static final List<String> MYSQL_ENABLE_CONSTRAINT_CHECKS = List.of(
+            "SET UNIQUE_CHECKS = 1", "SET FOREIGN_KEY_CHECKS = 1"
+    );
+
+    /**
+     * Returns the dialect of the database the given {@code Connection} is
+     * connected to.
+     *
+     * @param connection connection to a database
+     * @return the dialect of the database
+     * @throws SQLException if the database metadata cannot be read
+     */
+    public static SqlDialect of(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return ofProductName(productName);
+    }
+
+    static SqlDialect ofProductName(String productName) {
+        String name = (productName == null) ? "" : productName.toLowerCase(Locale.ROOT);
+        if (name.contains("mariadb")) {
+            return MARIADB;
+        } else if (name.contains("mysql")) {
+            return MYSQL;
+        } else if (name.contains("postgresql")) {
+            return POSTGRESQL;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns the fetch size that makes the driver read about the given number
+     * of rows at a time instead of reading the whole result into memory.
+     *
+     * @param rowCount number of rows that should be read at a time
+     * @return fetch size for streaming results
+     */
+    public int getStreamingFetchSize(int rowCount) {
+        return rowCount;
+    }
+
+    /**
+     * Returns true if auto-commit must be disabled for results to be streamed.
+     *
+     * @return true if streaming requires a transaction
+     */
+    public boolean isStreamingTransactional() {
+        return false;
+    }
+
+    /**
+     * Returns the queries that disable the checking of constraints, like foreign
+     * keys, for the current session. The list is empty if the dialect doesn't
+     * support disabling constraint checks.
+     *
+     * @return queries that disable constraint checks
+     */
+    public List<String> getDisableConstraintChecksQueries() {
+        return List.of();
+    }
+
+    /**
+     * Returns the queries that enable the checking of constraints again
+     * after they have been disabled.
+     *
+     * @return queries that enable constraint checks
+     * @see #getDisableConstraintChecksQueries()
+     */
+    public List<String> getEnableConstraintChecksQueries() {
+        return List.of();
+    }
+}
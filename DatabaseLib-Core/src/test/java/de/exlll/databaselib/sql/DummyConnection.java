@@ -1,26 +1,76 @@
 package de.exlll.databaselib.sql;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.sql.Date;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Properties;
+import java.util.*;
 import java.util.concurrent.Executor;
 
 public class DummyConnection implements Connection {
     private DummyStatement lastStatement;
+    private DummyPreparedStatement lastPreparedStatement;
+    private boolean autoCommit = true;
+    private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+    private int commitCount;
+    private int rollbackCount;
+    private String databaseProductName = "Dummy";
+    private List<Object[]> resultRows = Collections.emptyList();
+    private List<String> resultColumns = Collections.emptyList();
+    private DummyResultSet lastResultSet;
 
     public DummyStatement getLastStatement() {
         return lastStatement;
     }
 
+    public DummyPreparedStatement getLastPreparedStatement() {
+        return lastPreparedStatement;
+    }
+
+    public int getCommitCount() {
+        return commitCount;
+    }
+
+    public int getRollbackCount() {
+        return rollbackCount;
+    }
+
+    public void setDatabaseProductName(String databaseProductName) {
+        this.databaseProductName = databaseProductName;
+    }
+
+    public void setResultRows(List<Object[]> resultRows) {
+        this.resultRows = resultRows;
+    }
+
+    public void setResultColumns(String... resultColumns) {
+        this.resultColumns = List.of(resultColumns);
+    }
+
+    public DummyResultSet getLastResultSet() {
+        return lastResultSet;
+    }
+
     public static class DummyStatement implements Statement {
         private final List<String> executedQueries = new ArrayList<>();
+        private final List<String> batchedQueries = new ArrayList<>();
+        private final List<List<String>> executedBatches = new ArrayList<>();
+        private int queryTimeout;
+        private volatile boolean cancelled;
+        DummyConnection connection;
+        private int fetchSize;
 
         public List<String> getExecutedQueries() {
             return executedQueries;
         }
 
+        public List<List<String>> getExecutedBatches() {
+            return executedBatches;
+        }
+
         @Override
         public ResultSet executeQuery(String sql) {
             return null;
@@ -63,17 +113,21 @@ public class DummyConnection implements Connection {
 
         @Override
         public int getQueryTimeout() {
-            return 0;
+            return queryTimeout;
         }
 
         @Override
         public void setQueryTimeout(int seconds) {
-
+            this.queryTimeout = seconds;
         }
 
         @Override
         public void cancel() {
+            this.cancelled = true;
+        }
 
+        public boolean isCancelled() {
+            return cancelled;
         }
 
         @Override
@@ -123,12 +177,12 @@ public class DummyConnection implements Connection {
 
         @Override
         public void setFetchSize(int rows) {
-
+            this.fetchSize = rows;
         }
 
         @Override
         public int getFetchSize() {
-            return 0;
+            return fetchSize;
         }
 
         @Override
@@ -143,22 +197,26 @@ public class DummyConnection implements Connection {
 
         @Override
         public void addBatch(String sql) {
-
+            batchedQueries.add(sql);
         }
 
         @Override
         public void clearBatch() {
-
+            batchedQueries.clear();
         }
 
         @Override
         public int[] executeBatch() {
-            return new int[0];
+            int[] counts = new int[batchedQueries.size()];
+            Arrays.fill(counts, 1);
+            executedBatches.add(new ArrayList<>(batchedQueries));
+            batchedQueries.clear();
+            return counts;
         }
 
         @Override
         public Connection getConnection() {
-            return null;
+            return connection;
         }
 
         @Override
@@ -242,15 +300,335 @@ public class DummyConnection implements Connection {
         }
     }
 
+    public static class DummyPreparedStatement extends DummyStatement
+            implements PreparedStatement {
+        private final String sql;
+        private final Map<Integer, Object> parameters = new HashMap<>();
+        private final List<Map<Integer, Object>> batches = new ArrayList<>();
+        private final List<Map<Integer, Object>> executedParameters = new ArrayList<>();
+        private int executeBatchCount;
+
+        public DummyPreparedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Map<Integer, Object>> getExecutedParameters() {
+            return executedParameters;
+        }
+
+        public int getExecuteBatchCount() {
+            return executeBatchCount;
+        }
+
+        @Override
+        public int[] executeBatch() {
+            executeBatchCount++;
+            int[] counts = new int[batches.size()];
+            Arrays.fill(counts, 1);
+            executedParameters.addAll(batches);
+            batches.clear();
+            return counts;
+        }
+
+        @Override
+        public void addBatch() {
+            batches.add(new HashMap<>(parameters));
+        }
+
+        @Override
+        public void clearParameters() {
+            parameters.clear();
+        }
+
+        @Override
+        public ResultSet executeQuery() {
+            executedParameters.add(new HashMap<>(parameters));
+            DummyConnection connection = (DummyConnection) getConnection();
+            return (connection == null)
+                    ? null
+                    : (connection.lastResultSet = new DummyResultSet(connection.resultRows, connection.resultColumns));
+        }
+
+        @Override
+        public int executeUpdate() {
+            executedParameters.add(new HashMap<>(parameters));
+            return 1;
+        }
+
+        @Override
+        public boolean execute() {
+            executedParameters.add(new HashMap<>(parameters));
+            return false;
+        }
+
+        @Override
+        public ResultSetMetaData getMetaData() {
+            return null;
+        }
+
+        @Override
+        public ParameterMetaData getParameterMetaData() {
+            return null;
+        }
+
+        @Override
+        public void setArray(int parameterIndex, Array array) {
+            parameters.put(parameterIndex, array);
+        }
+
+        @Override
+        public void setAsciiStream(int parameterIndex, InputStream inputStream, int length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setAsciiStream(int parameterIndex, InputStream inputStream, long length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setAsciiStream(int parameterIndex, InputStream inputStream) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBigDecimal(int parameterIndex, BigDecimal bigDecimal) {
+            parameters.put(parameterIndex, bigDecimal);
+        }
+
+        @Override
+        public void setBinaryStream(int parameterIndex, InputStream inputStream, int length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBinaryStream(int parameterIndex, InputStream inputStream, long length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBinaryStream(int parameterIndex, InputStream inputStream) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBlob(int parameterIndex, InputStream inputStream, long length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBlob(int parameterIndex, InputStream inputStream) {
+            parameters.put(parameterIndex, inputStream);
+        }
+
+        @Override
+        public void setBlob(int parameterIndex, Blob blob) {
+            parameters.put(parameterIndex, blob);
+        }
+
+        @Override
+        public void setBoolean(int parameterIndex, boolean b) {
+            parameters.put(parameterIndex, b);
+        }
+
+        @Override
+        public void setByte(int parameterIndex, byte b) {
+            parameters.put(parameterIndex, b);
+        }
+
+        @Override
+        public void setBytes(int parameterIndex, byte[] bytes) {
+            parameters.put(parameterIndex, bytes);
+        }
+
+        @Override
+        public void setCharacterStream(int parameterIndex, Reader reader, int length) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setCharacterStream(int parameterIndex, Reader reader, long length) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setCharacterStream(int parameterIndex, Reader reader) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setClob(int parameterIndex, Reader reader, long length) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setClob(int parameterIndex, Reader reader) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setClob(int parameterIndex, Clob clob) {
+            parameters.put(parameterIndex, clob);
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date date, Calendar calendar) {
+            parameters.put(parameterIndex, date);
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date date) {
+            parameters.put(parameterIndex, date);
+        }
+
+        @Override
+        public void setDouble(int parameterIndex, double d) {
+            parameters.put(parameterIndex, d);
+        }
+
+        @Override
+        public void setFloat(int parameterIndex, float f) {
+            parameters.put(parameterIndex, f);
+        }
+
+        @Override
+        public void setInt(int parameterIndex, int x) {
+            parameters.put(parameterIndex, x);
+        }
+
+        @Override
+        public void setLong(int parameterIndex, long x) {
+            parameters.put(parameterIndex, x);
+        }
+
+        @Override
+        public void setNCharacterStream(int parameterIndex, Reader reader, long length) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setNCharacterStream(int parameterIndex, Reader reader) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setNClob(int parameterIndex, Reader reader, long length) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setNClob(int parameterIndex, Reader reader) {
+            parameters.put(parameterIndex, reader);
+        }
+
+        @Override
+        public void setNClob(int parameterIndex, NClob value) {
+            parameters.put(parameterIndex, value);
+        }
+
+        @Override
+        public void setNString(int parameterIndex, String s) {
+            parameters.put(parameterIndex, s);
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType, String typeName) {
+            parameters.put(parameterIndex, null);
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType) {
+            parameters.put(parameterIndex, null);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) {
+            parameters.put(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType) {
+            parameters.put(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x) {
+            parameters.put(parameterIndex, x);
+        }
+
+        @Override
+        public void setRef(int parameterIndex, Ref ref) {
+            parameters.put(parameterIndex, ref);
+        }
+
+        @Override
+        public void setRowId(int parameterIndex, RowId rowId) {
+            parameters.put(parameterIndex, rowId);
+        }
+
+        @Override
+        public void setSQLXML(int parameterIndex, SQLXML xmlObject) {
+            parameters.put(parameterIndex, xmlObject);
+        }
+
+        @Override
+        public void setShort(int parameterIndex, short s) {
+            parameters.put(parameterIndex, s);
+        }
+
+        @Override
+        public void setString(int parameterIndex, String s) {
+            parameters.put(parameterIndex, s);
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time time, Calendar calendar) {
+            parameters.put(parameterIndex, time);
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time time) {
+            parameters.put(parameterIndex, time);
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp timestamp, Calendar calendar) {
+            parameters.put(parameterIndex, timestamp);
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp timestamp) {
+            parameters.put(parameterIndex, timestamp);
+        }
+
+        @Override
+        public void setURL(int parameterIndex, URL url) {
+            parameters.put(parameterIndex, url);
+        }
+
+        @Override
+        public void setUnicodeStream(int parameterIndex, InputStream inputStream, int length) {
+            parameters.put(parameterIndex, inputStream);
+        }
+    }
+
 
     @Override
     public Statement createStatement() {
-        return this.lastStatement = new DummyStatement();
+        this.lastStatement = new DummyStatement();
+        this.lastStatement.connection = this;
+        return lastStatement;
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql) {
-        return null;
+        this.lastPreparedStatement = new DummyPreparedStatement(sql);
+        this.lastPreparedStatement.connection = this;
+        return lastPreparedStatement;
     }
 
     @Override
@@ -265,22 +643,22 @@ public class DummyConnection implements Connection {
 
     @Override
     public void setAutoCommit(boolean autoCommit) {
-
+        this.autoCommit = autoCommit;
     }
 
     @Override
     public boolean getAutoCommit() {
-        return false;
+        return autoCommit;
     }
 
     @Override
     public void commit() {
-
+        commitCount++;
     }
 
     @Override
     public void rollback() {
-
+        rollbackCount++;
     }
 
     @Override
@@ -295,7 +673,13 @@ public class DummyConnection implements Connection {
 
     @Override
     public DatabaseMetaData getMetaData() {
-        return null;
+        return (DatabaseMetaData) Proxy.newProxyInstance(
+                DatabaseMetaData.class.getClassLoader(),
+                new Class<?>[]{DatabaseMetaData.class},
+                (proxy, method, args) -> method.getName().equals("getDatabaseProductName")
+                        ? databaseProductName
+                        : null
+        );
     }
 
     @Override
@@ -320,12 +704,12 @@ public class DummyConnection implements Connection {
 
     @Override
     public void setTransactionIsolation(int level) {
-
+        this.transactionIsolation = level;
     }
 
     @Override
     public int getTransactionIsolation() {
-        return 0;
+        return transactionIsolation;
     }
 
     @Override
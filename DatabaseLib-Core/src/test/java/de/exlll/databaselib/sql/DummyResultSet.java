@@ -0,0 +1,1015 @@
+package de.exlll.databaselib.sql;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.sql.Date;
+import java.sql.*;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+public class DummyResultSet implements ResultSet {
+    private final List<Object[]> rows;
+    private final List<String> columnLabels;
+    private int index = -1;
+    private int readCount;
+    private boolean closed;
+    private boolean wasNull;
+
+    public DummyResultSet(List<Object[]> rows) {
+        this(rows, List.of());
+    }
+
+    public DummyResultSet(List<Object[]> rows, List<String> columnLabels) {
+        this.rows = rows;
+        this.columnLabels = columnLabels;
+    }
+
+    private Number getNumber(int columnIndex) {
+        Number number = (Number) getObject(columnIndex);
+        return (number == null) ? 0 : number;
+    }
+
+    public int getReadCount() {
+        return readCount;
+    }
+
+    @Override
+    public boolean absolute(int i) {
+        return false;
+    }
+
+    @Override
+    public void afterLast() {
+
+    }
+
+    @Override
+    public void beforeFirst() {
+
+    }
+
+    @Override
+    public void cancelRowUpdates() {
+
+    }
+
+    @Override
+    public void clearWarnings() {
+
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public void deleteRow() {
+
+    }
+
+    @Override
+    public int findColumn(String s) {
+        return 0;
+    }
+
+    @Override
+    public boolean first() {
+        return false;
+    }
+
+    @Override
+    public Array getArray(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Array getArray(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel, int i) {
+        return null;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int parameterIndex, int i1) {
+        return null;
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) {
+        return (BigDecimal) getObject(columnIndex);
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) {
+        return false;
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) {
+        return Boolean.TRUE.equals(getObject(columnIndex));
+    }
+
+    @Override
+    public byte getByte(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public byte getByte(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return 0;
+    }
+
+    @Override
+    public String getCursorName() {
+        return null;
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Date getDate(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Date getDate(int parameterIndex, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Date getDate(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public double getDouble(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return getNumber(columnIndex).doubleValue();
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return 0;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return 0;
+    }
+
+    @Override
+    public float getFloat(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public int getHoldability() {
+        return 0;
+    }
+
+    @Override
+    public int getInt(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return getNumber(columnIndex).intValue();
+    }
+
+    @Override
+    public long getLong(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        return getNumber(columnIndex).longValue();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columnLabels.size();
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return columnLabels.get((int) args[0] - 1);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+        );
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public String getNString(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public String getNString(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) {
+        return null;
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) {
+        return null;
+    }
+
+    @Override
+    public Object getObject(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) {
+        return type.cast(getObject(columnIndex));
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) {
+        return null;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) {
+        Object value = rows.get(index)[columnIndex - 1];
+        wasNull = (value == null);
+        return value;
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public int getRow() {
+        return 0;
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public short getShort(String columnLabel) {
+        return 0;
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return 0;
+    }
+
+    @Override
+    public Statement getStatement() {
+        return null;
+    }
+
+    @Override
+    public String getString(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        return (String) getObject(columnIndex);
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Time getTime(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Time getTime(int parameterIndex, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Time getTime(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int parameterIndex, Calendar calendar) {
+        return null;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public int getType() {
+        return 0;
+    }
+
+    @Override
+    public URL getURL(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public URL getURL(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public InputStream getUnicodeStream(String columnLabel) {
+        return null;
+    }
+
+    @Override
+    public InputStream getUnicodeStream(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void insertRow() {
+
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return false;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return false;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isFirst() {
+        return false;
+    }
+
+    @Override
+    public boolean isLast() {
+        return false;
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) {
+        return false;
+    }
+
+    @Override
+    public boolean last() {
+        return false;
+    }
+
+    @Override
+    public void moveToCurrentRow() {
+
+    }
+
+    @Override
+    public void moveToInsertRow() {
+
+    }
+
+    @Override
+    public boolean next() {
+        if (closed || (index + 1) >= rows.size()) {
+            return false;
+        }
+        index++;
+        readCount++;
+        return true;
+    }
+
+    @Override
+    public boolean previous() {
+        return false;
+    }
+
+    @Override
+    public void refreshRow() {
+
+    }
+
+    @Override
+    public boolean relative(int i) {
+        return false;
+    }
+
+    @Override
+    public boolean rowDeleted() {
+        return false;
+    }
+
+    @Override
+    public boolean rowInserted() {
+        return false;
+    }
+
+    @Override
+    public boolean rowUpdated() {
+        return false;
+    }
+
+    @Override
+    public void setFetchDirection(int i) {
+
+    }
+
+    @Override
+    public void setFetchSize(int i) {
+
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return null;
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array array) {
+
+    }
+
+    @Override
+    public void updateArray(int parameterIndex, Array array) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream inputStream, int i) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(int parameterIndex, InputStream inputStream, int i2) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(int parameterIndex, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateAsciiStream(int parameterIndex, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal bigDecimal) {
+
+    }
+
+    @Override
+    public void updateBigDecimal(int parameterIndex, BigDecimal bigDecimal) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream inputStream, int i) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(int parameterIndex, InputStream inputStream, int i2) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(int parameterIndex, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateBinaryStream(int parameterIndex, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob blob) {
+
+    }
+
+    @Override
+    public void updateBlob(int parameterIndex, InputStream inputStream, long l) {
+
+    }
+
+    @Override
+    public void updateBlob(int parameterIndex, InputStream inputStream) {
+
+    }
+
+    @Override
+    public void updateBlob(int parameterIndex, Blob blob) {
+
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean b) {
+
+    }
+
+    @Override
+    public void updateBoolean(int parameterIndex, boolean b) {
+
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte b) {
+
+    }
+
+    @Override
+    public void updateByte(int parameterIndex, byte b) {
+
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] bytes) {
+
+    }
+
+    @Override
+    public void updateBytes(int parameterIndex, byte[] bytes) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, int i) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(int parameterIndex, Reader reader, int i2) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(int parameterIndex, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateCharacterStream(int parameterIndex, Reader reader) {
+
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) {
+
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob clob) {
+
+    }
+
+    @Override
+    public void updateClob(int parameterIndex, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateClob(int parameterIndex, Reader reader) {
+
+    }
+
+    @Override
+    public void updateClob(int parameterIndex, Clob clob) {
+
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date date) {
+
+    }
+
+    @Override
+    public void updateDate(int parameterIndex, Date date) {
+
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double d) {
+
+    }
+
+    @Override
+    public void updateDouble(int parameterIndex, double d) {
+
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float f) {
+
+    }
+
+    @Override
+    public void updateFloat(int parameterIndex, float f) {
+
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int i) {
+
+    }
+
+    @Override
+    public void updateInt(int parameterIndex, int i1) {
+
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long l) {
+
+    }
+
+    @Override
+    public void updateLong(int parameterIndex, long l) {
+
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader) {
+
+    }
+
+    @Override
+    public void updateNCharacterStream(int parameterIndex, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateNCharacterStream(int parameterIndex, Reader reader) {
+
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) {
+
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob nClob) {
+
+    }
+
+    @Override
+    public void updateNClob(int parameterIndex, Reader reader, long l) {
+
+    }
+
+    @Override
+    public void updateNClob(int parameterIndex, Reader reader) {
+
+    }
+
+    @Override
+    public void updateNClob(int parameterIndex, NClob nClob) {
+
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String s1) {
+
+    }
+
+    @Override
+    public void updateNString(int parameterIndex, String s) {
+
+    }
+
+    @Override
+    public void updateNull(String columnLabel) {
+
+    }
+
+    @Override
+    public void updateNull(int columnIndex) {
+
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int i) {
+
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) {
+
+    }
+
+    @Override
+    public void updateObject(int parameterIndex, Object x, int i2) {
+
+    }
+
+    @Override
+    public void updateObject(int parameterIndex, Object x) {
+
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref ref) {
+
+    }
+
+    @Override
+    public void updateRef(int parameterIndex, Ref ref) {
+
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId rowId) {
+
+    }
+
+    @Override
+    public void updateRowId(int parameterIndex, RowId rowId) {
+
+    }
+
+    @Override
+    public void updateRow() {
+
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML sQLXML) {
+
+    }
+
+    @Override
+    public void updateSQLXML(int parameterIndex, SQLXML sQLXML) {
+
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short s) {
+
+    }
+
+    @Override
+    public void updateShort(int parameterIndex, short s) {
+
+    }
+
+    @Override
+    public void updateString(String columnLabel, String s1) {
+
+    }
+
+    @Override
+    public void updateString(int parameterIndex, String s) {
+
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time time) {
+
+    }
+
+    @Override
+    public void updateTime(int parameterIndex, Time time) {
+
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp timestamp) {
+
+    }
+
+    @Override
+    public void updateTimestamp(int parameterIndex, Timestamp timestamp) {
+
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+}
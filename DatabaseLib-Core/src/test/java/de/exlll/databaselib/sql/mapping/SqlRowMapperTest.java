@@ -0,0 +1,145 @@
+package de.exlll.databaselib.sql.mapping;
+
+import de.exlll.databaselib.sql.DummyResultSet;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlRowMapperTest {
+    private static final String QUERY = "SELECT user_id, name, points, rank, level FROM users";
+
+    @Test
+    void ofReturnsSameMapperForSameClassAndQuery() {
+        SqlRowMapper<User> mapper = SqlRowMapper.of(User.class, QUERY);
+        assertThat(SqlRowMapper.of(User.class, QUERY), sameInstance(mapper));
+        assertThat(SqlRowMapper.of(User.class, "SELECT 1"), not(sameInstance(mapper)));
+        assertThat(SqlRowMapper.of(Player.class, QUERY), not(sameInstance(mapper)));
+    }
+
+    @Test
+    void ofKeepsMappersOfMostRecentlyUsedQueries() {
+        SqlRowMapper<Score> first = SqlRowMapper.of(Score.class, "SELECT 0");
+        SqlRowMapper<Score> second = SqlRowMapper.of(Score.class, "SELECT 1");
+        for (int i = 2; i <= SqlRowMapper.MAXIMUM_CACHED_QUERIES; i++) {
+            SqlRowMapper.of(Score.class, "SELECT " + i);
+            SqlRowMapper.of(Score.class, "SELECT 0");
+        }
+        assertThat(SqlRowMapper.of(Score.class, "SELECT 0"), sameInstance(first));
+        assertThat(SqlRowMapper.of(Score.class, "SELECT 1"), not(sameInstance(second)));
+    }
+
+    @Test
+    void ofRequiresNonNullArguments() {
+        assertThrows(NullPointerException.class, () -> SqlRowMapper.of(null, QUERY));
+        assertThrows(NullPointerException.class, () -> SqlRowMapper.of(User.class, null));
+    }
+
+    @Test
+    void applyMapsColumnsToSettersAndFields() throws SQLException {
+        ResultSet resultSet = resultSet(
+                Arrays.asList("user_id", "NAME", "points", "rank", "unknown"),
+                new Object[]{7L, "alice", 12, "GOLD", "ignored"}
+        );
+        User user = SqlRowMapper.of(User.class, "SELECT *").apply(resultSet);
+
+        assertThat(user.userId, is(7L));
+        assertThat(user.name, is("alice"));
+        assertThat(user.points, is(12));
+        assertThat(user.rank, is(Rank.GOLD));
+        assertThat(user.setterCalls, is(1));
+    }
+
+    @Test
+    void applyMapsNullToDefaultValueOfPrimitives() throws SQLException {
+        ResultSet resultSet = resultSet(
+                Arrays.asList("user_id", "points", "level"),
+                new Object[]{null, null, null}
+        );
+        User user = SqlRowMapper.of(User.class, "SELECT nulls").apply(resultSet);
+
+        assertThat(user.userId, is(0L));
+        assertThat(user.points, nullValue());
+        assertThat(user.level, nullValue());
+    }
+
+    @Test
+    void applyReadsUuidsFromStrings() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        SqlRowMapper<User> mapper = SqlRowMapper.of(User.class, "SELECT uuid");
+
+        User user = mapper.apply(resultSet(List.of("uuid"), new Object[]{uuid.toString()}));
+        assertThat(user.uuid, is(uuid));
+
+        user = mapper.apply(resultSet(List.of("uuid"), new Object[]{null}));
+        assertThat(user.uuid, nullValue());
+
+        ResultSet invalid = resultSet(List.of("uuid"), new Object[]{"invalid"});
+        assertThrows(SQLException.class, () -> mapper.apply(invalid));
+    }
+
+    @Test
+    void applyResolvesColumnsOnlyOnce() throws SQLException {
+        SqlRowMapper<User> mapper = SqlRowMapper.of(User.class, "SELECT once");
+        mapper.apply(resultSet(List.of("name"), new Object[]{"alice"}));
+
+        // no metadata: the columns of the first result are used
+        User user = mapper.apply(resultSet(List.of(), new Object[]{"bob"}));
+        assertThat(user.name, is("bob"));
+    }
+
+    @Test
+    void applyRequiresNoArgumentConstructor() {
+        ResultSet resultSet = resultSet(List.of("name"), new Object[]{"alice"});
+        SqlRowMapper<Player> mapper = SqlRowMapper.of(Player.class, QUERY);
+        assertThrows(IllegalArgumentException.class, () -> mapper.apply(resultSet));
+    }
+
+    @Test
+    void normalizeIgnoresCaseAndUnderscores() {
+        assertThat(RowMapperCompiler.normalize("USER_ID"), is("userid"));
+        assertThat(RowMapperCompiler.normalize("userId"), is("userid"));
+    }
+
+    private static ResultSet resultSet(List<String> columns, Object[] row) {
+        DummyResultSet resultSet = new DummyResultSet(List.<Object[]>of(row), columns);
+        resultSet.next();
+        return resultSet;
+    }
+
+    enum Rank {SILVER, GOLD}
+
+    public static final class User {
+        private long userId;
+        private String name;
+        private Integer points;
+        private Rank rank;
+        private Integer level;
+        private UUID uuid;
+        private int setterCalls;
+
+        public void setPoints(Integer points) {
+            this.points = points;
+            setterCalls++;
+        }
+    }
+
+    public static final class Player {
+        private final String name;
+
+        public Player(String name) {
+            this.name = name;
+        }
+    }
+
+    public static final class Score {
+        private int points;
+    }
+}
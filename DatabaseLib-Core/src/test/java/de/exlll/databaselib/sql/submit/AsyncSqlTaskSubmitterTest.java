@@ -6,6 +6,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
@@ -122,6 +125,71 @@ class AsyncSqlTaskSubmitterTest {
     }
 
 
+    @Test
+    void latenciesOfExecutedTasksAreRecordedPerQuery() {
+        List<Runnable> callbacks = new ArrayList<>();
+        AsyncSqlTaskSubmitter submitter = newSubmitter(callbacks::add, Runnable::run);
+        submitter.submitSqlPreparedStatementTask(
+                "SELECT * FROM t WHERE id IN (1, 2)", s -> null, (v, t) -> {}
+        );
+        submitter.submitSqlPreparedStatementTask(
+                "SELECT *  FROM t WHERE id IN (3)", s -> null, (v, t) -> {}
+        );
+        submitter.submitSqlConnectionTask(c -> null, (v, t) -> {});
+
+        SqlLatencyStatistics statistics = submitter.getLatencyStatistics();
+        assertThat(statistics.getSubmitterName(), is(TestAsyncSqlTaskSubmitter.class.getName()));
+        assertThat(statistics.getQueries(), is(Set.of(
+                "SELECT * FROM t WHERE id IN (?)", "<connection>"
+        )));
+        String query = "SELECT * FROM t WHERE id IN (?)";
+        assertThat(statistics.getHistogram(query, SqlTaskPhase.QUEUE_WAIT).getCount(), is(2L));
+        assertThat(statistics.getHistogram(query, SqlTaskPhase.CONNECTION_WAIT).getCount(), is(2L));
+        assertThat(statistics.getHistogram(query, SqlTaskPhase.EXECUTION).getCount(), is(2L));
+        assertThat(statistics.getHistogram(query, SqlTaskPhase.CALLBACK_DELIVERY).getCount(), is(0L));
+
+        callbacks.forEach(Runnable::run);
+
+        statistics = submitter.getLatencyStatistics();
+        assertThat(statistics.getHistogram(query, SqlTaskPhase.CALLBACK_DELIVERY).getCount(), is(2L));
+        assertThat(statistics.getHistogram(SqlTaskPhase.CALLBACK_DELIVERY).getCount(), is(3L));
+    }
+
+    @Test
+    void resetLatencyStatisticsStartsNewInterval() {
+        AsyncSqlTaskSubmitter submitter = newSubmitter();
+        submitter.submitSqlConnectionTask(c -> null, (v, t) -> {});
+
+        SqlLatencyStatistics statistics = submitter.resetLatencyStatistics();
+
+        assertThat(statistics.getHistogram(SqlTaskPhase.EXECUTION).getCount(), is(1L));
+        assertThat(submitter.getLatencyStatistics().getQueries().isEmpty(), is(true));
+    }
+
+    @Test
+    void queriesOverTheMaximumAreRecordedAsOther() {
+        AsyncSqlTaskSubmitter submitter = new TestAsyncSqlTaskSubmitter(
+                dummySqlConnectionPool, Runnable::run, Runnable::run,
+                SqlSubmitterConfig.builder().setMaximumTrackedQueries(1).build()
+        );
+        submitter.submitSqlPreparedStatementTask("SELECT a FROM t", s -> null, (v, t) -> {});
+        submitter.submitSqlPreparedStatementTask("SELECT b FROM t", s -> null, (v, t) -> {});
+
+        assertThat(submitter.getLatencyStatistics().getQueries(), is(Set.of(
+                "SELECT a FROM t", SqlLatencyRecorder.OTHER_QUERIES
+        )));
+    }
+
+    @Test
+    void latenciesAreNotRecordedIfDisabled() {
+        AsyncSqlTaskSubmitter submitter = new TestAsyncSqlTaskSubmitter(
+                dummySqlConnectionPool, Runnable::run, Runnable::run,
+                SqlSubmitterConfig.builder().setLatencyStatisticsEnabled(false).build()
+        );
+        submitter.submitSqlConnectionTask(c -> null, (v, t) -> {});
+        assertThat(submitter.getLatencyStatistics().getQueries().isEmpty(), is(true));
+    }
+
     private AsyncSqlTaskSubmitter newSubmitter(SqlConnectionPool pool, Executor sync) {
         return new TestAsyncSqlTaskSubmitter(pool, sync, Runnable::run);
     }
@@ -148,5 +216,14 @@ class AsyncSqlTaskSubmitterTest {
         ) {
             super(connectionPool, syncExecutor, asyncExecutor);
         }
+
+        TestAsyncSqlTaskSubmitter(
+                SqlConnectionPool connectionPool,
+                Executor syncExecutor,
+                Executor asyncExecutor,
+                SqlSubmitterConfig config
+        ) {
+            super(connectionPool, syncExecutor, asyncExecutor, config);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A submitter that executes tasks in the submitting thread using a single
+ * {@code DummyConnection} and records the statements prepared on it.
+ * <p>
+ * If {@code deferTasks} is set, tasks are collected in {@code tasks} instead of
+ * being executed. If {@code failQueries} is set, preparing a statement fails.
+ */
+final class RecordingSubmitter extends SqlTaskSubmitter {
+    final List<DummyConnection.DummyPreparedStatement> statements = new ArrayList<>();
+    final List<SqlTask<?, ?>> tasks = new ArrayList<>();
+    final DummyConnection connection = new DummyConnection() {
+        @Override
+        public PreparedStatement prepareStatement(String sql) {
+            if (failQueries) {
+                throw new RuntimeException(new SQLException("TEST"));
+            }
+            PreparedStatement statement = super.prepareStatement(sql);
+            synchronized (RecordingSubmitter.this) {
+                statements.add((DummyConnection.DummyPreparedStatement) statement);
+            }
+            return statement;
+        }
+    };
+    int submittedCount;
+    boolean deferTasks;
+    volatile boolean failQueries;
+
+    /**
+     * Returns the parameters of all statements that have been executed, in
+     * the order of their execution per statement.
+     *
+     * @return executed parameters
+     */
+    synchronized List<Map<Integer, Object>> executedParameters() {
+        List<Map<Integer, Object>> parameters = new ArrayList<>();
+        for (DummyConnection.DummyPreparedStatement statement : statements) {
+            parameters.addAll(statement.getExecutedParameters());
+        }
+        return parameters;
+    }
+
+    @Override
+    synchronized void submit(SqlTask<?, ?> task) {
+        submittedCount++;
+        if (deferTasks) {
+            tasks.add(task);
+        } else {
+            task.execute(connection);
+        }
+    }
+
+    @Override
+    protected synchronized Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,70 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SqlBatchCoalescerTest {
+    private final List<SqlTask<?, ?>> submitted = new CopyOnWriteArrayList<>();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    @Test
+    void addSubmitsBatchWhenMaximumSizeIsReached() {
+        SqlBatchCoalescer coalescer = new SqlBatchCoalescer(
+                submitted::add, 3, TimeUnit.HOURS.toNanos(1)
+        );
+        coalescer.add("A", newEntry());
+        coalescer.add("A", newEntry());
+        coalescer.add("B", newEntry());
+        assertThat(submitted.size(), is(0));
+        coalescer.add("A", newEntry());
+        assertThat(submitted.size(), is(1));
+
+        submitted.get(0).execute(new DummyConnection());
+        assertThat(completed.get(), is(3));
+    }
+
+    @Test
+    void addSubmitsBatchAfterDelay() throws InterruptedException {
+        SqlBatchCoalescer coalescer = new SqlBatchCoalescer(
+                submitted::add, 100, TimeUnit.MILLISECONDS.toNanos(10)
+        );
+        coalescer.add("A", newEntry());
+        coalescer.add("A", newEntry());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (submitted.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(submitted.size(), is(1));
+
+        submitted.get(0).execute(new DummyConnection());
+        assertThat(completed.get(), is(2));
+    }
+
+    @Test
+    void flushAllSubmitsAllBatches() {
+        SqlBatchCoalescer coalescer = new SqlBatchCoalescer(
+                submitted::add, 100, TimeUnit.HOURS.toNanos(1)
+        );
+        coalescer.add("A", newEntry());
+        coalescer.add("B", newEntry());
+        coalescer.flushAll();
+        assertThat(submitted.size(), is(2));
+        coalescer.flushAll();
+        assertThat(submitted.size(), is(2));
+    }
+
+    private SqlBatch.Entry newEntry() {
+        return new SqlBatch.Entry(
+                statement -> statement.setInt(1, 1),
+                (count, throwable) -> completed.incrementAndGet()
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlBatchLoaderOptionsTest {
+    @Test
+    void setWindowRequiresNonNegativeWindow() {
+        SqlBatchLoaderOptions.Builder builder = SqlBatchLoaderOptions.builder();
+        assertThrows(NullPointerException.class, () -> builder.setWindow(null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setWindow(Duration.ofMillis(-1))
+        );
+    }
+
+    @Test
+    void setMaximumBatchSizeRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlBatchLoaderOptions.builder().setMaximumBatchSize(0)
+        );
+    }
+
+    @Test
+    void setMaximumKeysPerQueryRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlBatchLoaderOptions.builder().setMaximumKeysPerQuery(0)
+        );
+    }
+
+    @Test
+    void setTaskOptionsRequiresNonNullOptions() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SqlBatchLoaderOptions.builder().setTaskOptions(null)
+        );
+    }
+}
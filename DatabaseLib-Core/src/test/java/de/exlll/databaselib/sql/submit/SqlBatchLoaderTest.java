@@ -0,0 +1,152 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlBatchLoaderTest {
+    private static final String QUERY = "SELECT uuid, coins FROM players WHERE uuid IN (?)";
+    private final RecordingSubmitter submitter = new RecordingSubmitter();
+
+    @Test
+    void createBatchLoaderRequiresSingleParameter() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> newLoader("SELECT * FROM players", options())
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> newLoader("SELECT * FROM players WHERE uuid IN (?) AND a = ?", options())
+        );
+    }
+
+    @Test
+    void getQueryExpandsParameter() {
+        SqlBatchLoader<String, Integer> loader = newLoader(QUERY, options());
+        assertThat(loader.getQuery(1), is("SELECT uuid, coins FROM players WHERE uuid IN (?)"));
+        assertThat(loader.getQuery(3), is(
+                "SELECT uuid, coins FROM players WHERE uuid IN (?, ?, ?)"
+        ));
+    }
+
+    @Test
+    void flushLoadsAllKeysWithOneQuery() throws Exception {
+        submitter.connection.setResultRows(List.of(
+                new Object[]{"b", 2}, new Object[]{"a", 1}
+        ));
+        SqlBatchLoader<String, Integer> loader = newLoader(QUERY, options());
+        CompletableFuture<Optional<Integer>> a = loader.load("a").toCompletableFuture();
+        CompletableFuture<Optional<Integer>> b = loader.load("b").toCompletableFuture();
+        CompletableFuture<Optional<Integer>> c = loader.load("c").toCompletableFuture();
+        assertThat(loader.getPendingKeyCount(), is(3));
+        assertThat(submitter.statements.size(), is(0));
+
+        loader.flush();
+
+        assertThat(a.get(), is(Optional.of(1)));
+        assertThat(b.get(), is(Optional.of(2)));
+        assertThat(c.get(), is(Optional.empty()));
+        assertThat(loader.getPendingKeyCount(), is(0));
+        assertThat(submitter.statements.size(), is(1));
+        DummyConnection.DummyPreparedStatement statement = submitter.statements.get(0);
+        assertThat(statement.getSql(), is(loader.getQuery(3)));
+        assertThat(statement.getExecutedParameters().get(0), is(Map.of(1, "a", 2, "b", 3, "c")));
+    }
+
+    @Test
+    void keysRequestedTwiceAreLoadedOnce() {
+        submitter.connection.setResultRows(List.<Object[]>of(new Object[]{"a", 1}));
+        SqlBatchLoader<String, Integer> loader = newLoader(QUERY, options());
+        List<Optional<Integer>> values = new ArrayList<>();
+        loader.load("a", (value, throwable) -> values.add(value));
+        loader.load("a", (value, throwable) -> values.add(value));
+        assertThat(loader.getPendingKeyCount(), is(1));
+
+        loader.flush();
+
+        assertThat(values, is(List.of(Optional.of(1), Optional.of(1))));
+        Map<Integer, Object> parameters = submitter.statements.get(0)
+                .getExecutedParameters().get(0);
+        assertThat(parameters, is(Map.of(1, "a")));
+    }
+
+    @Test
+    void largeBatchesAreSplitIntoChunksOnOneConnection() {
+        SqlBatchLoader<String, Integer> loader = newLoader(
+                QUERY, options().setMaximumKeysPerQuery(2)
+        );
+        for (String key : List.of("a", "b", "c", "d", "e")) {
+            loader.load(key);
+        }
+        loader.flush();
+
+        assertThat(submitter.submittedCount, is(1));
+        assertThat(submitter.statements.size(), is(2));
+        DummyConnection.DummyPreparedStatement full = submitter.statements.get(0);
+        assertThat(full.getSql(), is(loader.getQuery(2)));
+        assertThat(full.getExecutedParameters().size(), is(2));
+        assertThat(full.getExecutedParameters().get(0), is(Map.of(1, "a", 2, "b")));
+        assertThat(full.getExecutedParameters().get(1), is(Map.of(1, "c", 2, "d")));
+        DummyConnection.DummyPreparedStatement rest = submitter.statements.get(1);
+        assertThat(rest.getSql(), is(loader.getQuery(1)));
+        assertThat(rest.getExecutedParameters().get(0), is(Map.of(1, "e")));
+    }
+
+    @Test
+    void batchIsLoadedWhenMaximumBatchSizeIsReached() {
+        SqlBatchLoader<String, Integer> loader = newLoader(
+                QUERY, options().setMaximumBatchSize(2)
+        );
+        loader.load("a");
+        loader.load("a");
+        assertThat(submitter.submittedCount, is(0));
+
+        loader.load("b");
+        assertThat(submitter.submittedCount, is(1));
+        assertThat(loader.getPendingKeyCount(), is(0));
+    }
+
+    @Test
+    void batchIsLoadedWhenWindowPasses() throws Exception {
+        submitter.connection.setResultRows(List.<Object[]>of(new Object[]{"a", 1}));
+        SqlBatchLoader<String, Integer> loader = newLoader(
+                QUERY, options().setWindow(Duration.ofMillis(1))
+        );
+        CompletableFuture<Optional<Integer>> a = loader.load("a").toCompletableFuture();
+        assertThat(a.get(5, TimeUnit.SECONDS), is(Optional.of(1)));
+    }
+
+    @Test
+    void failedQueriesFailAllRequesters() {
+        submitter.failQueries = true;
+        SqlBatchLoader<String, Integer> loader = newLoader(QUERY, options());
+        CompletableFuture<Optional<Integer>> a = loader.load("a").toCompletableFuture();
+        CompletableFuture<Optional<Integer>> b = loader.load("b").toCompletableFuture();
+
+        loader.flush();
+
+        assertThat(a.isCompletedExceptionally(), is(true));
+        assertThat(b.isCompletedExceptionally(), is(true));
+    }
+
+    private SqlBatchLoader<String, Integer> newLoader(
+            String query,
+            SqlBatchLoaderOptions.Builder options
+    ) {
+        return submitter.createBatchLoader(
+                query, rs -> rs.getString(1), rs -> rs.getInt(2), options.build()
+        );
+    }
+
+    private static SqlBatchLoaderOptions.Builder options() {
+        return SqlBatchLoaderOptions.builder().setWindow(Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,84 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import de.exlll.databaselib.sql.DummyConnection.DummyPreparedStatement;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SqlBatchTest {
+    private final List<Object> results = new ArrayList<>();
+
+    @Test
+    void addFailsAfterClose() {
+        SqlBatch batch = new SqlBatch("");
+        assertThat(batch.add(newEntry(1)), is(1));
+        assertThat(batch.add(newEntry(2)), is(2));
+        assertThat(batch.close(), is(true));
+        assertThat(batch.close(), is(false));
+        assertThat(batch.add(newEntry(3)), is(-1));
+    }
+
+    @Test
+    void taskExecutesAllEntriesAsOneBatch() {
+        SqlBatch batch = new SqlBatch("UPDATE");
+        batch.add(newEntry(1));
+        batch.add(newEntry(2));
+        batch.add(newEntry(3));
+        batch.close();
+
+        DummyConnection connection = new DummyConnection();
+        batch.toTask().execute(connection);
+
+        DummyPreparedStatement statement = connection.getLastPreparedStatement();
+        assertThat(statement.getSql(), is("UPDATE"));
+        assertThat(statement.getExecuteBatchCount(), is(1));
+        assertThat(statement.getExecutedParameters().size(), is(3));
+        assertThat(statement.getExecutedParameters().get(2).get(1), is(3));
+        assertThat(results, is(List.of(1, 1, 1)));
+    }
+
+    @Test
+    void failingEntriesDoNotFailOtherEntries() {
+        SqlBatch batch = new SqlBatch("");
+        SQLException exception = new SQLException();
+        batch.add(newEntry(1));
+        batch.add(new SqlBatch.Entry(
+                statement -> {throw exception;},
+                (count, throwable) -> results.add(throwable)
+        ));
+        batch.add(newEntry(3));
+        batch.close();
+
+        DummyConnection connection = new DummyConnection();
+        batch.toTask().execute(connection);
+
+        assertThat(results, is(List.of(exception, 1, 1)));
+        assertThat(connection.getLastPreparedStatement().getExecutedParameters().size(), is(2));
+    }
+
+    @Test
+    void taskFailureFailsAllEntries() {
+        SqlBatch batch = new SqlBatch("");
+        batch.add(newEntry(1));
+        batch.add(newEntry(2));
+        batch.close();
+
+        RuntimeException exception = new RuntimeException();
+        batch.toTask().callback.accept(null, exception);
+
+        assertThat(results, is(List.of(exception, exception)));
+    }
+
+    private SqlBatch.Entry newEntry(int value) {
+        return new SqlBatch.Entry(
+                statement -> statement.setInt(1, value),
+                (count, throwable) -> results.add(throwable == null ? count : throwable)
+        );
+    }
+}
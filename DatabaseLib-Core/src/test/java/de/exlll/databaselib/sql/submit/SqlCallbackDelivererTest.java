@@ -0,0 +1,89 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SqlCallbackDelivererTest {
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    @Test
+    void deliverSchedulesOneDrainForManyCallbacks() {
+        SqlCallbackDeliverer deliverer = new SqlCallbackDeliverer(scheduled::add, 0);
+        AtomicInteger integer = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            deliverer.deliver(integer::incrementAndGet);
+        }
+        assertThat(scheduled.size(), is(1));
+        assertThat(deliverer.getPendingCallbackCount(), is(10));
+
+        scheduled.remove(0).run();
+        assertThat(integer.get(), is(10));
+        assertThat(scheduled.size(), is(0));
+    }
+
+    @Test
+    void deliverSchedulesNewDrainAfterDrainRan() {
+        SqlCallbackDeliverer deliverer = new SqlCallbackDeliverer(scheduled::add, 0);
+        deliverer.deliver(() -> {});
+        scheduled.remove(0).run();
+        deliverer.deliver(() -> {});
+        assertThat(scheduled.size(), is(1));
+    }
+
+    @Test
+    void drainRunsCallbacksInOrder() {
+        SqlCallbackDeliverer deliverer = new SqlCallbackDeliverer(scheduled::add, 0);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int value = i;
+            deliverer.deliver(() -> order.add(value));
+        }
+        scheduled.remove(0).run();
+        assertThat(order, is(List.of(0, 1, 2, 3, 4)));
+    }
+
+    @Test
+    void drainContinuesAfterFailingCallback() {
+        SqlCallbackDeliverer deliverer = new SqlCallbackDeliverer(scheduled::add, 0);
+        AtomicInteger integer = new AtomicInteger();
+        deliverer.deliver(() -> {throw new RuntimeException();});
+        deliverer.deliver(integer::incrementAndGet);
+        scheduled.remove(0).run();
+        assertThat(integer.get(), is(1));
+    }
+
+    @Test
+    void drainDefersCallbacksExceedingTimeBudget() {
+        SqlCallbackDeliverer deliverer = new SqlCallbackDeliverer(
+                scheduled::add, TimeUnit.MILLISECONDS.toNanos(1)
+        );
+        AtomicInteger integer = new AtomicInteger();
+        deliverer.deliver(() -> {
+            sleep(5);
+            integer.incrementAndGet();
+        });
+        deliverer.deliver(integer::incrementAndGet);
+
+        scheduled.remove(0).run();
+        assertThat(integer.get(), is(1));
+        assertThat(scheduled.size(), is(1));
+
+        scheduled.remove(0).run();
+        assertThat(integer.get(), is(2));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
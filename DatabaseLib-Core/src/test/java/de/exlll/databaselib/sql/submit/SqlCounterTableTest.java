@@ -0,0 +1,247 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlCounterTableTest {
+    private final RecordingSubmitter submitter = new RecordingSubmitter();
+    private final List<SqlCounterTable<?>> tables = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        tables.forEach(table -> table.drain(Duration.ZERO));
+    }
+
+    @Test
+    void createCounterTableBuildsUpdateQuery() {
+        SqlCounterTable<String> table = newTable(options());
+        assertThat(table.getQuery(), is(
+                "UPDATE stats SET kills = kills + ?, deaths = deaths + ? WHERE uuid = ?"
+        ));
+    }
+
+    @Test
+    void createCounterTableRequiresValidNames() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> submitter.createCounterTable("stats; DROP", "uuid", "kills")
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> submitter.createCounterTable("stats", "uuid", "kills", "kills")
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> submitter.createCounterTable("stats", "uuid")
+        );
+    }
+
+    @Test
+    void addRequiresCounterColumn() {
+        SqlCounterTable<String> table = newTable(options());
+        assertThrows(IllegalArgumentException.class, () -> table.increment("a", "wins"));
+    }
+
+    @Test
+    void flushWritesOneUpdatePerRow() throws Exception {
+        SqlCounterTable<String> table = newTable(options());
+        table.increment("a", "kills");
+        table.increment("a", "kills");
+        table.increment("a", "kills");
+        table.add("a", "deaths", 2);
+        table.increment("b", "kills");
+        assertThat(table.getStatistics().getPendingRowCount(), is(2));
+
+        int rows = table.flush().toCompletableFuture().get();
+
+        assertThat(rows, is(2));
+        assertThat(totals().get("a"), is(List.of(3L, 2L)));
+        assertThat(totals().get("b"), is(List.of(1L, 0L)));
+        SqlCounterStatistics statistics = table.getStatistics();
+        assertThat(statistics.getFlushedRowCount(), is(2L));
+        assertThat(statistics.getFlushedIncrementCount(), is(5L));
+        assertThat(statistics.getCollapsedIncrementCount(), is(3L));
+        assertThat(statistics.getPendingRowCount(), is(0));
+    }
+
+    @Test
+    void flushWritesRowsWithoutNewIncrementsOnlyOnce() throws Exception {
+        SqlCounterTable<String> table = newTable(options());
+        table.increment("a", "kills");
+        table.flush().toCompletableFuture().get();
+        table.flush().toCompletableFuture().get();
+        table.increment("a", "kills");
+        table.flush().toCompletableFuture().get();
+
+        assertThat(submitter.executedParameters().size(), is(2));
+        assertThat(totals().get("a"), is(List.of(2L, 0L)));
+    }
+
+    @Test
+    void addFlushesWhenMaximumPendingRowsIsReached() {
+        SqlCounterTable<String> table = newTable(options().setMaximumPendingEntries(2));
+        table.increment("a", "kills");
+        table.increment("a", "kills");
+        assertThat(submitter.executedParameters().size(), is(0));
+
+        table.increment("b", "kills");
+        assertThat(submitter.executedParameters().size(), is(2));
+    }
+
+    @Test
+    void failedWritesAreAddedBack() {
+        submitter.deferTasks = true;
+        SqlCounterTable<String> table = newTable(options());
+        table.increment("a", "kills");
+        CompletableFuture<Integer> flush = table.flush().toCompletableFuture();
+        table.increment("a", "kills");
+
+        submitter.tasks.get(0).callback.accept(null, new SQLException("TEST"));
+
+        assertThat(flush.isCompletedExceptionally(), is(true));
+        assertThat(table.getStatistics().getFlushedRowCount(), is(0L));
+        assertThat(table.drain(Duration.ZERO), is(true));
+        assertThat(totals().get("a"), is(List.of(2L, 0L)));
+    }
+
+    @Test
+    void eachBatchIsCommittedInItsOwnTransaction() throws Exception {
+        SqlCounterTable<String> table = newTable(options().setMaximumBatchSize(2));
+        table.increment("a", "kills");
+        table.increment("b", "kills");
+        table.increment("c", "kills");
+
+        table.flush().toCompletableFuture().get();
+
+        assertThat(submitter.connection.getCommitCount(), is(2));
+        assertThat(submitter.connection.getAutoCommit(), is(true));
+    }
+
+    @Test
+    void drainWritesIncrementsInCallingThread() {
+        submitter.deferTasks = true;
+        SqlCounterTable<String> table = newTable(options());
+        table.increment("a", "deaths");
+
+        assertThat(table.drain(Duration.ofSeconds(1)), is(true));
+
+        assertThat(submitter.tasks.size(), is(0));
+        assertThat(totals().get("a"), is(List.of(0L, 1L)));
+        assertThrows(IllegalStateException.class, () -> table.increment("a", "kills"));
+    }
+
+    @Test
+    void drainWritesIncrementsOfWritesThatFailWhileItIsRunning() throws Exception {
+        submitter.deferTasks = true;
+        SqlCounterTable<String> table = newTable(
+                options().setMaximumPendingEntries(Integer.MAX_VALUE)
+        );
+        table.increment("a", "kills");
+        table.flush();
+        CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(
+                () -> table.drain(Duration.ofSeconds(5))
+        );
+        long deaths = 0;
+        try {
+            while (true) {
+                table.increment("a", "deaths");
+                deaths++;
+            }
+        } catch (IllegalStateException e) {
+            // the table is being drained
+        }
+        assertThrows(IllegalStateException.class, table::flush);
+
+        submitter.tasks.get(0).callback.accept(null, new SQLException("TEST"));
+
+        assertThat(drained.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(submitter.tasks.size(), is(1));
+        assertThat(totals().get("a"), is(List.of(1L, deaths)));
+        assertThat(table.getStatistics().getPendingRowCount(), is(0));
+    }
+
+    @Test
+    void drainCanBeRetriedIfWritingRemainingIncrementsFails() {
+        SqlCounterTable<String> table = newTable(options());
+        table.increment("a", "kills");
+        submitter.failQueries = true;
+
+        assertThrows(RuntimeException.class, () -> table.drain(Duration.ZERO));
+        assertThat(table.getStatistics().getPendingRowCount(), is(1));
+
+        submitter.failQueries = false;
+
+        assertThat(table.drain(Duration.ZERO), is(true));
+        assertThat(totals().get("a"), is(List.of(1L, 0L)));
+    }
+
+    @Test
+    void concurrentIncrementsAreWrittenExactlyOnce() throws InterruptedException {
+        SqlCounterTable<String> table = newTable(options().setMaximumPendingEntries(3));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                table.flush();
+            }
+        });
+        flusher.start();
+        int threadCount = 4;
+        int incrementsPerThread = 20_000;
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    String key = "k" + ThreadLocalRandom.current().nextInt(8);
+                    table.increment(key, "kills");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        running.set(false);
+        flusher.join();
+        table.drain(Duration.ofSeconds(5));
+
+        long total = totals().values().stream().mapToLong(t -> t.get(0)).sum();
+        assertThat(total, is((long) threadCount * incrementsPerThread));
+        assertThat(table.getStatistics().getFlushedIncrementCount(), is(total));
+    }
+
+    private SqlCounterTable<String> newTable(SqlWriteBehindOptions.Builder options) {
+        SqlCounterTable<String> table = submitter.createCounterTable(
+                "stats", "uuid", List.of("kills", "deaths"), options.build()
+        );
+        tables.add(table);
+        return table;
+    }
+
+    private static SqlWriteBehindOptions.Builder options() {
+        return SqlWriteBehindOptions.builder().setFlushInterval(Duration.ofHours(1));
+    }
+
+    private Map<Object, List<Long>> totals() {
+        Map<Object, List<Long>> totals = new HashMap<>();
+        for (Map<Integer, Object> parameters : submitter.executedParameters()) {
+            List<Long> total = totals.computeIfAbsent(
+                    parameters.get(3), key -> new ArrayList<>(List.of(0L, 0L))
+            );
+            total.set(0, total.get(0) + (Long) parameters.get(1));
+            total.set(1, total.get(1) + (Long) parameters.get(2));
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,96 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlLatencyHistogramTest {
+    @Test
+    void bucketsDeviateByAtMostOneSixteenth() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            long bucketMicros = SqlLatencyHistogram.microsOf(SqlLatencyHistogram.bucketOf(micros));
+            assertTrue(Math.abs(bucketMicros - micros) <= micros / 16.0, "" + micros);
+        }
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        int previous = 0;
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = SqlLatencyHistogram.bucketOf(micros);
+            assertTrue(bucket == previous || bucket == previous + 1, "" + micros);
+            previous = bucket;
+        }
+        assertThat(SqlLatencyHistogram.bucketOf(Long.MAX_VALUE),
+                is(SqlLatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    void percentilesOfUniformLatencies() {
+        SqlLatencyHistogram histogram = histogramOf(1000, i -> (i + 1) * 1000L);
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertClose(histogram.getPercentile(50), 500);
+        assertClose(histogram.getPercentile(99), 990);
+        assertClose(histogram.getPercentile(99.9), 999);
+        assertThat(histogram.getPercentile(100), is(Duration.ofMillis(1000)));
+        assertThat(histogram.getMaximum(), is(Duration.ofMillis(1000)));
+        assertThat(histogram.getAverage(), is(Duration.ofNanos(500_500_000)));
+    }
+
+    @Test
+    void emptyHistogramReturnsZero() {
+        SqlLatencyHistogram histogram = SqlLatencyHistogram.EMPTY;
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getPercentile(99), is(Duration.ZERO));
+        assertThat(histogram.getAverage(), is(Duration.ZERO));
+    }
+
+    @Test
+    void mergeAddsCounts() {
+        SqlLatencyHistogram a = histogramOf(10, i -> 1_000L);
+        SqlLatencyHistogram b = histogramOf(10, i -> 1_000_000L);
+
+        SqlLatencyHistogram merged = a.merge(b);
+
+        assertThat(merged.getCount(), is(20L));
+        assertClose(merged.getPercentile(50), 1);
+        assertThat(merged.getMaximum(), is(Duration.ofMillis(1000)));
+    }
+
+    @Test
+    void getPercentileRequiresValidPercentile() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlLatencyHistogram.EMPTY.getPercentile(100.1)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlLatencyHistogram.EMPTY.getPercentile(Double.NaN)
+        );
+    }
+
+    private static void assertClose(Duration duration, long expectedMillis) {
+        double millis = duration.toNanos() / 1e6;
+        assertTrue(Math.abs(millis - expectedMillis) <= expectedMillis / 16.0, duration.toString());
+    }
+
+    private static SqlLatencyHistogram histogramOf(int count, IntToLongFunction micros) {
+        long[] counts = new long[SqlLatencyHistogram.BUCKET_COUNT];
+        long total = 0;
+        long maximum = 0;
+        for (int i = 0; i < count; i++) {
+            long nanos = micros.applyAsLong(i) * 1000;
+            counts[SqlLatencyHistogram.bucketOf(nanos / 1000)]++;
+            total += nanos;
+            maximum = Math.max(maximum, nanos);
+        }
+        return new SqlLatencyHistogram(counts, total, maximum);
+    }
+}
@@ -0,0 +1,63 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlParameterRecorderTest {
+    @Test
+    void recordReturnsParametersOrderedByIndex() throws Exception {
+        List<Object> parameters = SqlParameterRecorder.record(statement -> {
+            statement.setString(2, "b");
+            statement.setInt(1, 1);
+            statement.setNull(3, Types.VARCHAR);
+        });
+        assertThat(parameters, is(Arrays.asList(
+                Arrays.asList("setInt", 1),
+                Arrays.asList("setString", "b"),
+                Arrays.asList("setNull", Types.VARCHAR)
+        )));
+    }
+
+    @Test
+    void recordDistinguishesSetters() throws Exception {
+        List<Object> ints = SqlParameterRecorder.record(statement -> statement.setInt(1, 1));
+        List<Object> longs = SqlParameterRecorder.record(statement -> statement.setLong(1, 1));
+        assertThat(ints, not(longs));
+    }
+
+    @Test
+    void recordComparesByteArraysByContent() throws Exception {
+        List<Object> bytes1 = SqlParameterRecorder.record(
+                statement -> statement.setBytes(1, new byte[]{1, 2})
+        );
+        List<Object> bytes2 = SqlParameterRecorder.record(
+                statement -> statement.setBytes(1, new byte[]{1, 2})
+        );
+        assertThat(bytes1, is(bytes2));
+    }
+
+    @Test
+    void recordClearsParameters() throws Exception {
+        List<Object> parameters = SqlParameterRecorder.record(statement -> {
+            statement.setInt(1, 1);
+            statement.clearParameters();
+        });
+        assertThat(parameters.isEmpty(), is(true));
+    }
+
+    @Test
+    void recordRejectsOtherMethods() {
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> SqlParameterRecorder.record(statement -> statement.executeQuery())
+        );
+    }
+}
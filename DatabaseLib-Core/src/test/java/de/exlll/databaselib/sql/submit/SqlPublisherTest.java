@@ -0,0 +1,202 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SqlPublisherTest {
+    private static final Object COMPLETE = new Object();
+    private final DummyConnection connection = new DummyConnection();
+    private final AtomicInteger executionCount = new AtomicInteger();
+    private final CountDownLatch executed = new CountDownLatch(1);
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            rows.add(new Object[]{i});
+        }
+        connection.setResultRows(rows);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void subscribeDoesNotExecuteQueryBeforeRowsAreRequested() {
+        TestSubscriber subscriber = new TestSubscriber();
+        newPublisher(resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+        assertThat(subscriber.subscription, notNullValue());
+        assertThat(executionCount.get(), is(0));
+    }
+
+    @Test
+    void rowsAreOnlyReadWhenRequested() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber();
+        newPublisher(resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.take(), is(1));
+        assertThat(subscriber.take(), is(2));
+        assertThat(subscriber.signals.poll(50, TimeUnit.MILLISECONDS), nullValue());
+        assertThat(connection.getLastResultSet().getReadCount(), is(2));
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.take(), is(3));
+        assertThat(subscriber.take(), is(4));
+        assertThat(subscriber.take(), is(5));
+        assertThat(subscriber.take(), sameInstance(COMPLETE));
+        assertThat(executed.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(connection.getLastResultSet().isClosed(), is(true));
+        assertThat(executionCount.get(), is(1));
+    }
+
+    @Test
+    void cancelReleasesResultAndDoesNotComplete() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber();
+        newPublisher(resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertThat(subscriber.take(), is(1));
+        subscriber.subscription.cancel();
+
+        assertThat(executed.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(connection.getLastResultSet().isClosed(), is(true));
+        assertThat(connection.getLastResultSet().getReadCount(), is(1));
+        assertThat(subscriber.signals.poll(50, TimeUnit.MILLISECONDS), nullValue());
+    }
+
+    @Test
+    void requestOfNonPositiveNumberSignalsError() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber();
+        newPublisher(resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.take(), instanceOf(IllegalArgumentException.class));
+        assertThat(executionCount.get(), is(0));
+    }
+
+    @Test
+    void requestOfNonPositiveNumberInOnNextSignalsErrorAfterOnNextReturns()
+            throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber() {
+            @Override
+            public void onNext(Integer item) {
+                subscription.request(0);
+                super.onNext(item);
+            }
+        };
+        newPublisher(resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+
+        assertThat(subscriber.take(), is(1));
+        assertThat(subscriber.take(), instanceOf(IllegalArgumentException.class));
+        assertThat(executed.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(connection.getLastResultSet().getReadCount(), is(1));
+        assertThat(subscriber.signals.poll(50, TimeUnit.MILLISECONDS), nullValue());
+    }
+
+    @Test
+    void errorsOfQuerySignalError() throws InterruptedException {
+        SQLException test = new SQLException("TEST");
+        TestSubscriber subscriber = new TestSubscriber();
+        newPublisher(resultSet -> {
+            throw test;
+        }).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.take(), sameInstance(test));
+    }
+
+    @Test
+    void waitingForDemandEndsWhenDeadlinePasses() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber();
+        CheckedSqlFunction<ResultSet, Integer> rowMapper = resultSet -> resultSet.getInt(1);
+        new SqlPublisher<>(statement -> {}, rowMapper, subscription -> {
+            SqlTask<?, ?> task = new SqlPreparedStatementTask<>(
+                    "SELECT id FROM t", subscription::read, subscription::completed
+            );
+            task.startDeadline(TimeUnit.MILLISECONDS.toNanos(100));
+            subscription.setTask(task);
+            executor.execute(() -> {
+                task.execute(connection);
+                executed.countDown();
+            });
+        }).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.take(), is(1));
+        assertThat(subscriber.take(), instanceOf(SQLTimeoutException.class));
+        assertThat(executed.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(connection.getLastResultSet().isClosed(), is(true));
+        assertThat(connection.getLastResultSet().getReadCount(), is(1));
+    }
+
+    private SqlPublisher<Integer> newPublisher(
+            CheckedSqlFunction<ResultSet, Integer> rowMapper
+    ) {
+        return new SqlPublisher<>(statement -> {}, rowMapper, subscription -> {
+            executionCount.incrementAndGet();
+            executor.execute(() -> {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM t")) {
+                    subscription.completed(subscription.read(statement), null);
+                } catch (Throwable throwable) {
+                    subscription.completed(null, throwable);
+                } finally {
+                    executed.countDown();
+                }
+            });
+        });
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Integer> {
+        private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        volatile Flow.Subscription subscription;
+
+        Object take() throws InterruptedException {
+            return signals.poll(1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            signals.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add(COMPLETE);
+        }
+    }
+}
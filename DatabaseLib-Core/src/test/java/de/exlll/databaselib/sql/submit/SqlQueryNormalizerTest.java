@@ -0,0 +1,47 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SqlQueryNormalizerTest {
+    @Test
+    void normalizeCollapsesWhitespace() {
+        assertThat(
+                SqlQueryNormalizer.normalize("  SELECT *\n\tFROM   t  "),
+                is("SELECT * FROM t")
+        );
+    }
+
+    @Test
+    void normalizeReplacesLiterals() {
+        assertThat(
+                SqlQueryNormalizer.normalize(
+                        "SELECT * FROM t2 WHERE a = 'it''s' AND b = 'x\\'y' AND c > -1.5e3"
+                ),
+                is("SELECT * FROM t2 WHERE a = ? AND b = ? AND c > -?")
+        );
+    }
+
+    @Test
+    void normalizeCollapsesParameterLists() {
+        assertThat(
+                SqlQueryNormalizer.normalize("SELECT * FROM t WHERE id IN (?, ?,?)"),
+                is("SELECT * FROM t WHERE id IN (?)")
+        );
+        assertThat(
+                SqlQueryNormalizer.normalize("INSERT INTO t VALUES (1, 'a', 0x1F)"),
+                is("INSERT INTO t VALUES (?)")
+        );
+    }
+
+    @Test
+    void normalizeTruncatesLongQueries() {
+        String query = "SELECT " + "a, ".repeat(200) + "b FROM t";
+        assertThat(
+                SqlQueryNormalizer.normalize(query).length(),
+                is(SqlQueryNormalizer.MAXIMUM_LENGTH)
+        );
+    }
+}
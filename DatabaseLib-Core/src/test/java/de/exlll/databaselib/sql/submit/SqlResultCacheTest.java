@@ -0,0 +1,237 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlResultCacheTest {
+    private final SqlResultCache cache = SqlResultCache.builder()
+            .setMaximumSize(2)
+            .build();
+    private final List<BiConsumer<Object, Throwable>> loads = new ArrayList<>();
+    private final List<Object> results = new ArrayList<>();
+
+    @Test
+    void loadLoadsMissingResults() {
+        load("key");
+        assertThat(loads.size(), is(1));
+        loads.get(0).accept("result", null);
+        assertThat(results, is(Arrays.asList("result")));
+    }
+
+    @Test
+    void loadReturnsCachedResults() {
+        load("key");
+        loads.get(0).accept("result", null);
+        load("key");
+        assertThat(loads.size(), is(1));
+        assertThat(results, is(Arrays.asList("result", "result")));
+
+        SqlResultCacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHitCount(), is(1L));
+        assertThat(statistics.getMissCount(), is(1L));
+        assertThat(statistics.getHitRate(), is(0.5));
+        assertThat(statistics.getSize(), is(1));
+    }
+
+    @Test
+    void loadCachesNullResults() {
+        load("key");
+        loads.get(0).accept(null, null);
+        load("key");
+        assertThat(loads.size(), is(1));
+    }
+
+    @Test
+    void loadDoesntCacheFailures() {
+        load("key");
+        loads.get(0).accept(null, new RuntimeException());
+        load("key");
+        assertThat(loads.size(), is(2));
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvicted() {
+        loadAndComplete("key1");
+        loadAndComplete("key2");
+        load("key1");
+        loadAndComplete("key3");
+        assertThat(cache.getStatistics().getEvictionCount(), is(1L));
+
+        load("key1");
+        load("key2");
+        assertThat(loads.size(), is(4));
+    }
+
+    @Test
+    void expiredResultsAreEvicted() throws Exception {
+        SqlResultCache cache = SqlResultCache.builder()
+                .setTimeToLive(Duration.ofMillis(1))
+                .build();
+        cache.load("key", new String[0], loader(), (r, t) -> results.add(r));
+        loads.get(0).accept("result", null);
+        Thread.sleep(5);
+        cache.load("key", new String[0], loader(), (r, t) -> results.add(r));
+        assertThat(loads.size(), is(2));
+        assertThat(cache.getStatistics().getEvictionCount(), is(1L));
+    }
+
+    @Test
+    void invalidateRemovesResults() {
+        loadAndComplete("key");
+        cache.invalidate("key");
+        load("key");
+        assertThat(loads.size(), is(2));
+    }
+
+    @Test
+    void invalidateTagRemovesTaggedResults() {
+        cache.load("key1", new String[]{"users"}, loader(), (r, t) -> results.add(r));
+        loads.get(0).accept("result", null);
+        cache.load("key2", new String[]{"guilds"}, loader(), (r, t) -> results.add(r));
+        loads.get(1).accept("result", null);
+
+        cache.invalidateTag("users");
+        load("key1");
+        load("key2");
+        assertThat(loads.size(), is(3));
+    }
+
+    @Test
+    void invalidateQueryRemovesResultsOfQuery() {
+        Object key1 = SqlResultCache.queryKey("SELECT 1", Arrays.asList(1));
+        Object key2 = SqlResultCache.queryKey("SELECT 1", Arrays.asList(2));
+        Object key3 = SqlResultCache.queryKey("SELECT 2", Arrays.asList(1));
+        loadAndComplete(key1);
+        loadAndComplete(key2);
+        cache.invalidateQuery("SELECT 1");
+        assertThat(cache.getStatistics().getSize(), is(0));
+
+        loadAndComplete(key3);
+        load(SqlResultCache.queryKey("SELECT 2", Arrays.asList(1)));
+        assertThat(loads.size(), is(3));
+    }
+
+    @Test
+    void resultsLoadedDuringInvalidationAreNotCached() {
+        cache.load("key", new String[]{"users"}, loader(), (r, t) -> results.add(r));
+        cache.invalidateTag("users");
+        loads.get(0).accept("result", null);
+        assertThat(results, is(Arrays.asList("result")));
+        load("key");
+        assertThat(loads.size(), is(2));
+    }
+
+    @Test
+    void resultsLoadedDuringInvalidationOfKeyAreNotCached() {
+        load("key");
+        cache.invalidate("key");
+        loads.get(0).accept("result", null);
+        load("key");
+        assertThat(loads.size(), is(2));
+    }
+
+    @Test
+    void invalidationsOfOtherKeysAndTagsDontAffectLoads() {
+        cache.load("key", new String[]{"users"}, loader(), (r, t) -> results.add(r));
+        cache.invalidate("other");
+        cache.invalidateTag("guilds");
+        cache.invalidateQuery("SELECT 1");
+        loads.get(0).accept("result", null);
+        load("key");
+        assertThat(loads.size(), is(1));
+        assertThat(results, is(Arrays.asList("result", "result")));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        load("key");
+        load("key");
+        assertThat(loads.size(), is(1));
+        loads.get(0).accept("result", null);
+        assertThat(results, is(Arrays.asList("result", "result")));
+        load("key");
+        assertThat(loads.size(), is(1));
+    }
+
+    @Test
+    void missesAfterInvalidationDontJoinRunningLoad() {
+        load("key");
+        load("key");
+        cache.invalidate("key");
+        load("key");
+        assertThat(loads.size(), is(2));
+
+        loads.get(1).accept("new", null);
+        loads.get(0).accept("old", null);
+        assertThat(results, is(Arrays.asList("new", "old", "old")));
+        load("key");
+        assertThat(loads.size(), is(2));
+        assertThat(results.get(3), is("new"));
+    }
+
+    @Test
+    void failingLoaderFailsJoinedCallbacks() {
+        List<Throwable> throwables = new ArrayList<>();
+        RuntimeException exception = new RuntimeException();
+        assertThrows(RuntimeException.class, () -> cache.load(
+                "key", new String[0],
+                loaded -> {
+                    cache.load("key", new String[0], loader(), (r, t) -> throwables.add(t));
+                    throw exception;
+                },
+                (r, t) -> throwables.add(t)
+        ));
+        assertThat(throwables, is(Arrays.asList(exception)));
+        load("key");
+        assertThat(loads.size(), is(1));
+    }
+
+    @Test
+    void invalidateAllAffectsAllLoads() {
+        load("key");
+        cache.invalidateAll();
+        loads.get(0).accept("result", null);
+        load("key");
+        assertThat(loads.size(), is(2));
+    }
+
+    @Test
+    void builderRequiresValidArguments() {
+        SqlResultCache.Builder builder = SqlResultCache.builder();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setTimeToLive(Duration.ZERO)
+        );
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setTimeToLive(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setMaximumSize(0)
+        );
+    }
+
+    private void load(Object key) {
+        cache.load(key, new String[0], loader(), (r, t) -> results.add(r));
+    }
+
+    private void loadAndComplete(Object key) {
+        load(key);
+        loads.get(loads.size() - 1).accept("result", null);
+    }
+
+    private Consumer<BiConsumer<Object, Throwable>> loader() {
+        return loads::add;
+    }
+}
@@ -0,0 +1,69 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlSingleFlightTest {
+    private final SqlSingleFlight singleFlight = new SqlSingleFlight();
+    private final List<BiConsumer<Object, Throwable>> executions = new ArrayList<>();
+    private final List<Object> results = new ArrayList<>();
+
+    @Test
+    void callersWithSameKeyShareExecution() {
+        execute("key");
+        execute("key");
+        execute("other");
+        assertThat(executions.size(), is(2));
+
+        executions.get(0).accept("result", null);
+        assertThat(results, is(Arrays.asList("result", "result")));
+        assertThat(singleFlight.getFlightCount(), is(1));
+    }
+
+    @Test
+    void completedFlightsAreNotJoined() {
+        execute("key");
+        executions.get(0).accept("result1", null);
+        execute("key");
+        assertThat(executions.size(), is(2));
+        executions.get(1).accept("result2", null);
+        assertThat(results, is(Arrays.asList("result1", "result2")));
+        assertThat(singleFlight.getFlightCount(), is(0));
+    }
+
+    @Test
+    void failuresArePassedToAllCallers() {
+        List<Throwable> throwables = new ArrayList<>();
+        RuntimeException exception = new RuntimeException();
+        for (int i = 0; i < 2; i++) {
+            singleFlight.execute("key", (r, t) -> throwables.add(t), executions::add);
+        }
+        executions.get(0).accept(null, exception);
+        assertThat(throwables.size(), is(2));
+        assertThat(throwables.get(1), sameInstance(exception));
+    }
+
+    @Test
+    void exceptionsOfExecutionAreRethrownAndEndTheFlight() {
+        RuntimeException exception = new RuntimeException();
+        RuntimeException thrown = assertThrows(
+                RuntimeException.class,
+                () -> singleFlight.execute("key", (r, t) -> {}, c -> {throw exception;})
+        );
+        assertThat(thrown, sameInstance(exception));
+        assertThat(singleFlight.getFlightCount(), is(0));
+    }
+
+    private void execute(Object key) {
+        singleFlight.execute(key, (r, t) -> results.add(r), executions::add);
+    }
+}
@@ -0,0 +1,209 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummySqlConnectionPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+class SqlSlowTaskLogTest {
+    private static final String QUERY = "SELECT name FROM users WHERE id = ?";
+    private final List<String> messages = new ArrayList<>();
+    private final List<Runnable> pending = new ArrayList<>();
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        });
+    }
+
+    @Test
+    void tasksAreNotWatchedWithoutThreshold() {
+        SqlSlowTaskLog log = newLog(SqlSubmitterConfig.DEFAULT);
+        SqlTask<?, ?> task = newTask();
+        log.watch(task);
+        assertThat(task.getSlowTaskWatch() == null, is(true));
+    }
+
+    @Test
+    void tasksFasterThanThresholdAreNotLogged() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofHours(1))
+                .build()
+        );
+        dispatcher.dispatch(newTask());
+        runPending();
+        assertThat(messages.size(), is(0));
+    }
+
+    @Test
+    void slowTasksAreLoggedWithQueryCallerAndTimes() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .build()
+        );
+        dispatcher.dispatch(newTask());
+        runPending();
+        assertThat(messages.size(), is(1));
+        String message = messages.get(0);
+        assertThat(message, containsString("Slow task of TestSubmitter took "));
+        assertThat(message, containsString("(threshold: 0.0 ms)"));
+        assertThat(message, containsString("\n  Submitted by: "));
+        assertThat(message, containsString("\n  Waiting: "));
+        assertThat(message, containsString("), executing: "));
+        assertThat(message, containsString("\n  Query: " + QUERY));
+        assertThat(message, not(containsString("Statement: ")));
+    }
+
+    @Test
+    void tasksWithoutQueryAreLoggedWithTheirKind() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .build()
+        );
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (r, t) -> {}));
+        runPending();
+        assertThat(messages.get(0), containsString("\n  Query: <connection>"));
+    }
+
+    @Test
+    void thresholdOfTaskOptionsOverridesThresholdOfConfig() {
+        SqlSlowTaskLog log = newLog(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .build()
+        );
+        SqlTask<?, ?> task1 = newTask().withOptions(
+                SqlTaskOptions.builder().setSlowTaskThreshold(Duration.ZERO).build()
+        );
+        log.watch(task1);
+        assertThat(task1.getSlowTaskWatch() == null, is(true));
+
+        log = newLog(SqlSubmitterConfig.DEFAULT);
+        SqlTask<?, ?> task2 = newTask().withOptions(
+                SqlTaskOptions.builder().setSlowTaskThreshold(Duration.ofNanos(1)).build()
+        );
+        log.watch(task2);
+        assertThat(task2.getSlowTaskWatch() == null, is(false));
+    }
+
+    @Test
+    void sampleRateZeroWatchesNoTasks() {
+        SqlSlowTaskLog log = newLog(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .setSlowTaskSampleRate(0.0)
+                .build()
+        );
+        for (int i = 0; i < 100; i++) {
+            SqlTask<?, ?> task = newTask();
+            log.watch(task);
+            assertThat(task.getSlowTaskWatch() == null, is(true));
+        }
+    }
+
+    @Test
+    void logsArePerMinuteRateLimited() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .setMaximumSlowTaskLogsPerMinute(2)
+                .build()
+        );
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(newTask());
+            runPending();
+        }
+        assertThat(messages.size(), is(2));
+    }
+
+    @Test
+    void suppressedLogsAreCountedAndReported() {
+        SqlSlowTaskLog log = newLog(SqlSubmitterConfig.builder()
+                .setMaximumSlowTaskLogsPerMinute(2)
+                .build()
+        );
+        long now = System.nanoTime();
+        assertThat(log.tryAcquirePermit(now), is(0L));
+        assertThat(log.tryAcquirePermit(now), is(0L));
+        assertThat(log.tryAcquirePermit(now), is(-1L));
+        assertThat(log.tryAcquirePermit(now), is(-1L));
+        assertThat(log.tryAcquirePermit(now + TimeUnit.SECONDS.toNanos(20)), is(-1L));
+        assertThat(log.tryAcquirePermit(now + TimeUnit.SECONDS.toNanos(30)), is(3L));
+        assertThat(log.tryAcquirePermit(now + TimeUnit.SECONDS.toNanos(30)), is(-1L));
+    }
+
+    @Test
+    void parameterCaptureLogsStatementsAndParameters() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setSlowTaskThreshold(Duration.ofNanos(1))
+                .setSlowTaskParameterCapture(true)
+                .build()
+        );
+        dispatcher.dispatch(new SqlPreparedStatementTask<>(QUERY, statement -> {
+            statement.setString(1, "alice");
+            statement.setInt(2, 7);
+            statement.addBatch();
+            statement.setString(1, "bob");
+            statement.addBatch();
+            return statement.executeBatch();
+        }, (r, t) -> {}));
+        runPending();
+        assertThat(messages.get(0), containsString(
+                "\n  Statement: " + QUERY + " parameters: {1='bob', 2=7} batch size: 2"
+        ));
+    }
+
+    @Test
+    void libraryAndJdkClassesAreSkippedWhenLookingForTheCaller() {
+        assertThat(SqlSlowTaskLog.isLibraryOrJdkClass(SqlTask.class.getName()), is(true));
+        assertThat(SqlSlowTaskLog.isLibraryOrJdkClass("java.lang.Thread"), is(true));
+        assertThat(SqlSlowTaskLog.isLibraryOrJdkClass("jdk.internal.misc.Unsafe"), is(true));
+        assertThat(SqlSlowTaskLog.isLibraryOrJdkClass("com.example.UserRepository"), is(false));
+        assertThat(SqlSlowTaskLog.isLibraryOrJdkClass(
+                "de.exlll.databaselib.sql.submit.example.Repository"), is(false)
+        );
+    }
+
+    private SqlSlowTaskLog newLog(SqlSubmitterConfig config) {
+        return new SqlSlowTaskLog("TestSubmitter", config, logger);
+    }
+
+    private SqlTaskDispatcher newDispatcher(SqlSubmitterConfig config) {
+        return new SqlTaskDispatcher(
+                new DummySqlConnectionPool(), pending::add, config, null, newLog(config)
+        );
+    }
+
+    private void runPending() {
+        pending.remove(0).run();
+    }
+
+    private static SqlTask<?, ?> newTask() {
+        return new SqlPreparedStatementTask<>(
+                QUERY, PreparedStatement::executeQuery, (r, t) -> {}
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SqlStatementCaptureTest {
+    @Test
+    void formatValueQuotesStringsAndAbbreviatesLargeValues() {
+        assertThat(SqlStatementCapture.formatValue(null), is("NULL"));
+        assertThat(SqlStatementCapture.formatValue(12), is("12"));
+        assertThat(SqlStatementCapture.formatValue("a"), is("'a'"));
+        assertThat(SqlStatementCapture.formatValue(new byte[3]), is("byte[3]"));
+        assertThat(
+                SqlStatementCapture.formatValue(new ByteArrayInputStream(new byte[0])),
+                is("<ByteArrayInputStream>")
+        );
+        String value = "x".repeat(SqlStatementCapture.MAXIMUM_VALUE_LENGTH + 1);
+        assertThat(
+                SqlStatementCapture.formatValue(value),
+                is("'" + "x".repeat(SqlStatementCapture.MAXIMUM_VALUE_LENGTH) + "...'")
+        );
+    }
+
+    @Test
+    void abbreviateCollapsesWhitespaceAndCutsOffLongSql() {
+        assertThat(SqlStatementCapture.abbreviate("  SELECT *\n\tFROM t  "), is("SELECT * FROM t"));
+        String sql = "x".repeat(SqlStatementCapture.MAXIMUM_SQL_LENGTH + 1);
+        assertThat(
+                SqlStatementCapture.abbreviate(sql),
+                is("x".repeat(SqlStatementCapture.MAXIMUM_SQL_LENGTH) + "...")
+        );
+    }
+
+    @Test
+    void wrappedConnectionCapturesPreparedStatements() throws SQLException {
+        SqlStatementCapture capture = new SqlStatementCapture();
+        Connection connection = capture.wrap(new DummyConnection());
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO t VALUES (?, ?)")) {
+            statement.setString(1, "a");
+            statement.setNull(2, Types.INTEGER);
+            statement.executeUpdate();
+            statement.clearParameters();
+            statement.setString(1, "b");
+        }
+        assertThat(capture.describe(), is(List.of(
+                "INSERT INTO t VALUES (?, ?) parameters: {1='b'}"
+        )));
+    }
+
+    @Test
+    void wrappedConnectionCapturesSqlOfPlainStatements() throws SQLException {
+        SqlStatementCapture capture = new SqlStatementCapture();
+        Connection connection = capture.wrap(new DummyConnection());
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM t");
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.addBatch("DELETE FROM u");
+            statement.addBatch("DELETE FROM v");
+        }
+        assertThat(capture.describe(), is(Arrays.asList(
+                "DELETE FROM t",
+                "DELETE FROM v batch size: 2"
+        )));
+    }
+
+    @Test
+    void describeOmitsStatementsAfterMaximum() throws SQLException {
+        SqlStatementCapture capture = new SqlStatementCapture();
+        Connection connection = capture.wrap(new DummyConnection());
+        for (int i = 0; i < SqlStatementCapture.MAXIMUM_STATEMENTS + 2; i++) {
+            connection.prepareStatement("SELECT " + i).close();
+        }
+        List<String> lines = capture.describe();
+        assertThat(lines.size(), is(SqlStatementCapture.MAXIMUM_STATEMENTS + 1));
+        assertThat(lines.get(lines.size() - 1), is("2 more statements"));
+    }
+}
@@ -0,0 +1,49 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlStreamOptionsTest {
+    @Test
+    void defaultOptionsUseDialectFetchSize() {
+        assertThat(SqlStreamOptions.DEFAULT.getChunkSize(), is(500));
+        assertThat(SqlStreamOptions.DEFAULT.getFetchSize(), is(0));
+        assertThat(SqlStreamOptions.DEFAULT.isSynchronousDelivery(), is(false));
+        assertThat(SqlStreamOptions.DEFAULT.getTaskOptions(), is(SqlTaskOptions.DEFAULT));
+    }
+
+    @Test
+    void setChunkSizeRequiresPositiveChunkSize() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlStreamOptions.builder().setChunkSize(0)
+        );
+    }
+
+    @Test
+    void setFetchSizeRequiresNonNegativeFetchSize() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlStreamOptions.builder().setFetchSize(-1)
+        );
+    }
+
+    @Test
+    void setMaximumPendingChunksRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlStreamOptions.builder().setMaximumPendingChunks(0)
+        );
+    }
+
+    @Test
+    void setTaskOptionsRequiresNonNullOptions() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SqlStreamOptions.builder().setTaskOptions(null)
+        );
+    }
+}
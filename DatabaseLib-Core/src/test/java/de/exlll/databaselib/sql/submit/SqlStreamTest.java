@@ -0,0 +1,190 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlStreamTest {
+    private final DummyConnection connection = new DummyConnection();
+    private final List<List<Integer>> chunks = new ArrayList<>();
+    private ExecutorService syncExecutor;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            rows.add(new Object[]{i});
+        }
+        connection.setResultRows(rows);
+        syncExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncExecutor.shutdownNow();
+    }
+
+    @Test
+    void executeDeliversRowsInChunks() throws SQLException {
+        SqlStream<Integer> stream = newStream(options().setChunkSize(2), this::collect);
+
+        long rowCount = stream.execute(prepareStatement());
+
+        assertThat(rowCount, is(5L));
+        assertThat(chunks.size(), is(3));
+        assertThat(chunks.get(0), is(List.of(1, 2)));
+        assertThat(chunks.get(1), is(List.of(3, 4)));
+        assertThat(chunks.get(2), is(List.of(5)));
+    }
+
+    @Test
+    void executeAppliesBinder() throws SQLException {
+        SqlStream<Integer> stream = new SqlStream<Integer>(
+                statement -> statement.setInt(1, 10),
+                resultSet -> resultSet.getInt(1),
+                this::collect,
+                SqlStreamOptions.DEFAULT
+        );
+        stream.execute(prepareStatement());
+
+        Object parameter = connection.getLastPreparedStatement()
+                .getExecutedParameters().get(0).get(1);
+        assertThat(parameter, is(10));
+    }
+
+    @Test
+    void executeUsesMinValueFetchSizeForMysql() throws SQLException {
+        connection.setDatabaseProductName("MySQL");
+        PreparedStatement statement = prepareStatement();
+        newStream(options(), this::collect).execute(statement);
+        assertThat(statement.getFetchSize(), is(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void executeUsesChunkSizeAsFetchSizeForOtherDatabases() throws SQLException {
+        PreparedStatement statement = prepareStatement();
+        newStream(options().setChunkSize(2), this::collect).execute(statement);
+        assertThat(statement.getFetchSize(), is(2));
+    }
+
+    @Test
+    void executeUsesConfiguredFetchSize() throws SQLException {
+        connection.setDatabaseProductName("MySQL");
+        PreparedStatement statement = prepareStatement();
+        newStream(options().setFetchSize(100), this::collect).execute(statement);
+        assertThat(statement.getFetchSize(), is(100));
+    }
+
+    @Test
+    void executeDisablesAutoCommitForPostgresql() throws SQLException {
+        connection.setDatabaseProductName("PostgreSQL");
+        List<Boolean> autoCommits = new ArrayList<>();
+        SqlStream<Integer> stream = newStream(options(), chunk -> {
+            autoCommits.add(connection.getAutoCommit());
+            return true;
+        });
+        stream.execute(prepareStatement());
+
+        assertThat(autoCommits.get(0), is(false));
+        assertThat(connection.getAutoCommit(), is(true));
+    }
+
+    @Test
+    void executeStopsReadingIfConsumerReturnsFalse() throws SQLException {
+        connection.setDatabaseProductName("MySQL");
+        SqlStream<Integer> stream = newStream(options().setChunkSize(2), chunk -> {
+            collect(chunk);
+            return false;
+        });
+        long rowCount = stream.execute(prepareStatement());
+
+        assertThat(rowCount, is(2L));
+        assertThat(chunks.size(), is(1));
+        assertThat(connection.getLastResultSet().getReadCount(), is(2));
+        assertThat(connection.getLastResultSet().isClosed(), is(true));
+        assertThat(connection.getLastPreparedStatement().isCancelled(), is(true));
+    }
+
+    @Test
+    void executeDeliversChunksToSyncExecutor() throws SQLException {
+        List<Thread> threads = new ArrayList<>();
+        SqlStream<Integer> stream = newStream(
+                options().setChunkSize(1)
+                        .setSynchronousDelivery(true)
+                        .setMaximumPendingChunks(1),
+                chunk -> {
+                    threads.add(Thread.currentThread());
+                    return collect(chunk);
+                }
+        );
+        deliverToSyncExecutor(stream);
+
+        long rowCount = stream.execute(prepareStatement());
+
+        assertThat(rowCount, is(5L));
+        assertThat(chunks.size(), is(5));
+        assertThat(threads.size(), is(5));
+        assertThat(threads.get(0), is(not(Thread.currentThread())));
+    }
+
+    @Test
+    void executeRethrowsExceptionsOfSynchronousConsumer() {
+        RuntimeException test = new RuntimeException("TEST");
+        SqlStream<Integer> stream = newStream(
+                options().setChunkSize(1).setSynchronousDelivery(true),
+                chunk -> {
+                    throw test;
+                }
+        );
+        deliverToSyncExecutor(stream);
+
+        RuntimeException exception = assertThrows(
+                RuntimeException.class,
+                () -> stream.execute(prepareStatement())
+        );
+        assertThat(exception, sameInstance(test));
+    }
+
+    private void deliverToSyncExecutor(SqlStream<Integer> stream) {
+        stream.setSyncDelivery((chunk, throwable) ->
+                syncExecutor.execute(() -> stream.consumePending(chunk))
+        );
+    }
+
+    private boolean collect(List<? extends Integer> chunk) {
+        chunks.add(new ArrayList<>(chunk));
+        return true;
+    }
+
+    private PreparedStatement prepareStatement() {
+        return connection.prepareStatement("SELECT id FROM t");
+    }
+
+    private static SqlStreamOptions.Builder options() {
+        return SqlStreamOptions.builder();
+    }
+
+    private static SqlStream<Integer> newStream(
+            SqlStreamOptions.Builder options,
+            SqlChunkConsumer<Integer> consumer
+    ) {
+        return new SqlStream<>(
+                statement -> {},
+                resultSet -> resultSet.getInt(1),
+                consumer,
+                options.build()
+        );
+    }
+}
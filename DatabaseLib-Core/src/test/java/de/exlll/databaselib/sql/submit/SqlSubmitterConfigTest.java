@@ -0,0 +1,166 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlSubmitterConfigTest {
+    private SqlSubmitterConfig.Builder builder;
+
+    @BeforeEach
+    void setUp() {
+        builder = SqlSubmitterConfig.builder();
+    }
+
+    @Test
+    void setQueueCapacityRequiresPositiveCapacity() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setQueueCapacity(0)
+        );
+        builder.setQueueCapacity(1);
+    }
+
+    @Test
+    void setOverflowPolicyRequiresNonNullPolicy() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setOverflowPolicy(null)
+        );
+    }
+
+    @Test
+    void setMaximumConcurrencyRequiresNonNegativeConcurrency() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setMaximumConcurrency(-1)
+        );
+        builder.setMaximumConcurrency(0).setMaximumConcurrency(10);
+    }
+
+    @Test
+    void setMaximumBatchSizeRequiresPositiveSize() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setMaximumBatchSize(0)
+        );
+        builder.setMaximumBatchSize(1);
+    }
+
+    @Test
+    void setBatchDelayRequiresNonNegativeDelay() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setBatchDelay(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setBatchDelay(Duration.ofMillis(-1))
+        );
+        builder.setBatchDelay(Duration.ZERO);
+    }
+
+    @Test
+    void setCallbackTimeBudgetRequiresNonNegativeBudget() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setCallbackTimeBudget(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setCallbackTimeBudget(Duration.ofMillis(-1))
+        );
+        builder.setCallbackTimeBudget(Duration.ZERO);
+    }
+
+    @Test
+    void setTaskTimeoutRequiresNonNegativeTimeout() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setTaskTimeout(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setTaskTimeout(Duration.ofMillis(-1))
+        );
+        builder.setTaskTimeout(Duration.ZERO);
+    }
+
+    @Test
+    void setStarvationThresholdRequiresNonNegativeThreshold() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setStarvationThreshold(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setStarvationThreshold(Duration.ofMillis(-1))
+        );
+        builder.setStarvationThreshold(Duration.ZERO);
+    }
+
+    @Test
+    void setMaximumTrackedQueriesRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setMaximumTrackedQueries(0)
+        );
+        builder.setMaximumTrackedQueries(1);
+    }
+
+    @Test
+    void setLatencyStatisticsIntervalRequiresNonNegativeInterval() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setLatencyStatisticsInterval(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setLatencyStatisticsInterval(Duration.ofSeconds(-1))
+        );
+        builder.setLatencyStatisticsInterval(Duration.ZERO);
+    }
+
+    @Test
+    void setSlowTaskThresholdRequiresNonNegativeThreshold() {
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setSlowTaskThreshold(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setSlowTaskThreshold(Duration.ofMillis(-1))
+        );
+        builder.setSlowTaskThreshold(Duration.ZERO);
+    }
+
+    @Test
+    void setSlowTaskSampleRateRequiresRateBetweenZeroAndOne() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setSlowTaskSampleRate(-0.1)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setSlowTaskSampleRate(1.1)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setSlowTaskSampleRate(Double.NaN)
+        );
+        builder.setSlowTaskSampleRate(0.0);
+        builder.setSlowTaskSampleRate(1.0);
+    }
+
+    @Test
+    void setMaximumSlowTaskLogsPerMinuteRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setMaximumSlowTaskLogsPerMinute(0)
+        );
+        builder.setMaximumSlowTaskLogsPerMinute(1);
+    }
+}
@@ -0,0 +1,407 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection.DummyStatement;
+import de.exlll.databaselib.sql.DummySqlConnectionPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+class SqlTaskDispatcherTest {
+    private final List<Runnable> pending = new ArrayList<>();
+    private DummySqlConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new DummySqlConnectionPool();
+    }
+
+    @Test
+    void dispatchRunsAtMostMaximumConcurrencyTasks() {
+        SqlTaskDispatcher dispatcher = newDispatcher(
+                SqlSubmitterConfig.builder().setMaximumConcurrency(2).build()
+        );
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(newTask(new AtomicInteger()));
+        }
+        assertThat(pending.size(), is(2));
+        assertThat(dispatcher.getRunningTaskCount(), is(2));
+        assertThat(dispatcher.getQueuedTaskCount(), is(3));
+        assertThat(pool.getConnectionCallCount(), is(0));
+    }
+
+    @Test
+    void dispatchersOfSamePoolShareItsConnections() {
+        DummySqlConnectionPool sharedPool = new DummySqlConnectionPool() {
+            @Override
+            public int getMaximumPoolSize() {
+                return 2;
+            }
+        };
+        SqlSubmitterConfig config = SqlSubmitterConfig.DEFAULT;
+        SqlTaskDispatcher first = new SqlTaskDispatcher(sharedPool, pending::add, config);
+        SqlTaskDispatcher second = new SqlTaskDispatcher(sharedPool, pending::add, config);
+        AtomicInteger integer = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            first.dispatch(newTask(integer));
+            second.dispatch(newTask(integer));
+        }
+        assertThat(pending.size(), is(2));
+        while (!pending.isEmpty()) {
+            runPending();
+            int running = first.getRunningTaskCount() + second.getRunningTaskCount();
+            assertThat(running <= 2, is(true));
+            assertThat(pending.size() <= 2, is(true));
+        }
+        assertThat(integer.get(), is(6));
+        assertThat(first.getQueuedTaskCount() + second.getQueuedTaskCount(), is(0));
+    }
+
+    @Test
+    void finishedTasksDispatchQueuedTasks() {
+        SqlTaskDispatcher dispatcher = newDispatcher(
+                SqlSubmitterConfig.builder().setMaximumConcurrency(1).build()
+        );
+        AtomicInteger integer = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatch(newTask(integer));
+        }
+        runPending();
+        assertThat(integer.get(), is(1));
+        runPending();
+        runPending();
+        assertThat(integer.get(), is(3));
+        assertThat(pool.getConnectionCallCount(), is(3));
+        assertThat(dispatcher.getRunningTaskCount(), is(0));
+        assertThat(dispatcher.getQueuedTaskCount(), is(0));
+    }
+
+    @Test
+    void rejectPolicyRejectsNewTask() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setQueueCapacity(1)
+                .build()
+        );
+        List<Throwable> throwables = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t)));
+        assertThat(throwables.size(), is(1));
+        assertThat(throwables.get(0), instanceOf(RejectedExecutionException.class));
+        assertThat(dispatcher.getQueuedTaskCount(), is(1));
+    }
+
+    @Test
+    void discardOldestPolicyRejectsOldestTask() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setQueueCapacity(1)
+                .setOverflowPolicy(OverflowPolicy.DISCARD_OLDEST)
+                .build()
+        );
+        List<Throwable> throwables = new ArrayList<>();
+        AtomicInteger integer = new AtomicInteger();
+        dispatcher.dispatch(newTask(integer));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t)));
+        dispatcher.dispatch(newTask(integer));
+        assertThat(throwables.size(), is(1));
+        assertThat(throwables.get(0), instanceOf(RejectedExecutionException.class));
+        runPending();
+        runPending();
+        assertThat(integer.get(), is(2));
+    }
+
+    @Test
+    void executorFailuresAreReportedToCallback() {
+        RuntimeException exception = new RuntimeException();
+        SqlTaskDispatcher dispatcher = new SqlTaskDispatcher(
+                pool, command -> {throw exception;}, SqlSubmitterConfig.DEFAULT
+        );
+        List<Throwable> throwables = new ArrayList<>();
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t)));
+        assertThat(throwables.get(0), is(exception));
+        assertThat(dispatcher.getRunningTaskCount(), is(0));
+    }
+
+    @Test
+    void queuedTasksTimeOut() throws Exception {
+        SqlTaskDispatcher dispatcher = newDispatcher(
+                SqlSubmitterConfig.builder().setMaximumConcurrency(1).build()
+        );
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> future.complete(t))
+                .withOptions(newOptions(Duration.ofMillis(10))));
+
+        Object throwable = future.get(5, TimeUnit.SECONDS);
+        assertThat(throwable, instanceOf(SQLTimeoutException.class));
+        assertThat(dispatcher.getQueuedTaskCount(), is(0));
+        runPending();
+        assertThat(pending.size(), is(0));
+    }
+
+    @Test
+    void submitterTimeoutIsOverriddenByTaskTimeout() throws Exception {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setTaskTimeout(Duration.ofMillis(10))
+                .build()
+        );
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> future.complete(t))
+                .withOptions(newOptions(Duration.ZERO)));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> future.complete(t)));
+
+        Object throwable = future.get(5, TimeUnit.SECONDS);
+        assertThat(throwable, instanceOf(SQLTimeoutException.class));
+        assertThat(dispatcher.getQueuedTaskCount(), is(1));
+    }
+
+    @Test
+    void executingStatementsAreCancelledWhenTimedOut() {
+        SqlTaskDispatcher dispatcher = new SqlTaskDispatcher(
+                pool, Runnable::run, SqlSubmitterConfig.DEFAULT
+        );
+        List<Integer> queryTimeouts = new ArrayList<>();
+        List<Throwable> throwables = new ArrayList<>();
+        SqlTask<?, ?> task = new SqlStatementTask<>(statement -> {
+            DummyStatement dummy = (DummyStatement) statement;
+            queryTimeouts.add(dummy.getQueryTimeout());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!dummy.isCancelled() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            throw new SQLException("Statement cancelled.");
+        }, (o, t) -> throwables.add(t));
+        dispatcher.dispatch(task.withOptions(newOptions(Duration.ofMillis(10))));
+
+        assertThat(queryTimeouts.get(0), is(1));
+        assertThat(throwables.get(0), instanceOf(SQLTimeoutException.class));
+        assertThat(throwables.get(0).getCause(), instanceOf(SQLException.class));
+        assertThat(dispatcher.getRunningTaskCount(), is(0));
+    }
+
+    @Test
+    void tasksWithoutTimeoutDontSetQueryTimeout() {
+        SqlTaskDispatcher dispatcher = new SqlTaskDispatcher(
+                pool, Runnable::run, SqlSubmitterConfig.DEFAULT
+        );
+        List<Integer> queryTimeouts = new ArrayList<>();
+        dispatcher.dispatch(new SqlStatementTask<>(
+                statement -> queryTimeouts.add(statement.getQueryTimeout()),
+                (o, t) -> {}
+        ));
+        assertThat(queryTimeouts.get(0), is(0));
+    }
+
+    @Test
+    void higherPriorityTasksAreExecutedFirst() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setStarvationThreshold(Duration.ofHours(1))
+                .build()
+        );
+        List<SqlTaskPriority> executed = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.BACKGROUND));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.INTERACTIVE));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.CRITICAL));
+        for (int i = 0; i < 4; i++) {
+            runPending();
+        }
+        assertThat(executed, contains(
+                SqlTaskPriority.CRITICAL,
+                SqlTaskPriority.INTERACTIVE,
+                SqlTaskPriority.BACKGROUND
+        ));
+    }
+
+    @Test
+    void starvingTasksAreExecutedBeforeHigherPriorityTasks() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setStarvationThreshold(Duration.ZERO)
+                .build()
+        );
+        List<SqlTaskPriority> executed = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.BACKGROUND));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.INTERACTIVE));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.CRITICAL));
+        for (int i = 0; i < 4; i++) {
+            runPending();
+        }
+        assertThat(executed, contains(
+                SqlTaskPriority.BACKGROUND,
+                SqlTaskPriority.INTERACTIVE,
+                SqlTaskPriority.CRITICAL
+        ));
+    }
+
+    @Test
+    void discardOldestPolicyRejectsTasksOfLowestPriority() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setQueueCapacity(2)
+                .setOverflowPolicy(OverflowPolicy.DISCARD_OLDEST)
+                .build()
+        );
+        List<Throwable> throwables = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> {})
+                .withOptions(newOptions(SqlTaskPriority.CRITICAL)));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t))
+                .withOptions(newOptions(SqlTaskPriority.BACKGROUND)));
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        assertThat(throwables.size(), is(1));
+        assertThat(throwables.get(0), instanceOf(RejectedExecutionException.class));
+        assertThat(dispatcher.getQueuedTaskCount(), is(2));
+    }
+
+    @Test
+    void discardOldestPolicyDoesNotDiscardTasksOfHigherPriority() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setQueueCapacity(2)
+                .setOverflowPolicy(OverflowPolicy.DISCARD_OLDEST)
+                .build()
+        );
+        List<Throwable> criticalThrowables = new ArrayList<>();
+        List<Throwable> throwables = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        for (int i = 0; i < 2; i++) {
+            dispatcher.dispatch(new SqlConnectionTask<>(
+                    c -> null, (o, t) -> criticalThrowables.add(t)
+            ).withOptions(newOptions(SqlTaskPriority.CRITICAL)));
+        }
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t))
+                .withOptions(newOptions(SqlTaskPriority.BACKGROUND)));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t))
+                .withOptions(newOptions(SqlTaskPriority.INTERACTIVE)));
+        assertThat(throwables.size(), is(2));
+        assertThat(throwables.get(0), instanceOf(RejectedExecutionException.class));
+        assertThat(throwables.get(1), instanceOf(RejectedExecutionException.class));
+        assertThat(dispatcher.getQueuedTaskCount(), is(2));
+        SqlTaskQueueStatistics critical = dispatcher
+                .getQueueStatistics(SqlTaskPriority.CRITICAL);
+        assertThat(critical.getQueuedTaskCount(), is(2));
+        for (int i = 0; i < 3; i++) {
+            runPending();
+        }
+        assertThat(criticalThrowables, is(Arrays.asList(null, null)));
+    }
+
+    @Test
+    void queueStatisticsArePerPriority() {
+        SqlTaskDispatcher dispatcher = newDispatcher(
+                SqlSubmitterConfig.builder().setMaximumConcurrency(1).build()
+        );
+        List<SqlTaskPriority> executed = new ArrayList<>();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.BACKGROUND));
+        dispatcher.dispatch(newTask(executed, SqlTaskPriority.BACKGROUND));
+
+        SqlTaskQueueStatistics background = dispatcher
+                .getQueueStatistics(SqlTaskPriority.BACKGROUND);
+        assertThat(background.getPriority(), is(SqlTaskPriority.BACKGROUND));
+        assertThat(background.getQueuedTaskCount(), is(2));
+        assertThat(background.getDequeuedTaskCount(), is(0L));
+        assertThat(background.getAverageWaitTime(), is(Duration.ZERO));
+
+        runPending();
+        background = dispatcher.getQueueStatistics(SqlTaskPriority.BACKGROUND);
+        assertThat(background.getQueuedTaskCount(), is(1));
+        assertThat(background.getDequeuedTaskCount(), is(1L));
+        assertThat(background.getMaximumWaitTime(), is(background.getTotalWaitTime()));
+
+        SqlTaskQueueStatistics interactive = dispatcher
+                .getQueueStatistics(SqlTaskPriority.INTERACTIVE);
+        assertThat(interactive.getQueuedTaskCount(), is(0));
+        assertThat(interactive.getDequeuedTaskCount(), is(1L));
+    }
+
+    @Test
+    void tasksWithSamePartitionKeyAreExecutedInOrder() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.DEFAULT);
+        List<String> executed = new ArrayList<>();
+        SqlTaskOptions key1 = SqlTaskOptions.builder().setPartitionKey("key1").build();
+        SqlTaskOptions key2 = SqlTaskOptions.builder().setPartitionKey("key2").build();
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> executed.add("a1"), (o, t) -> {})
+                .withOptions(key1));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> executed.add("a2"), (o, t) -> {})
+                .withOptions(key1));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> executed.add("b1"), (o, t) -> {})
+                .withOptions(key2));
+        assertThat(pending.size(), is(2));
+
+        runPending();
+        runPending();
+        assertThat(executed, contains("a1", "b1"));
+        assertThat(pending.size(), is(1));
+        runPending();
+        assertThat(executed, contains("a1", "b1", "a2"));
+    }
+
+    @Test
+    void failedTasksReleaseTheirPartition() {
+        SqlTaskDispatcher dispatcher = newDispatcher(SqlSubmitterConfig.builder()
+                .setMaximumConcurrency(1)
+                .setQueueCapacity(1)
+                .build()
+        );
+        List<Throwable> throwables = new ArrayList<>();
+        SqlTaskOptions key = SqlTaskOptions.builder().setPartitionKey("key").build();
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(newTask(new AtomicInteger()));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t))
+                .withOptions(key));
+        dispatcher.dispatch(new SqlConnectionTask<>(c -> null, (o, t) -> throwables.add(t))
+                .withOptions(key));
+        assertThat(throwables.size(), is(2));
+        assertThat(throwables.get(1), instanceOf(RejectedExecutionException.class));
+    }
+
+    private static SqlTask<?, ?> newTask(
+            List<SqlTaskPriority> executed,
+            SqlTaskPriority priority
+    ) {
+        return new SqlConnectionTask<>(c -> executed.add(priority), (o, t) -> {})
+                .withOptions(newOptions(priority));
+    }
+
+    private static SqlTaskOptions newOptions(SqlTaskPriority priority) {
+        return SqlTaskOptions.builder().setPriority(priority).build();
+    }
+
+    private static SqlTaskOptions newOptions(Duration timeout) {
+        return SqlTaskOptions.builder().setTimeout(timeout).build();
+    }
+
+    private SqlTaskDispatcher newDispatcher(SqlSubmitterConfig config) {
+        return new SqlTaskDispatcher(pool, pending::add, config);
+    }
+
+    private void runPending() {
+        pending.remove(0).run();
+    }
+
+    private static SqlTask<?, ?> newTask(AtomicInteger integer) {
+        return new SqlConnectionTask<>(c -> integer.incrementAndGet(), (o, t) -> {});
+    }
+}
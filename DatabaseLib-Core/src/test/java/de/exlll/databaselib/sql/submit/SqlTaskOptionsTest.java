@@ -0,0 +1,82 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlTaskOptionsTest {
+    @Test
+    void defaultOptionsHaveNoTimeout() {
+        assertThat(SqlTaskOptions.DEFAULT.getTimeout(), is(Optional.empty()));
+    }
+
+    @Test
+    void setTimeoutRequiresNonNegativeTimeout() {
+        SqlTaskOptions.Builder builder = SqlTaskOptions.builder();
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setTimeout(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setTimeout(Duration.ofMillis(-1))
+        );
+        SqlTaskOptions options = builder.setTimeout(Duration.ZERO).build();
+        assertThat(options.getTimeout(), is(Optional.of(Duration.ZERO)));
+    }
+
+    @Test
+    void setSlowTaskThresholdRequiresNonNegativeThreshold() {
+        SqlTaskOptions.Builder builder = SqlTaskOptions.builder();
+        assertThrows(
+                NullPointerException.class,
+                () -> builder.setSlowTaskThreshold(null)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setSlowTaskThreshold(Duration.ofMillis(-1))
+        );
+        SqlTaskOptions options = builder.setSlowTaskThreshold(Duration.ZERO).build();
+        assertThat(options.getSlowTaskThreshold(), is(Optional.of(Duration.ZERO)));
+        assertThat(SqlTaskOptions.DEFAULT.getSlowTaskThreshold(), is(Optional.empty()));
+    }
+
+    @Test
+    void defaultPriorityIsInteractive() {
+        assertThat(SqlTaskOptions.DEFAULT.getPriority(), is(SqlTaskPriority.INTERACTIVE));
+    }
+
+    @Test
+    void setPriorityRequiresNonNullPriority() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SqlTaskOptions.builder().setPriority(null)
+        );
+    }
+
+    @Test
+    void setPartitionKeyRequiresNonNullKey() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SqlTaskOptions.builder().setPartitionKey(null)
+        );
+        SqlTaskOptions options = SqlTaskOptions.builder().setPartitionKey("key").build();
+        assertThat(options.getPartitionKey(), is(Optional.of("key")));
+        assertThat(SqlTaskOptions.DEFAULT.getPartitionKey(), is(Optional.empty()));
+    }
+
+    @Test
+    void setSingleFlightKeyRequiresNonNullKey() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SqlTaskOptions.builder().setSingleFlightKey(null)
+        );
+        SqlTaskOptions options = SqlTaskOptions.builder().setSingleFlightKey("key").build();
+        assertThat(options.getSingleFlightKey(), is(Optional.of("key")));
+    }
+}
@@ -0,0 +1,134 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+class SqlTaskSequencerTest {
+    private final List<SqlTask<?, ?>> dispatched = new ArrayList<>();
+    private final SqlTaskSequencer sequencer = new SqlTaskSequencer(dispatched::add);
+
+    @Test
+    void tasksWithSameKeyAreDispatchedOneAfterAnother() {
+        SqlTask<?, ?> task1 = newTask();
+        SqlTask<?, ?> task2 = newTask();
+        SqlTask<?, ?> task3 = newTask();
+        sequencer.submit("key", task1);
+        sequencer.submit("key", task2);
+        sequencer.submit("key", task3);
+        assertThat(dispatched, contains(task1));
+
+        task1.completed();
+        assertThat(dispatched, contains(task1, task2));
+        task2.completed();
+        assertThat(dispatched, contains(task1, task2, task3));
+    }
+
+    @Test
+    void tasksWithDifferentKeysAreDispatchedImmediately() {
+        SqlTask<?, ?> task1 = newTask();
+        SqlTask<?, ?> task2 = newTask();
+        sequencer.submit("key1", task1);
+        sequencer.submit("key2", task2);
+        assertThat(dispatched, contains(task1, task2));
+        assertThat(sequencer.getPartitionCount(), is(2));
+    }
+
+    @Test
+    void idleKeysAreRemoved() {
+        SqlTask<?, ?> task1 = newTask();
+        SqlTask<?, ?> task2 = newTask();
+        sequencer.submit("key", task1);
+        sequencer.submit("key", task2);
+        task1.completed();
+        assertThat(sequencer.getPartitionCount(), is(1));
+        task2.completed();
+        assertThat(sequencer.getPartitionCount(), is(0));
+
+        SqlTask<?, ?> task3 = newTask();
+        sequencer.submit("key", task3);
+        assertThat(dispatched, contains(task1, task2, task3));
+    }
+
+    @Test
+    void synchronouslyFailedTasksDontOverflowTheStack() {
+        int taskCount = 100_000;
+        SqlTask<?, ?> first = newTask();
+        List<SqlTask<?, ?>> failed = new ArrayList<>();
+        SqlTaskSequencer sequencer = new SqlTaskSequencer(task -> {
+            if (task != first) {
+                failed.add(task);
+                task.completed();
+            }
+        });
+        sequencer.submit("key", first);
+        for (int i = 0; i < taskCount; i++) {
+            sequencer.submit("key", newTask());
+        }
+        first.completed();
+        assertThat(failed.size(), is(taskCount));
+        assertThat(sequencer.getPartitionCount(), is(0));
+    }
+
+    @Test
+    void tasksWithSameKeyNeverRunConcurrently() throws Exception {
+        int keys = 4;
+        int tasksPerKey = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Map<Object, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<Object, List<Integer>> executed = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+        SqlTaskSequencer sequencer = new SqlTaskSequencer(task -> executor.execute(() -> {
+            task.execute(null);
+            task.completed();
+        }));
+        try {
+            for (int k = 0; k < keys; k++) {
+                Integer key = k;
+                running.put(key, new AtomicInteger());
+                executed.put(key, new ArrayList<>());
+            }
+            for (int i = 0; i < tasksPerKey; i++) {
+                for (int k = 0; k < keys; k++) {
+                    Integer key = k;
+                    int index = i;
+                    sequencer.submit(key, new SqlConnectionTask<>(connection -> {
+                        if (running.get(key).incrementAndGet() != 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        executed.get(key).add(index);
+                        running.get(key).decrementAndGet();
+                        return null;
+                    }, (o, t) -> done.countDown()));
+                }
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(overlaps.get(), is(0));
+        for (List<Integer> indexes : executed.values()) {
+            assertThat(indexes.size(), is(tasksPerKey));
+            for (int i = 0; i < tasksPerKey; i++) {
+                assertThat(indexes.get(i), is(i));
+            }
+        }
+    }
+
+    private static SqlTask<?, ?> newTask() {
+        return new SqlConnectionTask<>(connection -> null, (o, t) -> {});
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
@@ -113,6 +116,28 @@ class SqlTaskSubmitterTest {
         assertGotIncremented();
     }
 
+    @Test
+    void submitSqlBatchTaskSubmitsTask() {
+        submitter.submitSqlBatchTask(
+                "", preparedStatement -> {}, (count, throwable) -> {}
+        );
+        assertGotIncremented();
+    }
+
+    @Test
+    void submitSqlBatchTaskCompletesCompletableFuture() {
+        addStages(submitter.submitSqlBatchTask("", statement -> callCounter.addAndGet(1)));
+        assertThat(callCounter.get(), is(3));
+    }
+
+    @Test
+    void submitSqlBatchTaskCompletesCompletableFutureExceptionally() {
+        addStages(submitter.submitSqlBatchTask("", statement -> {
+            throw new RuntimeException();
+        }));
+        assertThat(callCounter.get(), is(4));
+    }
+
     @Test
     void submitMethodsWrapCallback() {
         TestSubmitter submitter = new TestSubmitter();
@@ -224,6 +249,197 @@ class SqlTaskSubmitterTest {
         assertThat(callCounter.get(), is(4));
     }
 
+    @Test
+    void submitSqlTransactionTaskSubmitsTask() {
+        submitter.submitSqlTransactionTask(
+                connection -> "", (s, throwable) -> {}
+        );
+        assertGotIncremented();
+        assertThat(submitter.connection.getCommitCount(), is(1));
+    }
+
+    @Test
+    void submitSqlTransactionTaskSubmitsTask2() {
+        submitter.submitSqlTransactionTask(
+                connection -> {}, (throwable) -> {}
+        );
+        assertGotIncremented();
+    }
+
+    @Test
+    void submitSqlTransactionTaskCompletesCompletableFuture() {
+        addStages(submitter.submitSqlTransactionTask(connection -> callCounter.addAndGet(1)));
+        assertThat(callCounter.get(), is(3));
+    }
+
+    @Test
+    void submitSqlTransactionTaskCompletesCompletableFutureExceptionally() {
+        addStages(submitter.submitSqlTransactionTask(connection -> {
+            throw new RuntimeException();
+        }));
+        assertThat(callCounter.get(), is(4));
+        assertThat(submitter.connection.getRollbackCount(), is(1));
+    }
+
+    @Test
+    void submitSqlStreamingTaskCompletesWithRowCount() throws Exception {
+        submitter.connection.setResultRows(List.of(new Object[]{1}, new Object[]{2}));
+        List<Object> rows = new ArrayList<>();
+        CompletionStage<Long> stage = submitter.submitSqlStreamingTask(
+                "SELECT id FROM t",
+                statement -> {},
+                resultSet -> resultSet.getInt(1),
+                rows::addAll
+        );
+        assertThat(stage.toCompletableFuture().get(), is(2L));
+        assertThat(rows, is(List.of(1, 2)));
+    }
+
+    @Test
+    void submitSqlStreamingTaskDeliversChunksThroughWrappedCallback() {
+        submitter.connection.setResultRows(List.of(new Object[]{1}, new Object[]{2}));
+        SqlStreamOptions options = SqlStreamOptions.builder()
+                .setChunkSize(1)
+                .setSynchronousDelivery(true)
+                .build();
+        submitter.submitSqlStreamingTask(
+                "SELECT id FROM t",
+                statement -> {},
+                resultSet -> resultSet.getInt(1),
+                chunk -> true,
+                (count, throwable) -> {},
+                options
+        );
+        assertThat(submitter.getInteger(), is(3));
+    }
+
+    @Test
+    void submitCachedSqlPreparedStatementTaskCachesResults() {
+        SqlResultCache cache = SqlResultCache.builder().build();
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            submitter.submitCachedSqlPreparedStatementTask(
+                    cache, "SELECT 1",
+                    statement -> statement.setInt(1, 1),
+                    statement -> callCounter.incrementAndGet(),
+                    (result, throwable) -> results.add(result)
+            );
+        }
+        submitter.submitCachedSqlPreparedStatementTask(
+                cache, "SELECT 1",
+                statement -> statement.setInt(1, 2),
+                statement -> callCounter.incrementAndGet(),
+                (result, throwable) -> results.add(result)
+        );
+        assertThat(results, is(Arrays.asList(1, 1, 2)));
+        assertThat(callCounter.get(), is(2));
+        assertThat(submitter.connection.getLastPreparedStatement().getSql(), is("SELECT 1"));
+    }
+
+    @Test
+    void submitCachedSqlPreparedStatementTaskReportsBinderFailures() {
+        SqlResultCache cache = SqlResultCache.builder().build();
+        List<Throwable> throwables = new ArrayList<>();
+        submitter.submitCachedSqlPreparedStatementTask(
+                cache, "SELECT 1",
+                PreparedStatement::execute,
+                statement -> null,
+                (result, throwable) -> throwables.add(throwable)
+        );
+        assertThat(throwables.get(0), instanceOf(UnsupportedOperationException.class));
+    }
+
+    @Test
+    void submitCachedSqlConnectionTaskCachesResults() {
+        SqlResultCache cache = SqlResultCache.builder().build();
+        addStages(submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ));
+        addStages(submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ));
+        assertThat(callCounter.get(), is(5));
+        cache.invalidateTag("users");
+        addStages(submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ));
+        assertThat(callCounter.get(), is(8));
+    }
+
+    @Test
+    void tasksWithSameSingleFlightKeyShareExecution() {
+        DeferringSubmitter submitter = new DeferringSubmitter();
+        SqlTaskOptions options = SqlTaskOptions.builder().setSingleFlightKey("key").build();
+        List<Object> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            submitter.submitSqlPreparedStatementTask(
+                    "SELECT 1", statement -> callCounter.incrementAndGet(),
+                    (result, throwable) -> results.add(result), options
+            );
+        }
+        addStages(submitter.submitSqlPreparedStatementTask(
+                "SELECT 1", statement -> callCounter.incrementAndGet(), options
+        ));
+        assertThat(submitter.tasks.size(), is(1));
+
+        submitter.tasks.get(0).execute(new DummyConnection());
+        assertThat(results, is(Arrays.asList(1, 1, 1)));
+        assertThat(callCounter.get(), is(3));
+    }
+
+    @Test
+    void streamingTasksIgnoreSingleFlightKey() {
+        DeferringSubmitter submitter = new DeferringSubmitter();
+        SqlStreamOptions options = SqlStreamOptions.builder()
+                .setTaskOptions(SqlTaskOptions.builder().setSingleFlightKey("key").build())
+                .build();
+        for (int i = 0; i < 2; i++) {
+            submitter.submitSqlStreamingTask(
+                    "SELECT 1", statement -> {}, resultSet -> 1, chunk -> true, options
+            );
+        }
+        assertThat(submitter.tasks.size(), is(2));
+    }
+
+    @Test
+    void cacheMissesShareExecution() {
+        DeferringSubmitter submitter = new DeferringSubmitter();
+        SqlResultCache cache = SqlResultCache.builder().build();
+        for (int i = 0; i < 2; i++) {
+            addStages(submitter.submitCachedSqlConnectionTask(
+                    cache, "key", connection -> callCounter.incrementAndGet()
+            ));
+        }
+        assertThat(submitter.tasks.size(), is(1));
+        submitter.tasks.get(0).execute(new DummyConnection());
+        assertThat(callCounter.get(), is(5));
+    }
+
+    @Test
+    void cacheMissesAfterInvalidationDontShareExecution() throws Exception {
+        DeferringSubmitter submitter = new DeferringSubmitter();
+        SqlResultCache cache = SqlResultCache.builder().build();
+        CompletableFuture<Integer> first = submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ).toCompletableFuture();
+        cache.invalidateTag("users");
+        CompletableFuture<Integer> second = submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ).toCompletableFuture();
+        assertThat(submitter.tasks.size(), is(2));
+
+        submitter.tasks.get(0).execute(new DummyConnection());
+        submitter.tasks.get(1).execute(new DummyConnection());
+        assertThat(first.get(), is(1));
+        assertThat(second.get(), is(2));
+
+        CompletableFuture<Integer> third = submitter.submitCachedSqlConnectionTask(
+                cache, "key", connection -> callCounter.incrementAndGet(), "users"
+        ).toCompletableFuture();
+        assertThat(submitter.tasks.size(), is(2));
+        assertThat(third.get(), is(2));
+    }
+
     private void addStages(CompletionStage<?> completableFuture) {
         completableFuture.thenApply(i -> callCounter.addAndGet(2))
                 .exceptionally(throwable -> callCounter.addAndGet(4));
@@ -369,6 +585,49 @@ class SqlTaskSubmitterTest {
         assertThat(exception.getCause(), sameInstance(test));
     }
 
+    @Test
+    void applyTransactionRequiresNonNullFunction() {
+        NullPointerException exception = assertThrows(
+                NullPointerException.class,
+                () -> submitter.applyTransaction(null)
+        );
+        assertThat(exception.getMessage(), is("The function must not be null."));
+    }
+
+    @Test
+    void applyTransactionCommitsTransaction() {
+        Connection connection = submitter.applyTransaction(c -> c);
+        assertThat(connection, sameInstance(submitter.connection));
+        assertThat(submitter.connection.getCommitCount(), is(1));
+        assertThat(submitter.getInteger(), is(20));
+    }
+
+    @Test
+    void applyTransactionRethrowsSqlExceptionsAsRuntimeExceptions() {
+        SQLException test = new SQLException();
+        CheckedSqlFunction<Connection, ?> function = connection -> { throw test; };
+        RuntimeException exception = assertThrows(
+                RuntimeException.class,
+                () -> submitter.applyTransaction(function)
+        );
+        assertThat(exception.getCause(), sameInstance(test));
+        assertThat(submitter.connection.getRollbackCount(), is(1));
+    }
+
+    private static final class DeferringSubmitter extends SqlTaskSubmitter {
+        private final List<SqlTask<?, ?>> tasks = new ArrayList<>();
+
+        @Override
+        void submit(SqlTask<?, ?> task) {
+            tasks.add(task);
+        }
+
+        @Override
+        protected Connection getConnection() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private static final class TestSubmitter extends SqlTaskSubmitter {
         private final AtomicInteger integer = new AtomicInteger();
         private final DummyConnection connection = spy(new DummyConnection());
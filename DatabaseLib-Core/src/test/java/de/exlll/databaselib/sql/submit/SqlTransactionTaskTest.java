@@ -0,0 +1,134 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SqlTransactionTaskTest {
+    private final DummyConnection connection = new DummyConnection();
+    private final List<Object> results = new ArrayList<>();
+    private final List<Throwable> throwables = new ArrayList<>();
+
+    @Test
+    void executeCommitsTransactionOnSuccess() {
+        execute(new SqlTransactionTask<>(connection -> {
+            assertThat(connection.getAutoCommit(), is(false));
+            return "Hello";
+        }, this::complete));
+        assertThat(results, contains("Hello"));
+        assertThat(throwables.get(0), nullValue());
+        assertThat(connection.getCommitCount(), is(1));
+        assertThat(connection.getRollbackCount(), is(0));
+        assertThat(connection.getAutoCommit(), is(true));
+    }
+
+    @Test
+    void executeRollsBackTransactionOnFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        SQLException exception = new SQLException("Hello", "23000");
+        execute(new SqlTransactionTask<>(connection -> {
+            attempts.incrementAndGet();
+            throw exception;
+        }, this::complete));
+        assertThat(throwables.get(0), sameInstance(exception));
+        assertThat(attempts.get(), is(1));
+        assertThat(connection.getCommitCount(), is(0));
+        assertThat(connection.getRollbackCount(), is(1));
+        assertThat(connection.getAutoCommit(), is(true));
+    }
+
+    @Test
+    void executeRetriesDeadlocksAndSerializationFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        execute(new SqlTransactionTask<>(connection -> {
+            switch (attempts.incrementAndGet()) {
+                case 1:
+                    throw new SQLException("Deadlock", "40P01");
+                case 2:
+                    throw new SQLException("Serialization failure", "40001");
+                default:
+                    return "Hello";
+            }
+        }, this::complete));
+        assertThat(results, contains("Hello"));
+        assertThat(attempts.get(), is(3));
+        assertThat(connection.getRollbackCount(), is(2));
+        assertThat(connection.getCommitCount(), is(1));
+    }
+
+    @Test
+    void executeStopsRetryingAfterMaximumRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+        SqlTask<?, ?> task = new SqlTransactionTask<>(connection -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Deadlock", "40001");
+        }, this::complete);
+        execute(task.withOptions(
+                SqlTaskOptions.builder().setMaximumTransactionRetries(1).build()
+        ));
+        assertThat(attempts.get(), is(2));
+        assertThat(throwables.get(0), instanceOf(SQLException.class));
+    }
+
+    @Test
+    void executeDoesntRetryTimedOutTasks() {
+        AtomicInteger attempts = new AtomicInteger();
+        SqlTask<?, ?> task = new SqlTransactionTask<>(connection -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Deadlock", "40001");
+        }, this::complete);
+        task.startDeadline(1);
+        execute(task);
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void executeSetsAndRestoresIsolationLevel() {
+        List<Integer> levels = new ArrayList<>();
+        SqlTask<?, ?> task = new SqlTransactionTask<>(
+                connection -> levels.add(connection.getTransactionIsolation()),
+                this::complete
+        );
+        execute(task.withOptions(SqlTaskOptions.builder()
+                .setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE)
+                .build()
+        ));
+        assertThat(levels, contains(Connection.TRANSACTION_SERIALIZABLE));
+        assertThat(
+                connection.getTransactionIsolation(),
+                is(Connection.TRANSACTION_READ_COMMITTED)
+        );
+    }
+
+    @Test
+    void isRetryableChecksCausesAndChainedExceptions() {
+        SQLException deadlock = new SQLException("Deadlock", "40001");
+        SQLException chained = new SQLException("Batch failed", "HY000");
+        chained.setNextException(deadlock);
+
+        assertThat(SqlTransactionTask.isRetryable(deadlock), is(true));
+        assertThat(SqlTransactionTask.isRetryable(chained), is(true));
+        assertThat(SqlTransactionTask.isRetryable(new RuntimeException(deadlock)), is(true));
+        assertThat(SqlTransactionTask.isRetryable(new SQLException("", "23000")), is(false));
+        assertThat(SqlTransactionTask.isRetryable(new SQLTimeoutException()), is(false));
+        assertThat(SqlTransactionTask.isRetryable(new RuntimeException()), is(false));
+    }
+
+    private void execute(SqlTask<?, ?> task) {
+        task.execute(connection);
+    }
+
+    private void complete(Object result, Throwable throwable) {
+        results.add(result);
+        throwables.add(throwable);
+    }
+}
@@ -0,0 +1,197 @@
+package de.exlll.databaselib.sql.submit;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlWriteBehindBufferTest {
+    private static final String QUERY = "UPDATE players SET coins = ? WHERE uuid = ?";
+    private static final SqlWriteBinder<String, Integer> binder = (statement, key, value) -> {
+        statement.setInt(1, value);
+        statement.setString(2, key);
+    };
+    private final RecordingSubmitter submitter = new RecordingSubmitter();
+    private final List<SqlWriteBehindBuffer<?, ?>> buffers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        buffers.forEach(buffer -> buffer.drain(Duration.ZERO));
+    }
+
+    @Test
+    void flushWritesLatestValuePerKey() throws Exception {
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(options());
+        buffer.put("a", 1);
+        buffer.put("a", 2);
+        buffer.put("b", 3);
+        assertThat(buffer.getPendingCount(), is(2));
+
+        int written = buffer.flush().toCompletableFuture().get();
+
+        assertThat(written, is(2));
+        assertThat(buffer.getPendingCount(), is(0));
+        assertThat(writtenValues(), is(Map.of("a", 2, "b", 3)));
+    }
+
+    @Test
+    void putFlushesWhenMaximumPendingEntriesIsReached() {
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(
+                options().setMaximumPendingEntries(2)
+        );
+        buffer.put("a", 1);
+        buffer.put("a", 2);
+        assertThat(submitter.connection.getLastPreparedStatement(), nullValue());
+
+        buffer.put("b", 3);
+        assertThat(writtenValues(), is(Map.of("a", 2, "b", 3)));
+    }
+
+    @Test
+    void flushExecutesEntriesInBatches() {
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(
+                options().setMaximumBatchSize(2)
+        );
+        buffer.put("a", 1);
+        buffer.put("b", 2);
+        buffer.put("c", 3);
+        buffer.flush();
+
+        DummyConnection.DummyPreparedStatement statement =
+                submitter.connection.getLastPreparedStatement();
+        assertThat(statement.getExecuteBatchCount(), is(2));
+        assertThat(statement.getExecutedParameters().size(), is(3));
+    }
+
+    @Test
+    void flushPeriodicallyWritesPendingEntries() throws InterruptedException {
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(
+                options().setFlushInterval(Duration.ofMillis(5))
+        );
+        buffer.put("a", 1);
+        for (int i = 0; i < 200 && buffer.getPendingCount() > 0; i++) {
+            Thread.sleep(5);
+        }
+        assertThat(buffer.getPendingCount(), is(0));
+    }
+
+    @Test
+    void failedWritesArePutBackUnlessNewerValueExists() {
+        submitter.deferTasks = true;
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(options());
+        buffer.put("a", 1);
+        buffer.put("b", 2);
+        CompletableFuture<Integer> flush = buffer.flush().toCompletableFuture();
+        buffer.put("a", 3);
+
+        SQLException exception = new SQLException("TEST");
+        submitter.tasks.get(0).callback.accept(null, exception);
+
+        assertThat(flush.isCompletedExceptionally(), is(true));
+        assertThat(buffer.getPendingCount(), is(2));
+        assertThat(buffer.drain(Duration.ZERO), is(true));
+        assertThat(writtenValues(), is(Map.of("a", 3, "b", 2)));
+    }
+
+    @Test
+    void failedWritesAreNotPutBackIfNewerValueIsBeingWritten() {
+        submitter.deferTasks = true;
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(options());
+        buffer.put("a", 1);
+        buffer.flush();
+        buffer.put("a", 2);
+        buffer.flush();
+
+        submitter.tasks.get(0).callback.accept(null, new SQLException("TEST"));
+        assertThat(buffer.getPendingCount(), is(0));
+
+        submitter.tasks.get(1).callback.accept(null, new SQLException("TEST"));
+        assertThat(buffer.getPendingCount(), is(1));
+        assertThat(buffer.drain(Duration.ZERO), is(true));
+        assertThat(writtenValues(), is(Map.of("a", 2)));
+    }
+
+    @Test
+    void drainWritesPendingEntriesInCallingThread() {
+        submitter.deferTasks = true;
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(options());
+        buffer.put("a", 1);
+
+        assertThat(buffer.drain(Duration.ofSeconds(1)), is(true));
+
+        assertThat(submitter.tasks.size(), is(0));
+        assertThat(writtenValues(), is(Map.of("a", 1)));
+        assertThrows(IllegalStateException.class, () -> buffer.put("b", 2));
+    }
+
+    @Test
+    void drainWritesEntriesOfWritesThatFailWhileItIsRunning() throws Exception {
+        submitter.deferTasks = true;
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(
+                options().setMaximumPendingEntries(Integer.MAX_VALUE)
+        );
+        buffer.put("a", 1);
+        buffer.flush();
+        CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(
+                () -> buffer.drain(Duration.ofSeconds(5))
+        );
+        Map<Object, Object> expected = new HashMap<>(Map.of("a", 1));
+        try {
+            for (int i = 0; ; i++) {
+                buffer.put("k" + i, i);
+                expected.put("k" + i, i);
+            }
+        } catch (IllegalStateException e) {
+            // the buffer is being drained
+        }
+        assertThrows(IllegalStateException.class, buffer::flush);
+
+        submitter.tasks.get(0).callback.accept(null, new SQLException("TEST"));
+
+        assertThat(drained.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(submitter.tasks.size(), is(1));
+        assertThat(writtenValues(), is(expected));
+        assertThat(buffer.getPendingCount(), is(0));
+    }
+
+    @Test
+    void drainReturnsFalseIfSubmittedWritesDontComplete() {
+        submitter.deferTasks = true;
+        SqlWriteBehindBuffer<String, Integer> buffer = newBuffer(options());
+        buffer.put("a", 1);
+        buffer.flush();
+
+        assertThat(buffer.drain(Duration.ofMillis(10)), is(false));
+    }
+
+    private SqlWriteBehindBuffer<String, Integer> newBuffer(
+            SqlWriteBehindOptions.Builder options
+    ) {
+        SqlWriteBehindBuffer<String, Integer> buffer =
+                submitter.createWriteBehindBuffer(QUERY, binder, options.build());
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private static SqlWriteBehindOptions.Builder options() {
+        return SqlWriteBehindOptions.builder().setFlushInterval(Duration.ofHours(1));
+    }
+
+    private Map<Object, Object> writtenValues() {
+        Map<Object, Object> values = new HashMap<>();
+        for (Map<Integer, Object> parameters : submitter.executedParameters()) {
+            values.put(parameters.get(2), parameters.get(1));
+        }
+        return values;
+    }
+}
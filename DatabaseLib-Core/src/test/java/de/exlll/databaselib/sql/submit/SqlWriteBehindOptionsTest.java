@@ -0,0 +1,42 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlWriteBehindOptionsTest {
+    @Test
+    void defaultPriorityIsBackground() {
+        assertThat(SqlWriteBehindOptions.DEFAULT.getPriority(), is(SqlTaskPriority.BACKGROUND));
+    }
+
+    @Test
+    void setFlushIntervalRequiresPositiveInterval() {
+        SqlWriteBehindOptions.Builder builder = SqlWriteBehindOptions.builder();
+        assertThrows(NullPointerException.class, () -> builder.setFlushInterval(null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> builder.setFlushInterval(Duration.ZERO)
+        );
+    }
+
+    @Test
+    void setMaximumPendingEntriesRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlWriteBehindOptions.builder().setMaximumPendingEntries(0)
+        );
+    }
+
+    @Test
+    void setMaximumBatchSizeRequiresPositiveNumber() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlWriteBehindOptions.builder().setMaximumBatchSize(0)
+        );
+    }
+}
@@ -0,0 +1,39 @@
+package de.exlll.databaselib.sql.submit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class VirtualThreadsTest {
+    @Test
+    void executorOrReturnsPlatformExecutorIfUnsupported() {
+        Executor platformExecutor = Runnable::run;
+        Executor executor = VirtualThreads.executorOr(platformExecutor);
+        if (VirtualThreads.isSupported()) {
+            assertThat(executor, not(sameInstance(platformExecutor)));
+        } else {
+            assertThat(executor, sameInstance(platformExecutor));
+        }
+    }
+
+    @Test
+    void executorOrRunsCommands() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        Executor executor = VirtualThreads.executorOr(Runnable::run);
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            latch.countDown();
+        });
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        if (VirtualThreads.isSupported()) {
+            assertThat(threadName.get(), startsWith("DatabaseLib-Worker-"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.exlll.databaselib.sql.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedScriptSourceTest {
+    private Path path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = Files.createTempFile("script", ".sql");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void readsAllQueries() throws IOException {
+        Files.write(path, QueryReaderTest.SQL_INPUT.getBytes(StandardCharsets.UTF_8));
+        assertThat(readQueries(MappedScriptSource.DEFAULT_WINDOW_SIZE, 8192),
+                is(QueryReaderTest.QUERIES));
+    }
+
+    @Test
+    void charactersSplitBetweenWindowsAreDecoded() throws IOException {
+        // two, three and four byte characters
+        String script = "SELECT '\u00e4\u00f6';SELECT '\u20ac\ud83d\ude00';";
+        Files.write(path, script.getBytes(StandardCharsets.UTF_8));
+        List<String> expected = Arrays.asList(
+                "SELECT '\u00e4\u00f6'", "SELECT '\u20ac\ud83d\ude00'"
+        );
+        for (int windowSize = 1; windowSize <= 8; windowSize++) {
+            for (int bufferSize = 2; bufferSize <= 8; bufferSize++) {
+                assertThat(readQueries(windowSize, bufferSize), is(expected));
+            }
+        }
+    }
+
+    @Test
+    void emptyFileContainsNoQueries() throws IOException {
+        assertThat(readQueries(MappedScriptSource.DEFAULT_WINDOW_SIZE, 8192), is(List.of()));
+    }
+
+    @Test
+    void positionIsSizeAfterAllCharactersHaveBeenRead() throws IOException {
+        Files.write(path, QueryReaderTest.SQL_INPUT.getBytes(StandardCharsets.UTF_8));
+        try (MappedScriptSource source = new MappedScriptSource(
+                path, StandardCharsets.UTF_8, 16
+        )) {
+            assertThat(source.getPosition(), is(0L));
+            new QueryReader(source, ';').readQueries();
+            assertThat(source.getPosition(), is(source.getSize()));
+            assertThat(source.getSize(), is(Files.size(path)));
+        }
+    }
+
+    @Test
+    void malformedInputIsReported() throws IOException {
+        Files.write(path, new byte[]{'S', ';', (byte) 0xC3, ';'});
+        assertThrows(
+                CharacterCodingException.class,
+                () -> readQueries(MappedScriptSource.DEFAULT_WINDOW_SIZE, 8192)
+        );
+    }
+
+    private List<String> readQueries(long windowSize, int bufferSize) throws IOException {
+        try (MappedScriptSource source = new MappedScriptSource(
+                path, StandardCharsets.UTF_8, windowSize
+        )) {
+            return new QueryReader(source, ';', bufferSize).readQueries();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package de.exlll.databaselib.sql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParsedScriptTest {
+    private static final String SCRIPT =
+            "CREATE TABLE %PREFIX%players (id INT);\n" +
+            "INSERT INTO %PREFIX%players VALUES (%ID%);\n" +
+            "SELECT * FROM %PREFIX%players WHERE id = %ID%;";
+
+    @Test
+    void parseRequiresNonNullArgs() {
+        assertThrows(NullPointerException.class,
+                () -> ParsedScript.parse((Reader) null, List.of()));
+        assertThrows(NullPointerException.class,
+                () -> ParsedScript.parse(new StringReader(SCRIPT), null));
+        assertThrows(NullPointerException.class,
+                () -> ParsedScript.parse((Path) null, List.of()));
+        String msg = assertThrows(NullPointerException.class,
+                () -> ParsedScript.parse(
+                        new StringReader(SCRIPT), Arrays.asList("%ID%", null)
+                )
+        ).getMessage();
+        assertThat(msg, is("Placeholders must not contain null."));
+    }
+
+    @Test
+    void parseReadsAllQueries() throws IOException {
+        ParsedScript script = parse(QueryReaderTest.SQL_INPUT);
+        assertThat(script.getQueryCount(), is(QueryReaderTest.QUERIES.size()));
+        assertThat(script.getQueries(Map.of()), is(QueryReaderTest.QUERIES));
+    }
+
+    @Test
+    void duplicateAndEmptyPlaceholdersAreRemoved() throws IOException {
+        ParsedScript script = ParsedScript.parse(
+                new StringReader(SCRIPT), List.of("%PREFIX%", "", "%ID%", "%PREFIX%")
+        );
+        assertThat(script.getPlaceholders(), is(List.of("%PREFIX%", "%ID%")));
+    }
+
+    @Test
+    void getQueriesReplacesPlaceholders() throws IOException {
+        ParsedScript script = parse(SCRIPT);
+        assertThat(script.getQueries(Map.of("%PREFIX%", "w1_", "%ID%", 1)), is(List.of(
+                "CREATE TABLE w1_players (id INT)",
+                "INSERT INTO w1_players VALUES (1)",
+                "SELECT * FROM w1_players WHERE id = 1"
+        )));
+        assertThat(script.getQueries(Map.of("%PREFIX%", "w2_", "%ID%", 2)), is(List.of(
+                "CREATE TABLE w2_players (id INT)",
+                "INSERT INTO w2_players VALUES (2)",
+                "SELECT * FROM w2_players WHERE id = 2"
+        )));
+    }
+
+    @Test
+    void getQueriesKeepsMissingPlaceholdersAndIgnoresOtherKeys() throws IOException {
+        ParsedScript script = parse(SCRIPT);
+        Map<String, Object> replacements = new HashMap<>();
+        replacements.put("%ID%", null);
+        replacements.put("players", "users");
+        assertThat(script.getQueries(replacements), is(List.of(
+                "CREATE TABLE %PREFIX%players (id INT)",
+                "INSERT INTO %PREFIX%players VALUES (null)",
+                "SELECT * FROM %PREFIX%players WHERE id = null"
+        )));
+    }
+
+    @Test
+    void getQueriesRequiresNonNullKeys() throws IOException {
+        ParsedScript script = parse(SCRIPT);
+        String msg = assertThrows(NullPointerException.class,
+                () -> script.getQueries(Collections.singletonMap(null, ""))
+        ).getMessage();
+        assertThat(msg, is("Map must not contain null keys."));
+    }
+
+    @Test
+    void placeholdersAreFoundLikeReplacementKeys() throws IOException {
+        String sql = "SELECT %T, %TABLE, %TAB FROM %TABLE%T";
+        List<String> placeholders = List.of("%T", "%TABLE", "%TAB");
+        Map<String, String> replacements = Map.of("%T", "a", "%TABLE", "b", "%TAB", "c");
+        ParsedScript script = ParsedScript.parse(new StringReader(sql), placeholders);
+        String expected = ReplacementMatcher.compile(replacements)
+                .replace(sql, new StringBuilder());
+        assertThat(script.getQueries(replacements), is(List.of(expected)));
+    }
+
+    @Test
+    void parseReadsFiles() throws IOException {
+        Path path = Files.createTempFile("script", ".sql");
+        try {
+            Files.write(path, SCRIPT.getBytes(StandardCharsets.UTF_8));
+            ParsedScript script = ParsedScript.parse(path, List.of("%PREFIX%", "%ID%"));
+            assertThat(script.getQueries(Map.of()), is(parse(SCRIPT).getQueries(Map.of())));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static ParsedScript parse(String sql) throws IOException {
+        return ParsedScript.parse(new StringReader(sql), List.of("%PREFIX%", "%ID%"));
+    }
+}
@@ -3,13 +3,16 @@ package de.exlll.databaselib.sql.util;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 class QueryReaderTest {
     public static final String SQL_INPUT = "CREATE TABLE IF NOT EXISTS `test`\n" +
@@ -76,4 +79,41 @@ class QueryReaderTest {
         queries.replaceAll(s -> s.replace(';', '|'));
         assertThat(reader.readQueries(), is(queries));
     }
-}
\ No newline at end of file
+
+    @Test
+    void readQueriesReadsAllQueriesWithAnyBufferSize() throws IOException {
+        for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+            QueryReader reader = new QueryReader(
+                    new StringReader(SQL_INPUT), ';', bufferSize
+            );
+            assertThat(reader.readQueries(), is(QUERIES));
+        }
+    }
+
+    @Test
+    void nextQuerySkipsEmptyQueries() throws IOException {
+        QueryReader reader = new QueryReader(
+                new StringReader(";SELECT 1;; \n ;SELECT 2\n"), ';'
+        );
+        assertThat(reader.nextQuery(), is("SELECT 1"));
+        assertThat(reader.nextQuery(), is("SELECT 2"));
+        assertThat(reader.nextQuery(), is(nullValue()));
+        assertThat(reader.nextQuery(), is(nullValue()));
+    }
+
+    @Test
+    void nextQueryOnlyReadsWhatItNeeds() throws IOException {
+        AtomicInteger readCount = new AtomicInteger();
+        Reader input = new StringReader("SELECT 1;" + "SELECT 2;".repeat(1000)) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int count = super.read(cbuf, off, len);
+                readCount.addAndGet(Math.max(count, 0));
+                return count;
+            }
+        };
+        QueryReader reader = new QueryReader(input, ';', 16);
+        assertThat(reader.nextQuery(), is("SELECT 1"));
+        assertThat(readCount.get(), is(16));
+    }
+}
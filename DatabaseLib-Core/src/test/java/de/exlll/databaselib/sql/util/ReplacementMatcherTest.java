@@ -0,0 +1,141 @@
+package de.exlll.databaselib.sql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ReplacementMatcherTest {
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Test
+    void emptyMatcherReturnsSameString() {
+        String query = "SELECT 1";
+        assertThat(ReplacementMatcher.EMPTY.isEmpty(), is(true));
+        assertThat(ReplacementMatcher.EMPTY.replace(query, buffer), sameInstance(query));
+    }
+
+    @Test
+    void stringWithoutKeysIsReturned() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(Map.of("%T", "table"));
+        String query = "SELECT * FROM %S";
+        assertThat(matcher.replace(query, buffer), sameInstance(query));
+    }
+
+    @Test
+    void allOccurrencesAreReplaced() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(
+                Map.of("%T", "table", "%C", "column")
+        );
+        assertThat(
+                matcher.replace("SELECT %C FROM %T WHERE %C = %C%T", buffer),
+                is("SELECT column FROM table WHERE column = columntable")
+        );
+    }
+
+    @Test
+    void longestKeyStartingAtSameIndexIsReplaced() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(
+                Map.of("%T", "a", "%TABLE", "b", "%TAB", "c")
+        );
+        assertThat(matcher.replace("%TABLE %TAB %TA %T", buffer), is("b c aA a"));
+    }
+
+    @Test
+    void leftmostKeyIsReplaced() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(
+                Map.of("bc", "1", "abcd", "2", "cde", "3")
+        );
+        assertThat(matcher.replace("abcd", buffer), is("2"));
+        assertThat(matcher.replace("abce", buffer), is("a1e"));
+        assertThat(matcher.replace("bcde", buffer), is("1de"));
+        assertThat(matcher.replace("xcde", buffer), is("x3"));
+    }
+
+    @Test
+    void replacementsAreNotSearchedAgain() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(
+                Map.of("a", "b", "b", "a")
+        );
+        assertThat(matcher.replace("abba", buffer), is("baab"));
+    }
+
+    @Test
+    void emptyKeysAreIgnored() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(Map.of("", "x"));
+        assertThat(matcher.isEmpty(), is(true));
+        assertThat(matcher.replace("abc", buffer), is("abc"));
+    }
+
+    @Test
+    void nullValuesAreReplacedWithNullString() {
+        Map<String, Object> replacements = new HashMap<>();
+        replacements.put("%V", null);
+        ReplacementMatcher matcher = ReplacementMatcher.compile(replacements);
+        assertThat(matcher.replace("SELECT %V", buffer), is("SELECT null"));
+    }
+
+    @Test
+    void nonAsciiKeysAreReplaced() {
+        ReplacementMatcher matcher = ReplacementMatcher.compile(
+                Map.of("\u00e4\u20ac", "x", "\ud83d\ude00", "y")
+        );
+        assertThat(
+                matcher.replace("\u00e4\u00e4\u20ac\u20ac\ud83d\ude00\u00e4", buffer),
+                is("\u00e4x\u20acy\u00e4")
+        );
+    }
+
+    @Test
+    void matchesNaiveImplementation() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            Map<String, String> replacements = new HashMap<>();
+            int keyCount = 1 + random.nextInt(5);
+            for (int i = 0; i < keyCount; i++) {
+                replacements.put(randomString(random, 1 + random.nextInt(4)), "<" + i + ">");
+            }
+            ReplacementMatcher matcher = ReplacementMatcher.compile(replacements);
+            String string = randomString(random, random.nextInt(30));
+            assertThat(
+                    replacements + " " + string,
+                    matcher.replace(string, buffer),
+                    is(replaceNaive(string, replacements))
+            );
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+
+    private static String replaceNaive(String string, Map<String, String> replacements) {
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < string.length()) {
+            String longest = null;
+            for (String key : replacements.keySet()) {
+                if (string.startsWith(key, i) &&
+                        ((longest == null) || (key.length() > longest.length()))) {
+                    longest = key;
+                }
+            }
+            if (longest == null) {
+                builder.append(string.charAt(i++));
+            } else {
+                builder.append(replacements.get(longest));
+                i += longest.length();
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -1,11 +1,21 @@
 package de.exlll.databaselib.sql.util;
 
 import de.exlll.databaselib.sql.DummyConnection;
+import de.exlll.databaselib.sql.DummyConnection.DummyStatement;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -27,9 +37,15 @@ class ScriptRunnerTest {
     @Test
     void constructorRequiresNonNullArgs() {
         assertThrows(NullPointerException.class,
-                () -> new ScriptRunner(null, connection));
+                () -> new ScriptRunner((Reader) null, connection));
         assertThrows(NullPointerException.class,
                 () -> new ScriptRunner(reader, null));
+        assertThrows(NullPointerException.class,
+                () -> new ScriptRunner((Path) null, connection));
+        assertThrows(NullPointerException.class,
+                () -> new ScriptRunner(Paths.get("script.sql"), null, connection));
+        assertThrows(NullPointerException.class,
+                () -> new ScriptRunner((ParsedScript) null, connection));
     }
 
     @Test
@@ -53,6 +69,201 @@ class ScriptRunnerTest {
         assertThat(executedQueries, is(QueryReaderTest.QUERIES));
     }
 
+    @Test
+    void runScriptExecutesQueriesAsSoonAsTheyAreRead() {
+        DummyConnection connection = new DummyConnection();
+        Reader reader = new Reader() {
+            private boolean read;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (read) {
+                    throw new IOException();
+                }
+                read = true;
+                "SELECT 1;SELECT 2;".getChars(0, 18, cbuf, off);
+                return 18;
+            }
+
+            @Override
+            public void close() {}
+        };
+        runner = new ScriptRunner(reader, connection);
+        assertThrows(IOException.class, runner::runScript);
+        List<String> executedQueries = connection.getLastStatement()
+                .getExecutedQueries();
+        assertThat(executedQueries, is(Arrays.asList("SELECT 1", "SELECT 2")));
+    }
+
+    @Test
+    void runScriptExecutesQueriesOfFile() throws Exception {
+        Path path = Files.createTempFile("script", ".sql");
+        try {
+            Files.write(path, QueryReaderTest.SQL_INPUT.getBytes(StandardCharsets.UTF_8));
+            List<ScriptProgress> progresses = new ArrayList<>();
+            new ScriptRunner(path, connection)
+                    .setProgressListener(progresses::add)
+                    .runScript();
+            List<String> executedQueries = connection.getLastStatement()
+                    .getExecutedQueries();
+            assertThat(executedQueries, is(QueryReaderTest.QUERIES));
+
+            ScriptProgress progress = progresses.get(progresses.size() - 1);
+            assertThat(progress.isDone(), is(true));
+            assertThat(progress.getExecutedQueryCount(), is(10L));
+            assertThat(progress.getBytesRead(), is(Files.size(path)));
+            assertThat(progress.getTotalBytes(), is(Files.size(path)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void runScriptReportsProgressAfterEachIntervalAndWhenDone() throws Exception {
+        List<ScriptProgress> progresses = new ArrayList<>();
+        runner.setProgressListener(progresses::add)
+                .setProgressInterval(Duration.ZERO)
+                .runScript();
+        assertThat(progresses.size(), is(11));
+        for (int i = 0; i < 10; i++) {
+            assertThat(progresses.get(i).getExecutedQueryCount(), is(i + 1L));
+            assertThat(progresses.get(i).isDone(), is(false));
+        }
+        ScriptProgress progress = progresses.get(10);
+        assertThat(progress.isDone(), is(true));
+        assertThat(progress.getBytesRead(), is(-1L));
+        assertThat(progress.getBytesPerSecond(), is(-1.0));
+    }
+
+    @Test
+    void setProgressIntervalRequiresNonNegativeInterval() {
+        assertThrows(NullPointerException.class,
+                () -> runner.setProgressInterval(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> runner.setProgressInterval(Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void setProgressListenerRequiresNonNullListener() {
+        assertThrows(NullPointerException.class,
+                () -> runner.setProgressListener(null));
+    }
+
+    @Test
+    void batchSizeGroupsConsecutiveDmlQueries() throws Exception {
+        String script = "CREATE TABLE t (a INT);" +
+                "INSERT INTO t VALUES (1);INSERT INTO t VALUES (2);" +
+                "insert INTO t VALUES (3);UPDATE t SET a = 4;" +
+                "SELECT * FROM t;DELETE FROM t;INSERTS;";
+        List<ScriptProgress> progresses = new ArrayList<>();
+        new ScriptRunner(new StringReader(script), connection)
+                .setBatchSize(2)
+                .setProgressListener(progresses::add)
+                .runScript();
+        DummyStatement statement = connection.getLastStatement();
+        assertThat(statement.getExecutedQueries(), is(Arrays.asList(
+                "CREATE TABLE t (a INT)", "SELECT * FROM t", "INSERTS"
+        )));
+        assertThat(statement.getExecutedBatches(), is(Arrays.asList(
+                Arrays.asList("INSERT INTO t VALUES (1)", "INSERT INTO t VALUES (2)"),
+                Arrays.asList("insert INTO t VALUES (3)", "UPDATE t SET a = 4"),
+                Collections.singletonList("DELETE FROM t")
+        )));
+        assertThat(progresses.get(progresses.size() - 1).getExecutedQueryCount(), is(8L));
+    }
+
+    @Test
+    void isDmlDetectsDmlKeywords() {
+        assertThat(ScriptRunner.isDml("INSERT INTO t VALUES (1)"), is(true));
+        assertThat(ScriptRunner.isDml("update t SET a = 1"), is(true));
+        assertThat(ScriptRunner.isDml("Delete FROM t"), is(true));
+        assertThat(ScriptRunner.isDml("REPLACE INTO t VALUES (1)"), is(true));
+        assertThat(ScriptRunner.isDml("MERGE INTO t USING u ON t.a = u.a"), is(true));
+        assertThat(ScriptRunner.isDml("INSERT"), is(true));
+        assertThat(ScriptRunner.isDml("INSERTS"), is(false));
+        assertThat(ScriptRunner.isDml("SELECT 1"), is(false));
+        assertThat(ScriptRunner.isDml("CREATE TABLE t (a INT)"), is(false));
+    }
+
+    @Test
+    void commitIntervalCommitsTransactions() throws Exception {
+        String script = "INSERT INTO t VALUES (1);INSERT INTO t VALUES (2);" +
+                "INSERT INTO t VALUES (3);INSERT INTO t VALUES (4);" +
+                "INSERT INTO t VALUES (5);";
+        new ScriptRunner(new StringReader(script), connection)
+                .setCommitInterval(2)
+                .runScript();
+        assertThat(connection.getCommitCount(), is(3));
+        assertThat(connection.getAutoCommit(), is(true));
+    }
+
+    @Test
+    void commitIntervalCommitsAfterBatches() throws Exception {
+        String script = "INSERT INTO t VALUES (1);INSERT INTO t VALUES (2);" +
+                "INSERT INTO t VALUES (3);INSERT INTO t VALUES (4);" +
+                "INSERT INTO t VALUES (5);";
+        new ScriptRunner(new StringReader(script), connection)
+                .setBatchSize(3)
+                .setCommitInterval(2)
+                .runScript();
+        assertThat(connection.getLastStatement().getExecutedBatches().size(), is(2));
+        assertThat(connection.getCommitCount(), is(2));
+    }
+
+    @Test
+    void failingQueryRollsBackTransactionAndRestoresSettings() {
+        DummyConnection connection = new DummyConnection() {
+            @Override
+            public Statement createStatement() {
+                Statement statement = super.createStatement();
+                return (Statement) Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[]{Statement.class},
+                        (proxy, method, args) -> {
+                            if ((args != null) && "FAIL".equals(args[0])) {
+                                throw new SQLException("FAIL");
+                            }
+                            return method.invoke(statement, args);
+                        }
+                );
+            }
+        };
+        connection.setDatabaseProductName("MySQL");
+        String script = "INSERT INTO t VALUES (1);INSERT INTO t VALUES (2);" +
+                "INSERT INTO t VALUES (3);FAIL;";
+        ScriptRunner runner = new ScriptRunner(new StringReader(script), connection)
+                .setCommitInterval(2)
+                .setRelaxConstraintChecks(true);
+        assertThrows(SQLException.class, runner::runScript);
+        assertThat(connection.getCommitCount(), is(1));
+        assertThat(connection.getRollbackCount(), is(1));
+        assertThat(connection.getAutoCommit(), is(true));
+        List<String> executedQueries = connection.getLastStatement().getExecutedQueries();
+        assertThat(executedQueries.get(executedQueries.size() - 1), is("SET FOREIGN_KEY_CHECKS = 1"));
+    }
+
+    @Test
+    void relaxConstraintChecksUsesQueriesOfDialect() throws Exception {
+        connection.setDatabaseProductName("MySQL");
+        new ScriptRunner(new StringReader("INSERT INTO t VALUES (1);"), connection)
+                .setRelaxConstraintChecks(true)
+                .runScript();
+        assertThat(connection.getLastStatement().getExecutedQueries(), is(Arrays.asList(
+                "SET FOREIGN_KEY_CHECKS = 0",
+                "SET UNIQUE_CHECKS = 0",
+                "INSERT INTO t VALUES (1)",
+                "SET UNIQUE_CHECKS = 1",
+                "SET FOREIGN_KEY_CHECKS = 1"
+        )));
+    }
+
+    @Test
+    void batchSizeAndCommitIntervalMustNotBeNegative() {
+        assertThrows(IllegalArgumentException.class, () -> runner.setBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> runner.setCommitInterval(-1));
+        runner.setBatchSize(1).setCommitInterval(0);
+    }
+
     @Test
     void runScriptAppliesReplacements() throws Exception {
         final String query = "SELECT %X% FROM %Y% WHERE name = '%X%'";
@@ -66,6 +277,38 @@ class ScriptRunnerTest {
         );
     }
 
+    @Test
+    void runScriptExecutesParsedScriptWithDifferentReplacements() throws Exception {
+        ParsedScript script = ParsedScript.parse(
+                new StringReader("SELECT %X% FROM %Y% WHERE name = '%X%'"),
+                List.of("%X%", "%Y%")
+        );
+        for (int i = 0; i < 2; i++) {
+            DummyConnection connection = new DummyConnection();
+            new ScriptRunner(script, connection)
+                    .setReplacements(mapOf("%X%", "TEST" + i))
+                    .runScript();
+            assertThat(connection.getLastStatement().getExecutedQueries(), is(List.of(
+                    "SELECT TEST" + i + " FROM %Y% WHERE name = 'TEST" + i + "'"
+            )));
+        }
+    }
+
+    @Test
+    void runScriptExecutesParsedScriptInBatches() throws Exception {
+        ParsedScript script = ParsedScript.parse(
+                new StringReader("INSERT INTO %T% VALUES (1);INSERT INTO %T% VALUES (2);"),
+                List.of("%T%")
+        );
+        new ScriptRunner(script, connection)
+                .setReplacements(mapOf("%T%", "t"))
+                .setBatchSize(2)
+                .runScript();
+        assertThat(connection.getLastStatement().getExecutedBatches(), is(List.of(List.of(
+                "INSERT INTO t VALUES (1)", "INSERT INTO t VALUES (2)"
+        ))));
+    }
+
     private void testReplacements(
             String query, Map<String, ?> replacements, String expectedResult
     ) throws Exception {
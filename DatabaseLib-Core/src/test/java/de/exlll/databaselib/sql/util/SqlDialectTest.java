@@ -0,0 +1,55 @@
+package de.exlll.databaselib.sql.util;
+
+import de.exlll.databaselib.sql.DummyConnection;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SqlDialectTest {
+    @Test
+    void ofProductNameDetectsDialect() {
+        assertThat(SqlDialect.ofProductName("MySQL"), is(SqlDialect.MYSQL));
+        assertThat(SqlDialect.ofProductName("MariaDB"), is(SqlDialect.MARIADB));
+        assertThat(SqlDialect.ofProductName("5.5.5-10.6.12-MariaDB-MySQL"), is(SqlDialect.MARIADB));
+        assertThat(SqlDialect.ofProductName("PostgreSQL"), is(SqlDialect.POSTGRESQL));
+        assertThat(SqlDialect.ofProductName("H2"), is(SqlDialect.OTHER));
+        assertThat(SqlDialect.ofProductName(null), is(SqlDialect.OTHER));
+    }
+
+    @Test
+    void ofReadsProductNameOfConnection() throws SQLException {
+        DummyConnection connection = new DummyConnection();
+        connection.setDatabaseProductName("PostgreSQL");
+        assertThat(SqlDialect.of(connection), is(SqlDialect.POSTGRESQL));
+    }
+
+    @Test
+    void mysqlStreamsWithMinValueFetchSize() {
+        assertThat(SqlDialect.MYSQL.getStreamingFetchSize(100), is(Integer.MIN_VALUE));
+        assertThat(SqlDialect.MARIADB.getStreamingFetchSize(100), is(100));
+        assertThat(SqlDialect.POSTGRESQL.getStreamingFetchSize(100), is(100));
+    }
+
+    @Test
+    void onlyPostgresqlStreamsInTransactions() {
+        assertThat(SqlDialect.POSTGRESQL.isStreamingTransactional(), is(true));
+        assertThat(SqlDialect.MYSQL.isStreamingTransactional(), is(false));
+        assertThat(SqlDialect.OTHER.isStreamingTransactional(), is(false));
+    }
+
+    @Test
+    void constraintChecksAreRelaxedPerDialect() {
+        assertThat(SqlDialect.MYSQL.getDisableConstraintChecksQueries(),
+                is(List.of("SET FOREIGN_KEY_CHECKS = 0", "SET UNIQUE_CHECKS = 0")));
+        assertThat(SqlDialect.MARIADB.getEnableConstraintChecksQueries(),
+                is(List.of("SET UNIQUE_CHECKS = 1", "SET FOREIGN_KEY_CHECKS = 1")));
+        assertThat(SqlDialect.POSTGRESQL.getDisableConstraintChecksQueries(),
+                is(List.of("SET session_replication_role = replica")));
+        assertThat(SqlDialect.OTHER.getDisableConstraintChecksQueries(), is(List.of()));
+        assertThat(SqlDialect.OTHER.getEnableConstraintChecksQueries(), is(List.of()));
+    }
+}
@@ -80,6 +80,36 @@ project(":databaselib-bungee") {
     }
 }
 
+project(":databaselib-benchmarks") {
+    dependencies {
+        implementation(project(":databaselib-core"))
+        implementation(project(":databaselib-core").sourceSets["test"].output)
+        implementation("org.openjdk.jmh:jmh-core:1.37")
+        annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+        runtimeOnly("com.h2database:h2:2.2.224")
+    }
+    tasks.withType<PublishToMavenRepository>().configureEach {
+        enabled = false
+    }
+    // Runs all benchmarks whose name matches -Pjmh.include (default: all)
+    // and reports the allocations per operation using the GC profiler.
+    tasks.register<JavaExec>("jmh") {
+        group = "benchmark"
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        args(project.findProperty("jmh.include") as String? ?: ".*", "-prof", "gc")
+    }
+    // Runs the load simulator with the options passed as -Psimulation.args,
+    // e.g. -Psimulation.args="--players=500 --pool-size=5"
+    tasks.register<JavaExec>("simulate") {
+        group = "benchmark"
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("de.exlll.databaselib.simulation.LoadSimulator")
+        val simulationArgs = project.findProperty("simulation.args") as String? ?: ""
+        args(simulationArgs.split(" ").filter { it.isNotBlank() })
+    }
+}
+
 configure(listOf(project(":databaselib-bukkit"), project(":databaselib-bungee"))) {
     dependencies {
         implementation(project(":databaselib-core"))
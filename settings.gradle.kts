@@ -6,3 +6,5 @@ findProject(":DatabaseLib-Bukkit")?.name = "databaselib-bukkit"
 include("DatabaseLib-Bungee")
 findProject(":DatabaseLib-Bungee")?.name = "databaselib-bungee"
 
+include("DatabaseLib-Benchmarks")
+findProject(":DatabaseLib-Benchmarks")?.name = "databaselib-benchmarks"